@@ -0,0 +1,176 @@
+package core.game;
+
+import core.Types;
+import core.actions.Action;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Random;
+
+/**
+ * Game states used by the benchmarks. States are created from a level (generated from a seed, or read from
+ * a csv file in levels/) and advanced with random actions from a fixed seed, so every run of a benchmark
+ * measures the same states.
+ */
+public class BenchStates
+{
+    /**
+     * Stages of the game at which states are taken, given by the tick of the game.
+     */
+    public enum Stage
+    {
+        EARLY(0),
+        MID(10),
+        LATE(25);
+
+        private final int tick;
+        Stage(int tick) { this.tick = tick; }
+        public int getTick() { return tick; }
+    }
+
+    //Seed of the random actions played to reach the later stages of the game.
+    public static final long PLAY_SEED = 1590191438878L;
+
+    //Tribes used when the level is generated from a seed.
+    public static final Types.TRIBE[] TRIBES = new Types.TRIBE[]{Types.TRIBE.XIN_XI, Types.TRIBE.IMPERIUS};
+
+    //Maximum number of actions played in a turn before ending it.
+    private static final int MAX_ACTIONS_TURN = 50;
+
+    //Probability of ending the turn when there are other actions available.
+    private static final double END_TURN_PROB = 0.1;
+
+    //Actions that are never played: ending the turn is decided apart, and the others only make the game slower.
+    private static final EnumSet<Types.ACTION> EXCLUDED = EnumSet.of(Types.ACTION.END_TURN, Types.ACTION.DESTROY, Types.ACTION.DISBAND);
+
+    /**
+     * Creates a game state for a level at a given stage of the game. Actions of the active tribe are computed.
+     * @param level seed for the level generator, or path to a csv file with the level.
+     * @param stage stage of the game.
+     * @return the game state.
+     */
+    public static GameState create(String level, Stage stage)
+    {
+        GameState gs = init(level);
+        Random rnd = new Random(PLAY_SEED);
+
+        //Copy at the start of the last turn, in case the game ends before reaching the stage required.
+        GameState turnStart = gs.copy();
+        int actionsTurn = 0;
+        while(gs.getTick() < stage.getTick())
+        {
+            Action action = nextAction(gs, rnd, actionsTurn);
+            boolean endTurn = action.getActionType() == Types.ACTION.END_TURN;
+            step(gs, action);
+            if(gs.isGameOver())
+                return turnStart;
+
+            actionsTurn++;
+            if(endTurn)
+            {
+                turnStart = gs.copy();
+                actionsTurn = 0;
+            }
+        }
+        return gs;
+    }
+
+    /**
+     * Finds, for each type of action, a game state in which an action of that type is available. States are
+     * taken from random games played in a level, until all types have been found or maxGames have been played.
+     * @param level seed for the level generator, or path to a csv file with the level.
+     * @param maxGames maximum number of games played.
+     * @return samples found, indexed by action type.
+     */
+    static EnumMap<Types.ACTION, ActionSample> findActionSamples(String level, int maxGames)
+    {
+        EnumMap<Types.ACTION, ActionSample> samples = new EnumMap<>(Types.ACTION.class);
+        Random rnd = new Random(PLAY_SEED);
+        for(int game = 0; game < maxGames && samples.size() < Types.ACTION.values().length; ++game)
+        {
+            GameState gs = init(level);
+            int actionsTurn = 0;
+            while(!gs.isGameOver())
+            {
+                for(Action act : gs.getAllAvailableActions())
+                {
+                    if(!samples.containsKey(act.getActionType()))
+                        samples.put(act.getActionType(), new ActionSample(gs.copy(), act));
+                }
+
+                Action action = nextAction(gs, rnd, actionsTurn);
+                actionsTurn = (action.getActionType() == Types.ACTION.END_TURN) ? 0 : actionsTurn + 1;
+                step(gs, action);
+            }
+        }
+        return samples;
+    }
+
+    private static GameState init(String level)
+    {
+        GameState gs = new GameState(new Random(PLAY_SEED), Types.GAME_MODE.CAPITALS);
+        if(level.endsWith(".csv"))
+            gs.init(level);
+        else
+            gs.init(Long.parseLong(level), TRIBES);
+        gs.computePlayerActions(gs.getTribe(0));
+        return gs;
+    }
+
+    /**
+     * Picks the next action to play: the turn ends with a small probability, or when too many actions have
+     * been played in this turn.
+     */
+    private static Action nextAction(GameState gs, Random rnd, int actionsTurn)
+    {
+        Action endTurn = null;
+        for(Action act : gs.getTribeActions())
+        {
+            if(act.getActionType() == Types.ACTION.END_TURN)
+                endTurn = act;
+        }
+
+        if(endTurn != null && (actionsTurn >= MAX_ACTIONS_TURN || rnd.nextDouble() < END_TURN_PROB))
+            return endTurn;
+
+        Action action = gs.getRandomAction(rnd, EXCLUDED);
+        if(action == null)
+            action = (endTurn != null) ? endTurn : gs.getRandomAction(rnd);
+        return action;
+    }
+
+    /**
+     * Advances the game state with an action, increasing the tick when all tribes have played their turns.
+     */
+    private static void step(GameState gs, Action action)
+    {
+        int tribeId = gs.getActiveTribeID();
+        gs.advance(action, true);
+        if(action.getActionType() == Types.ACTION.END_TURN && gs.getActiveTribeID() <= tribeId)
+            gs.incTick();
+    }
+
+    /**
+     * A game state and an action available in it.
+     */
+    static class ActionSample
+    {
+        final GameState state;
+        final Action action;
+
+        ActionSample(GameState state, Action action)
+        {
+            this.state = state;
+            this.action = action;
+        }
+    }
+
+    public static ArrayList<Integer> getTribeIds(GameState gs)
+    {
+        ArrayList<Integer> ids = new ArrayList<>();
+        for(int i = 0; i < gs.getTribes().length; ++i)
+            ids.add(i);
+        return ids;
+    }
+}
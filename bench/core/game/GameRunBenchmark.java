@@ -0,0 +1,52 @@
+package core.game;
+
+import core.Types;
+import org.openjdk.jmh.annotations.*;
+import players.Agent;
+import players.RandomAgent;
+import players.SimpleAgent;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full game without visuals, from the initialization of the level to the end of the game.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameRunBenchmark
+{
+    @Param({"1590191438878"})
+    public String level;
+
+    @Param({"Random", "Simple"})
+    public String agents;
+
+    private static final long GAME_SEED = 1590191438878L;
+
+    @Benchmark
+    public Game run()
+    {
+        ArrayList<Agent> players = new ArrayList<>();
+        for(int i = 0; i < BenchStates.TRIBES.length; ++i)
+            players.add(agents.equals("Simple") ? new SimpleAgent(GAME_SEED + i) : new RandomAgent(GAME_SEED + i));
+
+        Game game = new Game();
+        GameSettings settings = new GameSettings();
+        settings.VISUALS = false;
+        settings.VERBOSE = false;
+        settings.WRITE_SAVEGAMES = false;
+        game.setSettings(settings);
+
+        if(level.endsWith(".csv"))
+            game.init(players, level, GAME_SEED, Types.GAME_MODE.CAPITALS);
+        else
+            game.init(players, Long.parseLong(level), BenchStates.TRIBES, GAME_SEED, Types.GAME_MODE.CAPITALS);
+        game.run(null, null);
+        return game;
+    }
+}
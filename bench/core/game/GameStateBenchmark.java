@@ -0,0 +1,116 @@
+package core.game;
+
+import core.Types;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.EnumMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the forward model: copies of the game state, computation of the available actions and
+ * execution of actions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameStateBenchmark
+{
+    /**
+     * States at different stages of the game, for copies and action computation.
+     */
+    @State(Scope.Benchmark)
+    public static class StageState
+    {
+        @Param({"1590191438878", "levels/SampleLevel2p.csv"})
+        public String level;
+
+        @Param({"EARLY", "MID", "LATE"})
+        public BenchStates.Stage stage;
+
+        GameState gs;
+        GameState toCompute;
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            gs = BenchStates.create(level, stage);
+        }
+
+        @Setup(Level.Invocation)
+        public void prepareCompute()
+        {
+            //Actions of a fresh copy are computed from scratch.
+            toCompute = gs.copy();
+            toCompute.getBoard().getChanges().allChanged();
+        }
+    }
+
+    /**
+     * A state in which an action of a given type is available, for the execution of that action.
+     */
+    @State(Scope.Benchmark)
+    public static class AdvanceState
+    {
+        @Param({"1590191438878"})
+        public String level;
+
+        @Param({"BUILD", "BURN_FOREST", "CLEAR_FOREST", "DESTROY", "GROW_FOREST", "LEVEL_UP", "RESOURCE_GATHERING", "SPAWN",
+                "BUILD_ROAD", "END_TURN", "RESEARCH_TECH",
+                "ATTACK", "CAPTURE", "CONVERT", "DISBAND", "EXAMINE", "HEAL_OTHERS", "MAKE_VETERAN", "MOVE", "RECOVER",
+                "UPGRADE_BOAT", "UPGRADE_SHIP"})
+        public Types.ACTION actionType;
+
+        BenchStates.ActionSample sample;
+        GameState gs;
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            EnumMap<Types.ACTION, BenchStates.ActionSample> samples = BenchStates.findActionSamples(level, 20);
+            sample = samples.get(actionType);
+            if(sample == null)
+                throw new IllegalStateException("No state found with an action of type " + actionType + " in level " + level);
+        }
+
+        @Setup(Level.Invocation)
+        public void prepareAdvance()
+        {
+            gs = sample.state.copy();
+        }
+    }
+
+    @Benchmark
+    public GameState copyFull(StageState s)
+    {
+        return s.gs.copy(-1);
+    }
+
+    @Benchmark
+    public GameState copyForPlayer(StageState s)
+    {
+        return s.gs.copy(s.gs.getActiveTribeID());
+    }
+
+    @Benchmark
+    public int computePlayerActions(StageState s)
+    {
+        s.toCompute.computePlayerActions(s.toCompute.getActiveTribe());
+        return s.toCompute.getNumAvailableActions();
+    }
+
+    @Benchmark
+    public GameState advance(AdvanceState s)
+    {
+        s.gs.advance(s.sample.action, false);
+        return s.gs;
+    }
+
+    @Benchmark
+    public GameState advanceAndCompute(AdvanceState s)
+    {
+        s.gs.advance(s.sample.action, true);
+        return s.gs;
+    }
+}
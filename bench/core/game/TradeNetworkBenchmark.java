@@ -0,0 +1,42 @@
+package core.game;
+
+import core.actors.Tribe;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the computation of the trade network of a tribe.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TradeNetworkBenchmark
+{
+    @Param({"1590191438878", "levels/SampleLevel2p.csv"})
+    public String level;
+
+    @Param({"EARLY", "MID", "LATE"})
+    public BenchStates.Stage stage;
+
+    private Board board;
+    private Tribe tribe;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        GameState gs = BenchStates.create(level, stage);
+        board = gs.getBoard();
+        tribe = gs.getActiveTribe();
+    }
+
+    @Benchmark
+    public Board computeTradeNetworkTribe()
+    {
+        board.getTradeNetwork().computeTradeNetworkTribe(board, tribe);
+        return board;
+    }
+}
@@ -0,0 +1,61 @@
+package players.heuristics;
+
+import core.game.BenchStates;
+import core.game.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the evaluation of game states by the heuristics used by the agents.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeuristicBenchmark
+{
+    @Param({"1590191438878"})
+    public String level;
+
+    @Param({"EARLY", "MID", "LATE"})
+    public BenchStates.Stage stage;
+
+    private GameState gsOld, gsNew;
+    private StateHeuristic simple, diff, entropy;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        //Heuristics that compare states get the state at the start of the game as the old one.
+        gsOld = BenchStates.create(level, BenchStates.Stage.EARLY);
+        gsNew = BenchStates.create(level, stage);
+
+        int playerID = gsNew.getActiveTribeID();
+        ArrayList<Integer> allIds = BenchStates.getTribeIds(gsNew);
+        simple = new TribesSimpleHeuristic(playerID, allIds);
+        diff = new TribesDiffHeuristic(playerID, allIds);
+        entropy = new TribesEntropyHeuristic(playerID, allIds);
+    }
+
+    @Benchmark
+    public double simpleHeuristic()
+    {
+        return simple.evaluateState(gsNew);
+    }
+
+    @Benchmark
+    public double diffHeuristic()
+    {
+        return diff.evaluateState(gsOld, gsNew);
+    }
+
+    @Benchmark
+    public double entropyHeuristic()
+    {
+        return entropy.evaluateState(gsOld, gsNew);
+    }
+}
@@ -0,0 +1,82 @@
+package utils.graph;
+
+import core.actions.unitactions.StepMove;
+import core.actors.City;
+import core.actors.Tribe;
+import core.actors.units.Unit;
+import core.game.BenchStates;
+import core.game.GameState;
+import org.openjdk.jmh.annotations.*;
+import utils.IntList;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the searches for the moves of a unit: all the destinations reachable (Dijkstra) and the path
+ * to the farthest of them (A*).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathfinderBenchmark
+{
+    @Param({"1590191438878", "levels/SampleLevel2p.csv"})
+    public String level;
+
+    @Param({"EARLY", "MID", "LATE"})
+    public BenchStates.Stage stage;
+
+    private Unit unit;
+    private StepMove stepMove;
+    private PathNode farthest;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        GameState gs = BenchStates.create(level, stage);
+        unit = findUnit(gs);
+        stepMove = new StepMove(gs, unit);
+
+        for(PathNode node : new Pathfinder(unit.getPosition(), stepMove).findPaths())
+        {
+            if(farthest == null || node.getTotalCost() > farthest.getTotalCost())
+                farthest = node;
+        }
+        if(farthest == null)
+            throw new IllegalStateException("Unit " + unit.getActorId() + " can't move in level " + level + ", stage " + stage);
+    }
+
+    @Benchmark
+    public ArrayList<PathNode> findPaths()
+    {
+        return new Pathfinder(unit.getPosition(), stepMove).findPaths();
+    }
+
+    @Benchmark
+    public ArrayList<PathNode> findPathTo()
+    {
+        return new Pathfinder(unit.getPosition(), stepMove).findPathTo(farthest.getPosition());
+    }
+
+    /**
+     * Returns the first unit of the active tribe.
+     */
+    private static Unit findUnit(GameState gs)
+    {
+        Tribe tribe = gs.getActiveTribe();
+        IntList cities = tribe.getCitiesID();
+        for(int i = 0; i < cities.size(); i++)
+        {
+            City city = (City) gs.getActor(cities.get(i));
+            if(!city.getUnitsID().isEmpty())
+                return (Unit) gs.getActor(city.getUnitsID().get(0));
+        }
+        if(!tribe.getExtraUnits().isEmpty())
+            return (Unit) gs.getActor(tribe.getExtraUnits().get(0));
+        throw new IllegalStateException("The active tribe has no units.");
+    }
+}
@@ -0,0 +1,119 @@
+package utils.graph;
+
+import core.actions.unitactions.StepMove;
+import core.actors.units.Unit;
+import core.game.BenchStates;
+import core.game.Board;
+import core.game.GameState;
+import utils.Vector2d;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regression check of the searches of the Pathfinder. For every unit in the benchmark states (see BenchStates) of
+ * several levels, it finds all the destinations reachable (Dijkstra) and the paths to the tiles around the unit
+ * (A*), and compares them with the results recorded in a corpus file. The corpus was recorded with the original
+ * Pathfinder (before searches ran on a SearchWorkspace), so it checks that both give the same moves, in the same
+ * order: agents pick moves by their index, so a different order changes how seeded agents play.
+ *
+ * Run from the root of the project. With "record" as first argument, the corpus is written again with the current
+ * Pathfinder instead: only needed if the states themselves change (i.e. the forward model plays random actions
+ * differently), after checking that the results are still correct.
+ */
+public class PathfinderRegression
+{
+    //File with the results expected, one line per unit and state.
+    private static final String CORPUS = "bench/utils/graph/pathfinder-corpus.txt";
+
+    //Levels checked: the ones of the benchmarks, plus some more generated from seeds.
+    private static final String[] LEVELS = {"1590191438878", "levels/SampleLevel2p.csv", "1590191438879",
+            "1590191438880", "1590191438881", "1590191438882", "1590191438883", "1590191438884"};
+
+    //Distance from the unit of the goals checked with A*.
+    private static final int GOAL_RANGE = 4;
+
+    public static void main(String[] args) throws IOException
+    {
+        core.Constants.VISUALS = false;
+        ArrayList<String> results = new ArrayList<>();
+        for(String level : LEVELS)
+            for(BenchStates.Stage stage : BenchStates.Stage.values())
+                addResults(level, stage, results);
+
+        if(args.length > 0 && args[0].equals("record"))
+        {
+            Files.write(Paths.get(CORPUS), results);
+            System.out.println("Recorded " + results.size() + " units in " + CORPUS);
+            return;
+        }
+
+        List<String> expected = Files.readAllLines(Paths.get(CORPUS));
+        int failures = 0;
+        for(int i = 0; i < Math.max(expected.size(), results.size()); i++)
+        {
+            String exp = i < expected.size() ? expected.get(i) : "(none)";
+            String got = i < results.size() ? results.get(i) : "(none)";
+            if(!exp.equals(got))
+            {
+                failures++;
+                System.out.println("Expected: " + exp);
+                System.out.println("Found:    " + got);
+            }
+        }
+        System.out.println(results.size() + " units checked, " + failures + " failures.");
+        if(failures > 0)
+            System.exit(1);
+    }
+
+    /**
+     * Adds a line to 'results' for each unit in the state of a level at a stage of the game: level, stage, unit
+     * and position, destinations found by findPaths() in the order they are returned and, for each tile at
+     * GOAL_RANGE or less (by rows), the nodes of the path found by findPathTo() or "null" if there is none.
+     * Nodes are written as x,y,cost.
+     */
+    private static void addResults(String level, BenchStates.Stage stage, ArrayList<String> results)
+    {
+        GameState gs = BenchStates.create(level, stage);
+        Board board = gs.getBoard();
+        int size = board.getSize();
+        for(int x = 0; x < size; x++)
+        {
+            for(int y = 0; y < size; y++)
+            {
+                Unit unit = board.getUnitAt(x, y);
+                if(unit == null)
+                    continue;
+
+                StringBuilder sb = new StringBuilder();
+                sb.append(level).append(' ').append(stage).append(' ').append(unit.getActorId())
+                        .append(" (").append(x).append(',').append(y).append(") ");
+
+                appendNodes(sb, new Pathfinder(unit.getPosition(), new StepMove(gs, unit)).findPaths());
+
+                for(int gx = Math.max(0, x - GOAL_RANGE); gx <= Math.min(size - 1, x + GOAL_RANGE); gx++)
+                {
+                    for(int gy = Math.max(0, y - GOAL_RANGE); gy <= Math.min(size - 1, y + GOAL_RANGE); gy++)
+                    {
+                        Pathfinder pf = new Pathfinder(unit.getPosition(), new StepMove(gs, unit));
+                        appendNodes(sb, pf.findPathTo(new Vector2d(gx, gy)));
+                    }
+                }
+                results.add(sb.toString());
+            }
+        }
+    }
+
+    private static void appendNodes(StringBuilder sb, ArrayList<PathNode> nodes)
+    {
+        if(nodes == null)
+            sb.append("null");
+        else
+            for(PathNode node : nodes)
+                sb.append(node.getX()).append(',').append(node.getY()).append(',').append(node.getTotalCost()).append(';');
+        sb.append(' ');
+    }
+}
@@ -1,5 +1,6 @@
 import core.Types;
 import core.game.Game;
+import core.game.Replay;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import players.*;
@@ -15,6 +16,7 @@ import players.rhea.RHEAAgent;
 import players.rhea.RHEAParams;
 import utils.file.IO;
 
+import java.io.IOException;
 import java.util.*;
 
 import static core.Types.GAME_MODE.*;
@@ -68,7 +70,10 @@ public class Play {
                 //3. Play one game with visuals from a savegame
                 } else if (runMode.equalsIgnoreCase("Replay")) {
                     String saveGameFile = config.getString("Replay File Name");
-                    load(playerTypes, saveGameFile);
+                    if (saveGameFile.endsWith(".replay"))
+                        replay(playerTypes, saveGameFile, config.optInt("Replay Tick", 0));
+                    else
+                        load(playerTypes, saveGameFile);
                 } else {
                     System.out.println("ERROR: run mode '" + runMode + "' not recognized.");
                 }
@@ -113,6 +118,19 @@ public class Play {
     }
 
 
+    private static void replay(Tournament.PlayerType[] playerTypes, String replayFile, int tick) throws IOException
+    {
+        KeyController ki = new KeyController(true);
+        ActionController ac = new ActionController();
+
+        Replay replay = new Replay(replayFile);
+        if(RUN_VERBOSE) System.out.println("Replay of " + replay.getLastTick() + " ticks, starting at tick " + tick);
+
+        Game game = new Game();
+        game.init(getPlayers(playerTypes, ac), replay, tick);
+        Run.runGame(game, ki, ac);
+    }
+
     private static Game _prepareGame(String levelFile, Tournament.PlayerType[] playerTypes, Types.GAME_MODE gameMode, ActionController ac)
     {
         long gameSeed = GAME_SEED == -1 ? System.currentTimeMillis() : GAME_SEED;
@@ -5,7 +5,6 @@ import players.KeyController;
 import gui.GUI;
 import gui.WindowInput;
 
-import static core.Constants.*;
 import static core.Types.TRIBE.*;
 import static core.Types.TRIBE.OUMAJI;
 
@@ -20,7 +19,7 @@ class Run {
     static void runGame(Game g, KeyController ki, ActionController ac) {
         WindowInput wi = null;
         GUI frame = null;
-        if (VISUALS) {
+        if (g.getSettings().VISUALS) {
             wi = new WindowInput();
             wi.windowClosed = false;
             frame = new GUI(g, "Tribes", ki, wi, ac, false);
@@ -1,6 +1,7 @@
-import core.Constants;
 import core.Types;
 import core.game.Game;
+import core.game.GameSettings;
+import core.game.LevelCache;
 import core.game.TribeResult;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -19,6 +20,7 @@ import utils.file.IO;
 import utils.stats.MultiStatSummary;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import static core.Types.GAME_MODE.*;
 import static core.Types.TRIBE.*;
@@ -84,7 +86,8 @@ public class Tournament {
         Tournament t = new Tournament(gameMode);
         int nRepetitions = 4;
         boolean shiftTribes = true;
-        Constants.VERBOSE = true;
+        boolean verbose = true;
+        int nThreads = 1;
 
         JSONObject config = null;
         if(args.length > 0)
@@ -126,7 +129,11 @@ public class Tournament {
                 t.setPlayers(playerTypes);
                 t.setTribes(tribes);
 
-                Constants.VERBOSE = config.getBoolean("Verbose");
+                verbose = config.getBoolean("Verbose");
+                if(config.has("Threads"))
+                    nThreads = config.getInt("Threads");
+                if(config.has("Level Cache"))
+                    t.setLevelCache(new LevelCache(config.getString("Level Cache")));
                 JSONArray seeds = (JSONArray) config.get("Level Seeds");
                 t.setSeeds(seeds);
 
@@ -138,6 +145,8 @@ public class Tournament {
         }
 
         //All ready, running.
+        t.setVerbose(verbose);
+        t.setThreads(nThreads);
         t.run(nRepetitions, shiftTribes);
     }
 
@@ -147,6 +156,9 @@ public class Tournament {
     private MultiStatSummary[] stats;
     private Types.TRIBE[] tribes;
     private long[] seeds;
+    private boolean verbose = true;
+    private int nThreads = 1;
+    private LevelCache levelCache = new LevelCache();
 
 
     private Tournament(Types.GAME_MODE gameMode)
@@ -170,6 +182,26 @@ public class Tournament {
         this.tribes = tribes;
     }
 
+    private void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Sets the number of games played at the same time.
+     * @param nThreads number of threads to run games in. If 0 or less, as many as available processors.
+     */
+    private void setThreads(int nThreads) {
+        this.nThreads = nThreads > 0 ? nThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Sets the cache for the initial states of the levels, which are played once per repetition.
+     * @param levelCache the cache.
+     */
+    private void setLevelCache(LevelCache levelCache) {
+        this.levelCache = levelCache;
+    }
+
     private void setSeeds(JSONArray seeds) {
         this.seeds = new long[seeds.length()];
         for (int i = 0; i < this.seeds.length; ++i)
@@ -181,15 +213,18 @@ public class Tournament {
 
     private void run(int repetitions, boolean shift)
     {
+        //All games are set up first, in the order in which they are played when running sequentially. Each game
+        // has its own seeds, so its result doesn't depend on how many games run at the same time.
+        ArrayList<TournamentGame> games = new ArrayList<>();
+        long firstGameSeed = System.currentTimeMillis();
+        int nGames = seeds.length * repetitions;
         int starter = 0;
-        int nseed = 0;
         for (long levelSeed : seeds) {
 
             if(levelSeed == -1)
             {
                 levelSeed = System.currentTimeMillis() + new Random().nextInt();
             }
-            System.out.println("**** Playing level with seed " + levelSeed + " ****");
 
             for (int rep = 0; rep < repetitions; rep++) {
 
@@ -198,11 +233,14 @@ public class Tournament {
                 PlayerType[] players = new PlayerType[participants.size()];
 
                 int playersIn = 0;
-                System.out.print("Playing with [");
+                StringBuilder sb = new StringBuilder();
+                if(rep == 0)
+                    sb.append("**** Playing level with seed ").append(levelSeed).append(" ****\n");
+                sb.append("Playing with [");
                 while(playersIn < participants.size())
                 {
                     Participant p = participants.get(next);
-                    System.out.print(p.participantId + ":" + p.playerType + "(" + tribes[playersIn] + ")");
+                    sb.append(p.participantId).append(":").append(p.playerType).append("(").append(tribes[playersIn]).append(")");
                     players[playersIn] = p.playerType;
                     assignment.put(tribes[playersIn], p);
 
@@ -210,37 +248,76 @@ public class Tournament {
                     next = (next + 1) % participants.size();
 
                     if (playersIn < participants.size())
-                        System.out.print(", ");
+                        sb.append(", ");
                 }
-                System.out.println("] (" + (nseed*repetitions + rep + 1) + "/" + (seeds.length*repetitions) + ")");
-
-                Game game = _prepareGame(tribes, levelSeed, players, gameMode);
-
-                try {
-                    Run.runGame(game);
+                sb.append("] (").append(games.size() + 1).append("/").append(nGames).append(")");
 
-                    _addGameResults(game, assignment);
+                long gameSeed = firstGameSeed + games.size();
+                games.add(new TournamentGame(levelSeed, gameSeed, players, assignment, sb.toString()));
 
-                    //Shift arrays for position changes.
-                    if (shift) {
-                        starter = (starter + 1) % participants.size();
-                    }
-                }catch (Exception e)
-                {
-                    e.printStackTrace();
-                    System.out.println("Error running a game, trying again.");
-                    rep--;
+                //Shift arrays for position changes.
+                if (shift) {
+                    starter = (starter + 1) % participants.size();
                 }
-
             }
+        }
 
-            nseed++;
+        int nParallel = Math.min(nThreads, games.size());
+        if(nParallel <= 1)
+        {
+            for(TournamentGame tg : games)
+                _playGame(tg);
+        }else
+        {
+            System.out.println("Playing " + games.size() + " games, " + nParallel + " at a time.");
+            ExecutorService executor = Executors.newFixedThreadPool(nParallel);
+            try {
+                ArrayList<Future<?>> results = new ArrayList<>();
+                for(TournamentGame tg : games)
+                    results.add(executor.submit(() -> _playGame(tg)));
+                for(Future<?> f : results)
+                    f.get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+                System.out.println("Error running the tournament games.");
+            } finally {
+                executor.shutdownNow();
+            }
         }
 
         _printRunResults();
 
     }
 
+    /**
+     * Plays a game of the tournament and adds its results to the stats of the participants. Retries the game
+     * (with a new game seed, derived from the original one) if there's an error.
+     * @param tg game to play.
+     */
+    private void _playGame(TournamentGame tg)
+    {
+        long gameSeed = tg.gameSeed;
+        int attempt = 0;
+        while(true)
+        {
+            StringBuilder sb = new StringBuilder(tg.description);
+            Game game = _prepareGame(tribes, tg.levelSeed, tg.players, gameMode, gameSeed, sb);
+            System.out.println(sb);
+
+            try {
+                Run.runGame(game);
+
+                _addGameResults(game, tg.assignment);
+                return;
+            }catch (Exception e)
+            {
+                e.printStackTrace();
+                System.out.println("Error running a game, trying again.");
+                gameSeed = tg.gameSeed + (++attempt) * 0x9E3779B97F4A7C15L;
+            }
+        }
+    }
+
     private MultiStatSummary initMultiStat(Participant p)
     {
         MultiStatSummary mss = new MultiStatSummary(p);
@@ -252,13 +329,13 @@ public class Tournament {
         return mss;
     }
 
-    private Game _prepareGame(Types.TRIBE[] tribes, long levelSeed, PlayerType[] playerTypes, Types.GAME_MODE gameMode)
+    private Game _prepareGame(Types.TRIBE[] tribes, long levelSeed, PlayerType[] playerTypes, Types.GAME_MODE gameMode,
+                              long gameSeed, StringBuilder log)
     {
-        long gameSeed = System.currentTimeMillis();
-
-        if(RUN_VERBOSE) System.out.println("Game seed: " + gameSeed);
+        if(RUN_VERBOSE) log.append("\nGame seed: ").append(gameSeed);
 
-        ArrayList<Agent> players = getPlayers(playerTypes);
+        //Agents are seeded with the game seed.
+        ArrayList<Agent> players = getPlayers(playerTypes, gameSeed, log);
 
         Game game = new Game();
 
@@ -266,19 +343,24 @@ public class Tournament {
         if(levelGenSeed == -1)
             levelGenSeed = System.currentTimeMillis() + new Random().nextInt();
 
-        if(RUN_VERBOSE) System.out.println("Level seed: " + levelGenSeed);
+        if(RUN_VERBOSE) log.append("\nLevel seed: ").append(levelGenSeed);
 
-        game.init(players, levelGenSeed, tribes, gameSeed, gameMode);
+        game.init(players, levelCache, levelGenSeed, tribes, gameSeed, gameMode);
+
+        //Games run without visuals, each one with its own settings.
+        GameSettings settings = new GameSettings();
+        settings.VISUALS = false;
+        settings.VERBOSE = verbose;
+        game.setSettings(settings);
 
         return game;
     }
 
-    private ArrayList<Agent> getPlayers(PlayerType[] playerTypes)
+    private ArrayList<Agent> getPlayers(PlayerType[] playerTypes, long agentSeed, StringBuilder log)
     {
         ArrayList<Agent> players = new ArrayList<>();
-        long agentSeed = System.currentTimeMillis();
 
-        if(RUN_VERBOSE)  System.out.println("Agents random seed: " + agentSeed);
+        if(RUN_VERBOSE) log.append("\nAgents random seed: ").append(agentSeed);
 
         ArrayList<Integer> allIds = new ArrayList<>();
         for(int i = 0; i < playerTypes.length; ++i)
@@ -298,17 +380,22 @@ public class Tournament {
     private void _addGameResults(Game game, HashMap<Types.TRIBE, Participant> assignment)
     {
         TreeSet<TribeResult> ranking = game.getCurrentRanking();
-        for(TribeResult tr : ranking)
+
+        //Games running at the same time add their results to the same stats.
+        synchronized (stats)
         {
-            Types.TRIBE tribe = game.getBoard().getTribe(tr.getId()).getType();
-            int pId = assignment.get(tribe).participantId;
-
-            int victoryCount = tr.getResult() == Types.RESULT.WIN ? 1 : 0;
-            stats[pId].getVariable("v").add(victoryCount);
-            stats[pId].getVariable("s").add(tr.getScore());
-            stats[pId].getVariable("t").add(tr.getNumTechsResearched());
-            stats[pId].getVariable("c").add(tr.getNumCities());
-            stats[pId].getVariable("p").add(tr.getProduction());
+            for(TribeResult tr : ranking)
+            {
+                Types.TRIBE tribe = game.getBoard().getTribe(tr.getId()).getType();
+                int pId = assignment.get(tribe).participantId;
+
+                int victoryCount = tr.getResult() == Types.RESULT.WIN ? 1 : 0;
+                stats[pId].getVariable("v").add(victoryCount);
+                stats[pId].getVariable("s").add(tr.getScore());
+                stats[pId].getVariable("t").add(tr.getNumTechsResearched());
+                stats[pId].getVariable("c").add(tr.getNumCities());
+                stats[pId].getVariable("p").add(tr.getProduction());
+            }
         }
     }
 
@@ -395,6 +482,28 @@ public class Tournament {
         OEP
     }
 
+    /**
+     * Set up of a game of the tournament: seeds and assignment of participants to tribes.
+     */
+    private static class TournamentGame
+    {
+        long levelSeed;
+        long gameSeed;
+        PlayerType[] players;
+        HashMap<Types.TRIBE, Participant> assignment;
+        String description;
+
+        TournamentGame(long levelSeed, long gameSeed, PlayerType[] players,
+                       HashMap<Types.TRIBE, Participant> assignment, String description)
+        {
+            this.levelSeed = levelSeed;
+            this.gameSeed = gameSeed;
+            this.players = players;
+            this.assignment = assignment;
+            this.description = description;
+        }
+    }
+
     private static class Participant
     {
         PlayerType playerType;
@@ -4,6 +4,9 @@ public class Constants {
     public static boolean VERBOSE = false;
     public static boolean VISUALS = true;
     public static boolean WRITE_SAVEGAMES = false;
+    public static boolean BINARY_SAVEGAMES = true;  // If true, savegames are written in the compact binary format instead of JSON
+    public static boolean WRITE_REPLAYS = false;  // If true, all games played are recorded in a replay file
+    public static int REPLAY_KEYFRAME_TICKS = 5;  // Ticks between full game states saved in replays
     public static boolean DISABLE_NON_HUMAN_GRID_HIGHLIGHT = true;  // If true, human observing/playing doesn't have access to actions of non-human players
     public static int FRAME_DELAY = 0;// 500; //1000;
     public static boolean TURN_LIMITED = false;
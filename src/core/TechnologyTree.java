@@ -16,6 +16,9 @@ public class TechnologyTree {
     // Flag that indicates if the whole tree has been researched.
     private boolean everythingResearched = false;
 
+    // Number of technologies researched.
+    private int numResearched;
+
     /**
      * Creates a TechnologyTree.
      */
@@ -32,6 +35,7 @@ public class TechnologyTree {
         this.researched = new boolean[researched.length];
         System.arraycopy(researched, 0, this.researched, 0, researched.length);
         checkEverythingResearched();
+        countResearched();
     }
 
     /**
@@ -45,6 +49,7 @@ public class TechnologyTree {
             researched[i] = jResearched.getBoolean(i);
         }
         everythingResearched = jTechnologyTree.getBoolean("everythingResearched");
+        countResearched();
     }
 
     /**
@@ -78,6 +83,16 @@ public class TechnologyTree {
         return !isResearched(target) && (requirement == null || isResearched(requirement));
     }
 
+    /**
+     * Counts the technologies researched in this tree.
+     */
+    private void countResearched(){
+        numResearched = 0;
+        for (boolean b : researched){
+            if(b) numResearched++;
+        }
+    }
+
     /**
      * Computes if every technology is already researched in this tree.
      */
@@ -104,6 +119,7 @@ public class TechnologyTree {
     public boolean doResearch(Types.TECHNOLOGY target) {
         if(isResearchable(target)) {
             researched[target.ordinal()] = true;
+            numResearched++;
 
             //researching leaves of the tree may
             if(target == SHIELDS || target == AQUATISM || target == CHIVALRY || target == CONSTRUCTION ||
@@ -154,12 +170,6 @@ public class TechnologyTree {
      */
     public int getNumResearched()
     {
-        int count = 0;
-        for(Types.TECHNOLOGY tech : Types.TECHNOLOGY.values())
-        {
-            if(isResearched(tech))
-                count++;
-        }
-        return count;
+        return numResearched;
     }
 }
\ No newline at end of file
@@ -107,12 +107,19 @@ public class Types {
             this.color_dark = color_dark;
         }
 
+        //Types indexed by key, so they are found without scanning all values (e.g. when loading games).
+        private static final TRIBE[] BY_KEY;
+        static {
+            int maxKey = 0;
+            for(TRIBE t : values())
+                maxKey = Math.max(maxKey, t.key);
+            BY_KEY = new TRIBE[maxKey + 1];
+            for(TRIBE t : values())
+                BY_KEY[t.key] = t;
+        }
+
         public static TRIBE getTypeByKey(int key) {
-            for(TRIBE t : Types.TRIBE.values()){
-                if(t.key == key)
-                    return t;
-            }
-            return null;
+            return (key >= 0 && key < BY_KEY.length) ? BY_KEY[key] : null;
         }
 
         public int getKey() {  return key; }
@@ -188,12 +195,19 @@ public class Types {
             return null;
         }
 
+        //Types indexed by key, so they are found without scanning all values (e.g. when loading games).
+        private static final RESOURCE[] BY_KEY;
+        static {
+            int maxKey = 0;
+            for(RESOURCE t : values())
+                maxKey = Math.max(maxKey, t.key);
+            BY_KEY = new RESOURCE[maxKey + 1];
+            for(RESOURCE t : values())
+                BY_KEY[t.key] = t;
+        }
+
         public static RESOURCE getTypeByKey(int key) {
-            for(RESOURCE t : RESOURCE.values()){
-                if(t.key == key)
-                    return t;
-            }
-            return null;
+            return (key >= 0 && key < BY_KEY.length) ? BY_KEY[key] : null;
         }
 
 
@@ -266,12 +280,19 @@ public class Types {
                 return key;
             }
 
+            //Types indexed by key, so they are found without scanning all values (e.g. when loading games).
+            private static final MONUMENT_STATUS[] BY_KEY;
+            static {
+                int maxKey = 0;
+                for(MONUMENT_STATUS t : values())
+                    maxKey = Math.max(maxKey, t.key);
+                BY_KEY = new MONUMENT_STATUS[maxKey + 1];
+                for(MONUMENT_STATUS t : values())
+                    BY_KEY[t.key] = t;
+            }
+
             public static MONUMENT_STATUS getTypeByKey(int key) {
-                for(MONUMENT_STATUS t : Types.BUILDING.MONUMENT_STATUS.values()){
-                    if(t.key == key)
-                        return t;
-                }
-                return null;
+                return (key >= 0 && key < BY_KEY.length) ? BY_KEY[key] : null;
             }
         }
 
@@ -370,12 +391,19 @@ public class Types {
             return monuments;
         }
 
+        //Types indexed by key, so they are found without scanning all values (e.g. when loading games).
+        private static final BUILDING[] BY_KEY;
+        static {
+            int maxKey = 0;
+            for(BUILDING t : values())
+                maxKey = Math.max(maxKey, t.key);
+            BY_KEY = new BUILDING[maxKey + 1];
+            for(BUILDING t : values())
+                BY_KEY[t.key] = t;
+        }
+
         public static BUILDING getTypeByKey(int key) {
-            for(BUILDING t : Types.BUILDING.values()){
-                if(t.key == key)
-                    return t;
-            }
-            return null;
+            return (key >= 0 && key < BY_KEY.length) ? BY_KEY[key] : null;
         }
     }
 
@@ -593,12 +621,19 @@ public class Types {
             return units;
         }
 
+        //Types indexed by key, so they are found without scanning all values (e.g. when loading games).
+        private static final UNIT[] BY_KEY;
+        static {
+            int maxKey = 0;
+            for(UNIT t : values())
+                maxKey = Math.max(maxKey, t.key);
+            BY_KEY = new UNIT[maxKey + 1];
+            for(UNIT t : values())
+                BY_KEY[t.key] = t;
+        }
+
         public static UNIT getTypeByKey(int key) {
-            for(UNIT t : UNIT.values()){
-                if(t.key == key)
-                    return t;
-            }
-            return null;
+            return (key >= 0 && key < BY_KEY.length) ? BY_KEY[key] : null;
         }
 
     }
@@ -640,12 +675,19 @@ public class Types {
             return (this == CAPITALS) ? Constants.MAX_TURNS_CAPITALS : Constants.MAX_TURNS;
         }
 
+        //Types indexed by key, so they are found without scanning all values (e.g. when loading games).
+        private static final GAME_MODE[] BY_KEY;
+        static {
+            int maxKey = 0;
+            for(GAME_MODE t : values())
+                maxKey = Math.max(maxKey, t.key);
+            BY_KEY = new GAME_MODE[maxKey + 1];
+            for(GAME_MODE t : values())
+                BY_KEY[t.key] = t;
+        }
+
         public static GAME_MODE getTypeByKey(int key) {
-            for(GAME_MODE t : GAME_MODE.values()){
-                if(t.key == key)
-                    return t;
-            }
-            return null;
+            return (key >= 0 && key < BY_KEY.length) ? BY_KEY[key] : null;
         }
     }
 
@@ -671,12 +713,19 @@ public class Types {
             return null;
         }
 
+        //Types indexed by key, so they are found without scanning all values (e.g. when loading games).
+        private static final RESULT[] BY_KEY;
+        static {
+            int maxKey = 0;
+            for(RESULT t : values())
+                maxKey = Math.max(maxKey, t.key);
+            BY_KEY = new RESULT[maxKey + 1];
+            for(RESULT t : values())
+                BY_KEY[t.key] = t;
+        }
+
         public static RESULT getTypeByKey(int key) {
-            for(RESULT t : RESULT.values()){
-                if(t.key == key)
-                    return t;
-            }
-            return null;
+            return (key >= 0 && key < BY_KEY.length) ? BY_KEY[key] : null;
         }
     }
 
@@ -722,12 +771,19 @@ public class Types {
         }
 
 
+        //Types indexed by key, so they are found without scanning all values (e.g. when loading games).
+        private static final TERRAIN[] BY_KEY;
+        static {
+            int maxKey = 0;
+            for(TERRAIN t : values())
+                maxKey = Math.max(maxKey, t.key);
+            BY_KEY = new TERRAIN[maxKey + 1];
+            for(TERRAIN t : values())
+                BY_KEY[t.key] = t;
+        }
+
         public static TERRAIN getTypeByKey(int key) {
-            for(TERRAIN t : TERRAIN.values()){
-                if(t.key == key)
-                    return t;
-            }
-            return null;
+            return (key >= 0 && key < BY_KEY.length) ? BY_KEY[key] : null;
         }
 
         public boolean isWater() {return this == SHALLOW_WATER || this == DEEP_WATER;}
@@ -803,7 +859,26 @@ public class Types {
             return ImageIO.GetInstance().getImage(a.getActionType().imgPath);
         }
 
+        //Commands are stateless, so one instance of each is shared by all games and threads. They are created
+        //the first time one is needed, not when ACTION is initialized: createCommand() switches on the enum, and
+        //that can't be done while the enum switch tables are still being initialized.
+        private static class Commands {
+            private static final ActionCommand[] COMMANDS = new ActionCommand[values().length];
+            static {
+                for (ACTION a : values())
+                    COMMANDS[a.ordinal()] = a.createCommand();
+            }
+        }
+
         public ActionCommand getCommand()
+        {
+            ActionCommand command = Commands.COMMANDS[ordinal()];
+            if(command == null)
+                System.out.println("ERROR: ActionCommand for action type " + this + " not implemented.");
+            return command;
+        }
+
+        private ActionCommand createCommand()
         {
             switch (this)
             {
@@ -836,7 +911,6 @@ public class Types {
                 case UPGRADE_SHIP: return new UpgradeCommand();
 
             }
-            System.out.println("ERROR: ActionCommand for action type " + this + " not implemented.");
             return null;
         }
     }
@@ -11,9 +11,10 @@ public interface ActionCommand
      *  ResearchTech researchAction = new ResearchTech(myTribe);
      *  researchAction.setTech(Types.TECHNOLOGY.ARCHERY);
      *  ...
-     *  new ResearchTechCommand().execute(researchAction, currentGameState);
+     *  Types.ACTION.RESEARCH_TECH.getCommand().execute(researchAction, currentGameState);
      *
-     * Implementations of this function will likely modify the GameState gs passed by parameter.
+     * Implementations of this function will likely modify the GameState gs passed by parameter, but
+     * must not keep any state: a single instance of each command is shared by all games and threads.
      *
      * @param a action to execute in the game state gs
      * @param gs the game state where the action must be executed.
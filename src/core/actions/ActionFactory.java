@@ -3,21 +3,24 @@ package core.actions;
 import core.actors.Actor;
 import core.game.GameState;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public interface ActionFactory
 {
     /**
-     * Computes all the available actions that are possible of a given type. Example of usage:
+     * Computes all the available actions that are possible of a given type, and appends them to
+     * the list passed by parameter. Example of usage:
      *
-     *  LinkedList<Action> list = new ResearchTechFactory().computeActionVariants(tribe, gs);
+     *  ArrayList<Action> list = new ArrayList<>();
+     *  new ResearchTechFactory().computeActionVariants(tribe, gs, list);
      *
-     * Implementations of this function MUST NOT modify the GameState gs passed by parameter.
+     * Implementations of this function MUST NOT modify the GameState gs passed by parameter, and
+     * must not keep any state: a single instance of each factory is shared by all games and threads.
      *
      * @param actor Tribe for whom actions are computed.
      * @param gs current game state that will help determine which actions are valid.
-     * @return the list of possible actions
+     * @param actions list where the possible actions are added.
      */
-    LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs);
+    void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions);
 
 }
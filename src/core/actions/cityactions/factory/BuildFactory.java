@@ -13,32 +13,35 @@ import core.game.Board;
 import core.game.GameState;
 import utils.Vector2d;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 public class BuildFactory implements ActionFactory {
 
+    private static final Types.BUILDING[] BUILDING_TYPES = Types.BUILDING.values();
+
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
 
         City city = (City) actor;
-        LinkedList<Action> actions = new LinkedList<>();
         Board board = gs.getBoard();
         LinkedList<Vector2d> tiles = board.getCityTiles(city.getActorId());
 
+        //The same action is checked for each tile and building, only feasible ones are copied into the list.
+        Build probe = new Build(city.getActorId());
         for(Vector2d tile : tiles){
-            for(Types.BUILDING building: Types.BUILDING.values()){
-                //check if tile is empty
-                if(board.getBuildingAt(tile.x, tile.y) == null) {
-                    Build action = new Build(city.getActorId());
-                    action.setBuildingType(building);
-                    action.setTargetPos(tile.copy());
-                    if (action.isFeasible(gs)) {
-                        actions.add(action);
-                    }
+            //check if tile is empty
+            if(board.getBuildingAt(tile.x, tile.y) != null)
+                continue;
+
+            probe.setTargetPos(tile);
+            for(Types.BUILDING building: BUILDING_TYPES){
+                probe.setBuildingType(building);
+                if (probe.isFeasible(gs)) {
+                    actions.add(probe.copy());
                 }
             }
         }
-        return actions;
     }
 
 }
@@ -8,24 +8,25 @@ import core.actors.City;
 import core.game.GameState;
 import utils.Vector2d;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 public class BurnForestFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
-        LinkedList<Action> actions = new LinkedList<>();
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
         City city = (City) actor;
         LinkedList<Vector2d> tiles = gs.getBoard().getCityTiles(city.getActorId());
+
+        //The same action is checked on each tile, only feasible ones are copied into the list.
+        BurnForest probe = new BurnForest(city.getActorId());
         for(Vector2d tile: tiles){
-            BurnForest action = new BurnForest(city.getActorId());
-            action.setTargetPos(new Vector2d(tile.x, tile.y));
-            if(action.isFeasible(gs))
+            probe.setTargetPos(tile);
+            if(probe.isFeasible(gs))
             {
-                actions.add(action);
+                actions.add(probe.copy());
             }
         }
-        return actions;
     }
 
 }
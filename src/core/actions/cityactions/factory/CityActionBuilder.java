@@ -8,6 +8,16 @@ import java.util.ArrayList;
 
 public class CityActionBuilder
 {
+    //Factories are stateless, so they are shared by all builders.
+    private static final LevelUpFactory FACTORY_LEVEL_UP = new LevelUpFactory();
+    private static final BuildFactory FACTORY_BUILD = new BuildFactory();
+    private static final BurnForestFactory FACTORY_BURN_FOREST = new BurnForestFactory();
+    private static final ClearForestFactory FACTORY_CLEAR_FOREST = new ClearForestFactory();
+    private static final DestroyFactory FACTORY_DESTROY = new DestroyFactory();
+    private static final GrowForestFactory FACTORY_GROW_FOREST = new GrowForestFactory();
+    private static final ResourceGatheringFactory FACTORY_RESOURCE_GATHERING = new ResourceGatheringFactory();
+    private static final SpawnFactory FACTORY_SPAWN = new SpawnFactory();
+
     private boolean levelUpFlag;
 
     public CityActionBuilder()
@@ -27,7 +37,7 @@ public class CityActionBuilder
 
 
         //Level Up
-        allActions.addAll(new LevelUpFactory().computeActionVariants(city, gs));
+        FACTORY_LEVEL_UP.computeActionVariants(city, gs, allActions);
 
         if(allActions.size() > 0)
         {
@@ -37,25 +47,25 @@ public class CityActionBuilder
         }
 
         //Build
-        allActions.addAll(new BuildFactory().computeActionVariants(city, gs));
+        FACTORY_BUILD.computeActionVariants(city, gs, allActions);
 
         //Burn forest
-        allActions.addAll(new BurnForestFactory().computeActionVariants(city, gs));
+        FACTORY_BURN_FOREST.computeActionVariants(city, gs, allActions);
 
         //Clear Forest
-        allActions.addAll(new ClearForestFactory().computeActionVariants(city, gs));
+        FACTORY_CLEAR_FOREST.computeActionVariants(city, gs, allActions);
 
         //Destroy
-        allActions.addAll(new DestroyFactory().computeActionVariants(city, gs));
+        FACTORY_DESTROY.computeActionVariants(city, gs, allActions);
 
         //Grow Forest
-        allActions.addAll(new GrowForestFactory().computeActionVariants(city, gs));
+        FACTORY_GROW_FOREST.computeActionVariants(city, gs, allActions);
 
         //ResourceGathering
-        allActions.addAll(new ResourceGatheringFactory().computeActionVariants(city, gs));
+        FACTORY_RESOURCE_GATHERING.computeActionVariants(city, gs, allActions);
 
         //Spawn
-        allActions.addAll(new SpawnFactory().computeActionVariants(city, gs));
+        FACTORY_SPAWN.computeActionVariants(city, gs, allActions);
 
         return allActions;
     }
@@ -10,24 +10,25 @@ import core.game.Board;
 import core.game.GameState;
 import utils.Vector2d;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 public class DestroyFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
         City city = (City) actor;
-        LinkedList<Action> actions = new LinkedList<>();
         LinkedList<Vector2d> tiles = gs.getBoard().getCityTiles(city.getActorId());
+
+        //The same action is checked on each tile, only feasible ones are copied into the list.
+        Destroy probe = new Destroy(city.getActorId());
         for(Vector2d tile: tiles){
-            Destroy action = new Destroy(city.getActorId());
-            action.setTargetPos(new Vector2d(tile.x, tile.y));
-            if(action.isFeasible(gs))
+            probe.setTargetPos(tile);
+            if(probe.isFeasible(gs))
             {
-                actions.add(action);
+                actions.add(probe.copy());
             }
         }
-        return actions;
     }
 
 }
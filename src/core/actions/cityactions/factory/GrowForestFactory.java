@@ -11,25 +11,24 @@ import core.game.Board;
 import core.game.GameState;
 import utils.Vector2d;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 public class GrowForestFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
         City city = (City) actor;
-        LinkedList<Action> actions = new LinkedList<>();
         LinkedList<Vector2d> tiles = gs.getBoard().getCityTiles(city.getActorId());
 
+        //The same action is checked on each tile, only feasible ones are copied into the list.
+        GrowForest probe = new GrowForest(city.getActorId());
         for(Vector2d tile: tiles){
-                GrowForest action = new GrowForest(city.getActorId());
-                action.setTargetPos(new Vector2d(tile.x, tile.y));
-                if(action.isFeasible(gs)) {
-                    actions.add(action);
+                probe.setTargetPos(tile);
+                if(probe.isFeasible(gs)) {
+                    actions.add(probe.copy());
                 }
         }
-
-        return actions;
     }
 
 }
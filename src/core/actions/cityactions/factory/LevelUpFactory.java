@@ -8,14 +8,16 @@ import core.actors.Actor;
 import core.actors.City;
 import core.game.GameState;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 public class LevelUpFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
-        LinkedList<Action> actions = new LinkedList<>();
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
         City city = (City) actor;
+        if(!city.canLevelUp())
+            return;
 
         LinkedList<Types.CITY_LEVEL_UP> bonuses = Types.CITY_LEVEL_UP.getActions(city.getLevel());
         for (Types.CITY_LEVEL_UP bonus : bonuses) {
@@ -26,8 +28,6 @@ public class LevelUpFactory implements ActionFactory {
                 actions.add(lUp);
             }
         }
-
-        return actions;
     }
 
 }
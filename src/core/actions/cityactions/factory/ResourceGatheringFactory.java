@@ -10,33 +10,31 @@ import core.game.Board;
 import core.game.GameState;
 import utils.Vector2d;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class ResourceGatheringFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> resourceActions) {
 
         City city = (City) actor;
         Board b = gs.getBoard();
-        LinkedList<Action> resourceActions = new LinkedList<>();
         int cityId = city.getActorId();
 
         // loop through bounds of city and add resource actions if they are feasible
+        ResourceGathering probe = new ResourceGathering(cityId);
         for(Vector2d pos : b.getCityTiles(cityId)) {
 
             Types.RESOURCE r = b.getResourceAt(pos.x, pos.y);
             if (r == null)
                 continue;
-            ResourceGathering resourceAction = new ResourceGathering(cityId);
-            resourceAction.setResource(r);
-            resourceAction.setTargetPos(new Vector2d(pos.x, pos.y));
-            if (resourceAction.isFeasible(gs)) {
-                resourceActions.add(resourceAction);
+            probe.setResource(r);
+            probe.setTargetPos(pos);
+            if (probe.isFeasible(gs)) {
+                resourceActions.add(probe.copy());
             }
 
         }
-        return resourceActions;
     }
 
 }
@@ -12,25 +12,25 @@ import core.game.Board;
 import core.game.GameState;
 import utils.Vector2d;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class SpawnFactory implements ActionFactory {
 
+    private static final Types.UNIT[] UNIT_TYPES = Types.UNIT.values();
+
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
         City city = (City) actor;
-        LinkedList<Action> actions = new LinkedList<>();
 
-        for(Types.UNIT unit: Types.UNIT.values()){
-            Spawn newAction = new Spawn(city.getActorId());
-            newAction.setUnitType(unit);
-            newAction.setTargetPos(city.getPosition().copy());
-            if (newAction.isFeasible(gs)) {
-                actions.add(newAction);
+        //The same action is checked for each unit type, only feasible ones are copied into the list.
+        Spawn probe = new Spawn(city.getActorId());
+        probe.setTargetPos(city.getPosition());
+        for(Types.UNIT unit: UNIT_TYPES){
+            probe.setUnitType(unit);
+            if (probe.isFeasible(gs)) {
+                actions.add(probe.copy());
             }
         }
-
-        return actions;
     }
 
 }
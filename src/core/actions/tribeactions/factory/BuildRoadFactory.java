@@ -9,18 +9,16 @@ import core.game.GameState;
 import utils.Vector2d;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 
 public class BuildRoadFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
-        LinkedList<Action> actions = new LinkedList<>();
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
         Tribe tribe = (Tribe) actor;
 
         //if not, nothing to build.
         if (!tribe.canBuildRoads())
-            return actions;
+            return;
 
         //We are able to build roads, let's find where can this be built
         ArrayList<Vector2d> positions = gs.getBoard().getBuildRoadPositions(tribe.getTribeId());
@@ -29,9 +27,6 @@ public class BuildRoadFactory implements ActionFactory {
             br.setPosition(v);
             actions.add(br);
         }
-
-        //All the actions.
-        return actions;
     }
 
 }
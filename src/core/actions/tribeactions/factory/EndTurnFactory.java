@@ -7,17 +7,15 @@ import core.actors.Actor;
 import core.actors.Tribe;
 import core.game.GameState;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class EndTurnFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> endTurns) {
         Tribe tribe = (Tribe) actor;
-        LinkedList<Action> endTurns = new LinkedList<>();
         if(gs.canEndTurn(tribe.getTribeId()))
             endTurns.add(new EndTurn(tribe.getActorId()));
-        return endTurns;
     }
 
 }
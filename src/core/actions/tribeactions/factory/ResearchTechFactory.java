@@ -9,15 +9,14 @@ import core.actors.Actor;
 import core.actors.Tribe;
 import core.game.GameState;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class ResearchTechFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
 
         Tribe tribe = (Tribe) actor;
-        LinkedList<Action> actions = new LinkedList<>();
         TechnologyTree techTree = tribe.getTechTree();
         int stars = tribe.getStars();
         int numCities = tribe.getNumCities();
@@ -33,7 +32,6 @@ public class ResearchTechFactory implements ActionFactory {
                 actions.add(newAction);
             }
         }
-        return actions;
     }
 
 }
@@ -11,6 +11,11 @@ import java.util.ArrayList;
 
 public class TribeActionBuilder
 {
+    //Factories are stateless, so they are shared by all builders.
+    private static final BuildRoadFactory FACTORY_BUILD_ROAD = new BuildRoadFactory();
+    private static final ResearchTechFactory FACTORY_RESEARCH_TECH = new ResearchTechFactory();
+    private static final EndTurnFactory FACTORY_END_TURN = new EndTurnFactory();
+
 
     public ArrayList<Action> getActions(GameState gs, Tribe tribe)
     {
@@ -23,13 +28,13 @@ public class TribeActionBuilder
         }
 
         //Build Road
-        allActions.addAll(new BuildRoadFactory().computeActionVariants(tribe, gs));
+        FACTORY_BUILD_ROAD.computeActionVariants(tribe, gs, allActions);
 
         //Research Tech
-        allActions.addAll(new ResearchTechFactory().computeActionVariants(tribe, gs));
+        FACTORY_RESEARCH_TECH.computeActionVariants(tribe, gs, allActions);
 
         //End Turn Action
-        allActions.addAll(new EndTurnFactory().computeActionVariants(tribe, gs));
+        FACTORY_END_TURN.computeActionVariants(tribe, gs, allActions);
 
         return allActions;
     }
@@ -29,10 +29,13 @@ public class HealOthers extends UnitAction
             return false;
 
         //Feasible if this unit can heal this turn and if there is at least one friendly unit adjacent.
-        for(Vector2d tile : unit.getPosition().neighborhood(unit.RANGE, 0, board.getSize())){
-            Unit u = board.getUnitAt(tile.x, tile.y);
-            if (canBeHealed(unit, u))
-                return true;
+        Vector2d pos = unit.getPosition();
+        int size = board.getSize();
+        for(int i = Math.max(0, pos.x - unit.RANGE); i <= Math.min(size - 1, pos.x + unit.RANGE); i++) {
+            for(int j = Math.max(0, pos.y - unit.RANGE); j <= Math.min(size - 1, pos.y + unit.RANGE); j++) {
+                if((i != pos.x || j != pos.y) && canBeHealed(unit, board.getUnitAt(i, j)))
+                    return true;
+            }
         }
 
         return false;
@@ -5,10 +5,6 @@ import core.actions.Action;
 import core.game.GameState;
 import core.actors.units.Unit;
 import utils.Vector2d;
-import utils.graph.PathNode;
-import utils.graph.Pathfinder;
-
-import java.util.ArrayList;
 
 public class Move extends UnitAction
 {
@@ -29,16 +25,10 @@ public class Move extends UnitAction
         Unit unit = (Unit) gs.getActor(this.unitId);
         if(unit == null)
             return false;
-        Pathfinder tp = new Pathfinder(unit.getPosition(), new StepMove(gs, unit));
 
-        //If the unit can move and the destination is vacant, try to reach it.
+        //If the unit can move and the destination is vacant, check if it can be reached.
         if(unit.canMove() && gs.getBoard().getUnitAt(destination.x, destination.y) == null) {
-            ArrayList<PathNode> path = tp.findPathTo(destination);
-//            if(path == null)
-//            {
-//                System.out.println("ERROR calculating a path (if actions were created by MoveFactory)");
-//            }
-            return path != null;
+            return gs.getReachability(unit).canReach(destination.x, destination.y);
         }
         return false;
     }
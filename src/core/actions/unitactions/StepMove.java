@@ -3,10 +3,12 @@ package core.actions.unitactions;
 import core.TechnologyTree;
 import core.Types;
 import core.actors.City;
+import core.actors.Tribe;
 import core.actors.units.Unit;
 import core.game.Board;
 import core.game.GameState;
 import utils.Vector2d;
+import utils.graph.NeighbourBuffer;
 import utils.graph.NeighbourHelper;
 import utils.graph.PathNode;
 
@@ -28,132 +30,159 @@ public class StepMove implements NeighbourHelper
     //costFrom: is the total move cost computed up to "from"
     //Using this.gs, this.unit, from and costFrom, gets all the adjacent neighbours to tile in position "from"
     public ArrayList<PathNode> getNeighbours(Vector2d from, double costFrom) {
+        NeighbourBuffer buffer = new NeighbourBuffer();
+        getNeighbours(from.x, from.y, costFrom, buffer);
+
         ArrayList<PathNode> neighbours = new ArrayList<>();
+        for(int i = 0; i < buffer.size(); ++i)
+            neighbours.add(new PathNode(buffer.getX(i), buffer.getY(i), buffer.getStepCost(i)));
+        return neighbours;
+    }
+
+    @Override
+    public void getNeighbours(int fromX, int fromY, double costFrom, NeighbourBuffer neighbours) {
 
         //Check if the unit has reached the limit of it's movement range
         if (costFrom == unit.MOV) {
-            return neighbours;
+            return;
         }
 
         Board board = gs.getBoard();
+        int size = board.getSize();
+        int tribeId = unit.getTribeId();
+        Tribe tribe = board.getTribe(tribeId);
         boolean onRoad = false;
 
         //Check if unit is on a neutral or a friendly road, cities also count as roads.
-        if(board.isRoad(from.x, from.y) || board.getTerrainAt(from.x, from.y) == Types.TERRAIN.CITY){
-            int cityId = board.getCityIdAt(from.x, from.y);
-            if(cityId == -1 || board.getTribe(unit.getTribeId()).controlsCity(cityId)) {
+        if(board.isRoad(fromX, fromY) || board.getTerrainAt(fromX, fromY) == Types.TERRAIN.CITY){
+            int cityId = board.getCityIdAt(fromX, fromY);
+            if(cityId == -1 || tribe.controlsCity(cityId)) {
                 onRoad = true;
             }
         }
 
-        //Each one of the tree nodes added to "neighbours" must have a position (x,y) and also the cost of moving there from "from":
-        //TreeNode tn = new TreeNode (vector2d pos, double stepCost)
+        //Each one of the tree nodes added to "neighbours" must have a position (x,y) and also the cost of moving there from "from".
         //We only add nodes to neighbours if costFrom+stepCost <= total move range of this.unit
-        for(Vector2d tile : from.neighborhood(1, 0, board.getSize())) {
-            Types.TERRAIN terrain = board.getTerrainAt(tile.x, tile.y);
-            double stepCost = 0.0;
-            boolean zoneOfControl = false;
-
-            //Can't move to tiles where there's a non-friendly unit
-            Unit otherUnit = board.getUnitAt(tile.x, tile.y);
-            if (otherUnit != null && otherUnit.getTribeId() != unit.getTribeId())
-            {
-                continue;
-            }
-
-            //Check if there is an enemy unit adjacent to the destination.
-            for (Vector2d tileAdj : tile.neighborhood(1, 0, board.getSize())) {
-                Unit u = board.getUnitAt(tileAdj.x, tileAdj.y);  // There might not be a unit there at all
-                if (u != null && u.getTribeId() != unit.getTribeId()) {
-                    zoneOfControl = true;
-                }
-            }
+        for(int x = fromX - 1; x <= fromX + 1; x++) {
+            for (int y = fromY - 1; y <= fromY + 1; y++) {
+                if ((x == fromX && y == fromY) || x < 0 || y < 0 || x >= size || y >= size)
+                    continue;
 
-            //Cannot move into tiles that have not been discovered yet.
-            if (!gs.getTribe(unit.getTribeId()).isVisible(tile.x, tile.y)) {
-                continue;
-            }
+                Types.TERRAIN terrain = board.getTerrainAt(x, y);
+                double stepCost = 0.0;
 
-            //Check if current research allows movement to this tile.
-            if (!board.traversable(tile.x, tile.y, unit.getTribeId())) {
-                continue;
-            }
+                //Can't move to tiles where there's a non-friendly unit
+                Unit otherUnit = board.getUnitAt(x, y);
+                if (otherUnit != null && otherUnit.getTribeId() != tribeId) {
+                    continue;
+                }
 
-            //Mind benders cannot move into an enemy city tile.
-            if (unit.getType() == Types.UNIT.MIND_BENDER && board.getTerrainAt(tile.x, tile.y) == Types.TERRAIN.CITY) {
-                City targetCity = (City) board.getActor(board.getCityIdAt(tile.x, tile.y));
-                //The city belongs to the enemy.
-                if (targetCity.getTribeId() != unit.getTribeId()) {
+                //Cannot move into tiles that have not been discovered yet.
+                if (!tribe.isVisible(x, y)) {
                     continue;
                 }
-            }
 
-            //Unit is a water unit
-            if (unit.getType().isWaterUnit()) {
-                switch (terrain) {
-                    case CITY:
-                    case PLAIN:
-                    case FOREST:
-                    case VILLAGE:
-                    case MOUNTAIN:
-                        //Disembark takes a turn of movement.
-                        stepCost = costFrom < unit.MOV ? (unit.MOV - costFrom) : unit.MOV; //as much cost as needed to finished step here
-                        break;
-                    case FOG:
-                    case DEEP_WATER:
-                    case SHALLOW_WATER:
-                        stepCost = 1.0;
-                        break;
+                //Check if current research allows movement to this tile.
+                if (!board.traversable(x, y, tribeId)) {
+                    continue;
                 }
-            } else //Ground unit
-            {
-                switch (terrain) {
-                    case SHALLOW_WATER:
-                    case DEEP_WATER:
-                        //Embarking takes a turn of movement.
-                        if (board.getBuildingAt(tile.x, tile.y) == Types.BUILDING.PORT) {
-                            stepCost = costFrom < unit.MOV ? (unit.MOV - costFrom) : unit.MOV; //as much cost as needed to finished step here;
-                        } else {
-                            continue;
-                        }
-                        break;
-                    case FOG:
-                    case PLAIN:
-                    case CITY:
-                    case VILLAGE:
-                        stepCost = 1.0;
-                        break;
-                    case FOREST:
-                    case MOUNTAIN:
-                        stepCost = costFrom < unit.MOV ? (unit.MOV - costFrom) : unit.MOV; //as much cost as needed to finished step here
-                        break;
 
+                //Mind benders cannot move into an enemy city tile.
+                if (unit.getType() == Types.UNIT.MIND_BENDER && terrain == Types.TERRAIN.CITY) {
+                    City targetCity = board.getCityInBorders(x, y);
+                    //The city belongs to the enemy.
+                    if (targetCity.getTribeId() != tribeId) {
+                        continue;
+                    }
                 }
 
-                //If there is a friendly/neutral road connection between two tiles then the movement cost is halved.
-                //This movement boost applies only to ground units.
-                if (onRoad && (board.isRoad(tile.x, tile.y) || board.getTerrainAt(tile.x, tile.y) == Types.TERRAIN.CITY)) {
-                    int cityId = board.getCityIdAt(from.x, from.y);
-                    if (cityId == -1 || board.getTribe(unit.getTribeId()).controlsCity(cityId)) {
-                        stepCost = Math.max(0.5, stepCost / 2.0);
+                //Unit is a water unit
+                if (unit.getType().isWaterUnit()) {
+                    switch (terrain) {
+                        case CITY:
+                        case PLAIN:
+                        case FOREST:
+                        case VILLAGE:
+                        case MOUNTAIN:
+                            //Disembark takes a turn of movement.
+                            stepCost = costFrom < unit.MOV ? (unit.MOV - costFrom) : unit.MOV; //as much cost as needed to finished step here
+                            break;
+                        case FOG:
+                        case DEEP_WATER:
+                        case SHALLOW_WATER:
+                            stepCost = 1.0;
+                            break;
+                    }
+                } else //Ground unit
+                {
+                    switch (terrain) {
+                        case SHALLOW_WATER:
+                        case DEEP_WATER:
+                            //Embarking takes a turn of movement.
+                            if (board.getBuildingAt(x, y) == Types.BUILDING.PORT) {
+                                stepCost = costFrom < unit.MOV ? (unit.MOV - costFrom) : unit.MOV; //as much cost as needed to finished step here;
+                            } else {
+                                continue;
+                            }
+                            break;
+                        case FOG:
+                        case PLAIN:
+                        case CITY:
+                        case VILLAGE:
+                            stepCost = 1.0;
+                            break;
+                        case FOREST:
+                        case MOUNTAIN:
+                            stepCost = costFrom < unit.MOV ? (unit.MOV - costFrom) : unit.MOV; //as much cost as needed to finished step here
+                            break;
+
+                    }
+
+                    //If there is a friendly/neutral road connection between two tiles then the movement cost is halved.
+                    //This movement boost applies only to ground units.
+                    if (onRoad && (board.isRoad(x, y) || terrain == Types.TERRAIN.CITY)) {
+                        int cityId = board.getCityIdAt(fromX, fromY);
+                        if (cityId == -1 || tribe.controlsCity(cityId)) {
+                            stepCost = Math.max(0.5, stepCost / 2.0);
+                        }
                     }
                 }
-            }
 
-            // Moving to zone of control is never a problem, but it consumes all the rest of the movement.
-            if(zoneOfControl){
-                stepCost = costFrom < unit.MOV ? (unit.MOV - costFrom) : unit.MOV;
-                if(costFrom + stepCost <= unit.MOV)
-                    neighbours.add(new PathNode(tile, stepCost));
+                // Moving to zone of control is never a problem, but it consumes all the rest of the movement.
+                if (zoneOfControl(board, x, y, tribeId)) {
+                    stepCost = costFrom < unit.MOV ? (unit.MOV - costFrom) : unit.MOV;
+                    if (costFrom + stepCost <= unit.MOV)
+                        neighbours.add(x, y, stepCost);
 
-            //No zone of control, allow movement if part of MOV is still available.
-            }else if(Math.floor(costFrom + stepCost) <= unit.MOV){
-                neighbours.add(new PathNode(tile, stepCost));
+                //No zone of control, allow movement if part of MOV is still available.
+                } else if (Math.floor(costFrom + stepCost) <= unit.MOV) {
+                    neighbours.add(x, y, stepCost);
+                }
             }
+        }
+    }
 
-
+    /**
+     * Checks if there is an enemy unit adjacent to the position (x,y).
+     */
+    private boolean zoneOfControl(Board board, int x, int y, int tribeId)
+    {
+        int size = board.getSize();
+        for (int i = x - 1; i <= x + 1; i++) {
+            for (int j = y - 1; j <= y + 1; j++) {
+                if ((i != x || j != y) && i >= 0 && j >= 0 && i < size && j < size) {
+                    Unit u = board.getUnitAt(i, j);  // There might not be a unit there at all
+                    if (u != null && u.getTribeId() != tribeId)
+                        return true;
+                }
+            }
         }
-        return neighbours;
+        return false;
+    }
+
+    @Override
+    public int getGridSize() {
+        return gs.getBoard().getSize();
     }
 
     @Override
@@ -37,6 +37,9 @@ public class ConvertCommand implements ActionCommand {
             //manage status of the units after the action is executed
             unit.transitionToStatus(Types.TURN_STATUS.ATTACKED);
             target.setStatus(Types.TURN_STATUS.FINISHED);
+
+            //The board doesn't see this unit changing sides.
+            gs.getBoard().reportTileChange(target.getPosition().x, target.getPosition().y);
             return true;
         }
         return false;
@@ -73,6 +73,7 @@ public class ExamineCommand implements ActionCommand {
                 case POP_GROWTH:
                     City c = (City) gs.getActor(handlerCityId);
                     c.addPopulation(t, bonus.getBonus());
+                    gs.getBoard().reportActorChange(handlerCityId);
                     break;
 
                 case EXPLORER:
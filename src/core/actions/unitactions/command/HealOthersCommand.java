@@ -20,8 +20,11 @@ public class HealOthersCommand implements ActionCommand {
             Unit unit = (Unit) gs.getActor(unitId);
             ArrayList<Unit> targets = action.getTargets(gs);
 
-            for (Unit target: targets) {
+            for (Unit t: targets) {
+                //Targets are found in the board, which doesn't give copies of the units that can be modified.
+                Unit target = (Unit) gs.getActor(t.getActorId());
                 target.setCurrentHP(Math.min(target.getCurrentHP() + TribesConfig.MINDBENDER_HEAL, target.getMaxHP()));
+                gs.getBoard().reportActorChange(target.getActorId());
             }
 
             unit.transitionToStatus(Types.TURN_STATUS.ATTACKED);
@@ -6,8 +6,7 @@ import core.actions.ActionCommand;
 import core.actions.unitactions.Recover;
 import core.actors.units.Unit;
 import core.game.GameState;
-
-import java.util.ArrayList;
+import utils.IntList;
 
 import static core.TribesConfig.RECOVER_IN_BORDERS_PLUS_HP;
 import static core.TribesConfig.RECOVER_PLUS_HP;
@@ -31,7 +30,7 @@ public class RecoverCommand implements ActionCommand {
 
             int cityID = gs.getBoard().getCityIdAt(unit.getPosition().x, unit.getPosition().y);
             if (cityID != -1){
-                ArrayList<Integer> citesID = gs.getTribe(unit.getTribeId()).getCitiesID();
+                IntList citesID = gs.getTribe(unit.getTribeId()).getCitiesID();
                 if (citesID.contains(cityID)){
                     addHP += RECOVER_IN_BORDERS_PLUS_HP;
                 }
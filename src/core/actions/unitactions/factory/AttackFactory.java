@@ -9,36 +9,37 @@ import core.game.Board;
 import core.game.GameState;
 import utils.Vector2d;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class AttackFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> attacks) {
         Unit unit = (Unit) actor;
-        LinkedList<Action> attacks = new LinkedList<>();
 
         //Only if unit can attack.
         if(unit.canAttack()) {
             Board b = gs.getBoard();
             Vector2d position = unit.getPosition();
 
-            // Loop through unit range, check if tile observable and action feasible, if so add action
-            LinkedList<Vector2d> potentialTiles = position.neighborhood(unit.RANGE, 0, b.getSize()); //use neighbourhood for board limits
-            for (Vector2d tile : potentialTiles) {
-                Unit other = b.getUnitAt(tile.x, tile.y);
-                if (other != null && other.getTribeId() != unit.getTribeId()) {
-                    // Check if there is actually a unit there (and it's not me)
-                    Attack a = new Attack(unit.getActorId());
-                    a.setTargetId(other.getActorId());
-                    if (a.isFeasible(gs)) {
-                        attacks.add(a);
+            // Loop through unit range (within board limits), check if tile observable and action feasible, if so add action
+            int size = b.getSize();
+            for (int i = Math.max(0, position.x - unit.RANGE); i <= Math.min(size - 1, position.x + unit.RANGE); i++) {
+                for (int j = Math.max(0, position.y - unit.RANGE); j <= Math.min(size - 1, position.y + unit.RANGE); j++) {
+                    if (i == position.x && j == position.y)
+                        continue;
+                    Unit other = b.getUnitAt(i, j);
+                    if (other != null && other.getTribeId() != unit.getTribeId()) {
+                        // Check if there is actually a unit there (and it's not me)
+                        Attack a = new Attack(unit.getActorId());
+                        a.setTargetId(other.getActorId());
+                        if (a.isFeasible(gs)) {
+                            attacks.add(a);
+                        }
                     }
                 }
             }
         }
-
-        return attacks;
     }
 
 }
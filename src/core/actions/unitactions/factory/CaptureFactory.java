@@ -10,17 +10,16 @@ import core.actors.units.Unit;
 import core.game.Board;
 import core.game.GameState;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class CaptureFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> captures) {
         Unit unit = (Unit) actor;
-        LinkedList<Action> captures = new LinkedList<>();
 
         if(!unit.isFresh())
-            return captures;
+            return;
 
         Types.TERRAIN t = gs.getBoard().getTerrainAt(unit.getPosition().x, unit.getPosition().y);
         Capture capture;
@@ -36,15 +35,13 @@ public class CaptureFactory implements ActionFactory {
             if (c != null) {
                 capture = new Capture(unit.getActorId());
                 capture.setTargetCity(c.getActorId());
-            }else return captures;
-        }else return captures;
+            }else return;
+        }else return;
 
         capture.setCaptureType(t);
         if (capture.isFeasible(gs)) {
             captures.add(capture);
         }
-
-        return captures;
     }
 
 }
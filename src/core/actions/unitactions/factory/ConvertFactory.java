@@ -9,36 +9,38 @@ import core.game.Board;
 import core.game.GameState;
 import utils.Vector2d;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class ConvertFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> converts) {
         Unit unit = (Unit) actor;
-        LinkedList<Action> converts = new LinkedList<>();
 
         //Only if unit can attack.
         if(unit.canAttack()) {
             Board b = gs.getBoard();
             Vector2d position = unit.getPosition();
 
-            LinkedList<Vector2d> potentialTiles = position.neighborhood(unit.RANGE, 0, b.getSize()); //use neighbourhood for board limits
-            for (Vector2d tile : potentialTiles) {
-                Unit target = b.getUnitAt(tile.x, tile.y);
-                if(target != null && target.getTribeId() != unit.getTribeId())
-                {
-                    // Check if there is actually a unit there (and it's not me)
-                    Convert c = new Convert(unit.getActorId());
-                    c.setTargetId(target.getActorId());
-                    if(c.isFeasible(gs)){
-                        converts.add(c);
+            //Tiles in range of the unit, within the board limits.
+            int size = b.getSize();
+            for (int i = Math.max(0, position.x - unit.RANGE); i <= Math.min(size - 1, position.x + unit.RANGE); i++) {
+                for (int j = Math.max(0, position.y - unit.RANGE); j <= Math.min(size - 1, position.y + unit.RANGE); j++) {
+                    if (i == position.x && j == position.y)
+                        continue;
+                    Unit target = b.getUnitAt(i, j);
+                    if(target != null && target.getTribeId() != unit.getTribeId())
+                    {
+                        // Check if there is actually a unit there (and it's not me)
+                        Convert c = new Convert(unit.getActorId());
+                        c.setTargetId(target.getActorId());
+                        if(c.isFeasible(gs)){
+                            converts.add(c);
+                        }
                     }
                 }
             }
         }
-
-        return converts;
     }
 
 }
@@ -7,20 +7,17 @@ import core.actors.Actor;
 import core.actors.units.Unit;
 import core.game.GameState;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class DisbandFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
-        LinkedList<Action> disbands = new LinkedList<>();
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> disbands) {
         Unit unit = (Unit) actor;
 
         Disband disbandAction = new Disband(unit.getActorId());
         if(disbandAction.isFeasible(gs))
             disbands.add(disbandAction);
-
-        return disbands;
     }
 
 }
@@ -7,21 +7,18 @@ import core.actors.Actor;
 import core.actors.units.Unit;
 import core.game.GameState;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class ExamineFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
-        LinkedList<Action> actions = new LinkedList<>();
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
         Unit unit = (Unit) actor;
 
         Examine ex = new Examine(unit.getActorId());
         if (ex.isFeasible(gs)) {
             actions.add(ex);
         }
-
-        return actions;
     }
 
 }
@@ -10,13 +10,12 @@ import core.game.Board;
 import core.game.GameState;
 import utils.Vector2d;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class HealOthersFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
-        LinkedList<Action> actions = new LinkedList<>();
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
         Unit unit = (Unit) actor;
 
         //Only if the unit can 'attack'
@@ -27,8 +26,6 @@ public class HealOthersFactory implements ActionFactory {
                 actions.add(action);
             }
         }
-
-        return actions;
     }
 
 }
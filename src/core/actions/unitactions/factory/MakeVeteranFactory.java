@@ -7,22 +7,19 @@ import core.actors.Actor;
 import core.actors.units.Unit;
 import core.game.GameState;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class MakeVeteranFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
         Unit unit = (Unit) actor;
-        LinkedList<Action> actions = new LinkedList<>();
 
         MakeVeteran action = new MakeVeteran(unit.getActorId());
         if(action.isFeasible(gs))
         {
             actions.add(action);
         }
-
-        return actions;
     }
 
 }
@@ -3,34 +3,32 @@ package core.actions.unitactions.factory;
 import core.actions.Action;
 import core.actions.ActionFactory;
 import core.actions.unitactions.Move;
-import core.actions.unitactions.StepMove;
 import core.actors.Actor;
 import core.actors.units.Unit;
 import core.game.GameState;
-import utils.graph.PathNode;
-import utils.graph.Pathfinder;
+import utils.Vector2d;
+import utils.graph.Reachability;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class MoveFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> moves) {
         Unit unit = (Unit) actor;
-        LinkedList<Action> moves = new LinkedList<>();
-        Pathfinder tp = new Pathfinder(unit.getPosition(), new StepMove(gs, unit));
 
         //If a units turn is FINISHED don't do unnecessary calculations.
         if(unit.canMove()) {
-            for(PathNode tile : tp.findPaths()) {
-                if(gs.getBoard().getUnitAt(tile.getX(), tile.getY()) == null) {
+            Reachability destinations = gs.getReachability(unit);
+            for(int i = 0; i < destinations.getNumDestinations(); i++) {
+                int x = destinations.getX(i), y = destinations.getY(i);
+                if(gs.getBoard().getUnitAt(x, y) == null) {
                     Move action = new Move(unit.getActorId());
-                    action.setDestination(tile.getPosition());
+                    action.setDestination(new Vector2d(x, y));
                     moves.add(action);
                 }
             }
         }
-        return moves;
     }
 
 }
@@ -7,19 +7,17 @@ import core.actors.Actor;
 import core.actors.units.Unit;
 import core.game.GameState;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class RecoverFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> actions) {
         Unit unit = (Unit) actor;
-        LinkedList<Action> actions = new LinkedList<>();
         Recover newAction = new Recover(unit.getActorId());
         if(newAction.isFeasible(gs)){
             actions.add(newAction);
         }
-        return actions;
     }
 
 }
@@ -9,6 +9,18 @@ import java.util.ArrayList;
 
 public class UnitActionBuilder
 {
+    //Factories are stateless, so they are shared by all builders.
+    private static final UpgradeFactory FACTORY_UPGRADE = new UpgradeFactory();
+    private static final AttackFactory FACTORY_ATTACK = new AttackFactory();
+    private static final CaptureFactory FACTORY_CAPTURE = new CaptureFactory();
+    private static final ConvertFactory FACTORY_CONVERT = new ConvertFactory();
+    private static final DisbandFactory FACTORY_DISBAND = new DisbandFactory();
+    private static final ExamineFactory FACTORY_EXAMINE = new ExamineFactory();
+    private static final HealOthersFactory FACTORY_HEAL_OTHERS = new HealOthersFactory();
+    private static final MakeVeteranFactory FACTORY_MAKE_VETERAN = new MakeVeteranFactory();
+    private static final MoveFactory FACTORY_MOVE = new MoveFactory();
+    private static final RecoverFactory FACTORY_RECOVER = new RecoverFactory();
+
 
     public ArrayList<Action> getActions(GameState gs, Unit unit)
     {
@@ -22,37 +34,37 @@ public class UnitActionBuilder
         }
 
         //Upgrade (always possible)
-        allActions.addAll(new UpgradeFactory().computeActionVariants(unit, gs));
+        FACTORY_UPGRADE.computeActionVariants(unit, gs, allActions);
 
         if(unit.isFinished())
             return allActions;
 
         //Attack
-        allActions.addAll(new AttackFactory().computeActionVariants(unit, gs));
+        FACTORY_ATTACK.computeActionVariants(unit, gs, allActions);
 
         //Capture
-        allActions.addAll(new CaptureFactory().computeActionVariants(unit, gs));
+        FACTORY_CAPTURE.computeActionVariants(unit, gs, allActions);
 
         //Convert
-        allActions.addAll(new ConvertFactory().computeActionVariants(unit, gs));
+        FACTORY_CONVERT.computeActionVariants(unit, gs, allActions);
 
         //Disband
-        allActions.addAll(new DisbandFactory().computeActionVariants(unit, gs));
+        FACTORY_DISBAND.computeActionVariants(unit, gs, allActions);
 
         //Examine
-        allActions.addAll(new ExamineFactory().computeActionVariants(unit, gs));
+        FACTORY_EXAMINE.computeActionVariants(unit, gs, allActions);
 
         //Heal Others
-        allActions.addAll(new HealOthersFactory().computeActionVariants(unit, gs));
+        FACTORY_HEAL_OTHERS.computeActionVariants(unit, gs, allActions);
 
         //Make Veteran
-        allActions.addAll(new MakeVeteranFactory().computeActionVariants(unit, gs));
+        FACTORY_MAKE_VETERAN.computeActionVariants(unit, gs, allActions);
 
         //Move
-        allActions.addAll(new MoveFactory().computeActionVariants(unit, gs));
+        FACTORY_MOVE.computeActionVariants(unit, gs, allActions);
 
         //Recover
-        allActions.addAll(new RecoverFactory().computeActionVariants(unit, gs));
+        FACTORY_RECOVER.computeActionVariants(unit, gs, allActions);
 
         return allActions;
     }
@@ -8,14 +8,13 @@ import core.actors.units.Unit;
 import core.game.GameState;
 import core.Types;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class UpgradeFactory implements ActionFactory {
 
     @Override
-    public LinkedList<Action> computeActionVariants(final Actor actor, final GameState gs) {
+    public void computeActionVariants(final Actor actor, final GameState gs, final ArrayList<Action> upgradeActions) {
         Unit unit = (Unit) actor;
-        LinkedList<Action> upgradeActions = new LinkedList<>();
 
         Types.ACTION actionType = null;
         if(unit.getType() == Types.UNIT.BOAT) actionType = Types.ACTION.UPGRADE_BOAT;
@@ -26,7 +25,6 @@ public class UpgradeFactory implements ActionFactory {
         if(action.isFeasible(gs)){
             upgradeActions.add(action);
         }
-        return upgradeActions;
     }
 
 }
@@ -19,6 +19,12 @@ public abstract class Actor {
      */
     protected Vector2d position;
 
+    /**
+     * Board snapshot that owns this instance. Copy-on-write snapshots of a board share actors until
+     * they are requested, and then clone them (see core.game.Board#getActor(int)).
+     */
+    private Object snapshotOwner;
+
     /**
      * Method to provide a copy of this actor.
      * @param hideInfo indicates if information of this actor should be copied or hidden for
@@ -37,6 +43,8 @@ public abstract class Actor {
     public int getTribeId() {return tribeId;}
 
     public void setPosition(int x, int y) {position = new Vector2d(x, y);}
+    public void setSnapshotOwner(Object owner) {this.snapshotOwner = owner;}
+    public Object getSnapshotOwner() {return snapshotOwner;}
     public Vector2d getPosition() {
         return position;
     }
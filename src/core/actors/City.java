@@ -6,8 +6,9 @@ import core.game.Board;
 import core.game.GameState;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import utils.IntList;
 import utils.Vector2d;
-import java.util.ArrayList;
+import utils.file.BinaryReader;
 import java.util.LinkedList;
 
 public class City extends Actor{
@@ -37,7 +38,7 @@ public class City extends Actor{
     private int pointsWorth;
 
     // List of IDs of units controlled by this city.
-    private ArrayList<Integer> unitsID = new ArrayList<>();
+    private IntList unitsID = new IntList();
 
     //List of buildings that belong to this city.
     private LinkedList<Building> buildings = new LinkedList<>();
@@ -91,6 +92,40 @@ public class City extends Actor{
         }
     }
 
+    /**
+     * Creates a city from a binary savegame (see GameSaver.writeGame()).
+     * @param in reader positioned at the city information, after its id.
+     * @param cityID id of the city.
+     */
+    public City(BinaryReader in, int cityID){
+        this.position = new Vector2d(in.readVarInt(), in.readVarInt());
+        this.tribeId = in.readVarInt();
+        population_need = in.readSignedVarInt();
+        bound = in.readVarInt();
+        level = in.readVarInt();
+        isCapital = in.readBoolean();
+        population = in.readSignedVarInt();
+        production = in.readSignedVarInt();
+        hasWalls = in.readBoolean();
+        pointsWorth = in.readSignedVarInt();
+
+        int nBuildings = in.readVarInt();
+        for (int i=0; i<nBuildings; i++){
+            int x = in.readVarInt(), y = in.readVarInt();
+            Types.BUILDING type = Types.BUILDING.getTypeByKey(in.readVarInt());
+            if (type.isTemple()){
+                buildings.add(new Temple(x, y, type, cityID, in));
+            }else{
+                buildings.add(new Building(x, y, type, cityID));
+            }
+        }
+
+        int nUnits = in.readVarInt();
+        for (int i=0; i<nUnits; i++){
+            unitsID.add(in.readSignedVarInt());
+        }
+    }
+
     /**
      * Adds population to this city.
      * @param tribe tribe this city belongs to
@@ -260,6 +295,14 @@ public class City extends Actor{
         return population;
     }
 
+    /**
+     * Gets the production added to this city (by resources and buildings), without the level and capital bonus.
+     * @return the production added to this city.
+     */
+    public int getBaseProduction(){
+        return production;
+    }
+
     /**
      * Indicates if this city can level up
      * @return if this city can level up
@@ -301,11 +344,8 @@ public class City extends Actor{
      * @param id id of the unit to remove.
      */
     public void removeUnit(int id){
-        for(int i=0; i<unitsID.size(); i++){
-            if (unitsID.get(i) == id){
-                unitsID.remove(i);
-                return;
-            }
+        if (unitsID.removeValue(id)){
+            return;
         }
         System.out.println("Error!! Unit ID "+ id +" does not belong to this city");
 //        Thread.dumpStack();
@@ -316,8 +356,8 @@ public class City extends Actor{
      * @param index index of the unit to remove.
      * @return the element that was removed.
      */
-    public Integer removeUnitByIndex(int index){
-        return unitsID.remove(index);
+    public int removeUnitByIndex(int index){
+        return unitsID.removeAt(index);
     }
 
     /**
@@ -362,9 +402,10 @@ public class City extends Actor{
         c.production = hideInfo ? 0 : production;
         c.hasWalls = hasWalls;
         c.bound = bound;
+        c.pointsWorth = pointsWorth;
         c.actorId = actorId;
         c.setBuildings(copyBuildings());
-        c.setUnitsID(hideInfo ? new ArrayList<>() : new ArrayList<>(unitsID));
+        c.setUnitsID(hideInfo ? new IntList() : new IntList(unitsID));
         return c;
     }
 
@@ -390,7 +431,7 @@ public class City extends Actor{
         return population_need;
     }
 
-    private void setUnitsID(ArrayList<Integer> unitsID) {
+    private void setUnitsID(IntList unitsID) {
         this.unitsID = unitsID;
     }
 
@@ -415,7 +456,7 @@ public class City extends Actor{
         this.bound = b;
     }
 
-    public ArrayList<Integer> getUnitsID() {
+    public IntList getUnitsID() {
         return unitsID;
     }
 
@@ -3,6 +3,7 @@ package core.actors;
 import core.TribesConfig;
 import core.Types;
 import org.json.JSONObject;
+import utils.file.BinaryReader;
 
 public class Temple extends Building
 {
@@ -35,6 +36,20 @@ public class Temple extends Building
         turnsToScore = obj.getInt("turnsToScore");
     }
 
+    /**
+     * Creates a temple from a binary savegame.
+     * @param x x position for this temple
+     * @param y y position for this temple.
+     * @param type type of temple
+     * @param cityID id of the city this temple belongs to.
+     * @param in reader positioned at the level of the temple.
+     */
+    public Temple(int x, int y, Types.BUILDING type, int cityID, BinaryReader in){
+        super(x, y, type, cityID);
+        level = in.readVarInt();
+        turnsToScore = in.readSignedVarInt();
+    }
+
     /**
      * Levels the temple up, also resetting how many turns are needed for the next score up.
      */
@@ -9,11 +9,13 @@ import core.actors.units.Unit;
 import core.game.Board;
 import core.game.Game;
 import core.game.GameState;
+import core.game.TradeConnectivity;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import utils.BitGrid;
+import utils.IntList;
+import utils.file.BinaryReader;
 import utils.Vector2d;
-import utils.graph.PathNode;
-import utils.graph.Pathfinder;
 
 import java.util.*;
 
@@ -23,7 +25,7 @@ import static core.Types.BUILDING.*;
 public class Tribe extends Actor {
 
     //Cities this tribe owns.
-    private ArrayList<Integer> citiesID;
+    private IntList citiesID;
 
     //Capital City ID
     private int capitalID;
@@ -43,12 +45,16 @@ public class Tribe extends Actor {
     //Score for the tribe.
     private int score = 0;
 
-    //Indicates if the position in the board is visible
-    private boolean[][] obsGrid;
+    //Indicates if the position in the board is visible. Shared with copies of this tribe until one of them modifies
+    // it (see BitGrid.share()).
+    private BitGrid obsGrid;
 
     //List of city ids connected to the capital (capital not included)
     private ArrayList<Integer> connectedCities = new ArrayList<>();
 
+    //Same cities as connectedCities, indexed by city id, to check if a city is connected without scanning the list.
+    private BitSet connectedSet = new BitSet();
+
     //Monument availability
     private HashMap<Types.BUILDING, MONUMENT_STATUS> monuments;
 
@@ -56,7 +62,7 @@ public class Tribe extends Actor {
     private ArrayList<Integer> tribesMet;
 
     //Units that don't belong to a city (either converted of shifted).
-    private ArrayList<Integer> extraUnits;
+    private IntList extraUnits;
 
     //Kills by this tribe
     private int nKills;
@@ -69,9 +75,15 @@ public class Tribe extends Actor {
         init();
     }
 
+    //Used by copy(), which sets all fields itself.
+    private Tribe(Types.TRIBE tribe, int tribeId) {
+        this.tribe = tribe;
+        this.tribeId = tribeId;
+    }
+
     public Tribe(int tribeID, int cityID, Types.TRIBE tribe) {
         this.tribeId = tribeID;
-        citiesID = new ArrayList<>();
+        citiesID = new IntList();
         citiesID.add(cityID);
         this.tribe = tribe;
         init();
@@ -79,7 +91,7 @@ public class Tribe extends Actor {
 
     public Tribe(int id, JSONObject obj){
         tribeId = id;
-        citiesID = new ArrayList<>();
+        citiesID = new IntList();
         JSONArray JCitiesID = obj.getJSONArray("citiesID");
         for (int i=0; i<JCitiesID.length(); i++){
             citiesID.add(JCitiesID.getInt(i));
@@ -97,7 +109,7 @@ public class Tribe extends Actor {
         for (int i=0; i<JObsGrids.length(); i++){
             JSONArray JObsGrid = JObsGrids.getJSONArray(i);
             for (int j=0; j<JObsGrid.length(); j++){
-                obsGrid[i][j] = JObsGrid.getBoolean(j);
+                obsGrid.set(i, j, JObsGrid.getBoolean(j));
             }
         }
         stars = obj.getInt("star");
@@ -109,9 +121,10 @@ public class Tribe extends Actor {
         for (int i=0; i<JConnectedCities.length(); i++){
             connectedCities.add(JConnectedCities.getInt(i));
         }
+        connectedSet = toBitSet(connectedCities);
         score = obj.getInt("score");
         winner = Types.RESULT.getTypeByKey(obj.getInt("winner"));
-        extraUnits = new ArrayList<>();
+        extraUnits = new IntList();
         JSONArray JExtraUnits = obj.getJSONArray("extraUnits");
         for (int i=0; i<JExtraUnits.length(); i++){
             extraUnits.add(JExtraUnits.getInt(i));
@@ -119,34 +132,95 @@ public class Tribe extends Actor {
 
     }
 
+    /**
+     * Creates a tribe from a binary savegame (see GameSaver.writeGame()).
+     * @param id id of the tribe.
+     * @param size size of the board.
+     * @param in reader positioned at the tribe information, after its id.
+     */
+    public Tribe(int id, int size, BinaryReader in){
+        tribeId = id;
+        this.tribe = Types.TRIBE.getTypeByKey(in.readVarInt());
+        citiesID = readIds(in);
+        this.capitalID = in.readSignedVarInt();
+        boolean[] researched = new boolean[in.readVarInt()];
+        for (int i=0; i<researched.length; i++){
+            researched[i] = in.readBoolean();
+        }
+        techTree = new TechnologyTree(researched);
+        stars = in.readSignedVarInt();
+        winner = Types.RESULT.getTypeByKey(in.readVarInt());
+        score = in.readSignedVarInt();
+        initObsGrid(size);
+        in.readBits(obsGrid);
+        connectedCities = readIntList(in);
+        connectedSet = toBitSet(connectedCities);
+        monuments = new HashMap<>();
+        int nMonuments = in.readVarInt();
+        for (int i=0; i<nMonuments; i++){
+            Types.BUILDING monument = Types.BUILDING.getTypeByKey(in.readVarInt());
+            monuments.put(monument, MONUMENT_STATUS.getTypeByKey(in.readVarInt()));
+        }
+        tribesMet = readIntList(in);
+        extraUnits = readIds(in);
+        this.nKills = in.readVarInt();
+        nPacifistCount = in.readVarInt();
+    }
+
+    private static ArrayList<Integer> readIntList(BinaryReader in)
+    {
+        int n = in.readVarInt();
+        ArrayList<Integer> list = new ArrayList<>(n);
+        for (int i=0; i<n; i++){
+            list.add(in.readSignedVarInt());
+        }
+        return list;
+    }
+
+    private static BitSet toBitSet(ArrayList<Integer> ids)
+    {
+        BitSet set = new BitSet();
+        for (int id : ids)
+            set.set(id);
+        return set;
+    }
+
+    private static IntList readIds(BinaryReader in)
+    {
+        int n = in.readVarInt();
+        IntList list = new IntList(n);
+        for (int i=0; i<n; i++){
+            list.add(in.readSignedVarInt());
+        }
+        return list;
+    }
+
     private void init() {
         techTree = new TechnologyTree();
         Types.TECHNOLOGY initTech = tribe.getInitialTech();
         techTree.doResearch(initTech);
-        citiesID = new ArrayList<>();
+        citiesID = new IntList();
         stars = TribesConfig.INITIAL_STARS;
         score = initTech.getPoints();
         tribesMet = new ArrayList<>();
-        extraUnits = new ArrayList<>();
+        extraUnits = new IntList();
         connectedCities = new ArrayList<>();
+        connectedSet = new BitSet();
         monuments = Types.BUILDING.initMonuments();
         nKills = 0;
         nPacifistCount = 0;
     }
 
     public void initObsGrid(int size) {
-        obsGrid = new boolean[size][size];
+        obsGrid = new BitGrid(size);
         if(Constants.PLAY_WITH_FULL_OBS)
-        {
-            for (boolean[] booleans : obsGrid) Arrays.fill(booleans, true);
-        }
+            obsGrid.fill(true);
     }
 
 
     public Tribe copy(boolean hideInfo) {
-        Tribe tribeCopy = new Tribe(this.tribe);
+        Tribe tribeCopy = new Tribe(this.tribe, this.tribeId);
         tribeCopy.actorId = this.actorId;
-        tribeCopy.tribeId = this.tribeId;
         tribeCopy.stars = hideInfo ? 0 : this.stars;
         tribeCopy.winner = this.winner;
         tribeCopy.score = this.score;
@@ -156,37 +230,30 @@ public class Tribe extends Actor {
 
         tribeCopy.techTree = hideInfo ? new TechnologyTree() : this.techTree.copy();
 
-        tribeCopy.obsGrid = new boolean[obsGrid.length][obsGrid.length];
-        for (int i = 0; i < obsGrid.length; ++i)
-            if(!hideInfo)
-                System.arraycopy(obsGrid[i], 0, tribeCopy.obsGrid[i], 0, obsGrid.length);
-            else //copy all visible (or enemy units won't be able to move in the FM). Assumes other tribes see everything.
-                for(int j = 0; j < obsGrid[i].length; j++)
-                    tribeCopy.obsGrid[i][j] = true;
-
-        tribeCopy.citiesID = new ArrayList<>();
-        if(!hideInfo) tribeCopy.citiesID.addAll(citiesID);
-
-        tribeCopy.connectedCities = new ArrayList<>();
-        if(!hideInfo) tribeCopy.connectedCities.addAll(connectedCities);
-
-        tribeCopy.tribesMet = new ArrayList<>();
-        if(!hideInfo) tribeCopy.tribesMet.addAll(tribesMet);
-
-        tribeCopy.extraUnits = new ArrayList<>();
-        if(!hideInfo) tribeCopy.extraUnits.addAll(extraUnits);
-
-        tribeCopy.monuments = new HashMap<>();
-        if(!hideInfo) for(Types.BUILDING b : monuments.keySet())
+        if(!hideInfo)
+        {
+            //Visibility changes rarely, the grid is shared until one of the tribes reveals a tile.
+            tribeCopy.obsGrid = obsGrid;
+            obsGrid.share();
+        }else
         {
-            tribeCopy.monuments.put(b, monuments.get(b));
+            //copy all visible (or enemy units won't be able to move in the FM). Assumes other tribes see everything.
+            tribeCopy.obsGrid = new BitGrid(obsGrid.getSize());
+            tribeCopy.obsGrid.fill(true);
         }
 
+        tribeCopy.citiesID = hideInfo ? new IntList() : new IntList(citiesID);
+        tribeCopy.connectedCities = hideInfo ? new ArrayList<>() : new ArrayList<>(connectedCities);
+        tribeCopy.connectedSet = hideInfo ? new BitSet() : (BitSet) connectedSet.clone();
+        tribeCopy.tribesMet = hideInfo ? new ArrayList<>() : new ArrayList<>(tribesMet);
+        tribeCopy.extraUnits = hideInfo ? new IntList() : new IntList(extraUnits);
+        tribeCopy.monuments = hideInfo ? new HashMap<>() : new HashMap<>(monuments);
+
         return tribeCopy;
     }
 
     public boolean clearView(int x, int y, int range, Random r, Board b) {
-        int size = obsGrid.length;
+        int size = obsGrid.getSize();
         Vector2d center = new Vector2d(x, y);
         boolean requiresNetworkUpdate = false;
 
@@ -195,9 +262,12 @@ public class Tribe extends Actor {
 
         for(Vector2d tile : tiles)
         {
-            if (!obsGrid[tile.x][tile.y]) {
+            if (!obsGrid.get(tile.x, tile.y)) {
                 //Points and visibility.
-                obsGrid[tile.x][tile.y] = true;
+                if(obsGrid.isShared())
+                    obsGrid = new BitGrid(obsGrid);
+                obsGrid.set(tile.x, tile.y, true);
+                b.reportTileChange(tile.x, tile.y);
                 this.score += TribesConfig.CLEAR_VIEW_POINTS;
 
                 //Network updates for this tribe, only if a road or a water tile has been revealed.
@@ -214,14 +284,14 @@ public class Tribe extends Actor {
             if( u !=null){
                 meetTribe(r,b.getTribes(),u.getTribeId());
                 //other tribe meets this tribe if moving into visible area
-                if(b.getTribe(u.tribeId).obsGrid[tile.x][tile.y]){
+                if(b.getTribe(u.tribeId).isVisible(tile.x, tile.y)){
                     meetTribe(r,b.getTribes(),this.tribeId);
                 }
             }
             if(c !=null){
                 meetTribe(r,b.getTribes(),c.getTribeId());
                 //other tribe meets this tribe if moving into visible area
-                if(b.getTribe(c.tribeId).obsGrid[tile.x][tile.y]){
+                if(b.getTribe(c.tribeId).isVisible(tile.x, tile.y)){
                     meetTribe(r,b.getTribes(),this.tribeId);
                 }
             }
@@ -231,11 +301,8 @@ public class Tribe extends Actor {
         // The boost is only available when playing with partial observability.
         if(!Constants.PLAY_WITH_FULL_OBS && monuments.get(EYE_OF_GOD) == MONUMENT_STATUS.UNAVAILABLE)
         {
-            for (boolean[] booleans : obsGrid)
-                for (int j = 0; j < obsGrid[0].length; ++j) {
-                    if (!booleans[j]) //end and out
-                        return requiresNetworkUpdate;
-                }
+            if (obsGrid.count() < size * size) //end and out
+                return requiresNetworkUpdate;
 
             //All clear and we couldn't buy monument before. Now we can.
             monuments.put(EYE_OF_GOD, MONUMENT_STATUS.AVAILABLE);
@@ -250,13 +317,9 @@ public class Tribe extends Actor {
     }
 
     private void removeCity(int id) {
-        for (int i = 0; i < citiesID.size(); i++) {
-            if (citiesID.get(i) == id) {
-                citiesID.remove(i);
-                return;
-            }
+        if (!citiesID.removeValue(id)) {
+            //System.out.println("Error!! city ID " + id + " does not belong to this tribe"); //This is only a problem if it happens in the real game
         }
-        //System.out.println("Error!! city ID " + id + " does not belong to this tribe"); //This is only a problem if it happens in the real game
     }
 
     public void setTechTree(TechnologyTree techTree) {
@@ -279,7 +342,7 @@ public class Tribe extends Actor {
         this.score -= score;
     }
 
-    public ArrayList<Integer> getCitiesID() {
+    public IntList getCitiesID() {
         return citiesID;
     }
 
@@ -287,12 +350,29 @@ public class Tribe extends Actor {
         return tribe.getName();
     }
 
+    /**
+     * Returns the visibility of the board for this tribe. The grid is built for the caller, use isVisible()
+     * to check single positions.
+     * @return a new grid, true for the positions that are visible.
+     */
     public boolean[][] getObsGrid() {
+        return obsGrid.toArray();
+    }
+
+    /**
+     * Returns the visibility grid of this tribe, which must not be modified.
+     * @return the grid, true for the positions that are visible.
+     */
+    public BitGrid getVisibility() {
         return obsGrid;
     }
 
+    public int getNumVisibleTiles() {
+        return obsGrid.count();
+    }
+
     public boolean isVisible(int x, int y) {
-        return obsGrid[x][y];
+        return obsGrid.get(x, y);
     }
 
     public Types.TRIBE getType() {
@@ -354,7 +434,7 @@ public class Tribe extends Actor {
         return null;
     }
 
-    public void moveAllUnits(ArrayList<Integer> units){
+    public void moveAllUnits(IntList units){
         extraUnits.addAll(units);
     }
 
@@ -416,7 +496,7 @@ public class Tribe extends Actor {
 
 
 
-    public void updateNetwork(Pathfinder tp, Board b, boolean thisTribesTurn) {
+    public void updateNetwork(TradeConnectivity network, Board b, boolean thisTribesTurn) {
         ArrayList<Integer> lostCities = new ArrayList<>();
         ArrayList<Integer> addedCities = new ArrayList<>();
 
@@ -425,23 +505,27 @@ public class Tribe extends Actor {
 
             lostCities.addAll(connectedCities);
             connectedCities.clear();
+            connectedSet.clear();
 
-        } else if (tp != null) {
+        } else if (network != null) {
 
             City capital = (City) b.getActor(capitalID);
+            Vector2d capitalPos = capital.getPosition();
+
+            //Cities are connected to the capital if they are in the same set of the network.
+            int capitalComponent = network.getComponent(capitalPos.x, capitalPos.y);
 
-            for (int cityId : citiesID) {
+            for (int i = 0; i < citiesID.size(); i++) {
+                int cityId = citiesID.get(i);
                 if (cityId != capitalID) {
 
                     //Check if the city is connected to the capital
                     City nonCapitalCity = (City) b.getActor(cityId);
                     Vector2d nonCapitalPos = nonCapitalCity.getPosition();
-                    ArrayList<PathNode> pathToCity = tp.findPathTo(nonCapitalPos);
-
-                    boolean connectedNow = (pathToCity != null) && (pathToCity.size() > 0);
+                    boolean connectedNow = capitalComponent != -1 && network.getComponent(nonCapitalPos.x, nonCapitalPos.y) == capitalComponent;
 
                     //This was previously connected
-                    if (connectedCities.contains(cityId)) {
+                    if (connectedSet.get(cityId)) {
                         if (!connectedNow) {
                             //drops from the network
                             dropCityFromNetwork(nonCapitalCity);
@@ -450,6 +534,7 @@ public class Tribe extends Actor {
                     } else if (connectedNow) {
                         //Wasn't connected, but it is now
                         connectedCities.add(cityId);
+                        connectedSet.set(cityId);
                         addedCities.add(cityId);
                     }
                 }
@@ -457,16 +542,20 @@ public class Tribe extends Actor {
 
             //There may be some connected cities that we don't longer own
             // (i.e. we're here because an enemy captured one of our cities in the network)
-            ArrayList<Integer> connCities = new ArrayList<>(connectedCities);
-            for(Integer cityId : connCities)
+            for(int i = 0; i < connectedCities.size(); i++)
             {
-                if(!this.controlsCity(cityId))
+                int cityId = connectedCities.get(i);
+                if(connectedSet.get(cityId) && !this.controlsCity(cityId))
                 {
                     dropCityFromNetwork((City) b.getActor(cityId));
                     lostCities.add(cityId);
                 }
             }
 
+            //Cities dropped are removed from the list at once, keeping the order of the others.
+            if(!lostCities.isEmpty())
+                connectedCities.removeIf(cityId -> !connectedSet.get(cityId));
+
             //The capital gains 1 population for each city connected, -1 for each city disconnected
             int capitalGain = addedCities.size() - lostCities.size();
             capital.addPopulation(this, capitalGain);
@@ -490,14 +579,13 @@ public class Tribe extends Actor {
     }
 
     /**
-     * Drops a city from the network. Removes the associated population required to that city.
+     * Drops a city from the network. Removes the associated population required to that city. The city stays in
+     * connectedCities until it's removed from it with the other cities dropped (see updateNetwork()).
      * @param lostCity city to remove from network
      */
     private void dropCityFromNetwork(City lostCity)
     {
-        int cityId = lostCity.getActorId();
-        int cityIdx = connectedCities.indexOf(cityId);
-        connectedCities.remove(cityIdx);
+        connectedSet.clear(lostCity.getActorId());
 
         //this city loses 1 population
         lostCity.addPopulation(this, -1);
@@ -506,8 +594,8 @@ public class Tribe extends Actor {
     public int getMaxProduction(GameState gs)
     {
         int acumProd = 0;
-        for (int cityId : citiesID) {
-            City city = (City) gs.getActor(cityId);
+        for (int i = 0; i < citiesID.size(); i++) {
+            City city = (City) gs.getActor(citiesID.get(i));
             acumProd += city.getProduction();
         }
         return acumProd;
@@ -546,9 +634,7 @@ public class Tribe extends Actor {
 
     public void removeExtraUnit(Unit target)
     {
-        int index = extraUnits.indexOf(target.getActorId());
-        if(index != -1)
-            extraUnits.remove(index);
+        extraUnits.removeValue(target.getActorId());
     }
 
     /**
@@ -595,28 +681,29 @@ public class Tribe extends Actor {
         this.setWinner(Types.RESULT.LOSS);
 
         //All units must disappear.
-        for(int cityId : citiesID)
+        for(int i = 0; i < citiesID.size(); i++)
         {
-            City c = (City) gs.getActor(cityId);
-            for(int unitId : c.getUnitsID())
+            City c = (City) gs.getActor(citiesID.get(i));
+            IntList unitsID = c.getUnitsID();
+            for(int j = 0; j < unitsID.size(); j++)
             {
-                Unit u = (Unit) gs.getActor(unitId);
+                Unit u = (Unit) gs.getActor(unitsID.get(j));
                 gs.getBoard().removeUnitFromBoard(u);
             }
             c.clearUnits();
         }
 
         //Also extra units
-        for(int unitId : this.extraUnits)
+        for(int i = 0; i < extraUnits.size(); i++)
         {
-            Unit u = (Unit) gs.getActor(unitId);
+            Unit u = (Unit) gs.getActor(extraUnits.get(i));
             gs.getBoard().removeUnitFromBoard(u);
         }
         extraUnits.clear();
 
     }
 
-    public ArrayList<Integer> getExtraUnits() {
+    public IntList getExtraUnits() {
         return extraUnits;
     }
 
@@ -0,0 +1,177 @@
+package core.game;
+
+import core.Types;
+import core.actions.Action;
+import core.actions.cityactions.*;
+import core.actions.tribeactions.BuildRoad;
+import core.actions.tribeactions.EndTurn;
+import core.actions.tribeactions.ResearchTech;
+import core.actions.tribeactions.TribeAction;
+import core.actions.unitactions.*;
+import utils.Vector2d;
+import utils.file.BinaryReader;
+import utils.file.BinaryWriter;
+
+/**
+ * Binary encoding of actions for replays. An action is written as its type, the id of the actor that
+ * executes it (city, unit or tribe) and the parameters of its type. Outcomes decided when the action is
+ * executed (e.g. the bonus of examining ruins) are not written, they are obtained again when it's replayed.
+ */
+class ActionCodec
+{
+    private static final Types.ACTION[] ACTION_TYPES = Types.ACTION.values();
+
+    /**
+     * Writes an action.
+     * @param out writer to write to.
+     * @param action action to write.
+     */
+    static void write(BinaryWriter out, Action action)
+    {
+        Types.ACTION type = action.getActionType();
+        out.writeVarInt(type.ordinal());
+
+        if(action instanceof CityAction)
+        {
+            CityAction ca = (CityAction) action;
+            out.writeVarInt(ca.getCityId());
+            writePosition(out, ca.getTargetPos());
+        }else if(action instanceof UnitAction)
+        {
+            out.writeVarInt(((UnitAction) action).getUnitId());
+        }else if(action instanceof TribeAction)
+        {
+            out.writeVarInt(((TribeAction) action).getTribeId());
+        }
+
+        switch (type)
+        {
+            case BUILD: out.writeVarInt(((Build) action).getBuildingType().getKey()); break;
+            case LEVEL_UP: out.writeVarInt(((LevelUp) action).getBonus().ordinal()); break;
+            case RESOURCE_GATHERING: out.writeVarInt(((ResourceGathering) action).getResource().getKey()); break;
+            case SPAWN: out.writeVarInt(((Spawn) action).getUnitType().getKey()); break;
+            case BUILD_ROAD: writePosition(out, ((BuildRoad) action).getPosition()); break;
+            case RESEARCH_TECH: out.writeVarInt(((ResearchTech) action).getTech().ordinal()); break;
+            case ATTACK: out.writeVarInt(((Attack) action).getTargetId()); break;
+            case CONVERT: out.writeVarInt(((Convert) action).getTargetId()); break;
+            case CAPTURE:
+                Capture capture = (Capture) action;
+                out.writeVarInt(capture.getTargetCity());
+                out.writeVarInt(capture.getCaptureType().getKey());
+                break;
+            case MOVE: writePosition(out, ((Move) action).getDestination()); break;
+        }
+    }
+
+    /**
+     * Reads an action written by write().
+     * @param in reader positioned at the action.
+     * @return the action.
+     */
+    static Action read(BinaryReader in)
+    {
+        Types.ACTION type = ACTION_TYPES[in.readVarInt()];
+        int actorId = in.readVarInt();
+
+        CityAction cityAction = null;
+        Action action;
+        switch (type)
+        {
+            //City actions
+            case BUILD: cityAction = new Build(actorId); break;
+            case BURN_FOREST: cityAction = new BurnForest(actorId); break;
+            case CLEAR_FOREST: cityAction = new ClearForest(actorId); break;
+            case DESTROY: cityAction = new Destroy(actorId); break;
+            case GROW_FOREST: cityAction = new GrowForest(actorId); break;
+            case LEVEL_UP: cityAction = new LevelUp(actorId); break;
+            case RESOURCE_GATHERING: cityAction = new ResourceGathering(actorId); break;
+            case SPAWN: cityAction = new Spawn(actorId); break;
+            default: break;
+        }
+
+        if(cityAction != null)
+        {
+            cityAction.setTargetPos(readPosition(in));
+            switch (type)
+            {
+                case BUILD: ((Build) cityAction).setBuildingType(Types.BUILDING.getTypeByKey(in.readVarInt())); break;
+                case LEVEL_UP: ((LevelUp) cityAction).setBonus(Types.CITY_LEVEL_UP.values()[in.readVarInt()]); break;
+                case RESOURCE_GATHERING: ((ResourceGathering) cityAction).setResource(Types.RESOURCE.getTypeByKey(in.readVarInt())); break;
+                case SPAWN: ((Spawn) cityAction).setUnitType(Types.UNIT.getTypeByKey(in.readVarInt())); break;
+                default: break;
+            }
+            return cityAction;
+        }
+
+        switch (type)
+        {
+            //Tribe actions
+            case BUILD_ROAD:
+                BuildRoad buildRoad = new BuildRoad(actorId);
+                buildRoad.setPosition(readPosition(in));
+                action = buildRoad;
+                break;
+            case END_TURN: action = new EndTurn(actorId); break;
+            case RESEARCH_TECH:
+                ResearchTech researchTech = new ResearchTech(actorId);
+                researchTech.setTech(Types.TECHNOLOGY.values()[in.readVarInt()]);
+                action = researchTech;
+                break;
+
+            //Unit actions
+            case ATTACK:
+                Attack attack = new Attack(actorId);
+                attack.setTargetId(in.readVarInt());
+                action = attack;
+                break;
+            case CAPTURE:
+                Capture capture = new Capture(actorId);
+                capture.setTargetCity(in.readVarInt());
+                capture.setCaptureType(Types.TERRAIN.getTypeByKey(in.readVarInt()));
+                action = capture;
+                break;
+            case CONVERT:
+                Convert convert = new Convert(actorId);
+                convert.setTargetId(in.readVarInt());
+                action = convert;
+                break;
+            case DISBAND: action = new Disband(actorId); break;
+            case EXAMINE: action = new Examine(actorId); break;
+            case HEAL_OTHERS: action = new HealOthers(actorId); break;
+            case MAKE_VETERAN: action = new MakeVeteran(actorId); break;
+            case MOVE:
+                Move move = new Move(actorId);
+                move.setDestination(readPosition(in));
+                action = move;
+                break;
+            case RECOVER: action = new Recover(actorId); break;
+            case UPGRADE_BOAT:
+            case UPGRADE_SHIP: action = new Upgrade(type, actorId); break;
+            default:
+                System.out.println("ERROR: action type " + type + " can't be read from a replay.");
+                action = null;
+        }
+        return action;
+    }
+
+    private static void writePosition(BinaryWriter out, Vector2d pos)
+    {
+        //Positions are optional for some actions: 0 if there's no position, x+1 otherwise.
+        if(pos == null)
+        {
+            out.writeVarInt(0);
+        }else
+        {
+            out.writeVarInt(pos.x + 1);
+            out.writeVarInt(pos.y);
+        }
+    }
+
+    private static Vector2d readPosition(BinaryReader in)
+    {
+        int x = in.readVarInt();
+        if(x == 0)
+            return null;
+        return new Vector2d(x - 1, in.readVarInt());
+    }
+}
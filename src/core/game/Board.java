@@ -10,7 +10,10 @@ import core.actors.Tribe;
 import core.actors.units.*;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import utils.BitGrid;
+import utils.IntList;
 import utils.Vector2d;
+import utils.file.BinaryReader;
 import utils.graph.*;
 
 import java.util.*;
@@ -19,17 +22,20 @@ import static core.Types.TERRAIN.*;
 
 public class Board {
 
+    // Tile layers are flat arrays, with the tile (x,y) at position x*size+y. Terrains, resources and buildings
+    // are stored as the ordinal of their type plus one, 0 meaning no type (see encode()).
+
     // Array for the type of terrain that each tile of board will have
-    private Types.TERRAIN[][] terrains;
+    private byte[] terrains;
 
     // Array for resource each tile of the board will have
-    private Types.RESOURCE[][] resources;
+    private byte[] resources;
 
     // Array for buildings each tile of the board will have
-    private Types.BUILDING[][] buildings;
+    private byte[] buildings;
 
     // Array for units each tile of the board will have
-    private int[][] units;
+    private int[] units;
 
     // Array for tribes
     private Tribe[] tribes;
@@ -38,10 +44,11 @@ public class Board {
     private int[] capitalIDs;
 
     // Array for id of the city that owns each tile. -1 if no city owns the tile.
-    private int[][] tileCityId;
+    private int[] tileCityId;
 
-    //Actors in the game
-    private HashMap<Integer, Actor> gameActors;
+    //Actors in the game, indexed by their id (ids are given by actorIDcounter, so the table is dense). Null for
+    // ids that don't correspond to an actor, either because it was removed or because it's not visible.
+    private Actor[] gameActors;
 
     //variable to declare size of board
     private int size;
@@ -58,9 +65,35 @@ public class Board {
     //Indicate if this model is native (not a copy of the game one) or not.
     private boolean isNative;
 
+    // Copy-on-write bookkeeping (see snapshot()). Each tile layer records the token of the board that owns it, and
+    // a board clones a layer before writing into it if the layer is owned by someone else. Actors follow the same
+    // rule, but are cloned when requested as callers may modify them. Snapshots mark the token of the board they
+    // are taken from, which then gets a new one before writing (see ownerToken()).
+    private ShareToken snapshotToken = new ShareToken();
+    private Object terrainOwner, resourceOwner, buildingOwner, unitOwner, cityIdOwner;
+
+    // Hash of the values of all tile layers (see StateHash), updated as the layers are written.
+    private long layerHash;
+
+    // Hash of the actors (see StateHash) and the key of each actor (by id) included in it. Actors requested with
+    // getActor() may be modified by the caller, so they are rehashed the next time the hash is requested (see
+    // getActorHash()). The keys are shared with snapshots like the tile layers.
+    private long actorHash;
+    private long[] actorKeys = new long[0];
+    private Object actorKeysOwner;
+    private IntList actorsToRehash = new IntList();
+    private boolean rehashAllActors = true;
+
+    private static final Types.TERRAIN[] TERRAIN_TYPES = Types.TERRAIN.values();
+    private static final Types.RESOURCE[] RESOURCE_TYPES = Types.RESOURCE.values();
+    private static final Types.BUILDING[] BUILDING_TYPES = Types.BUILDING.values();
+
+    // Tiles and actors modified since the actions of the active tribe were last computed (see GameState.computePlayerActions())
+    private BoardChanges changes = new BoardChanges();
+
     // Constructor for board
     public Board() {
-        this.gameActors = new HashMap<>();
+        this.gameActors = new Actor[64];
     }
 
     /**
@@ -71,7 +104,6 @@ public class Board {
      * @param tribes All tribes in the game
      */
     public Board(JSONObject JBoard, int[] capitalIDs, int activeTribeID, Tribe[] tribes){
-        this.gameActors = new HashMap<>();
         this.capitalIDs = capitalIDs;
         JSONArray JResource = JBoard.getJSONArray("resource");
         JSONArray JTerrain = JBoard.getJSONArray("terrain");
@@ -81,17 +113,14 @@ public class Board {
         JSONArray JBuilding = JBoard.getJSONArray("building");
 
         size = JResource.length();
-        terrains = new Types.TERRAIN[size][size];
-        resources = new Types.RESOURCE[size][size];
-        buildings = new Types.BUILDING[size][size];
-        units = new int[size][size];
-        tileCityId = new int[size][size];
+        allocateLayers();
         isNative = true;
         actorIDcounter = JBoard.getInt("actorIDcounter");
+        gameActors = new Actor[actorIDcounter + 1];
         this.activeTribeID = activeTribeID;
         this.assignTribes(tribes);
 
-        boolean[][] networkTiles = new boolean[size][size];
+        BitGrid networkTiles = new BitGrid(size);
         for (int i=0; i<size; i++){
             JSONArray resourceItem = JResource.getJSONArray(i);
             JSONArray terrainItem = JTerrain.getJSONArray(i);
@@ -100,21 +129,59 @@ public class Board {
             JSONArray networkItem = JNetwork.getJSONArray(i);
             JSONArray buildingItem = JBuilding.getJSONArray(i);
             for (int j=0; j<size; j++){
-                terrains[i][j] = Types.TERRAIN.getTypeByKey(terrainItem.getInt(j));
+                int idx = i * size + j;
+                terrains[idx] = encode(Types.TERRAIN.getTypeByKey(terrainItem.getInt(j)));
                 if (resourceItem.getInt(j) != -1) {
-                    resources[i][j] = Types.RESOURCE.getTypeByKey(resourceItem.getInt(j));
+                    resources[idx] = encode(Types.RESOURCE.getTypeByKey(resourceItem.getInt(j)));
                 }
-                units[i][j] = unitIDItem.getInt(j);
-                tileCityId[i][j] = cityIDItem.getInt(j);
-                networkTiles[i][j] = networkItem.getBoolean(j);
+                units[idx] = unitIDItem.getInt(j);
+                tileCityId[idx] = cityIDItem.getInt(j);
+                networkTiles.set(i, j, networkItem.getBoolean(j));
                 if(buildingItem.getInt(j) != -1) {
-                    buildings[i][j] = Types.BUILDING.getTypeByKey(buildingItem.getInt(j));
+                    buildings[idx] = encode(Types.BUILDING.getTypeByKey(buildingItem.getInt(j)));
                 }
             }
 
         }
 
         tradeNetwork = new TradeNetwork(networkTiles);
+        initLayerOwners();
+        computeLayerHash();
+    }
+
+    // Constructor for loading binary savegames (see GameSaver.writeGame()). The reader must be positioned at the board layers.
+    Board(BinaryReader in, int size, int actorIDcounter, int[] capitalIDs, int activeTribeID, Tribe[] tribes){
+        this.capitalIDs = capitalIDs;
+        this.size = size;
+        this.gameActors = new Actor[actorIDcounter + 1];
+        allocateLayers();
+        isNative = true;
+        this.actorIDcounter = actorIDcounter;
+        this.activeTribeID = activeTribeID;
+        this.assignTribes(tribes);
+
+        for (int i=0; i<size; i++){
+            for (int j=0; j<size; j++){
+                int idx = i * size + j;
+                terrains[idx] = encode(Types.TERRAIN.getTypeByKey(in.readVarInt()));
+                int resource = in.readVarInt();
+                if (resource != 0) {
+                    resources[idx] = encode(Types.RESOURCE.getTypeByKey(resource - 1));
+                }
+                int building = in.readVarInt();
+                if (building != 0) {
+                    buildings[idx] = encode(Types.BUILDING.getTypeByKey(building - 1));
+                }
+                units[idx] = in.readSignedVarInt();
+                tileCityId[idx] = in.readSignedVarInt();
+            }
+        }
+
+        BitGrid networkTiles = new BitGrid(size);
+        in.readBits(networkTiles);
+        tradeNetwork = new TradeNetwork(networkTiles);
+        initLayerOwners();
+        computeLayerHash();
     }
 
 
@@ -127,23 +194,17 @@ public class Board {
 
         this.size = size;
         this.capitalIDs = new int[tribes.length];
-        terrains = new Types.TERRAIN[size][size];
-        resources = new Types.RESOURCE[size][size];
-        buildings = new Types.BUILDING[size][size];
-        units = new int[size][size];
-        tileCityId = new int[size][size];
+        allocateLayers();
         tradeNetwork = new TradeNetwork(size);
         isNative = true;
+        initLayerOwners();
 
         for(Tribe t : tribes)
             t.initObsGrid(size);
 
         //Initialise tile IDs
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                tileCityId[x][y] = -1;
-            }
-        }
+        Arrays.fill(tileCityId, -1);
+        computeLayerHash();
 
         this.assignTribes(tribes);
     }
@@ -166,37 +227,50 @@ public class Board {
         Board copyBoard = new Board();
         copyBoard.size = this.size;
         copyBoard.tribes = new Tribe[this.tribes.length];
-        copyBoard.terrains = new Types.TERRAIN[size][size];
-        copyBoard.resources = new Types.RESOURCE[size][size];
-        copyBoard.buildings = new Types.BUILDING[size][size];
-        copyBoard.units = new int[size][size];
-        copyBoard.tileCityId = new int[size][size];
         copyBoard.activeTribeID = activeTribeID;
         copyBoard.actorIDcounter = actorIDcounter;
-        copyBoard.tradeNetwork = new TradeNetwork(size);
         copyBoard.isNative = false;
-        copyBoard.capitalIDs = new int[tribes.length];
+        copyBoard.capitalIDs = capitalIDs.clone();
 
-        //copy capital IDs
-        System.arraycopy(capitalIDs, 0, copyBoard.capitalIDs, 0, tribes.length);
-
-        // Copy board objects (they are all ids)
-        for (int x = 0; x < this.size; x++) {
-            for (int y = 0; y < this.size; y++) {
-
-                if(!partialObs || tribes[playerId].isVisible(x,y))
-                {
-                    copyBoard.units[x][y] = units[x][y];
-                    copyBoard.setTerrainAt(x, y, terrains[x][y]);
-                    copyBoard.setResourceAt(x, y, maskResource(playerId, x, y));
-                    copyBoard.setBuildingAt(x, y, buildings[x][y]);
-                    copyBoard.tileCityId[x][y] = tileCityId[x][y];
-                    copyBoard.tradeNetwork.setTradeNetworkValue(x,y,tradeNetwork.getTradeNetworkValue(x,y));
-                }else{
-                    copyBoard.setTerrainAt(x, y, FOG);
+        if(!partialObs)
+        {
+            // Copy board objects (they are all ids), layer by layer.
+            copyBoard.terrains = terrains.clone();
+            copyBoard.resources = resources.clone();
+            copyBoard.buildings = buildings.clone();
+            copyBoard.units = units.clone();
+            copyBoard.tileCityId = tileCityId.clone();
+            copyBoard.tradeNetwork = tradeNetwork.copyTiles();
+            if(playerId != -1)
+                copyBoard.maskResources(tribes[playerId].getTechTree());
+        }else
+        {
+            // Only the tiles visible for the player are copied, the rest are fog.
+            copyBoard.allocateLayers();
+            copyBoard.tradeNetwork = new TradeNetwork(size);
+            Tribe viewer = tribes[playerId];
+            byte fog = encode(FOG);
+            for (int x = 0; x < this.size; x++) {
+                for (int y = 0; y < this.size; y++) {
+                    int idx = x * size + y;
+                    if(viewer.isVisible(x,y))
+                    {
+                        copyBoard.terrains[idx] = terrains[idx];
+                        copyBoard.resources[idx] = resources[idx];
+                        copyBoard.buildings[idx] = buildings[idx];
+                        copyBoard.units[idx] = units[idx];
+                        copyBoard.tileCityId[idx] = tileCityId[idx];
+                        copyBoard.tradeNetwork.setTradeNetworkValue(x,y,tradeNetwork.getTradeNetworkValue(x,y));
+                    }else{
+                        copyBoard.terrains[idx] = fog;
+                    }
                 }
             }
+            copyBoard.maskResources(viewer.getTechTree());
         }
+        copyBoard.initLayerOwners();
+        copyBoard.computeLayerHash();
+        copyBoard.changes.allChanged();
 
         // Copy tribes
         for (int i = 0; i < tribes.length; i++) {
@@ -206,8 +280,10 @@ public class Board {
         }
 
         //Deep copy of all actors in the board
-        copyBoard.gameActors = new HashMap<>();
-        for (Actor act : gameActors.values()) {
+        copyBoard.gameActors = new Actor[gameActors.length];
+        for (Actor act : gameActors) {
+            if(act == null)
+                continue;
             int id = act.getActorId();
             int actTribeId = act.getTribeId();
             boolean actorVisible = playerId == -1 || tribes[playerId].isVisible(act.getPosition().x, act.getPosition().y);
@@ -217,7 +293,8 @@ public class Board {
             {
                 boolean hideInfo = (actTribeId != playerId) && partialObs;
                 Actor actorCopy = act.copy(hideInfo);
-                copyBoard.gameActors.put(id, actorCopy);
+                actorCopy.setSnapshotOwner(copyBoard.snapshotToken);
+                copyBoard.gameActors[id] = actorCopy;
 
                 //If we're hiding info, the other tribes don't copy cityIDs and unitIDs by default in the arrays. But we need to copy the ones we see.
                 if(hideInfo && actorVisible)
@@ -235,39 +312,221 @@ public class Board {
     }
 
     /**
-     * Masks a resource that can only be revealed after researching a specific technology.
-     * @param playerID if -1 we don not mask any resources.
-     * @param x x coordinate of the resource.
-     * @param y y coordinate of the resource.
-     * @return Returns the resource at x,y or null if there is no resource, or the resource is hidden.
+     * Returns a full observable copy-on-write snapshot of this board. Tile layers and actors are shared with this
+     * board and only cloned, layer by layer and actor by actor, when one of the two boards needs to modify them. This
+     * makes copies in the forward model much cheaper than copy(), as most of the board does not change between
+     * two consecutive states.
+     * Taking a snapshot doesn't modify this board, it only marks the data shared (see ShareToken): this board stops
+     * owning it the next time it writes. Several snapshots can be taken from a board at the same time, but not while
+     * the board is being modified (e.g. in the middle of executing an action).
+     * @return copy of the current board, sharing its data.
      */
-    private Types.RESOURCE maskResource(int playerID, int x, int y) {
-        if(playerID == -1) { return resources[x][y]; }
-        else {
-            TechnologyTree t = tribes[playerID].getTechTree();
-
-            try {
-                switch (resources[x][y]) {
-                    case CROPS:
-                        if (!t.isResearched(Types.TECHNOLOGY.ORGANIZATION)) {
-                            return null;
-                        }
-                        break;
-                    case ORE:
-                        if (!t.isResearched(Types.TECHNOLOGY.CLIMBING)) {
-                            return null;
-                        }
-                        break;
-                    case WHALES:
-                        if (!t.isResearched(Types.TECHNOLOGY.FISHING)) {
-                            return null;
-                        }
-                        break;
-                }
-                return resources[x][y];
-            } catch (Exception e) {
-                return null;
+    public Board snapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * Returns a copy-on-write snapshot of this board (see snapshot()).
+     * @param isNative true if the snapshot is the board of a game (e.g. a new game that starts from a cached
+     *                 board, see LevelCache), and not a copy of it.
+     * @return copy of the current board, sharing its data.
+     */
+    Board snapshot(boolean isNative) {
+        Board copyBoard = new Board();
+        copyBoard.size = this.size;
+        copyBoard.activeTribeID = activeTribeID;
+        copyBoard.actorIDcounter = actorIDcounter;
+        copyBoard.isNative = isNative;
+        copyBoard.capitalIDs = capitalIDs.clone();
+
+        //Tile layers are shared until written.
+        copyBoard.terrains = terrains;
+        copyBoard.resources = resources;
+        copyBoard.buildings = buildings;
+        copyBoard.units = units;
+        copyBoard.tileCityId = tileCityId;
+        copyBoard.layerHash = layerHash;
+        copyBoard.actorHash = actorHash;
+        copyBoard.actorKeys = actorKeys;
+        copyBoard.actorsToRehash = new IntList(actorsToRehash);
+        copyBoard.rehashAllActors = rehashAllActors;
+        copyBoard.tradeNetwork = tradeNetwork.copy();
+        copyBoard.changes = changes.copy();
+
+        // Tribes are small, but their observation grids are also shared.
+        copyBoard.tribes = new Tribe[tribes.length];
+        for (int i = 0; i < tribes.length; i++)
+            copyBoard.tribes[i] = tribes[i].copy(false);
+
+        //Actors are shared, and cloned by each board the first time they are requested.
+        copyBoard.gameActors = gameActors.clone();
+
+        //From now on, this board doesn't own anything it shares with the copy.
+        snapshotToken.share();
+        return copyBoard;
+    }
+
+    /**
+     * Creates the tile layers for a board of this size, all tiles empty.
+     */
+    private void allocateLayers() {
+        terrains = new byte[size * size];
+        resources = new byte[size * size];
+        buildings = new byte[size * size];
+        units = new int[size * size];
+        tileCityId = new int[size * size];
+    }
+
+    /**
+     * Returns the token of the data owned by this board, to be called before writing it. If a snapshot shares the
+     * current token, this board gets a new one and no longer owns anything shared with the snapshot.
+     */
+    private ShareToken ownerToken() {
+        if (snapshotToken.isShared())
+            snapshotToken = new ShareToken();
+        return snapshotToken;
+    }
+
+    /**
+     * Makes this board the owner of all its tile layers.
+     */
+    private void initLayerOwners() {
+        terrainOwner = resourceOwner = buildingOwner = unitOwner = cityIdOwner = snapshotToken;
+    }
+
+    // Layer accessors for writing. They clone the layer first if it's shared with another board.
+    private byte[] terrainLayer() {
+        if (terrainOwner != ownerToken()) {
+            terrains = terrains.clone();
+            terrainOwner = snapshotToken;
+        }
+        return terrains;
+    }
+
+    private byte[] resourceLayer() {
+        if (resourceOwner != ownerToken()) {
+            resources = resources.clone();
+            resourceOwner = snapshotToken;
+        }
+        return resources;
+    }
+
+    private byte[] buildingLayer() {
+        if (buildingOwner != ownerToken()) {
+            buildings = buildings.clone();
+            buildingOwner = snapshotToken;
+        }
+        return buildings;
+    }
+
+    private int[] unitLayer() {
+        if (unitOwner != ownerToken()) {
+            units = units.clone();
+            unitOwner = snapshotToken;
+        }
+        return units;
+    }
+
+    private int[] cityIdLayer() {
+        if (cityIdOwner != ownerToken()) {
+            tileCityId = tileCityId.clone();
+            cityIdOwner = snapshotToken;
+        }
+        return tileCityId;
+    }
+
+    /**
+     * Computes the hash of the tile layers from scratch.
+     */
+    private void computeLayerHash() {
+        long h = 0;
+        for (int i = 0; i < size * size; i++) {
+            h ^= StateHash.tileKey(StateHash.TERRAIN, i, terrains[i]);
+            h ^= StateHash.tileKey(StateHash.RESOURCE, i, resources[i]);
+            h ^= StateHash.tileKey(StateHash.BUILDING, i, buildings[i]);
+            h ^= StateHash.tileKey(StateHash.UNIT, i, units[i]);
+            h ^= StateHash.tileKey(StateHash.CITY_ID, i, tileCityId[i] + 1);
+        }
+        layerHash = h;
+    }
+
+    // Replaces the value of a tile in one of the layers in the hash of the layers.
+    private void rehash(int layer, int idx, int oldValue, int newValue) {
+        layerHash ^= StateHash.tileKey(layer, idx, oldValue) ^ StateHash.tileKey(layer, idx, newValue);
+    }
+
+    // Records that an actor may have been modified (or added or removed), to rehash it when the hash is requested.
+    private void actorMayChange(int actorId) {
+        if (rehashAllActors)
+            return;
+
+        //Consecutive requests are often for the same actor.
+        int n = actorsToRehash.size();
+        if (n > 0 && actorsToRehash.get(n - 1) == actorId)
+            return;
+
+        //Beyond this, rehashing all actors is cheaper than keeping the list.
+        if (n >= gameActors.length) {
+            rehashAllActors = true;
+            actorsToRehash.clear();
+            return;
+        }
+        actorsToRehash.add(actorId);
+    }
+
+    /**
+     * Returns the hash of all the actors of the board (see StateHash), rehashing the ones that may have changed
+     * since it was last requested.
+     * @return the hash of the actors.
+     */
+    long getActorHash() {
+        if (actorKeysOwner != ownerToken() || actorKeys.length < gameActors.length) {
+            actorKeys = Arrays.copyOf(actorKeys, gameActors.length);
+            actorKeysOwner = snapshotToken;
+        }
+
+        if (rehashAllActors) {
+            actorHash = 0;
+            for (int id = 0; id < gameActors.length; id++) {
+                actorKeys[id] = StateHash.actorKey(gameActors[id]);
+                actorHash ^= actorKeys[id];
             }
+            rehashAllActors = false;
+        } else {
+            for (int i = 0; i < actorsToRehash.size(); i++) {
+                int id = actorsToRehash.get(i);
+                long key = StateHash.actorKey(peekActor(id));
+                actorHash ^= actorKeys[id] ^ key;
+                actorKeys[id] = key;
+            }
+        }
+        actorsToRehash.clear();
+        return actorHash;
+    }
+
+    //Hash of the tiles of the trade network.
+    long getNetworkHash() { return tradeNetwork.getHash(); }
+
+    // Encoding of the types in the tile layers: ordinal plus one, 0 for null.
+    private static byte encode(Enum<?> type) {
+        return type == null ? 0 : (byte) (type.ordinal() + 1);
+    }
+
+    /**
+     * Hides the resources that can only be revealed after researching a specific technology, if the player
+     * that receives this board hasn't researched it.
+     * @param t technology tree of the player that receives this board.
+     */
+    private void maskResources(TechnologyTree t) {
+        byte crops = t.isResearched(Types.TECHNOLOGY.ORGANIZATION) ? 0 : encode(Types.RESOURCE.CROPS);
+        byte ore = t.isResearched(Types.TECHNOLOGY.CLIMBING) ? 0 : encode(Types.RESOURCE.ORE);
+        byte whales = t.isResearched(Types.TECHNOLOGY.FISHING) ? 0 : encode(Types.RESOURCE.WHALES);
+        if(crops == 0 && ore == 0 && whales == 0)
+            return;
+        for (int i = 0; i < resources.length; i++) {
+            byte r = resources[i];
+            if (r != 0 && (r == crops || r == ore || r == whales))
+                resources[i] = 0;
         }
     }
 
@@ -327,7 +586,7 @@ public class Board {
         int tribeId = tribe.getTribeId();
 
         //climbable mountain?
-        Types.TERRAIN terrain = terrains[x][y];
+        Types.TERRAIN terrain = getTerrainAt(x, y);
         if (terrain == Types.TERRAIN.MOUNTAIN) {
             if (tribes[tribeId].getTechTree().isResearched(Types.TECHNOLOGY.CLIMBING)) {
                 moveUnit(toPush, startX, startY, x, y, r);
@@ -337,7 +596,7 @@ public class Board {
 
 
         //Water with a port this tribe owns?
-        Types.BUILDING b = buildings[x][y];
+        Types.BUILDING b = getBuildingAt(x, y);
         if (terrain == SHALLOW_WATER || terrain == DEEP_WATER) {
 
             if(toPush.getType().isWaterUnit())
@@ -373,7 +632,7 @@ public class Board {
      */
     public void embark(Unit unit, Tribe tribe, int x, int y) {
 
-        City city = (City) gameActors.get(unit.getCityId());
+        City city = (City) getActor(unit.getCityId());
         removeUnitFromBoard(unit);
         removeUnitFromCity(unit, city, tribe);
 
@@ -395,7 +654,7 @@ public class Board {
      * @param y y coordinate of the position where the unit is disembarking
      */
     public void disembark(Unit unit, Tribe tribe, int x, int y) {
-        City city = (City) gameActors.get(unit.getCityId());
+        City city = (City) getActor(unit.getCityId());
         removeUnitFromBoard(unit);
         removeUnitFromCity(unit, city, tribe);
         Types.UNIT baseLandUnit = getBaseLandUnit(unit);
@@ -442,8 +701,10 @@ public class Board {
      * @param r random generator
      */
     public void moveUnit(Unit unit, int x0, int y0, int xF, int yF, Random r) {
-        units[x0][y0] = 0;
-        units[xF][yF] = unit.getActorId();
+        setUnitIDAt(x0, y0, 0);
+        setUnitIDAt(xF, yF, unit.getActorId());
+        changes.tileChanged(x0, y0);
+        changes.tileChanged(xF, yF);
         unit.setPosition(xF, yF);
         Tribe t = tribes[unit.getTribeId()];
 
@@ -509,15 +770,15 @@ public class Board {
         TechnologyTree tt = tribes[tribeId].getTechTree();
 
         //if mountain and climbing not researched
-        if (terrains[x][y] == Types.TERRAIN.MOUNTAIN && !tt.isResearched(Types.TECHNOLOGY.CLIMBING))
+        if (getTerrainAt(x, y) == Types.TERRAIN.MOUNTAIN && !tt.isResearched(Types.TECHNOLOGY.CLIMBING))
             return false;
 
         //Shallow water and no sailing
-        if (terrains[x][y] == SHALLOW_WATER && !tt.isResearched(Types.TECHNOLOGY.SAILING))
+        if (getTerrainAt(x, y) == SHALLOW_WATER && !tt.isResearched(Types.TECHNOLOGY.SAILING))
             return false;
 
         //Deep water and no navigation
-        return terrains[x][y] != DEEP_WATER || tt.isResearched(Types.TECHNOLOGY.NAVIGATION);
+        return getTerrainAt(x, y) != DEEP_WATER || tt.isResearched(Types.TECHNOLOGY.NAVIGATION);
     }
 
 
@@ -540,11 +801,12 @@ public class Board {
      * Gets the unit at location x,y
      * @param x x coordinate of the tile to check
      * @param y y coordinate of the tile to check
-     * @return The unit at x,y, null if there isn't any unit there.
+     * @return The unit at x,y, null if there isn't any unit there. It may be shared with copies of this board, so it
+     * must not be modified: use getActor() with its id to get one that can be modified.
      */
     public Unit getUnitAt(int x, int y){
 
-        Actor act = gameActors.get(units[x][y]);
+        Actor act = peekActor(getUnitIDAt(x, y));
         if(act != null)
             return (Unit) act;
         return null;
@@ -554,13 +816,14 @@ public class Board {
      * Returns the city that owns the tile x,y
      * @param x x coordinate of the tile to check
      * @param y y coordinate of the tile to check
-     * @return the city with a tile within its borders. Null if x,y doesn't belong to any city.
+     * @return the city with a tile within its borders. Null if x,y doesn't belong to any city. It may be shared with
+     * copies of this board, so it must not be modified: use getActor() with its id to get one that can be modified.
      */
     public City getCityInBorders(int x, int y){
-        if(tileCityId[x][y] == -1)
+        if(getCityIdAt(x, y) == -1)
             return null;
         else
-            return (City) gameActors.get(tileCityId[x][y]);
+            return (City) peekActor(getCityIdAt(x, y));
     }
 
     /**
@@ -575,8 +838,11 @@ public class Board {
         tiles.add(new Vector2d(cityPos));
         for(Vector2d tile : tiles)
         {
-            if(tileCityId[tile.x][tile.y] == -1){
-                tileCityId[tile.x][tile.y] = c.getActorId();
+            if(getCityIdAt(tile.x, tile.y) == -1){
+                int idx = tile.x * size + tile.y;
+                rehash(StateHash.CITY_ID, idx, tileCityId[idx] + 1, c.getActorId() + 1);
+                cityIdLayer()[idx] = c.getActorId();
+                changes.tileChanged(tile.x, tile.y);
                 t.addScore(TribesConfig.CITY_BORDER_POINTS); // Add score to tribe on border creation
                 c.addPointsWorth(TribesConfig.CITY_BORDER_POINTS);
             }
@@ -599,7 +865,7 @@ public class Board {
      * @return if there's a road in that position.
      */
     public boolean isRoad(int x, int y) {
-        return tradeNetwork.getTradeNetworkValue(x,y) && terrains[x][y] != SHALLOW_WATER && terrains[x][y] != DEEP_WATER && terrains[x][y] != CITY;
+        return tradeNetwork.getTradeNetworkValue(x,y) && getTerrainAt(x, y) != SHALLOW_WATER && getTerrainAt(x, y) != DEEP_WATER && getTerrainAt(x, y) != CITY;
     }
 
     public boolean checkTradeNetwork(int x, int y) {
@@ -614,7 +880,7 @@ public class Board {
      */
     public LinkedList<Vector2d> getCityTiles(int cityID){
         LinkedList<Vector2d> tiles = new LinkedList<>();
-        City targetCity = (City) gameActors.get(cityID);
+        City targetCity = (City) peekActor(cityID);
         Vector2d targetCityPos = targetCity.getPosition();
         int radius = 0;
 
@@ -623,7 +889,7 @@ public class Board {
         for(int i = targetCityPos.x - radius; i <= targetCityPos.x + radius; i++) {
             for(int j = targetCityPos.y - radius; j <= targetCityPos.y + radius; j++) {
                 if(i >= 0 && j >= 0 && i < size && j < size) {
-                    if (tileCityId[i][j] == cityID){
+                    if (getCityIdAt(i, j) == cityID){
                         tiles.add(new Vector2d(i, j));
                     }
                 }
@@ -643,7 +909,7 @@ public class Board {
     public boolean capture(GameState gameState, Tribe capturingTribe, int x, int y){
 
         Random rnd = gameState.getRandomGenerator();
-        Types.TERRAIN ter = terrains[x][y];
+        Types.TERRAIN ter = getTerrainAt(x, y);
 
         if(ter == Types.TERRAIN.VILLAGE)
         {
@@ -665,7 +931,7 @@ public class Board {
 
         }else if(ter == CITY)
         {
-            City capturedCity = (City) gameActors.get(tileCityId[x][y]);
+            City capturedCity = (City) getActor(getCityIdAt(x, y));
             Tribe previousOwner = tribes[capturedCity.getTribeId()];
 
             //The city exists, needs to change owner, tribes notified and production & population updated
@@ -708,8 +974,7 @@ public class Board {
         //Capital is special, we start taking units from there.
         boolean ownsCapital = tribe.controlsCapital();
         City capital = (City) getActor(tribe.getCapitalID());
-        LinkedList<Integer> cities = new LinkedList<>(tribe.getCitiesID());
-        cities.remove((Integer)tribe.getCapitalID());
+        LinkedList<Integer> cities = citiesButCapital(tribe);
 
         // Move the unit from one city to village. Rank: capital -> cities -> None
         if(ownsCapital && capital.getUnitsID().size() > 0){
@@ -749,8 +1014,7 @@ public class Board {
         //Then, to all the other cities, picked at random.
         if(fromCity.getNumUnits() > 0)
         {
-            LinkedList<Integer> cities = new LinkedList<>(tribe.getCitiesID());
-            cities.remove((Integer)tribe.getCapitalID());
+            LinkedList<Integer> cities = citiesButCapital(tribe);
             Collections.shuffle(cities, rnd);
             while (cities.size() > 0 && fromCity.getNumUnits() > 0){
                 City destCity = (City)getActor(cities.removeFirst());
@@ -765,7 +1029,7 @@ public class Board {
                 //for(Integer unitId: fromCity.getUnitsID())
                 {
                     int unitId = fromCity.getUnitsID().get(0);
-                    Unit removedUnit = (Unit) gameActors.get(unitId);
+                    Unit removedUnit = (Unit) getActor(unitId);
                     if(removedUnit != null) {
                         tribe.addExtraUnit(removedUnit);
                         fromCity.removeUnit(unitId);
@@ -777,6 +1041,21 @@ public class Board {
         }
     }
 
+    /**
+     * Returns the ids of the cities of a tribe, other than its capital, in a list that can be shuffled.
+     * @param tribe tribe that owns the cities.
+     * @return list of city ids.
+     */
+    private LinkedList<Integer> citiesButCapital(Tribe tribe)
+    {
+        LinkedList<Integer> cities = new LinkedList<>();
+        IntList citiesID = tribe.getCitiesID();
+        for(int i = 0; i < citiesID.size(); i++)
+            if(citiesID.get(i) != tribe.getCapitalID())
+                cities.add(citiesID.get(i));
+        return cities;
+    }
+
     /**
      * Moves the last unit from a given city to another.
      * @param originalCity original city that the units belong to
@@ -789,7 +1068,7 @@ public class Board {
         targetCity.addUnit(actorID);
 
         //Assign new city to unit
-        Unit removedUnit = (Unit) gameActors.get(actorID);
+        Unit removedUnit = (Unit) getActor(actorID);
         removedUnit.setCityId(targetCity.getActorId());
     }
 
@@ -816,8 +1095,9 @@ public class Board {
         }
         tribes[c.getTribeId()].addCity(c.getActorId());
 
-        //cities provide visibility, which needs updating
-        tribes[c.getTribeId()].clearView(c.getPosition().x, c.getPosition().y, TribesConfig.NEW_CITY_CLEAR_RANGE, r, this.copy());
+        //cities provide visibility, which needs updating. clearView only modifies the tribe that clears the view
+        // (and reports the tiles revealed), so it works on this board directly.
+        tribes[c.getTribeId()].clearView(c.getPosition().x, c.getPosition().y, TribesConfig.NEW_CITY_CLEAR_RANGE, r, this);
 
         //By default, cities are considered to be roads for trade network purposes.
         tradeNetwork.setTradeNetwork(this, c.getPosition().x, c.getPosition().y, true);
@@ -830,7 +1110,8 @@ public class Board {
     public void removeUnitFromBoard(Unit u)
     {
         Vector2d pos = u.getPosition();
-        units[pos.x][pos.y] = 0;
+        setUnitIDAt(pos.x, pos.y, 0);
+        changes.tileChanged(pos.x, pos.y);
         removeActor(u.getActorId());
     }
 
@@ -846,12 +1127,14 @@ public class Board {
 
         //Place it in the board
         Vector2d pos = u.getPosition();
-        units[pos.x][pos.y] = u.getActorId();
+        setUnitIDAt(pos.x, pos.y, u.getActorId());
+        changes.tileChanged(pos.x, pos.y);
 
         //Finally, add the unit to the city that created it, unless it belongs to the tribe.
-        if(u.getCityId() != -1)
+        if(u.getCityId() != -1) {
             c.addUnit(u.getActorId());
-        else if(!tribes[u.getTribeId()].getExtraUnits().contains(u.getActorId()))
+            changes.actorChanged(c.getActorId());
+        } else if(!tribes[u.getTribeId()].getExtraUnits().contains(u.getActorId()))
             tribes[u.getTribeId()].addExtraUnit(u);
     }
 
@@ -866,6 +1149,7 @@ public class Board {
     {
         if(u.getCityId() != -1 && city != null) { //This happens when the unit belongs to the tribe
             city.removeUnit(u.getActorId());
+            changes.actorChanged(city.getActorId());
         }else{
             tribe.removeExtraUnit(u);
         }
@@ -878,19 +1162,22 @@ public class Board {
     private void addActor(core.actors.Actor actor)
     {
         actorIDcounter++;
-        gameActors.put(actorIDcounter, actor);
-        actor.setActorId(actorIDcounter);
+        addActor(actor, actorIDcounter);
     }
 
     /**
      * Adds an actor to the set of game actors with the supplied id
      * @param actor actor to add
-     * @param actorID id of the actor, which is set in actor and as key in gameActors hash
+     * @param actorID id of the actor, which is set in actor and used as index in gameActors
      */
     void addActor(core.actors.Actor actor, int actorID)
     {
-        gameActors.put(actorID, actor);
+        if(actorID >= gameActors.length)
+            gameActors = Arrays.copyOf(gameActors, Math.max(actorID + 1, gameActors.length * 2));
+        gameActors[actorID] = actor;
         actor.setActorId(actorID);
+        actor.setSnapshotOwner(ownerToken());
+        actorMayChange(actorID);
     }
 
     /**
@@ -901,7 +1188,32 @@ public class Board {
      */
     public Actor getActor(int actorId)
     {
-        return gameActors.get(actorId);
+        Actor act = peekActor(actorId);
+        if(act != null)
+        {
+            if(act.getSnapshotOwner() != ownerToken())
+            {
+                //Shared with another board: this one gets its own copy before the caller can modify it.
+                act = act.copy(false);
+                act.setSnapshotOwner(snapshotToken);
+                gameActors[actorId] = act;
+            }
+            actorMayChange(actorId);
+        }
+        return act;
+    }
+
+    /**
+     * Gets a game actor from its id, without getting a copy for this board if it's shared with another one.
+     * The actor returned must not be modified.
+     * @param actorId id of the actor to retrieve.
+     * @return the actor, null if the id doesn't correspond to an actor.
+     */
+    Actor peekActor(int actorId)
+    {
+        if(actorId < 0 || actorId >= gameActors.length)
+            return null;
+        return gameActors[actorId];
     }
 
     /**
@@ -911,7 +1223,11 @@ public class Board {
      */
     private boolean removeActor(int actorId)
     {
-        return gameActors.remove(actorId) != null;
+        if(peekActor(actorId) == null)
+            return false;
+        gameActors[actorId] = null;
+        actorMayChange(actorId);
+        return true;
     }
 
 
@@ -925,12 +1241,12 @@ public class Board {
     private boolean enemyUnitAt(int tribeId, int x, int y)
     {
         //It may be that there's no unit here
-        if(units[x][y] == 0)
+        if(getUnitIDAt(x, y) == 0)
             return false;
         else
         {
             //Or it is from my tribe.
-            Unit u = (Unit) gameActors.get(units[x][y]);
+            Unit u = (Unit) peekActor(getUnitIDAt(x, y));
             return u.getTribeId() != tribeId;
         }
     }
@@ -958,10 +1274,10 @@ public class Board {
         if(tribes[tribeId].isVisible(x, y))
         {
             // Only on certain terrain types.
-            if(terrains[x][y] == Types.TERRAIN.VILLAGE || terrains[x][y] == Types.TERRAIN.PLAIN || terrains[x][y] == Types.TERRAIN.FOREST)
+            if(getTerrainAt(x, y) == Types.TERRAIN.VILLAGE || getTerrainAt(x, y) == Types.TERRAIN.PLAIN || getTerrainAt(x, y) == Types.TERRAIN.FOREST)
             {
                 //Only on tiles that are neutral or in my cities
-                int cityId = tileCityId[x][y];
+                int cityId = getCityIdAt(x, y);
                 if(cityId == -1 || tribes[tribeId].controlsCity(cityId))
                 {
                     //There should be no road already here
@@ -1022,19 +1338,74 @@ public class Board {
     public void setActiveTribeID(int activeTribeID) { this.activeTribeID = activeTribeID; }
     public void setTribes(Tribe[] t){ this.tribes = t; }
     boolean getNetworkTilesAt(int x, int y) { return this.tradeNetwork.getTradeNetworkValue(x,y); }
-    public int[][] getUnits(){ return this.units; }
-    public Types.TERRAIN getTerrainAt(int x, int y){ return terrains[x][y]; }
-    int getUnitIDAt(int x, int y){ return units[x][y]; }
-    public void setResourceAt(int x, int y, Types.RESOURCE r){ resources[x][y] =  r; }
-    public void setTerrainAt(int x, int y, Types.TERRAIN t){ terrains[x][y] =  t; }
-    public void setBuildingAt(int x, int y, Types.BUILDING b){ buildings[x][y] = b; }
-    public Types.RESOURCE getResourceAt(int x, int y){ return resources[x][y]; }
-    public Types.BUILDING getBuildingAt(int x, int y){ return buildings[x][y]; }
-    public void setUnits(int[][] u){ this.units = u; }
-    public int getCityIdAt(int x, int y) { return tileCityId[x][y]; }
+    public int[][] getUnits(){
+        int[][] u = new int[size][];
+        for (int x = 0; x < size; x++)
+            u[x] = Arrays.copyOfRange(units, x * size, (x + 1) * size);
+        return u;
+    }
+    public Types.TERRAIN getTerrainAt(int x, int y){ int t = terrains[x * size + y]; return t == 0 ? null : TERRAIN_TYPES[t - 1]; }
+    int getUnitIDAt(int x, int y){ return units[x * size + y]; }
+    private void setUnitIDAt(int x, int y, int id){
+        int idx = x * size + y;
+        rehash(StateHash.UNIT, idx, units[idx], id);
+        unitLayer()[idx] = id;
+    }
+    public void setResourceAt(int x, int y, Types.RESOURCE r){
+        int idx = x * size + y;
+        rehash(StateHash.RESOURCE, idx, resources[idx], encode(r));
+        resourceLayer()[idx] = encode(r);
+        changes.tileChanged(x, y);
+    }
+    public void setTerrainAt(int x, int y, Types.TERRAIN t){
+        int idx = x * size + y;
+        rehash(StateHash.TERRAIN, idx, terrains[idx], encode(t));
+        terrainLayer()[idx] = encode(t);
+        changes.tileChanged(x, y);
+    }
+    public void setBuildingAt(int x, int y, Types.BUILDING b){
+        int idx = x * size + y;
+        rehash(StateHash.BUILDING, idx, buildings[idx], encode(b));
+        buildingLayer()[idx] = encode(b);
+        changes.tileChanged(x, y);
+    }
+    public Types.RESOURCE getResourceAt(int x, int y){ int r = resources[x * size + y]; return r == 0 ? null : RESOURCE_TYPES[r - 1]; }
+    public Types.BUILDING getBuildingAt(int x, int y){ int b = buildings[x * size + y]; return b == 0 ? null : BUILDING_TYPES[b - 1]; }
+    public void setUnits(int[][] u){
+        int[] layer = unitLayer();
+        for (int x = 0; x < size; x++)
+            System.arraycopy(u[x], 0, layer, x * size, size);
+        computeLayerHash();
+        changes.allChanged();
+    }
+    public int getCityIdAt(int x, int y) { return tileCityId[x * size + y]; }
     public int[] getCapitalIDs() {return capitalIDs;}
     boolean isNative() { return isNative; }
     public int getActorIDcounter() {
         return actorIDcounter;
     }
+    BoardChanges getChanges() { return changes; }
+    long getLayerHash() { return layerHash; }
+    TradeNetwork getTradeNetwork() { return tradeNetwork; }
+
+    /**
+     * Records that the tile (x,y) has been modified by an action, so the actions that depend on it are
+     * updated. Changes to the board layers are recorded automatically; this is for changes the board can't see
+     * (i.e. visibility or the owner of a unit in that tile).
+     * @param x x coordinate of the tile.
+     * @param y y coordinate of the tile.
+     */
+    public void reportTileChange(int x, int y) { changes.tileChanged(x, y); }
+
+    /**
+     * Records that an actor has been modified by an action, so its actions are updated.
+     * @param actorId id of the actor modified.
+     */
+    public void reportActorChange(int actorId) { changes.actorChanged(actorId); }
+
+    /**
+     * Records a change that affects all the actions available (i.e. a new turn). Tiles modified with it must
+     * still be reported (see reportTileChange()).
+     */
+    public void reportGlobalChange() { changes.allActionsChanged(); }
 }
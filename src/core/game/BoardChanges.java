@@ -0,0 +1,214 @@
+package core.game;
+
+import java.util.Arrays;
+
+/**
+ * Changes made in a board since the actions of the active tribe were last computed: tiles and actors
+ * that have been modified, or a flag that indicates that the changes can't be located. GameState uses
+ * them to recompute only the actions that may have been affected by the changes (see
+ * GameState.computePlayerActions()).
+ *
+ * The last tiles modified are also kept in a log that is not cleared with the actions, for structures that are
+ * brought up to date at other times (see TradeConnectivity).
+ */
+class BoardChanges
+{
+    //Maximum number of tiles and actors recorded. Beyond these, everything is considered to have changed.
+    private static final int MAX_TILES = 128;
+    private static final int MAX_ACTORS = 64;
+
+    //Number of tiles kept in the log.
+    private static final int LOG_SIZE = 256;
+
+    //Positions of the tiles modified.
+    private int[] tilesX, tilesY;
+    private int numTiles;
+
+    //Ids of the actors modified.
+    private int[] actors;
+    private int numActors;
+
+    //Indicates that changes can't be located (and everything must be considered to have changed).
+    private boolean all;
+
+    //Number of changes recorded, never cleared: anything computed from the board is still valid while it doesn't change.
+    private long version;
+
+    //Log of the last tiles modified (x << 16 | y), as a circular buffer shared with copies until one of them writes
+    // (copies mark its token, see ShareToken). Entries are identified by their position in the sequence of all the tiles logged, from logStart (the
+    // first one after the last change that couldn't be located) to logEnd (excluded).
+    private int[] log;
+    private ShareToken logToken;
+    private long logStart, logEnd;
+
+    BoardChanges()
+    {
+        tilesX = new int[16];
+        tilesY = new int[16];
+        actors = new int[8];
+    }
+
+    /**
+     * Records a change in the tile (x,y)
+     */
+    void tileChanged(int x, int y)
+    {
+        version++;
+        logTile(x, y);
+        if(all) return;
+
+        //Consecutive changes often happen in the same tile.
+        if(numTiles > 0 && tilesX[numTiles-1] == x && tilesY[numTiles-1] == y)
+            return;
+
+        if(numTiles == MAX_TILES)
+        {
+            all = true;
+            return;
+        }
+
+        if(numTiles == tilesX.length)
+        {
+            tilesX = Arrays.copyOf(tilesX, numTiles * 2);
+            tilesY = Arrays.copyOf(tilesY, numTiles * 2);
+        }
+        tilesX[numTiles] = x;
+        tilesY[numTiles] = y;
+        numTiles++;
+    }
+
+    /**
+     * Records a change in an actor.
+     */
+    void actorChanged(int actorId)
+    {
+        version++;
+        if(all) return;
+
+        if(numActors > 0 && actors[numActors-1] == actorId)
+            return;
+
+        if(numActors == MAX_ACTORS)
+        {
+            all = true;
+            return;
+        }
+
+        if(numActors == actors.length)
+            actors = Arrays.copyOf(actors, numActors * 2);
+        actors[numActors++] = actorId;
+    }
+
+    /**
+     * Records a change that can't be located.
+     */
+    void allChanged()
+    {
+        allActionsChanged();
+        logStart = logEnd;
+    }
+
+    /**
+     * Records a change that affects all the actions but is not in the tiles (i.e. the start of a turn), so the
+     * log of tiles is still valid.
+     */
+    void allActionsChanged()
+    {
+        version++;
+        all = true;
+    }
+
+    /**
+     * Adds the tile (x,y) to the log.
+     */
+    private void logTile(int x, int y)
+    {
+        int packed = x << 16 | y;
+        if(log == null)
+        {
+            log = new int[LOG_SIZE];
+            logToken = new ShareToken();
+        }
+        else if(logEnd > logStart && log[(int) ((logEnd - 1) % LOG_SIZE)] == packed)
+            return;
+        else if(logToken.isShared())
+        {
+            log = log.clone();
+            logToken = new ShareToken();
+        }
+        log[(int) (logEnd % LOG_SIZE)] = packed;
+        logEnd++;
+    }
+
+    /**
+     * Forgets all changes recorded so far.
+     */
+    void clear()
+    {
+        numTiles = 0;
+        numActors = 0;
+        all = false;
+    }
+
+    boolean isAllChanged() { return all; }
+    long getVersion() { return version; }
+    int getNumTiles() { return numTiles; }
+    int getTileX(int i) { return tilesX[i]; }
+    int getTileY(int i) { return tilesY[i]; }
+    int getNumActors() { return numActors; }
+    int getActor(int i) { return actors[i]; }
+
+    /**
+     * Checks if all the tiles modified since position 'from' of the log (a previous value of getLogEnd()) are
+     * still in it.
+     */
+    boolean isLoggedSince(long from) { return from >= logStart && from <= logEnd && logEnd - from <= LOG_SIZE; }
+    long getLogEnd() { return logEnd; }
+    int getLoggedX(long pos) { return log[(int) (pos % LOG_SIZE)] >>> 16; }
+    int getLoggedY(long pos) { return log[(int) (pos % LOG_SIZE)] & 0xFFFF; }
+
+    /**
+     * Checks if there's a changed tile at a chebychev distance of (x,y) not greater than 'distance'.
+     */
+    boolean tileChangedNear(int x, int y, int distance)
+    {
+        for(int i = 0; i < numTiles; ++i)
+        {
+            if(Math.abs(tilesX[i] - x) <= distance && Math.abs(tilesY[i] - y) <= distance)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the actor with id 'actorId' has changed.
+     */
+    boolean hasActorChanged(int actorId)
+    {
+        for(int i = 0; i < numActors; ++i)
+        {
+            if(actors[i] == actorId)
+                return true;
+        }
+        return false;
+    }
+
+    BoardChanges copy()
+    {
+        BoardChanges copy = new BoardChanges();
+        copy.tilesX = Arrays.copyOf(tilesX, Math.max(numTiles, 16));
+        copy.tilesY = Arrays.copyOf(tilesY, Math.max(numTiles, 16));
+        copy.numTiles = numTiles;
+        copy.actors = Arrays.copyOf(actors, Math.max(numActors, 8));
+        copy.numActors = numActors;
+        copy.all = all;
+        copy.version = version;
+        copy.log = log;
+        copy.logStart = logStart;
+        copy.logEnd = logEnd;
+        copy.logToken = logToken;
+        if(logToken != null)
+            logToken.share();
+        return copy;
+    }
+}
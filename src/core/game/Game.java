@@ -12,6 +12,7 @@ import gui.GUI;
 import gui.WindowInput;
 import utils.stats.AIStats;
 
+import java.io.IOException;
 import java.util.*;
 
 import static core.Constants.*;
@@ -29,7 +30,10 @@ public class Game {
     private long seed;
 
     //Random number generator for the game.
-    private Random rnd;
+    private GameRandom rnd;
+
+    //Records the game in a replay file, if settings.WRITE_REPLAYS is true.
+    private ReplayRecorder recorder;
 
     // List of players of the game
     private Agent[] players;
@@ -43,6 +47,9 @@ public class Game {
     // AI stats for each player.
     private AIStats[] aiStats;
 
+    // Settings of the loop that runs this game.
+    private GameSettings settings = new GameSettings();
+
     /**
      * Constructor of the game
      */
@@ -66,7 +73,7 @@ public class Game {
 
         //Initiate the bare bones of the main game classes
         this.seed = seed;
-        this.rnd = new Random(seed);
+        this.rnd = new GameRandom(seed);
         this.gs = new GameState(rnd, gameMode);
 
         this.gs.init(filename);
@@ -92,7 +99,7 @@ public class Game {
 
         //Initiate the bare bones of the main game classes
         this.seed = seed;
-        this.rnd = new Random(seed);
+        this.rnd = new GameRandom(seed);
         this.gs = new GameState(rnd, gameMode);
 
         this.gs.init(levelgen_seed, tribes);
@@ -100,6 +107,27 @@ public class Game {
         updateAssignedGameStates();
     }
 
+    /**
+     * Initializes the game as init(players, levelgen_seed, tribes, seed, gameMode) does, but taking the
+     * initial state of the level from a cache, so levels that are played several times are generated only once.
+     * @param players Players of the game.
+     * @param levelCache Cache with the initial states of the levels.
+     * @param levelgen_seed Seed for the level generator.
+     * @param tribes Array of tribe types to play with.
+     * @param seed Seed for the game (used only for board generation)
+     * @param gameMode Game Mode for this game.
+     */
+    public void init(ArrayList<Agent> players, LevelCache levelCache, long levelgen_seed, Types.TRIBE[] tribes, long seed, Types.GAME_MODE gameMode) {
+
+        //Initiate the bare bones of the main game classes
+        this.seed = seed;
+        this.rnd = new GameRandom(seed);
+        this.gs = levelCache.getInitialState(levelgen_seed, tribes, rnd, gameMode);
+
+        initGameStructures(players, tribes);
+        updateAssignedGameStates();
+    }
+
     /**
      * Initializes the game from a savegame file
      * @param players Players who will play this game.
@@ -109,7 +137,7 @@ public class Game {
 
         GameLoader gameLoader = new GameLoader(fileName);
         this.seed = gameLoader.getSeed();
-        this.rnd = new Random(seed);
+        this.rnd = new GameRandom(seed);
         Tribe[] tribes = gameLoader.getTribes();
         this.gs = new GameState(rnd, gameLoader.getGame_mode(), tribes, gameLoader.getBoard(), gameLoader.getTick());
         this.gs.setGameIsOver(gameLoader.getGameIsOver());
@@ -117,6 +145,21 @@ public class Game {
         updateAssignedGameStates();
     }
 
+    /**
+     * Initializes the game from a replay, at the start of a given tick.
+     * @param players Players who will play this game.
+     * @param replay replay of a game.
+     * @param tick tick of the replay to start at.
+     */
+    public void init(ArrayList<Agent> players, Replay replay, int tick){
+
+        this.seed = replay.getSeed();
+        this.gs = replay.getState(tick);
+        this.rnd = (GameRandom) gs.getRandomGenerator();
+        initGameStructures(players, gs.getTribes().length);
+        updateAssignedGameStates();
+    }
+
     /**
      * Initializes game structures depending on number of players and tribes
      * @param players Players to play this game
@@ -200,10 +243,18 @@ public class Game {
     public void run(GUI frame, WindowInput wi)
     {
         if (frame == null || wi == null)
-            VISUALS = false;
+            settings.VISUALS = false;
 
         boolean firstEnd = true;
 
+        if (settings.WRITE_REPLAYS && recorder == null) {
+            try {
+                recorder = new ReplayRecorder(gs, rnd, seed, Constants.REPLAY_KEYFRAME_TICKS);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
         while(frame == null || !frame.isClosed()) {
 //            System.out.println("Frame closed: " + frame.isClosed());
             // Loop while window is still open, even if the game ended.
@@ -214,10 +265,15 @@ public class Game {
             if (firstEnd && gameOver) {
                 terminate();
 
+                if (recorder != null) {
+                    recorder.close();
+                    recorder = null;
+                }
+
                 firstEnd = false;
 
                 printGameResults();
-                if(VERBOSE)
+                if(settings.VERBOSE)
                 {
                     TreeSet<TribeResult> ranking = getCurrentRanking();
                     for(TribeResult tr : ranking)
@@ -228,7 +284,7 @@ public class Game {
                     }
                 }
 
-                if (!VISUALS || frame == null) {
+                if (!settings.VISUALS || frame == null) {
                     // The game has ended, end the loop if we're running without visuals.
                     break;
                 }
@@ -260,8 +316,12 @@ public class Game {
             processTurn(i, tribe, frame);
 
             // Save Game
-            if(Constants.WRITE_SAVEGAMES)
-                GameSaver.writeTurnFile(gs, getBoard(), seed);
+            if(settings.WRITE_SAVEGAMES) {
+                if(settings.BINARY_SAVEGAMES)
+                    GameSaver.writeBinaryTurnFile(gs, seed);
+                else
+                    GameSaver.writeTurnFile(gs, getBoard(), seed);
+            }
 
             //it may be that this player won the game, no more playing.
             if(gameOver())
@@ -270,20 +330,22 @@ public class Game {
             }
 
             // Check if game should be paused automatically after this turn
-            if (VISUALS && frame != null && frame.pauseAfterTurn()) {
+            if (settings.VISUALS && frame != null && frame.pauseAfterTurn()) {
                 paused = true;
                 frame.setPauseAfterTurn(false);
             }
         }
 
         // Check if game should be paused automatically after this tick
-        if (VISUALS && frame != null && frame.pauseAfterTick()) {
+        if (settings.VISUALS && frame != null && frame.pauseAfterTick()) {
             paused = true;
             frame.setPauseAfterTick(false);
         }
 
         //All turns passed, time to increase the tick.
         gs.incTick();
+        if (recorder != null)
+            recorder.tick(gs);
     }
 
     /**
@@ -296,6 +358,8 @@ public class Game {
     {
         //Init the turn for this tribe (stars, unit reset, etc).
         gs.initTurn(tribe);
+        if (recorder != null)
+            recorder.initTurn(tribe);
 
         //Compute the initial player actions and assign the game states.
         gs.computePlayerActions(tribe);
@@ -307,10 +371,10 @@ public class Game {
 
         //start the timer to the max duration
         ElapsedCpuTimer ect = new ElapsedCpuTimer();
-        ect.setMaxTimeMillis(TURN_TIME_MILLIS);
+        ect.setMaxTimeMillis(settings.TURN_TIME_MILLIS);
 
         // Keep track of time remaining for turn thinking
-        long remainingECT = TURN_TIME_MILLIS;
+        long remainingECT = settings.TURN_TIME_MILLIS;
 
         boolean continueTurn = true;
         int curActionCounter = 0;
@@ -319,9 +383,9 @@ public class Game {
         // make sure all updates are executed and displayed to humans.
         ElapsedCpuTimer actionDelayTimer = null;
         ElapsedCpuTimer endTurnDelay = null;
-        if (VISUALS && frame != null) {
+        if (settings.VISUALS && frame != null) {
             actionDelayTimer = new ElapsedCpuTimer();
-            actionDelayTimer.setMaxTimeMillis(FRAME_DELAY);
+            actionDelayTimer.setMaxTimeMillis(settings.FRAME_DELAY);
         }
 
         while (frame == null || !frame.isClosed()) {
@@ -335,7 +399,7 @@ public class Game {
                 // Action request and execution if turn should be continued
                 if (continueTurn) {
                     //noinspection ConstantConditions
-                    if ((!VISUALS || frame == null) || actionDelayTimer.remainingTimeMillis() <= 0 || isHumanPlayer) {
+                    if ((!settings.VISUALS || frame == null) || actionDelayTimer.remainingTimeMillis() <= 0 || isHumanPlayer) {
                         // Get one action from the player
                         ect.setMaxTimeMillis(remainingECT);  // Reset timer ignoring all other timers or updates
                         action = ag.act(gameStateObservations[playerID], ect);
@@ -349,7 +413,7 @@ public class Game {
 
                         if (actionDelayTimer != null) {  // Reset action delay timer for next action request
                             actionDelayTimer = new ElapsedCpuTimer();
-                            actionDelayTimer.setMaxTimeMillis(FRAME_DELAY);
+                            actionDelayTimer.setMaxTimeMillis(settings.FRAME_DELAY);
                         }
 
                         // Continue this turn if there are still available actions and end turn was not requested.
@@ -357,7 +421,7 @@ public class Game {
                         continueTurn = !gs.isTurnEnding();
                         if (!isHumanPlayer) {
                             ect.setMaxTimeMillis(remainingECT);
-                            boolean timeOut = TURN_LIMITED && ect.exceededMaxTime();
+                            boolean timeOut = settings.TURN_LIMITED && ect.exceededMaxTime();
                             continueTurn &= gs.existAvailableActions(tribe) && !timeOut;
                         }
                     }
@@ -368,7 +432,7 @@ public class Game {
             }
 
             // Update GUI after every iteration
-            if (VISUALS && frame != null) {
+            if (settings.VISUALS && frame != null) {
                 boolean showAllBoard = Constants.GUI_FORCE_FULL_OBS || Constants.PLAY_WITH_FULL_OBS;
 
                 if (showAllBoard) frame.update(getGameState(-1), action);  // Full Obs
@@ -378,7 +442,7 @@ public class Game {
                 if (action != null && action.getActionType() == END_TURN) {
                     if (isHumanPlayer) break;
                     endTurnDelay = new ElapsedCpuTimer();
-                    endTurnDelay.setMaxTimeMillis(FRAME_DELAY);
+                    endTurnDelay.setMaxTimeMillis(settings.FRAME_DELAY);
                 }
 
 //                try {
@@ -390,11 +454,13 @@ public class Game {
                 break;
             }
 
-            if (action != null && !VISUALS || frame != null && (action != null && !(action.getActionType() == ATTACK) ||
+            if (action != null && !settings.VISUALS || frame != null && (action != null && !(action.getActionType() == ATTACK) ||
                     (action = frame.getAnimatedAction()) != null)) {
                 // Play the action in the game and update the available actions list and observations
                 // Some actions are animated, the condition above checks if this animation is finished and retrieves
                 // the action after all the GUI updates.
+                if (recorder != null)
+                    recorder.action(action);
                 gs.next(action);
                 gs.computePlayerActions(tribe);
                 updateAssignedGameStates();
@@ -408,6 +474,8 @@ public class Game {
 
         // Ends the turn for this tribe (units that didn't move heal).
         gs.endTurn(tribe);
+        if (recorder != null)
+            recorder.endTurn(tribe);
     }
 
     /**
@@ -419,8 +487,10 @@ public class Game {
         int[] sc = getScores();
         Tribe[] tribes = gs.getBoard().getTribes();
 
+        //Results are printed at once, so they don't get mixed with those of other games running at the same time.
         TreeSet<TribeResult> ranking = gs.getCurrentRanking();
-        System.out.println(gs.getTick() + "; Game Results: ");
+        StringBuilder sb = new StringBuilder();
+        sb.append(gs.getTick()).append("; Game Results: \n");
         int rank = 1;
         for(TribeResult tr : ranking)
         {
@@ -429,10 +499,13 @@ public class Game {
             String[] agentChunks = ag.getClass().toString().split("\\.");
             String agentName = agentChunks[agentChunks.length-1];
 
-            System.out.print(" #" + rank + ": Tribe " + tribes[tribeId].getType() + " (" + agentName + "): " + results[tribeId] + ", " + sc[tribeId] + " points;");
-            System.out.println(" #tech: " + tr.getNumTechsResearched() + ", #cities: " + tr.getNumCities() + ", production: " + tr.getProduction());
+            sb.append(" #").append(rank).append(": Tribe ").append(tribes[tribeId].getType()).append(" (").append(agentName).append("): ")
+                    .append(results[tribeId]).append(", ").append(sc[tribeId]).append(" points;");
+            sb.append(" #tech: ").append(tr.getNumTechsResearched()).append(", #cities: ").append(tr.getNumCities())
+                    .append(", production: ").append(tr.getProduction()).append("\n");
             rank++;
         }
+        System.out.print(sb);
     }
 
 
@@ -523,6 +596,18 @@ public class Game {
         return gs.copy(playerIdx);
     }
 
+    /**
+     * Sets the settings of the loop that runs this game. Must be called before run().
+     * @param settings settings for this game.
+     */
+    public void setSettings(GameSettings settings) {
+        this.settings = settings;
+    }
+
+    public GameSettings getSettings() {
+        return settings;
+    }
+
     /**
      * Returns the game board.
      * @return the game board.
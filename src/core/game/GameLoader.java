@@ -9,8 +9,12 @@ import core.actors.units.Ship;
 import core.actors.units.Unit;
 import org.json.JSONObject;
 import utils.Vector2d;
+import utils.file.BinaryReader;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Iterator;
 
 public class GameLoader
@@ -33,6 +37,13 @@ public class GameLoader
 
     GameLoader(String fileName) {
 
+        //Binary savegames are identified by their magic number.
+        BinaryReader in = openBinary(fileName);
+        if(in != null) {
+            loadBinary(in);
+            return;
+        }
+
         String jsonData = readFile(fileName);
         JSONObject gameINFO = new JSONObject(jsonData);
 
@@ -106,6 +117,94 @@ public class GameLoader
         }
     }
 
+    /**
+     * Loads a game saved in binary format in a buffer (e.g. a keyframe of a replay).
+     * @param in reader positioned at the start of the savegame (its magic number).
+     * @throws IllegalArgumentException if the data is not a binary savegame.
+     */
+    GameLoader(BinaryReader in) {
+        if(in.readInt() != GameSaver.BINARY_MAGIC)
+            throw new IllegalArgumentException("The data to load is not a binary savegame.");
+        loadBinary(in);
+    }
+
+    /**
+     * Opens a file as a binary savegame.
+     * @param fileName file to open.
+     * @return a reader positioned after the magic number, or null if the file is not a binary savegame.
+     */
+    private BinaryReader openBinary(String fileName) {
+        try {
+            Path path = Paths.get(fileName);
+            if(Files.size(path) < Integer.BYTES)
+                return null;
+            BinaryReader in = BinaryReader.map(path);
+            return in.readInt() == GameSaver.BINARY_MAGIC ? in : null;
+        } catch(Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads a binary savegame, in the order written by GameSaver.writeGame().
+     * @param in reader positioned after the magic number.
+     */
+    private void loadBinary(BinaryReader in) {
+        int version = in.readVarInt();
+        if(version != GameSaver.BINARY_VERSION)
+            System.out.println("Warning: loading binary savegame of version " + version + ", expected " + GameSaver.BINARY_VERSION);
+
+        this.seed = in.readLong();
+        this.tick = in.readVarInt();
+        this.gameIsOver = in.readBoolean();
+        this.activeTribeID = in.readVarInt();
+        this.game_mode = Types.GAME_MODE.getTypeByKey(in.readVarInt());
+        int size = in.readVarInt();
+        int actorIDcounter = in.readVarInt();
+
+        int nTribes = in.readVarInt();
+        tribes = new Tribe[nTribes];
+        allCapitalIds = new int[nTribes];
+        for (int i = 0; i < nTribes; i++) {
+            tribes[i] = new Tribe(in.readVarInt(), size, in);
+            allCapitalIds[i] = tribes[i].getCapitalID();
+        }
+
+        board = new Board(in, size, actorIDcounter, allCapitalIds, activeTribeID, tribes);
+
+        int nUnits = in.readVarInt();
+        for (int i = 0; i < nUnits; i++) {
+            int id = in.readVarInt();
+            Types.UNIT unitType = Types.UNIT.getTypeByKey(in.readVarInt());
+            Types.UNIT baseLandType = null;
+            if (unitType == Types.UNIT.BOAT || unitType == Types.UNIT.SHIP || unitType == Types.UNIT.BATTLESHIP){
+                baseLandType = Types.UNIT.getTypeByKey(in.readVarInt());
+            }
+            Vector2d pos = new Vector2d(in.readVarInt(), in.readVarInt());
+            int kills = in.readVarInt();
+            boolean isVeteran = in.readBoolean();
+            int cityId = in.readSignedVarInt();
+            int tribeId = in.readVarInt();
+            Unit unit = Types.UNIT.createUnit(pos, kills, isVeteran, cityId, tribeId, unitType);
+            unit.setCurrentHP(in.readSignedVarInt());
+            unit.setStatus(Types.TURN_STATUS.FRESH);
+            if (unitType == Types.UNIT.BOAT){
+                ((Boat)unit).setBaseLandUnit(baseLandType);
+            }else if (unitType == Types.UNIT.SHIP){
+                ((Ship)unit).setBaseLandUnit(baseLandType);
+            }else if (unitType == Types.UNIT.BATTLESHIP){
+                ((Battleship)unit).setBaseLandUnit(baseLandType);
+            }
+            board.addActor(unit, id);
+        }
+
+        int nCities = in.readVarInt();
+        for (int i = 0; i < nCities; i++) {
+            int id = in.readVarInt();
+            board.addActor(new City(in, id), id);
+        }
+    }
+
     private String readFile(String filename) {
         String result = "";
         try {
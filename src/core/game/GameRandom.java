@@ -0,0 +1,49 @@
+package core.game;
+
+import java.util.Random;
+
+/**
+ * Random generator of the game. It produces exactly the same numbers as java.util.Random for the same seed, but
+ * its internal state can be read and restored. Replays save it in their keyframes, so the random outcomes of
+ * the actions (e.g. ruins examined, explorers launched) are the same when the game is resumed from them.
+ */
+class GameRandom extends Random
+{
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    //State of the linear congruential generator. Set by setSeed(), which is called from the super constructor.
+    private long state;
+
+    GameRandom(long seed)
+    {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed)
+    {
+        state = (seed ^ MULTIPLIER) & MASK;
+        super.setSeed(seed);
+    }
+
+    @Override
+    protected int next(int bits)
+    {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    long getState()
+    {
+        return state;
+    }
+
+    void setState(long state)
+    {
+        this.state = state;
+    }
+}
@@ -11,14 +11,182 @@ import core.actors.units.Ship;
 import core.actors.units.Unit;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import utils.BitGrid;
+import utils.IntList;
+import utils.file.BinaryWriter;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 
 class GameSaver {
 
+    //Binary savegames: magic number ("TRBS") and version of the format.
+    static final int BINARY_MAGIC = 0x54524253;
+    static final int BINARY_VERSION = 1;
+
+    /**
+     * Writes the game state to a compact binary file, save/[seed]/[tick]_[activeTribeID].bin, which can be
+     * loaded with GameLoader like the JSON savegames. See writeGame() for the layout of the file.
+     * @param gs game state to save.
+     * @param seed seed of the game.
+     */
+    static void writeBinaryTurnFile(GameState gs, long seed) {
+        try{
+            Path dir = Paths.get("save", String.valueOf(seed));
+            Files.createDirectories(dir);
+            BinaryWriter out = new BinaryWriter(4096);
+            writeGame(out, gs, seed);
+            out.writeTo(dir.resolve(gs.getTick() + "_" + gs.getActiveTribeID() + ".bin"));
+        } catch (IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes a game state in binary format. The layout is:
+     *   header: magic, version, seed, tick, gameIsOver, activeTribeID, game mode, board size, actorIDcounter.
+     *   tribes: number of them, and then the same information saved in the JSON savegames.
+     *   board: the layers, tile by tile (row by row): terrain, resource, building, unit id and city id, plus
+     *          the trade network packed in bits.
+     *   units and cities: number of them, and then the same information saved in the JSON savegames.
+     * Enums are written by their keys, and all integers as variable length quantities.
+     * @param out writer to write to.
+     * @param gs game state to save.
+     * @param seed seed of the game.
+     */
+    static void writeGame(BinaryWriter out, GameState gs, long seed) {
+        Board board = gs.getBoard();
+        int size = board.getSize();
+
+        out.writeInt(BINARY_MAGIC);
+        out.writeVarInt(BINARY_VERSION);
+        out.writeLong(seed);
+        out.writeVarInt(gs.getTick());
+        out.writeBoolean(gs.isGameOver());
+        out.writeVarInt(gs.getActiveTribeID());
+        out.writeVarInt(gs.getGameMode().getKey());
+
+        out.writeVarInt(size);
+        out.writeVarInt(board.getActorIDcounter());
+
+        // Tribes
+        Tribe[] tribes = gs.getTribes();
+        out.writeVarInt(tribes.length);
+        for(Tribe t: tribes){
+            out.writeVarInt(t.getActorId());
+            out.writeVarInt(t.getType().getKey());
+            writeIntList(out, t.getCitiesID());
+            out.writeSignedVarInt(t.getCapitalID());
+            boolean[] researched = t.getTechTree().getResearched();
+            out.writeVarInt(researched.length);
+            for (boolean r : researched)
+                out.writeBoolean(r);
+            out.writeSignedVarInt(t.getStars());
+            out.writeVarInt(t.getWinner().getKey());
+            out.writeSignedVarInt(t.getScore());
+            out.writeBits(t.getVisibility());
+            writeIntList(out, t.getConnectedCities());
+            HashMap<Types.BUILDING, Types.BUILDING.MONUMENT_STATUS> m = t.getMonuments();
+            out.writeVarInt(m.size());
+            for (Types.BUILDING key : m.keySet()) {
+                out.writeVarInt(key.getKey());
+                out.writeVarInt(m.get(key).getKey());
+            }
+            writeIntList(out, t.getTribesMet());
+            writeIntList(out, t.getExtraUnits());
+            out.writeVarInt(t.getnKills());
+            out.writeVarInt(t.getnPacifistCount());
+        }
+
+        // Board layers
+        BitGrid network = new BitGrid(size);
+        for (int i=0; i<size; i++){
+            for(int j=0; j<size; j++){
+                out.writeVarInt(board.getTerrainAt(i, j).getKey());
+                out.writeVarInt(board.getResourceAt(i, j) != null ? board.getResourceAt(i, j).getKey() + 1 : 0);
+                out.writeVarInt(board.getBuildingAt(i, j) != null ? board.getBuildingAt(i, j).getKey() + 1 : 0);
+                out.writeSignedVarInt(board.getUnitIDAt(i, j));
+                out.writeSignedVarInt(board.getCityIdAt(i, j));
+                network.set(i, j, board.getNetworkTilesAt(i, j));
+            }
+        }
+        out.writeBits(network);
+
+        // Units
+        ArrayList<Unit> unitList = getAllUnits(board);
+        out.writeVarInt(unitList.size());
+        for(Unit u: unitList){
+            out.writeVarInt(u.getActorId());
+            out.writeVarInt(u.getType().getKey());
+            if (u.getType() == Types.UNIT.BOAT){
+                out.writeVarInt(((Boat)u).getBaseLandUnit().getKey());
+            }else if (u.getType() == Types.UNIT.SHIP){
+                out.writeVarInt(((Ship)u).getBaseLandUnit().getKey());
+            }else if (u.getType() == Types.UNIT.BATTLESHIP){
+                out.writeVarInt(((Battleship)u).getBaseLandUnit().getKey());
+            }
+            out.writeVarInt(u.getPosition().x);
+            out.writeVarInt(u.getPosition().y);
+            out.writeVarInt(u.getKills());
+            out.writeBoolean(u.isVeteran());
+            out.writeSignedVarInt(u.getCityId());
+            out.writeVarInt(u.getTribeId());
+            out.writeSignedVarInt(u.getCurrentHP());
+        }
+
+        // Cities
+        ArrayList<City> citiesList = getAllCities(board);
+        out.writeVarInt(citiesList.size());
+        for(City c: citiesList){
+            out.writeVarInt(c.getActorId());
+            out.writeVarInt(c.getPosition().x);
+            out.writeVarInt(c.getPosition().y);
+            out.writeVarInt(c.getTribeId());
+            out.writeSignedVarInt(c.getPopulation_need());
+            out.writeVarInt(c.getBound());
+            out.writeVarInt(c.getLevel());
+            out.writeBoolean(c.isCapital());
+            out.writeSignedVarInt(c.getPopulation());
+            out.writeSignedVarInt(c.getBaseProduction());
+            out.writeBoolean(c.hasWalls());
+            out.writeSignedVarInt(c.getPointsWorth());
+            LinkedList<Building> buildings = c.getBuildings();
+            out.writeVarInt(buildings != null ? buildings.size() : 0);
+            if (buildings != null) {
+                for (Building b : buildings) {
+                    out.writeVarInt(b.position.x);
+                    out.writeVarInt(b.position.y);
+                    out.writeVarInt(b.type.getKey());
+                    if (b.type.isTemple()) {
+                        Temple t = (Temple) b;
+                        out.writeVarInt(t.getLevel());
+                        out.writeSignedVarInt(t.getTurnsToScore());
+                    }
+                }
+            }
+            writeIntList(out, c.getUnitsID());
+        }
+    }
+
+    private static void writeIntList(BinaryWriter out, ArrayList<Integer> list)
+    {
+        out.writeVarInt(list.size());
+        for (int v : list)
+            out.writeSignedVarInt(v);
+    }
+
+    private static void writeIntList(BinaryWriter out, IntList list)
+    {
+        out.writeVarInt(list.size());
+        for (int i = 0; i < list.size(); i++)
+            out.writeSignedVarInt(list.get(i));
+    }
+
 
     static void writeTurnFile(GameState gs, Board gameBoard, long seed) {
         try{
@@ -159,7 +327,7 @@ class GameSaver {
                     }
                 }
                 cInfo.put("buildings", buildingList);
-                cInfo.put("units", c.getUnitsID());
+                cInfo.put("units", new JSONArray(c.getUnitsID().toArray()));
                 city.put(String.valueOf(c.getActorId()), cInfo);
             }
 
@@ -182,7 +350,7 @@ class GameSaver {
             Tribe[] tribes = gs.getTribes();
             for(Tribe t: tribes){
                 JSONObject tribeInfo = new JSONObject();
-                tribeInfo.put("citiesID", t.getCitiesID());
+                tribeInfo.put("citiesID", new JSONArray(t.getCitiesID().toArray()));
                 tribeInfo.put("capitalID", t.getCapitalID());
                 tribeInfo.put("type", t.getType().getKey());
                 JSONObject techINFO = new JSONObject();
@@ -206,7 +374,7 @@ class GameSaver {
                     tribesMetInfo.put(tribeId);
                 }
                 tribeInfo.put("tribesMet", tribesMetInfo);
-                tribeInfo.put("extraUnits", t.getExtraUnits());
+                tribeInfo.put("extraUnits", new JSONArray(t.getExtraUnits().toArray()));
                 tribeInfo.put("nKills", t.getnKills());
                 tribeInfo.put("nPacifistCount", t.getnPacifistCount());
                 tribesINFO.put(String.valueOf(t.getActorId()), tribeInfo);
@@ -233,10 +401,10 @@ class GameSaver {
         Tribe[] tribes = board.getTribes();
         ArrayList<City> cityActors = new ArrayList<>();
         for(Tribe t: tribes){
-            ArrayList<Integer> cities = t.getCitiesID();
-            for(Integer cityId : cities)
+            IntList cities = t.getCitiesID();
+            for(int i = 0; i < cities.size(); i++)
             {
-                cityActors.add((City)board.getActor(cityId));
+                cityActors.add((City)board.getActor(cities.get(i)));
             }
         }
 
@@ -248,20 +416,22 @@ class GameSaver {
         Tribe[] tribes = board.getTribes();
         ArrayList<Unit> unitActors = new ArrayList<>();
         for(Tribe t: tribes){
-            ArrayList<Integer> cities = t.getCitiesID();
-            for(Integer cityId : cities)
+            IntList cities = t.getCitiesID();
+            for(int i = 0; i < cities.size(); i++)
             {
-                City c = (City)board.getActor(cityId);
-                for(Integer unitId : c.getUnitsID())
+                City c = (City)board.getActor(cities.get(i));
+                IntList unitsID = c.getUnitsID();
+                for(int j = 0; j < unitsID.size(); j++)
                 {
-                    Unit unit = (Unit) board.getActor(unitId);
+                    Unit unit = (Unit) board.getActor(unitsID.get(j));
                     unitActors.add(unit);
                 }
             }
 
-            for(Integer unitId : t.getExtraUnits())
+            IntList extraUnits = t.getExtraUnits();
+            for(int i = 0; i < extraUnits.size(); i++)
             {
-                Unit unit = (Unit) board.getActor(unitId);
+                Unit unit = (Unit) board.getActor(extraUnits.get(i));
                 unitActors.add(unit);
             }
         }
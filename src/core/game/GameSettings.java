@@ -0,0 +1,47 @@
+package core.game;
+
+import core.Constants;
+
+/**
+ * Settings of the loop that runs a game (visuals, verbosity, delays and time limits). Each game has its own
+ * settings, so several games can run at the same time with different configurations. Defaults are taken
+ * from core.Constants.
+ */
+public class GameSettings {
+
+    // Shows the game in a GUI. Forced to false if the game runs without a frame.
+    public boolean VISUALS = Constants.VISUALS;
+
+    // Prints the AI stats of all players at the end of the game.
+    public boolean VERBOSE = Constants.VERBOSE;
+
+    // Writes a savegame file after every turn.
+    public boolean WRITE_SAVEGAMES = Constants.WRITE_SAVEGAMES;
+
+    // Writes the savegames in binary format (.bin) instead of JSON.
+    public boolean BINARY_SAVEGAMES = Constants.BINARY_SAVEGAMES;
+
+    // Records the game in a replay file (save/[seed]/game.replay).
+    public boolean WRITE_REPLAYS = Constants.WRITE_REPLAYS;
+
+    // Delay between actions (and at the end of the turn) when playing with visuals.
+    public int FRAME_DELAY = Constants.FRAME_DELAY;
+
+    // Limits the thinking time of the agents in each turn to TURN_TIME_MILLIS.
+    public boolean TURN_LIMITED = Constants.TURN_LIMITED;
+    public long TURN_TIME_MILLIS = Constants.TURN_TIME_MILLIS;
+
+    public GameSettings copy()
+    {
+        GameSettings copy = new GameSettings();
+        copy.VISUALS = VISUALS;
+        copy.VERBOSE = VERBOSE;
+        copy.WRITE_SAVEGAMES = WRITE_SAVEGAMES;
+        copy.BINARY_SAVEGAMES = BINARY_SAVEGAMES;
+        copy.WRITE_REPLAYS = WRITE_REPLAYS;
+        copy.FRAME_DELAY = FRAME_DELAY;
+        copy.TURN_LIMITED = TURN_LIMITED;
+        copy.TURN_TIME_MILLIS = TURN_TIME_MILLIS;
+        return copy;
+    }
+}
@@ -5,16 +5,24 @@ import core.TribesConfig;
 import core.Types;
 import core.actions.Action;
 import core.actions.ActionCommand;
+import core.actions.cityactions.CityAction;
+import core.actions.cityactions.LevelUp;
 import core.actions.cityactions.factory.CityActionBuilder;
+import core.actions.tribeactions.TribeAction;
 import core.actions.tribeactions.factory.TribeActionBuilder;
 import core.actions.unitactions.Recover;
+import core.actions.unitactions.StepMove;
+import core.actions.unitactions.UnitAction;
 import core.actions.unitactions.factory.RecoverFactory;
 import core.actions.unitactions.factory.UnitActionBuilder;
 import core.actors.*;
 import core.actors.units.Unit;
 import core.levelgen.LevelGenerator;
+import utils.IntList;
 import utils.file.IO;
 import utils.Vector2d;
+import utils.graph.Pathfinder;
+import utils.graph.Reachability;
 
 import java.util.*;
 
@@ -40,6 +48,16 @@ public class GameState {
     private HashMap<Integer, ArrayList<Action>> unitActions;
     private ArrayList<Action> tribeActions;
 
+    //Number of available actions of each type (indexed by the ordinal of the type), and in total. Like the action
+    // lists, counts are not modified once computed, so they can be shared between copies.
+    private static final Types.ACTION[] ACTION_TYPES = Types.ACTION.values();
+    private static final int[] NO_ACTIONS = new int[ACTION_TYPES.length];
+    private int[] numActionsByType = NO_ACTIONS;
+    private int numActions;
+
+    //Used to heal the units that didn't act at the end of the turn. Factories are stateless and can be shared.
+    private static final RecoverFactory RECOVER_FACTORY = new RecoverFactory();
+
     //Flags the state to indicate that the turn must end
     private boolean turnMustEnd;
 
@@ -56,17 +74,30 @@ public class GameState {
     // Indicates if a city is leveling up, which reduces action list to only 2 options
     private boolean levelingUp;
 
+    //What the computed actions depend on, to update them when only some of them change. Null if they must be
+    // computed from scratch.
+    private ActionDependencies computedFrom;
+
+    //Tiles reachable by each unit (by id), and the state of the board they were computed in (see getReachability()).
+    private HashMap<Integer, CachedReachability> reachability;
+
     //Ranking of the game
     private TreeSet<TribeResult> ranking;
 
+    //Seed for the random generators of the copies of this state, and number of copies made so far (see copy()).
+    private long copySeed;
+    private int numCopies;
+
     //Constructor.
     public GameState(Random rnd, Types.GAME_MODE gameMode) {
         this.rnd = rnd;
+        this.copySeed = (rnd instanceof GameRandom) ? ((GameRandom) rnd).getState() : 0;
         this.gameMode = gameMode;
         computedActionTribeIdFlag = -1;
         this.cityActions = new HashMap<>();
         this.unitActions = new HashMap<>();
         this.tribeActions = new ArrayList<>();
+        this.reachability = new HashMap<>();
         this.ranking = new TreeSet<>();
         this.turnMustEnd = false;
         this.gameIsOver = false;
@@ -91,16 +122,41 @@ public class GameState {
         computePlayerActions(tribes[board.getActiveTribeID()]);
     }
 
+    /**
+     * Creates a game state exactly as it was saved in a keyframe of a replay. Unlike when loading a savegame,
+     * the turn of the next tribe is not started.
+     * @param rnd random generator of the game, in the state it had when the keyframe was saved.
+     * @param loader loader with the game saved in the keyframe.
+     */
+    GameState(Random rnd, GameLoader loader){
+        this(rnd, loader.getGame_mode());
+        this.tick = loader.getTick();
+        this.board = loader.getBoard();
+        this.gameIsOver = loader.getGameIsOver();
+        board.setTribes(loader.getTribes());
+        canEndTurn = new boolean[loader.getTribes().length];
+    }
+
     /**
      * Initializes the GameState using a level generator.
      */
     void init(long levelgen_seed, Types.TRIBE[] tribes) {
 
+        LevelGenerator levelGen = generateLevel(levelgen_seed, tribes);
+        initGameState(new LevelLoader().buildLevel(levelGen, rnd));
+    }
+
+    /**
+     * Generates the level of a game.
+     * @param levelgen_seed seed for the level generator.
+     * @param tribes tribes that play the game.
+     * @return the generator, with the level generated.
+     */
+    static LevelGenerator generateLevel(long levelgen_seed, Types.TRIBE[] tribes) {
         LevelGenerator levelGen = new LevelGenerator(levelgen_seed);
         levelGen.init(TribesConfig.DEFAULT_MAP_SIZE[tribes.length-1], 3, 4, 0.5, tribes);
         levelGen.generate();
-        String[] lines = levelGen.gelLevelLines();
-        initGameState(lines);
+        return levelGen;
     }
 
     /**
@@ -108,17 +164,33 @@ public class GameState {
      */
     void init(String filename) {
         String[] lines = new IO().readFile(filename);
-        initGameState(lines);
+        init(lines);
+    }
+
+    /**
+     * Initializes the GameState with a board that is already in its initial state (see LevelCache).
+     * @param initialBoard the board, with the view around the capitals already cleared.
+     */
+    void init(Board initialBoard) {
+        board = initialBoard;
+        canEndTurn = new boolean[board.getTribes().length];
     }
 
     /**
-     * Initializes a game state from a series of Strings that determine the initial level disposition
+     * Initializes the GameState from the lines of a level file.
      * @param lines all components for the board in its initial state.
      */
-    private void initGameState(String[] lines) {
+    void init(String[] lines) {
+        initGameState(new LevelLoader().buildLevel(lines, rnd));
+    }
+
+    /**
+     * Initializes a game state from a board with the initial level disposition
+     * @param board the board in its initial state.
+     */
+    private void initGameState(Board board) {
 
-        LevelLoader ll = new LevelLoader();
-        board = ll.buildLevel(lines, rnd);
+        this.board = board;
 
         Tribe[] tribes = board.getTribes();
         for(Tribe tribe : tribes)
@@ -165,6 +237,8 @@ public class GameState {
      * Computes all the actions that a player can take given the current game state.
      * Warning: This method can be expensive. In game loop, its computation sits outside the
      * agent's decision time, but agents can use it on their forward models at real expense.
+     * If the actions of this tribe were computed before, and only local changes were made since then,
+     * only the actions that may have been affected by those changes are recomputed (see updatePlayerActions()).
      * @param tribe Tribe for which actions are being computed.
      */
     void computePlayerActions(Tribe tribe)
@@ -178,6 +252,47 @@ public class GameState {
         }
 
         computedActionTribeIdFlag = tribe.getTribeId();
+        if(!updatePlayerActions(tribe))
+            computeAllPlayerActions(tribe);
+
+        countActions();
+
+        //Changes are now reflected in the actions. Keep what they depend on for the next update.
+        board.getChanges().clear();
+        computedFrom = (gameIsOver || levelingUp) ? null : new ActionDependencies(tribe, getAllUnitIds(tribe));
+    }
+
+    /**
+     * Counts the actions available, in total and of each type.
+     */
+    private void countActions()
+    {
+        int[] counts = new int[ACTION_TYPES.length];
+        for(Action act : tribeActions)
+            counts[act.getActionType().ordinal()]++;
+        int total = tribeActions.size();
+        for(ArrayList<Action> actions : cityActions.values())
+        {
+            for(Action act : actions)
+                counts[act.getActionType().ordinal()]++;
+            total += actions.size();
+        }
+        for(ArrayList<Action> actions : unitActions.values())
+        {
+            for(Action act : actions)
+                counts[act.getActionType().ordinal()]++;
+            total += actions.size();
+        }
+        numActionsByType = counts;
+        numActions = total;
+    }
+
+    /**
+     * Computes all the actions that a player can take from scratch.
+     * @param tribe Tribe for which actions are being computed.
+     */
+    private void computeAllPlayerActions(Tribe tribe)
+    {
         this.cityActions = new HashMap<>();
         this.unitActions = new HashMap<>();
         this.tribeActions = new ArrayList<>();
@@ -186,8 +301,7 @@ public class GameState {
             return; // no actions available if the game is over
 
 
-        ArrayList<Integer> cities = tribe.getCitiesID();
-        ArrayList<Integer> allUnits = new ArrayList<>();
+        IntList cities = tribe.getCitiesID();
         CityActionBuilder cab = new CityActionBuilder();
 
         int numCities = cities.size();
@@ -212,11 +326,7 @@ public class GameState {
             }
 
             if(!levelingUp)
-            {
-                ArrayList<Integer> unitIds = c.getUnitsID();
-                allUnits.addAll(unitIds);
                 i++;
-            }
         }
 
         int activeTribeID = board.getActiveTribeID();
@@ -229,12 +339,9 @@ public class GameState {
             canEndTurn[activeTribeID] = true;
         }
 
-        //Add the extra units that don't belong to any city.
-        allUnits.addAll(tribe.getExtraUnits());
-
         //Units!
         UnitActionBuilder uab = new UnitActionBuilder();
-        for(Integer unitId : allUnits)
+        for(Integer unitId : getAllUnitIds(tribe))
         {
             Unit u = (Unit) board.getActor(unitId);
             ArrayList<Action> actions = uab.getActions(this, u);
@@ -248,6 +355,136 @@ public class GameState {
         tribeActions.addAll(actions);
     }
 
+    /**
+     * Updates the actions of a tribe computed previously, recomputing only those that may have changed since then.
+     * These are the actions of:
+     *   - the actors modified (i.e. the one that executed an action),
+     *   - units that may reach (moving, attacking or healing) a tile that changed, or be blocked by its zone of control,
+     *   - cities with tiles at distance 1 of a tile that changed (buildings affect neighbouring tiles),
+     *   - all cities, if the stars, monuments or cities connected of the tribe changed.
+     * Tribe actions are always recomputed.
+     * @param tribe Tribe for which actions are being computed.
+     * @return false if the actions couldn't be updated (and must be computed from scratch).
+     */
+    private boolean updatePlayerActions(Tribe tribe)
+    {
+        BoardChanges changes = board.getChanges();
+        ActionDependencies previous = computedFrom;
+
+        //Only the actions of the same tribe during the same turn can be updated.
+        if(previous == null || previous.tribeId != tribe.getTribeId() || levelingUp || gameIsOver || changes.isAllChanged())
+            return false;
+
+        //Research or new cities affect most actions.
+        if(tribe.getTechTree().getNumResearched() != previous.numResearched || tribe.getNumCities() != previous.numCities)
+            return false;
+
+        boolean starsChanged = tribe.getStars() != previous.stars;
+        boolean allCitiesChanged = starsChanged || !previous.connectedCities.equals(tribe.getConnectedCities())
+                || !previous.monuments.equals(tribe.getMonuments());
+
+        //Units modified affect the actions of other units around them, as if their tile changed.
+        for(int i = 0; i < changes.getNumActors(); ++i)
+        {
+            Actor actor = board.getActor(changes.getActor(i));
+            if(actor instanceof Unit)
+                changes.tileChanged(actor.getPosition().x, actor.getPosition().y);
+        }
+        if(changes.isAllChanged())
+            return false;
+
+        //Cities
+        HashSet<Integer> citiesToUpdate = new HashSet<>();
+        int size = board.getSize();
+        for(int i = 0; i < changes.getNumTiles(); ++i)
+        {
+            int x = changes.getTileX(i), y = changes.getTileY(i);
+            for(int nx = Math.max(0, x-1); nx <= Math.min(size-1, x+1); ++nx)
+                for(int ny = Math.max(0, y-1); ny <= Math.min(size-1, y+1); ++ny)
+                    citiesToUpdate.add(board.getCityIdAt(nx, ny));
+        }
+
+        HashMap<Integer, ArrayList<Action>> newCityActions = new HashMap<>(cityActions);
+        CityActionBuilder cab = new CityActionBuilder();
+        IntList cities = tribe.getCitiesID();
+        for(int i = 0; i < cities.size(); i++)
+        {
+            int cityId = cities.get(i);
+            if(allCitiesChanged || citiesToUpdate.contains(cityId) || changes.hasActorChanged(cityId))
+            {
+                City c = (City) board.getActor(cityId);
+                ArrayList<Action> actions = cab.getActions(this, c);
+                if(cab.cityLevelsUp())
+                    return false; //All actions change when a city levels up.
+
+                if(actions.size() > 0)
+                    newCityActions.put(cityId, actions);
+                else
+                    newCityActions.remove(cityId);
+            }
+        }
+
+        //Units! Their actions may depend on what's at a distance of up to their movement range on roads (plus
+        // one tile of zone of control) if they can move, their attack range if they can't, and nothing but
+        // their own state if they are finished.
+        HashMap<Integer, ArrayList<Action>> newUnitActions = new HashMap<>();
+        UnitActionBuilder uab = new UnitActionBuilder();
+        for(Integer unitId : getAllUnitIds(tribe))
+        {
+            Unit u = (Unit) board.getActor(unitId);
+            Vector2d pos = u.getPosition();
+            int reach = u.isFinished() ? -1 : (u.canMove() ? Math.max(2 * u.MOV + 2, u.RANGE) : u.RANGE);
+
+            ArrayList<Action> actions;
+            if(!previous.units.contains(unitId) || changes.hasActorChanged(unitId)
+                    || changes.tileChangedNear(pos.x, pos.y, reach)
+                    || (starsChanged && (u.getType() == Types.UNIT.BOAT || u.getType() == Types.UNIT.SHIP))) //Upgrades
+            {
+                actions = uab.getActions(this, u);
+            }else
+            {
+                actions = unitActions.get(unitId);
+            }
+
+            if(actions != null && actions.size() > 0)
+                newUnitActions.put(unitId, actions);
+        }
+
+        //This tribe
+        TribeActionBuilder tab = new TribeActionBuilder();
+        this.tribeActions = tab.getActions(this, tribe);
+        this.cityActions = newCityActions;
+        this.unitActions = newUnitActions;
+        canEndTurn[board.getActiveTribeID()] = true;
+        return true;
+    }
+
+    /**
+     * Returns the ids of all units of a tribe: those that belong to its cities and the extra ones.
+     * @param tribe tribe whose units are returned.
+     * @return ids of all units of the tribe.
+     */
+    private ArrayList<Integer> getAllUnitIds(Tribe tribe)
+    {
+        ArrayList<Integer> allUnits = new ArrayList<>();
+        IntList cities = tribe.getCitiesID();
+        for(int i = 0; i < cities.size(); i++)
+        {
+            City c = (City) board.getActor(cities.get(i));
+            addIds(allUnits, c.getUnitsID());
+        }
+
+        //Add the extra units that don't belong to any city.
+        addIds(allUnits, tribe.getExtraUnits());
+        return allUnits;
+    }
+
+    private static void addIds(ArrayList<Integer> list, IntList ids)
+    {
+        for(int i = 0; i < ids.size(); i++)
+            list.add(ids.get(i));
+    }
+
     /**
      * Checks if there are actions that the given tribe can take.
      * @param tribe to check if can execute actions.
@@ -295,6 +532,8 @@ public class GameState {
             }
 
             //Post-action execution matters:
+            if(executed)
+                actorActed(action);
 
             //new actions may have become available, update the 'dirty' flag
             computedActionTribeIdFlag = -1;
@@ -323,6 +562,8 @@ public class GameState {
             }
 
             if(executed) {
+                actorActed(action);
+
                 //it's an end turn
                 if(action.getActionType() == Types.ACTION.END_TURN)
                 {
@@ -365,31 +606,141 @@ public class GameState {
         }
     }
 
+    /**
+     * Advances the game state applying a sequence of actions, as advance() would do one at a time, but without
+     * computing the actions available between them. Each action is checked before executing it, and the sequence
+     * stops at the first one that can't be executed in the state reached (or when the game is over).
+     * @param actions actions to execute, in order.
+     * @param computeActions true if actions available at the end of the sequence should be computed.
+     * @return number of actions executed, which is the index of the first action that couldn't be executed if
+     * there's any.
+     */
+    public int advanceAll(List<Action> actions, boolean computeActions)
+    {
+        int executed = 0;
+        while(executed < actions.size() && canExecute(actions.get(executed)))
+        {
+            Action action = actions.get(executed);
+
+            //No city is levelling up, but that may not be known yet if actions weren't computed after the last level up.
+            if(action.getActionType() == Types.ACTION.END_TURN)
+                canEndTurn[board.getActiveTribeID()] = true;
+
+            advance(action, false);
+            executed++;
+        }
+
+        if(computeActions && !gameIsOver)
+            computePlayerActions(getActiveTribe());
+        return executed;
+    }
+
+    /**
+     * Checks if an action can be executed in this state, even if the actions available haven't been computed. Only
+     * level up actions (for the first city of the active tribe that levels up) can be executed while a city is
+     * levelling up, as in computeAllPlayerActions().
+     * @param action action to check.
+     * @return true if the action can be executed.
+     */
+    private boolean canExecute(Action action)
+    {
+        if(gameIsOver || action == null)
+            return false;
+
+        Tribe tribe = getActiveTribe();
+        int levellingCity = -1;
+        IntList cities = tribe.getCitiesID();
+        for(int i = 0; i < cities.size() && levellingCity == -1; i++)
+        {
+            City c = (City) board.peekActor(cities.get(i));
+            if(c.canLevelUp())
+                levellingCity = c.getActorId();
+        }
+
+        Actor actor = null;
+        if(action instanceof UnitAction)
+        {
+            actor = board.peekActor(((UnitAction) action).getUnitId());
+            if(!(actor instanceof Unit))
+                return false;
+        }else if(action instanceof CityAction)
+        {
+            actor = board.peekActor(((CityAction) action).getCityId());
+            if(!(actor instanceof City))
+                return false;
+        }else if(action instanceof TribeAction && ((TribeAction) action).getTribeId() != tribe.getTribeId())
+            return false;
+
+        if(actor != null && actor.getTribeId() != tribe.getTribeId())
+            return false;
+
+        if(levellingCity != -1)
+            return action instanceof LevelUp && ((LevelUp) action).getCityId() == levellingCity && isFeasible(action);
+
+        //No city is levelling up, so the turn can end.
+        if(action.getActionType() == Types.ACTION.END_TURN)
+            return true;
+        return isFeasible(action);
+    }
+
+    /**
+     * Checks if an action is feasible in this state. Actions created for an earlier state may refer to things
+     * that no longer exist (e.g. a target destroyed by a previous action), so an action whose check fails
+     * with an exception is not feasible.
+     * @param action action to check.
+     * @return true if the action is feasible.
+     */
+    private boolean isFeasible(Action action)
+    {
+        try {
+            return action.isFeasible(this);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records the actor that executed an action as modified. Changes to other actors and tiles are
+     * recorded by the board and the action commands.
+     * @param action action executed.
+     */
+    private void actorActed(Action action)
+    {
+        if(action instanceof UnitAction)
+            board.reportActorChange(((UnitAction) action).getUnitId());
+        else if(action instanceof CityAction)
+            board.reportActorChange(((CityAction) action).getCityId());
+    }
+
     /**
      * Ends this turn. Executes a Recover action on all the units that are not fresh
      * @param tribe tribe whose turn is ending.
      */
     void endTurn(Tribe tribe)
     {
+        board.reportGlobalChange();
+
         //For all units that didn't execute any action, a Recover action is executed.
-        ArrayList<Integer> allTribeUnits = new ArrayList<>();
-        ArrayList<Integer> tribeCities = tribe.getCitiesID();
+        IntList allTribeUnits = new IntList();
+        IntList tribeCities = tribe.getCitiesID();
 
         //1. Get all units
-        for(int cityId : tribeCities)
+        for(int i = 0; i < tribeCities.size(); i++)
         {
-            City city = (City) getActor(cityId);
+            City city = (City) getActor(tribeCities.get(i));
             allTribeUnits.addAll(city.getUnitsID());
         }
 
         //Heal the ones that were in a FRESH state.
         allTribeUnits.addAll(tribe.getExtraUnits());    //Add the extra units that don't belong to a city.
-        for(int unitId : allTribeUnits)
+        ArrayList<Action> recoverActions = new ArrayList<>(1);
+        for(int i = 0; i < allTribeUnits.size(); i++)
         {
-            Unit unit = (Unit) getActor(unitId);
+            Unit unit = (Unit) getActor(allTribeUnits.get(i));
             if(unit.getStatus() == Types.TURN_STATUS.FRESH)
             {
-                LinkedList<Action> recoverActions = new RecoverFactory().computeActionVariants(unit, this);
+                recoverActions.clear();
+                RECOVER_FACTORY.computeActionVariants(unit, this, recoverActions);
                 if(recoverActions.size() > 0)
                 {
                     Recover recoverAction = (Recover)recoverActions.get(0);
@@ -408,14 +759,15 @@ public class GameState {
     void initTurn(Tribe tribe)
     {
         //Get all cities of this tribe
-        ArrayList<Integer> tribeCities = tribe.getCitiesID();
-        ArrayList<Integer> allTribeUnits = new ArrayList<>();
+        IntList tribeCities = tribe.getCitiesID();
+        IntList allTribeUnits = new IntList();
         this.setEndTurn(false);
+        board.reportGlobalChange();
 
         //1. Compute stars per turn.
         int acumProd = 0;
-        for (int cityId : tribeCities) {
-            City city = (City) getActor(cityId);
+        for (int i = 0; i < tribeCities.size(); i++) {
+            City city = (City) getActor(tribeCities.get(i));
 
             //Cities with an enemy unit in the city's tile don't generate production.
             boolean produces = true;
@@ -453,9 +805,9 @@ public class GameState {
         //2. Units: all become available. This needs to be done here as some units may have become
         // pushed during other player's turn.
         allTribeUnits.addAll(tribe.getExtraUnits());    //Add the extra units that don't belong to a city.
-        for(int unitId : allTribeUnits)
+        for(int i = 0; i < allTribeUnits.size(); i++)
         {
-            Unit unit = (Unit) getActor(unitId);
+            Unit unit = (Unit) getActor(allTribeUnits.get(i));
             if(unit.getStatus() == Types.TURN_STATUS.PUSHED)
                 //Pushed units in the previous turn start as if they moved already.
                 unit.setStatus(Types.TURN_STATUS.MOVED);
@@ -476,6 +828,8 @@ public class GameState {
      */
     public void pushUnit(Unit toPush, int startX, int startY)
     {
+        //The unit may have been found with Board.getUnitAt(), which doesn't give a copy this state can modify.
+        toPush = (Unit) getActor(toPush.getActorId());
         Tribe tribe = getTribe(toPush.getTribeId());
         boolean pushed = board.pushUnit(tribe, toPush, startX, startY, rnd);
         if(!pushed)
@@ -501,6 +855,10 @@ public class GameState {
 
     /**
      * Public accessor to the copy() functionality of this state.
+     * Copies don't modify the data of this state (see Board.snapshot()), but they're counted to seed their random
+     * generators: copies taken from several threads at the same time are valid, but their seeds depend on how the
+     * threads are scheduled (and two of them can get the same one). Agents that must be reproducible from the game
+     * seed take their copies of a state one at a time.
      * @return a copy of the current game state.
      */
     public GameState copy() {
@@ -508,16 +866,20 @@ public class GameState {
     }
 
     /**
-     * Creates a deep copy of this game state, given player index. Sets up the game state so that it contains
-     * only information available to the given player. If -1, state contains all information.
+     * Creates a copy of this game state, given player index. Sets up the game state so that it contains
+     * only information available to the given player. If -1, state contains all information, and the copy is
+     * a copy-on-write snapshot of this state (see Board.snapshot()).
      * @param playerIdx player index that indicates who is this copy for.
      * @return a copy of this game state.
      */
     GameState copy(int playerIdx)
     {
-//        GameState copy = new GameState(this.rnd, this.gameMode); //use this for a 100% repetition of the game based on random seed and game seed.
-        GameState copy = new GameState(new Random(), this.gameMode); //copies of the game state can't have the same random generator.
-        copy.board = board.copy(playerIdx!=-1, playerIdx);
+        //Copies of the game state can't have the same random generator. Theirs are seeded from this state and the
+        // number of copies made, so agents that copy states can be reproduced from the game seed (see copy()).
+        long seed = StateHash.mix(copySeed + (++numCopies) * 0x9E3779B97F4A7C15L);
+        GameState copy = new GameState(new Random(seed), this.gameMode);
+        copy.copySeed = seed;
+        copy.board = (playerIdx == -1) ? board.snapshot() : board.copy(true, playerIdx);
         copy.tick = this.tick;
         copy.turnMustEnd = turnMustEnd;
         copy.gameIsOver = gameIsOver;
@@ -526,35 +888,49 @@ public class GameState {
         copy.canEndTurn = new boolean[numTribes];
         System.arraycopy(canEndTurn, 0, copy.canEndTurn, 0, numTribes);
         copy.levelingUp = levelingUp;
+        copy.computedFrom = (playerIdx == -1) ? computedFrom : null;
+        if(playerIdx == -1)
+            copy.reachability = new HashMap<>(reachability); //A snapshot starts with the same board version.
+        copy.numActionsByType = numActionsByType;
+        copy.numActions = numActions;
 
-        copy.tribeActions = new ArrayList<>();
-        for(Action ta : tribeActions)
+        if(playerIdx == -1)
         {
-            copy.tribeActions.add(ta.copy());
-        }
-
-        copy.unitActions = new HashMap<>();
-        for(int unitId : unitActions.keySet())
+            //Action lists are never modified once computed (computePlayerActions() creates new ones), so they can be shared.
+            copy.tribeActions = tribeActions;
+            copy.unitActions = new HashMap<>(unitActions);
+            copy.cityActions = new HashMap<>(cityActions);
+        }else
         {
-            ArrayList<Action> actions = unitActions.get(unitId);
-            ArrayList<Action> actionsC = new ArrayList<>();
-            for(Action act : actions)
+            copy.tribeActions = new ArrayList<>();
+            for(Action ta : tribeActions)
             {
-                actionsC.add(act.copy());
+                copy.tribeActions.add(ta.copy());
             }
-            copy.unitActions.put(unitId, actionsC);
-        }
 
-        copy.cityActions = new HashMap<>();
-        for(int cityId : cityActions.keySet())
-        {
-            ArrayList<Action> actions = cityActions.get(cityId);
-            ArrayList<Action> actionsC = new ArrayList<>();
-            for(Action act : actions)
+            copy.unitActions = new HashMap<>();
+            for(int unitId : unitActions.keySet())
+            {
+                ArrayList<Action> actions = unitActions.get(unitId);
+                ArrayList<Action> actionsC = new ArrayList<>();
+                for(Action act : actions)
+                {
+                    actionsC.add(act.copy());
+                }
+                copy.unitActions.put(unitId, actionsC);
+            }
+
+            copy.cityActions = new HashMap<>();
+            for(int cityId : cityActions.keySet())
             {
-                actionsC.add(act.copy());
+                ArrayList<Action> actions = cityActions.get(cityId);
+                ArrayList<Action> actionsC = new ArrayList<>();
+                for(Action act : actions)
+                {
+                    actionsC.add(act.copy());
+                }
+                copy.cityActions.put(cityId, actionsC);
             }
-            copy.cityActions.put(cityId, actionsC);
         }
 
         copy.ranking = new TreeSet<>();
@@ -755,6 +1131,37 @@ public class GameState {
         this.gameIsOver = gameIsOver;
     }
 
+    /**
+     * Returns the tiles a unit can move to from its current position. Move actions are created from these
+     * (MoveFactory) and checked against them (Move.isFeasible()), so they are computed once per unit and kept
+     * until the board changes (any tile or actor modified, see BoardChanges) or the unit's tribe researches
+     * a new technology.
+     * @param unit unit to move.
+     * @return the tiles reachable by the unit. It doesn't check if the unit can move this turn.
+     */
+    public Reachability getReachability(Unit unit) {
+        long version = board.getChanges().getVersion();
+        int numResearched = board.getTribe(unit.getTribeId()).getTechTree().getNumResearched();
+        CachedReachability cached = reachability.get(unit.getActorId());
+        if(cached == null || !cached.isValid(unit, version, numResearched))
+        {
+            Reachability r = new Pathfinder(unit.getPosition(), new StepMove(this, unit)).findReachability();
+            cached = new CachedReachability(r, unit, version, numResearched);
+            reachability.put(unit.getActorId(), cached);
+        }
+        return cached.reachability;
+    }
+
+    /**
+     * Returns a Zobrist-style hash of this state (see StateHash). Equal states have equal hashes, independently of
+     * the actions that led to them. The board and the visibility of the tribes are hashed as they are modified, so
+     * this only rehashes the actors modified since the last call and the tribes of the game.
+     * @return the hash of this state.
+     */
+    public long getHash() {
+        return StateHash.of(this);
+    }
+
     /**
      * Gathers and returns all the available actions for the active tribe in a single ArrayList
      * @return all available actions
@@ -773,6 +1180,124 @@ public class GameState {
         return allActions;
     }
 
+    /**
+     * Returns the number of actions available for the active tribe, i.e. getAllAvailableActions().size()
+     * @return number of actions available.
+     */
+    public int getNumAvailableActions()
+    {
+        return numActions;
+    }
+
+    /**
+     * Returns the number of actions of a given type available for the active tribe.
+     * @param actionType type of the actions.
+     * @return number of actions available of that type.
+     */
+    public int getNumAvailableActions(Types.ACTION actionType)
+    {
+        return numActionsByType[actionType.ordinal()];
+    }
+
+    /**
+     * Returns an available action by its index, i.e. getAllAvailableActions().get(index), without building
+     * the list of all actions.
+     * @param index index of the action.
+     * @return the action.
+     */
+    public Action getAvailableAction(int index)
+    {
+        if(index < 0 || index >= numActions)
+            throw new IndexOutOfBoundsException("Index: " + index + ", available actions: " + numActions);
+        return pickAction(index, null);
+    }
+
+    /**
+     * Picks one of the available actions uniformly at random. The action picked for a given random number is
+     * the same as getAllAvailableActions().get(rnd.nextInt(getNumAvailableActions())), but no list is built.
+     * @param rnd random number generator.
+     * @return an available action, null if there are none.
+     */
+    public Action getRandomAction(Random rnd)
+    {
+        return getRandomAction(rnd, null);
+    }
+
+    /**
+     * Picks one of the available actions, excluding some types, uniformly at random. No list is built.
+     * @param rnd random number generator.
+     * @param excluded types of actions that can't be picked. If null, any action can be picked.
+     * @return an available action, null if there are none (apart from those of the excluded types).
+     */
+    public Action getRandomAction(Random rnd, EnumSet<Types.ACTION> excluded)
+    {
+        int numCandidates = numActions;
+        if(excluded != null)
+        {
+            for(int i = 0; i < ACTION_TYPES.length; ++i)
+                if(excluded.contains(ACTION_TYPES[i]))
+                    numCandidates -= numActionsByType[i];
+        }
+
+        if(numCandidates <= 0)
+            return null;
+        return pickAction(rnd.nextInt(numCandidates), excluded);
+    }
+
+    /**
+     * Finds the index-th action that is not of an excluded type, following the order of getAllAvailableActions().
+     */
+    private Action pickAction(int index, EnumSet<Types.ACTION> excluded)
+    {
+        int n = numCandidates(tribeActions, excluded);
+        if(index < n)
+            return candidateAt(tribeActions, index, excluded);
+        index -= n;
+
+        for(ArrayList<Action> actions : cityActions.values())
+        {
+            n = numCandidates(actions, excluded);
+            if(index < n)
+                return candidateAt(actions, index, excluded);
+            index -= n;
+        }
+
+        for(ArrayList<Action> actions : unitActions.values())
+        {
+            n = numCandidates(actions, excluded);
+            if(index < n)
+                return candidateAt(actions, index, excluded);
+            index -= n;
+        }
+        return null;
+    }
+
+    private static int numCandidates(ArrayList<Action> actions, EnumSet<Types.ACTION> excluded)
+    {
+        if(excluded == null)
+            return actions.size();
+
+        int n = 0;
+        for(int i = 0; i < actions.size(); ++i)
+            if(!excluded.contains(actions.get(i).getActionType()))
+                n++;
+        return n;
+    }
+
+    private static Action candidateAt(ArrayList<Action> actions, int index, EnumSet<Types.ACTION> excluded)
+    {
+        if(excluded == null)
+            return actions.get(index);
+
+        for(int i = 0; i < actions.size(); ++i)
+        {
+            Action act = actions.get(i);
+            if(!excluded.contains(act.getActionType()) && index-- == 0)
+                return act;
+        }
+        return null;
+    }
+
     public ArrayList<Action> getAllAvailableActions(int playerID)
     {
         if(playerID == getActiveTribeID())
@@ -815,10 +1340,49 @@ public class GameState {
 
     public int getTribeProduction(int playerId)
     {
-        if(playerId == getActiveTribeID())
-            return this.getActiveTribe().getMaxProduction(this);
+        int production = 0;
+        IntList cities = getTribe(playerId).getCitiesID();
+        for (int i = 0; i < cities.size(); i++)
+            production += ((City) board.peekActor(cities.get(i))).getProduction();
+        return production;
+    }
 
-        return this.getTribe(playerId).getMaxProduction(this);
+    /**
+     * Returns the number of units of a tribe (in its cities, plus the ones that don't belong to a city).
+     * Same as getUnits(playerId).size(), but without building the list.
+     * @param playerId id of the tribe.
+     * @return the number of units.
+     */
+    public int getNumUnits(int playerId)
+    {
+        Tribe tribe = getTribe(playerId);
+        int units = tribe.getExtraUnits().size();
+        IntList cities = tribe.getCitiesID();
+        for (int i = 0; i < cities.size(); i++)
+            units += ((City) board.peekActor(cities.get(i))).getUnitsID().size();
+        return units;
+    }
+
+    /**
+     * Returns the sum of the levels of the cities of a tribe.
+     * @param playerId id of the tribe.
+     * @return the sum of the levels.
+     */
+    public int getSumCityLevels(int playerId)
+    {
+        int levels = 0;
+        IntList cities = getTribe(playerId).getCitiesID();
+        for (int i = 0; i < cities.size(); i++)
+            levels += ((City) board.peekActor(cities.get(i))).getLevel();
+        return levels;
+    }
+
+    /**
+     * Returns the number of visible tiles for the active tribe (the true positions of getVisibilityMap()).
+     * @return the number of visible tiles.
+     */
+    public int getNumVisibleTiles() {
+        return getActiveTribe().getNumVisibleTiles();
     }
 
 
@@ -849,32 +1413,34 @@ public class GameState {
 
     public ArrayList<City> getCities(int playerId)
     {
-        ArrayList<Integer> cities = getTribe(playerId).getCitiesID();
+        IntList cities = getTribe(playerId).getCitiesID();
         ArrayList<City> cityActors = new ArrayList<>();
-        for(Integer cityId : cities)
+        for(int i = 0; i < cities.size(); i++)
         {
-            cityActors.add((City)board.getActor(cityId));
+            cityActors.add((City)board.getActor(cities.get(i)));
         }
         return cityActors;
     }
 
     public ArrayList<Unit> getUnits(int playerId)
     {
-        ArrayList<Integer> cities = getTribe(playerId).getCitiesID();
+        IntList cities = getTribe(playerId).getCitiesID();
         ArrayList<Unit> unitActors = new ArrayList<>();
-        for(Integer cityId : cities)
+        for(int i = 0; i < cities.size(); i++)
         {
-            City c = (City)board.getActor(cityId);
-            for(Integer unitId : c.getUnitsID())
+            City c = (City)board.getActor(cities.get(i));
+            IntList unitsID = c.getUnitsID();
+            for(int j = 0; j < unitsID.size(); j++)
             {
-                Unit unit = (Unit) board.getActor(unitId);
+                Unit unit = (Unit) board.getActor(unitsID.get(j));
                 unitActors.add(unit);
             }
         }
 
-        for(Integer unitId : getTribe(playerId).getExtraUnits())
+        IntList extraUnits = getTribe(playerId).getExtraUnits();
+        for(int i = 0; i < extraUnits.size(); i++)
         {
-            Unit unit = (Unit) board.getActor(unitId);
+            Unit unit = (Unit) board.getActor(extraUnits.get(i));
             unitActors.add(unit);
         }
 
@@ -889,5 +1455,56 @@ public class GameState {
         return getTribe(playerId).getWinner();
     }
 
+    /**
+     * Properties of a tribe that many of its actions depend on, captured when its actions are computed.
+     */
+    private static class ActionDependencies
+    {
+        final int tribeId;
+        final int stars;
+        final int numResearched;
+        final int numCities;
+        final ArrayList<Integer> connectedCities;
+        final HashMap<Types.BUILDING, Types.BUILDING.MONUMENT_STATUS> monuments;
+        final HashSet<Integer> units;
+
+        ActionDependencies(Tribe tribe, ArrayList<Integer> unitIds)
+        {
+            tribeId = tribe.getTribeId();
+            stars = tribe.getStars();
+            numResearched = tribe.getTechTree().getNumResearched();
+            numCities = tribe.getNumCities();
+            connectedCities = new ArrayList<>(tribe.getConnectedCities());
+            monuments = new HashMap<>(tribe.getMonuments());
+            units = new HashSet<>(unitIds);
+        }
+    }
+
+    /**
+     * Reachability of a unit, with the unit and board state it was computed for.
+     */
+    private static class CachedReachability
+    {
+        final Reachability reachability;
+        final int x, y;
+        final Types.UNIT type;
+        final long boardVersion;
+        final int numResearched;
+
+        CachedReachability(Reachability reachability, Unit unit, long boardVersion, int numResearched)
+        {
+            this.reachability = reachability;
+            this.x = unit.getPosition().x;
+            this.y = unit.getPosition().y;
+            this.type = unit.getType();
+            this.boardVersion = boardVersion;
+            this.numResearched = numResearched;
+        }
 
+        boolean isValid(Unit unit, long boardVersion, int numResearched)
+        {
+            return this.boardVersion == boardVersion && this.numResearched == numResearched && this.type == unit.getType()
+                    && this.x == unit.getPosition().x && this.y == unit.getPosition().y;
+        }
+    }
 }
@@ -0,0 +1,167 @@
+package core.game;
+
+import core.Types;
+import core.levelgen.LevelGenerator;
+import utils.file.IO;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Initial states of the levels played several times (e.g. by the repetitions of a tournament), so each level is
+ * generated and loaded only once. Levels are identified by the seed of the level generator and the tribes that
+ * play them. Each game gets its own copy-on-write snapshot of the initial board (see Board.snapshot()).
+ *
+ * Loading a level only draws random numbers if two tribes meet when the view around their capitals is cleared.
+ * The initial board of those levels depends on the random generator of the game, so they are loaded again for
+ * each game (from the cached level lines).
+ *
+ * Optionally, levels can also be stored as level files in a directory, so they are only generated the first time
+ * they are played by any run that uses the same directory.
+ *
+ * The cache can be used by several games at a time: each level is loaded once, by the first game that needs it,
+ * while games that need other levels go on. Level files are written to a temporary file first and then moved into
+ * place, so other runs never read a partially written file.
+ */
+public class LevelCache
+{
+    //Directory for the level files, null if levels are only kept in memory.
+    private final String directory;
+
+    //Levels, by key (see getKey()). Each one is loaded by the first game that runs its task.
+    private final ConcurrentHashMap<String, FutureTask<Level>> levels;
+
+    /**
+     * Creates a cache that keeps the levels in memory only.
+     */
+    public LevelCache()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates a cache that also stores the levels as level files.
+     * @param directory directory for the level files, created if it doesn't exist. If null, levels are
+     *                  only kept in memory.
+     */
+    public LevelCache(String directory)
+    {
+        this.directory = directory;
+        this.levels = new ConcurrentHashMap<>();
+        if(directory != null)
+            new File(directory).mkdirs();
+    }
+
+    /**
+     * Creates the initial state of a game, as GameState.init(levelgen_seed, tribes) would.
+     * @param levelgen_seed seed for the level generator.
+     * @param tribes tribes that play the game.
+     * @param rnd random generator of the game.
+     * @param gameMode game mode.
+     * @return the game state, ready to start the game.
+     */
+    GameState getInitialState(long levelgen_seed, Types.TRIBE[] tribes, Random rnd, Types.GAME_MODE gameMode)
+    {
+        String key = getKey(levelgen_seed, tribes);
+        FutureTask<Level> task = levels.computeIfAbsent(key, k -> new FutureTask<>(() -> loadLevel(levelgen_seed, tribes, k)));
+
+        //Only the first call runs the task, the others wait for it to finish.
+        task.run();
+        Level level;
+        try {
+            level = task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Could not load level " + key, e);
+        }
+
+        //Several games can take snapshots of the board at the same time (see Board.snapshot()).
+        Board initialBoard = (level.board != null) ? level.board.snapshot(true) : null;
+
+        GameState gs = new GameState(rnd, gameMode);
+        if(initialBoard != null)
+            gs.init(initialBoard);
+        else
+            gs.init(level.lines);
+        return gs;
+    }
+
+    /**
+     * Reads a level from its level file, or generates it (storing the file if there's a directory).
+     * Then, builds its initial board if it doesn't depend on the random generator of the game.
+     */
+    private Level loadLevel(long levelgen_seed, Types.TRIBE[] tribes, String key)
+    {
+        String[] lines = null;
+        String filename = directory == null ? null : directory + File.separator + key + ".csv";
+        if(filename != null && new File(filename).exists())
+            lines = new IO().readFile(filename);
+
+        if(lines == null)
+        {
+            LevelGenerator levelGen = GameState.generateLevel(levelgen_seed, tribes);
+            lines = levelGen.gelLevelLines();
+            if(filename != null)
+                writeLevelFile(lines, filename);
+        }
+
+        //Load the level with a generator of our own, to find out if it uses it.
+        GameRandom probe = new GameRandom(0);
+        long probeState = probe.getState();
+        GameState gs = new GameState(probe, Types.GAME_MODE.SCORE);
+        gs.init(lines);
+        Board board = probe.getState() == probeState ? gs.getBoard() : null;
+
+        return new Level(lines, board);
+    }
+
+    /**
+     * Writes the lines of a level to a temporary file in the same directory, and then moves it to its final name.
+     * If the file can't be written, the level is only kept in memory.
+     */
+    private void writeLevelFile(String[] lines, String filename)
+    {
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(new File(directory).toPath(), "level", ".tmp");
+            Files.write(tmp, Arrays.asList(lines));
+            Files.move(tmp, new File(filename).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error writing the level file " + filename + ": " + e.toString());
+            try {
+                if(tmp != null)
+                    Files.deleteIfExists(tmp);
+            } catch (IOException ignored) { }
+        }
+    }
+
+    private static String getKey(long levelgen_seed, Types.TRIBE[] tribes)
+    {
+        StringBuilder sb = new StringBuilder().append(levelgen_seed);
+        for(Types.TRIBE tribe : tribes)
+            sb.append('_').append(tribe);
+        return sb.toString();
+    }
+
+    private static class Level
+    {
+        //Lines of the level file.
+        String[] lines;
+
+        //Initial board, with the view around the capitals cleared. Null if it depends on the game's random generator.
+        Board board;
+
+        Level(String[] lines, Board board)
+        {
+            this.lines = lines;
+            this.board = board;
+        }
+    }
+}
@@ -5,16 +5,21 @@ import core.Types;
 import core.actors.City;
 import core.actors.Tribe;
 import core.actors.units.Unit;
+import core.levelgen.LevelGenerator;
 import utils.Vector2d;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 
 class LevelLoader
 {
     private Dimension size;
 
+    //Resource char of the tiles with no resource.
+    private static final char NO_RESOURCE = ' ';
+
     LevelLoader()
     {
         size = new Dimension();
@@ -27,10 +32,54 @@ class LevelLoader
     Board buildLevel(String[] lines, Random rnd) {
 
         // Dimensions of the level read from the file.
-        size.width = lines.length;
-        size.height = lines.length;
+        int levelSize = lines.length;
+        char[] terrains = new char[levelSize * levelSize];
+        char[] resources = new char[levelSize * levelSize];
+        Arrays.fill(resources, NO_RESOURCE);
+
+        for (int i = 0; i < levelSize; ++i) {
+            String[] tile = lines[i].split(",");
+            for(int j = 0; j < tile.length; ++j)
+            {
+                //Format <terrain_char>:[<resource_char>]
+                // (<resource_char> is optional, and it's the key of the tribe for cities)
+                String[] tileSplit = tile[j].split(":");
+                terrains[i * levelSize + j] = tileSplit[0].charAt(0);
+                if(tileSplit.length == 2)
+                    resources[i * levelSize + j] = tileSplit[1].charAt(0);
+            }
+        }
+        return buildLevel(levelSize, terrains, resources, rnd);
+    }
 
-        Tribe[] tribes = extractTribes(lines);
+    /**
+     * Builds a level straight from a level generator, without writing it down as lines first.
+     * @param levelGen generator that has already generated the level.
+     */
+    Board buildLevel(LevelGenerator levelGen, Random rnd) {
+
+        int levelSize = levelGen.getMapSize();
+        char[] terrains = new char[levelSize * levelSize];
+        char[] resources = new char[levelSize * levelSize];
+        for (int idx = 0; idx < terrains.length; ++idx) {
+            terrains[idx] = levelGen.getTerrain(idx);
+            resources[idx] = levelGen.getResource(idx);
+        }
+        return buildLevel(levelSize, terrains, resources, rnd);
+    }
+
+    /**
+     * Builds a level from the map chars of its tiles.
+     * @param levelSize size of the level.
+     * @param terrains terrain char of each tile (indexed by i*levelSize+j).
+     * @param resources resource char of each tile, the tribe key for cities, ' ' if none.
+     */
+    private Board buildLevel(int levelSize, char[] terrains, char[] resources, Random rnd) {
+
+        size.width = levelSize;
+        size.height = levelSize;
+
+        Tribe[] tribes = extractTribes(terrains, resources);
         Board board = new Board();
 
         int tribeCounter = 0;
@@ -38,22 +87,17 @@ class LevelLoader
 
         board.init(size.width, tribes);
 
-        //Go through every token in the level file
+        //Go through every tile in the level
         for (int i = 0; i < size.height; ++i) {
-            String line = lines[i];
-
-            String[] tile = line.split(",");
-            for(int j = 0; j < tile.length; ++j)
+            for(int j = 0; j < size.width; ++j)
             {
-                //Format <terrain_char>:[<resource_char>]
-                // (<resource_char> is optional)
                 // Retrieve the chars and assign the corresponding enum values in the board.
-                String[] tileSplit = tile[j].split(":");
-                char terrainChar = tileSplit[0].charAt(0);
+                char terrainChar = terrains[i * levelSize + j];
+                char resourceChar = resources[i * levelSize + j];
 
                 if(terrainChar == Types.TERRAIN.CITY.getMapChar())
                 {
-                    int tribeType = Integer.parseInt(tileSplit[1]);
+                    int tribeType = Character.digit(resourceChar, 10);
                     int tribeID = -1;
 
                     for(Tribe t : tribes)
@@ -92,9 +136,8 @@ class LevelLoader
 
                 board.setTerrainAt(i,j, Types.TERRAIN.getType(terrainChar));
 
-                if(tileSplit.length == 2)
+                if(resourceChar != NO_RESOURCE)
                 {
-                    char resourceChar = tileSplit[1].charAt(0);
                     board.setResourceAt(i,j,Types.RESOURCE.getType(resourceChar));
                 }
             }
@@ -103,25 +146,20 @@ class LevelLoader
     }
 
     /**
-     * Extracts the tribes from the file lines initializing them
-     * @param lines information
+     * Extracts the tribes from the level tiles initializing them
+     * @param terrains terrain char of each tile.
+     * @param resources resource char of each tile (the tribe key for cities).
      * @return initialized array of tribes.
      */
-    private Tribe[] extractTribes(String[] lines)
+    private Tribe[] extractTribes(char[] terrains, char[] resources)
     {
         ArrayList<Types.TRIBE> tribes_list = new ArrayList<>();
-        for (int i = 0; i < size.height; ++i) {
-            String line = lines[i];
-            String[] tile = line.split(",");
-            for (String s : tile) {
-                String[] tileSplit = s.split(":");
-                char terrainChar = tileSplit[0].charAt(0);
-                boolean isCity = terrainChar == Types.TERRAIN.CITY.getMapChar();
-
-                if (isCity) {
-                    int tribeID = Integer.parseInt(tileSplit[1]);
-                    tribes_list.add(Types.TRIBE.getTypeByKey(tribeID));
-                }
+        for (int idx = 0; idx < terrains.length; ++idx) {
+            boolean isCity = terrains[idx] == Types.TERRAIN.CITY.getMapChar();
+
+            if (isCity) {
+                int tribeID = Character.digit(resources[idx], 10);
+                tribes_list.add(Types.TRIBE.getTypeByKey(tribeID));
             }
         }
 
@@ -0,0 +1,180 @@
+package core.game;
+
+import core.actions.Action;
+import core.actors.Tribe;
+import utils.file.BinaryReader;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static core.game.ReplayRecorder.*;
+
+/**
+ * Reads a replay file written by ReplayRecorder. The file is memory-mapped and indexed when it's opened, and
+ * the state of the game at the start of any tick is rebuilt from the closest keyframe before it, executing
+ * the steps of the game loop recorded after it.
+ */
+public class Replay
+{
+    private final BinaryReader in;
+    private long seed;
+
+    //Position (after the size) and tick of each keyframe, in the order they were written.
+    private int[] keyframePos = new int[8];
+    private int[] keyframeTick = new int[8];
+    private int numKeyframes;
+
+    //End of the last complete record (the game may have been stopped while writing).
+    private int end;
+
+    //Last tick started in the replay.
+    private int lastTick;
+
+    /**
+     * Opens a replay file.
+     * @param fileName path to the replay.
+     * @throws IOException if the file can't be read.
+     */
+    public Replay(String fileName) throws IOException
+    {
+        in = BinaryReader.map(Paths.get(fileName));
+        if(in.readInt() != REPLAY_MAGIC)
+            throw new IOException("File " + fileName + " is not a replay.");
+        int version = in.readVarInt();
+        if(version != REPLAY_VERSION)
+            System.out.println("Warning: loading replay of version " + version + ", expected " + REPLAY_VERSION);
+        seed = in.readLong();
+        index();
+    }
+
+    /**
+     * Finds the keyframes and the last tick of the replay.
+     */
+    private void index()
+    {
+        int tick = 0;
+        end = in.position();
+        try {
+            while (in.hasRemaining())
+            {
+                int type = in.readByte();
+                if(type == KEYFRAME)
+                {
+                    int size = in.readInt();
+                    int pos = in.position();
+                    if(pos + size > in.limit())
+                        break;
+
+                    //Tick of the game saved, after the magic number, version and seed.
+                    in.readInt();
+                    in.readVarInt();
+                    in.readLong();
+                    tick = in.readVarInt();
+                    addKeyframe(pos, tick);
+                    in.position(pos + size);
+                }else
+                {
+                    skipStep(type);
+                    if(type == TICK)
+                        tick++;
+                }
+                end = in.position();
+                lastTick = tick;
+            }
+        } catch (BufferUnderflowException e) {
+            //Incomplete record at the end of the file, ignored.
+        }
+    }
+
+    private void addKeyframe(int pos, int tick)
+    {
+        if(numKeyframes == keyframePos.length)
+        {
+            keyframePos = Arrays.copyOf(keyframePos, numKeyframes * 2);
+            keyframeTick = Arrays.copyOf(keyframeTick, numKeyframes * 2);
+        }
+        keyframePos[numKeyframes] = pos;
+        keyframeTick[numKeyframes] = tick;
+        numKeyframes++;
+    }
+
+    private void skipStep(int type)
+    {
+        if(type == ACTION)
+            ActionCodec.read(in);
+        else if(type == INIT_TURN || type == END_TURN)
+            in.readVarInt();
+    }
+
+    /**
+     * Builds the state of the game at the start of a tick (before the first tribe plays its turn).
+     * @param tick tick of the game. If the replay finishes before that tick, the state at the end of the replay
+     *             is returned.
+     * @return the state of the game.
+     */
+    public GameState getState(int tick)
+    {
+        //Closest keyframe at or before the tick.
+        int k = 0;
+        while(k + 1 < numKeyframes && keyframeTick[k + 1] <= tick)
+            k++;
+
+        in.position(keyframePos[k]);
+        GameLoader loader = new GameLoader(in);
+        GameRandom rnd = new GameRandom(seed);
+        rnd.setState(in.readLong());
+        GameState gs = new GameState(rnd, loader);
+
+        //Keyframes are written just before the game checks if it's over.
+        gs.gameOver();
+
+        //Replay the game loop from the keyframe, as Game does.
+        Tribe tribe = null;
+        while(in.position() < end && gs.getTick() < tick)
+        {
+            int type = in.readByte();
+            switch (type)
+            {
+                case KEYFRAME:
+                    int size = in.readInt();
+                    in.position(in.position() + size);
+                    break;
+                case INIT_TURN:
+                    tribe = gs.getTribe(in.readVarInt());
+                    gs.initTurn(tribe);
+                    gs.computePlayerActions(tribe);
+                    break;
+                case ACTION:
+                    Action action = ActionCodec.read(in);
+                    gs.next(action);
+                    gs.computePlayerActions(tribe);
+                    gs.gameOver();
+                    break;
+                case END_TURN:
+                    gs.endTurn(gs.getTribe(in.readVarInt()));
+                    gs.gameOver();
+                    break;
+                case TICK:
+                    gs.incTick();
+                    gs.gameOver();
+                    break;
+                default:
+                    System.out.println("ERROR: unknown record " + type + " in replay.");
+                    return gs;
+            }
+        }
+        return gs;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public int getLastTick()
+    {
+        return lastTick;
+    }
+}
@@ -0,0 +1,144 @@
+package core.game;
+
+import core.actions.Action;
+import core.actors.Tribe;
+import utils.file.BinaryWriter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records a game in a replay file, save/[seed]/game.replay, that can be read with Replay. The file starts with
+ * a keyframe with the whole game state, and then only the steps of the game loop are appended: the start of a
+ * turn, each action executed, the end of the turn and the end of each tick. Further keyframes are written
+ * every Constants.REPLAY_KEYFRAME_TICKS ticks, so the game can be resumed at any tick without replaying it
+ * from the start.
+ *
+ * Records are buffered and appended to the file at the end of every turn.
+ */
+class ReplayRecorder
+{
+    //Replay files: magic number ("TRRP") and version of the format.
+    static final int REPLAY_MAGIC = 0x54525250;
+    static final int REPLAY_VERSION = 1;
+
+    //Types of records.
+    static final int KEYFRAME = 0;
+    static final int INIT_TURN = 1;
+    static final int ACTION = 2;
+    static final int END_TURN = 3;
+    static final int TICK = 4;
+
+    private final FileChannel channel;
+
+    //Records not written to the file yet.
+    private final BinaryWriter out;
+
+    //Buffer for the keyframes (their size is written before them).
+    private final BinaryWriter keyframe;
+
+    private final GameRandom rnd;
+    private final long seed;
+    private final int keyframeTicks;
+
+    /**
+     * Creates a recorder, writing the header and a first keyframe with the current state of the game.
+     * @param gs state of the game.
+     * @param rnd random generator of the game.
+     * @param seed seed of the game.
+     * @param keyframeTicks number of ticks between keyframes.
+     * @throws IOException if the file can't be created.
+     */
+    ReplayRecorder(GameState gs, GameRandom rnd, long seed, int keyframeTicks) throws IOException
+    {
+        this.rnd = rnd;
+        this.seed = seed;
+        this.keyframeTicks = Math.max(1, keyframeTicks);
+        this.out = new BinaryWriter(4096);
+        this.keyframe = new BinaryWriter(4096);
+
+        Path dir = Paths.get("save", String.valueOf(seed));
+        Files.createDirectories(dir);
+        channel = FileChannel.open(dir.resolve("game.replay"), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        out.writeInt(REPLAY_MAGIC);
+        out.writeVarInt(REPLAY_VERSION);
+        out.writeLong(seed);
+        writeKeyframe(gs);
+        flush();
+    }
+
+    void initTurn(Tribe tribe)
+    {
+        out.writeByte(INIT_TURN);
+        out.writeVarInt(tribe.getTribeId());
+    }
+
+    /**
+     * Records an action, which must be recorded before it's executed in the game state.
+     * @param action action to record.
+     */
+    void action(Action action)
+    {
+        out.writeByte(ACTION);
+        ActionCodec.write(out, action);
+    }
+
+    void endTurn(Tribe tribe)
+    {
+        out.writeByte(END_TURN);
+        out.writeVarInt(tribe.getTribeId());
+        flush();
+    }
+
+    /**
+     * Records the end of a tick. Must be called after the tick of the game state has been increased.
+     * @param gs state of the game.
+     */
+    void tick(GameState gs)
+    {
+        out.writeByte(TICK);
+        if(gs.getTick() % keyframeTicks == 0)
+            writeKeyframe(gs);
+        flush();
+    }
+
+    private void writeKeyframe(GameState gs)
+    {
+        keyframe.clear();
+        GameSaver.writeGame(keyframe, gs, seed);
+        keyframe.writeLong(rnd.getState());
+
+        out.writeByte(KEYFRAME);
+        out.writeInt(keyframe.size());
+        out.write(keyframe);
+    }
+
+    /**
+     * Appends all the records buffered to the file.
+     */
+    void flush()
+    {
+        try {
+            out.writeTo(channel);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        out.clear();
+    }
+
+    void close()
+    {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package core.game;
+
+/**
+ * Token of the owner of data shared copy-on-write between copies (see Board.snapshot()). A copy that shares the
+ * data marks its token, instead of modifying the object it's copied from: the owner finds the mark and clones the
+ * data (or gets a new token) before writing into it. Marks are only ever set, so several copies can be taken from
+ * the same object at the same time.
+ */
+final class ShareToken
+{
+    private boolean shared;
+
+    /**
+     * Marks the data of this token as shared with a copy.
+     */
+    void share()
+    {
+        shared = true;
+    }
+
+    boolean isShared()
+    {
+        return shared;
+    }
+}
@@ -0,0 +1,134 @@
+package core.game;
+
+import core.Types;
+import core.actors.Actor;
+import core.actors.Building;
+import core.actors.City;
+import core.actors.Temple;
+import core.actors.Tribe;
+import core.actors.units.Unit;
+
+import java.util.Map;
+
+/**
+ * Zobrist-style hashing of game states (see GameState.getHash()). Each element of the state (a value in a tile of
+ * the board, a unit, a city, a tribe) gets a pseudo-random 64 bit key and the hash of the state is the XOR of all
+ * of them, so it doesn't depend on the order in which the elements were modified: the same state reached by
+ * different sequences of actions (i.e. moving unit A then B, or B then A) gets the same hash.
+ *
+ * Keys are obtained by mixing the element's values instead of from precomputed tables, as unit and city ids are
+ * unbounded. The hash is kept up to date as the state is modified: the board updates the hash of its tile layers
+ * as they are written and rehashes the actors that may have been modified (see Board.getActorHash()), and the
+ * grids of the trade network and of the visibility of each tribe hash their tiles as they are set (see
+ * BitGrid.getHash()). Only the few values of each tribe are hashed when the hash is requested.
+ */
+class StateHash
+{
+    //Tile layers of the board.
+    static final int TERRAIN = 1, RESOURCE = 2, BUILDING = 3, UNIT = 4, CITY_ID = 5;
+
+    /**
+     * Returns the key of a value in a tile of the board. Empty values (0) have no key, so an empty board
+     * hashes to 0.
+     * @param layer layer of the board.
+     * @param idx index of the tile in the layer.
+     * @param value value in the tile.
+     * @return the key.
+     */
+    static long tileKey(int layer, int idx, int value)
+    {
+        if(value == 0)
+            return 0;
+        return mix(((long) layer << 56) ^ ((long) idx << 32) ^ (value & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Returns the key of an actor of the board.
+     * @param actor the actor, may be null.
+     * @return the key, 0 if there's no actor or it's not a unit or a city.
+     */
+    static long actorKey(Actor actor)
+    {
+        if(actor instanceof Unit)
+            return unit((Unit) actor);
+        else if(actor instanceof City)
+            return city((City) actor);
+        return 0;
+    }
+
+    /**
+     * Computes the hash of a game state.
+     * @param gs state to hash.
+     * @return its hash.
+     */
+    static long of(GameState gs)
+    {
+        Board board = gs.getBoard();
+        long h = board.getLayerHash() ^ board.getActorHash();
+        h ^= mix(0x1L << 56 ^ (long) gs.getTick() << 8 ^ board.getActiveTribeID() << 1 ^ (gs.isGameOver() ? 1 : 0));
+        h ^= mix(0x6L << 56 ^ board.getNetworkHash());
+
+        for(Tribe tribe : board.getTribes())
+            h ^= tribe(tribe);
+        return h;
+    }
+
+    private static long unit(Unit u)
+    {
+        long h = mix(0x2L << 56 ^ (long) u.getActorId() << 24 ^ u.getType().ordinal() << 16 ^ u.getTribeId() << 8
+                ^ u.getStatus().ordinal() << 1 ^ (u.isVeteran() ? 1 : 0));
+        h = mix(h ^ (long) u.getPosition().x << 48 ^ (long) u.getPosition().y << 32 ^ u.getCurrentHP() << 16 ^ u.getKills());
+        return mix(h ^ (u.getCityId() & 0xFFFFFFFFL));
+    }
+
+    private static long city(City c)
+    {
+        long h = mix(0x3L << 56 ^ (long) c.getActorId() << 24 ^ c.getTribeId() << 16 ^ c.getLevel() << 8
+                ^ (c.hasWalls() ? 2 : 0) ^ (c.isCapital() ? 1 : 0));
+        h = mix(h ^ (long) c.getPopulation() << 48 ^ (long) c.getPopulation_need() << 32
+                ^ (long) (c.getProduction() & 0xFFFF) << 16 ^ c.getBound());
+        h = mix(h ^ c.getPointsWorth());
+
+        //Buildings themselves are in the board, but not the state of temples.
+        for(Building b : c.getBuildings())
+            if(b.type.isTemple())
+            {
+                Temple t = (Temple) b;
+                h = mix(h ^ (long) b.position.x << 48 ^ (long) b.position.y << 32 ^ t.getLevel() << 16 ^ t.getTurnsToScore());
+            }
+
+        //Units in the city, in order.
+        for(int i = 0; i < c.getUnitsID().size(); i++)
+            h = mix(h ^ c.getUnitsID().get(i));
+        return h;
+    }
+
+    private static long tribe(Tribe t)
+    {
+        long h = mix(0x4L << 56 ^ (long) t.getTribeId() << 48 ^ (long) t.getCapitalID() << 24 ^ t.getWinner().ordinal());
+        h = mix(h ^ (long) t.getStars() << 32 ^ (t.getScore() & 0xFFFFFFFFL));
+        h = mix(h ^ (long) t.getnKills() << 32 ^ t.getnPacifistCount());
+        h = mix(h ^ (long) t.getConnectedCities().size() << 32 ^ t.getTribesMet().size());
+
+        boolean[] researched = t.getTechTree().getResearched();
+        long techs = 0;
+        for(int i = 0; i < researched.length; i++)
+            if(researched[i])
+                techs |= 1L << i;
+        h = mix(h ^ techs);
+
+        for(Map.Entry<Types.BUILDING, Types.BUILDING.MONUMENT_STATUS> m : t.getMonuments().entrySet())
+            h ^= mix((long) m.getKey().ordinal() << 8 ^ m.getValue().ordinal() ^ t.getTribeId() << 16);
+
+        h ^= mix(0x5L << 56 ^ (long) t.getTribeId() << 48 ^ t.getVisibility().getHash());
+        return h;
+    }
+
+    //Finalizer of SplitMix64: spreads all bits of the input across the output.
+    static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
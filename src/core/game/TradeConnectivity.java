@@ -0,0 +1,380 @@
+package core.game;
+
+import core.TribesConfig;
+import core.Types;
+import core.actors.Tribe;
+import utils.BitGrid;
+import utils.IntList;
+
+import java.util.Arrays;
+
+import static core.Types.TERRAIN.*;
+
+/**
+ * Connectivity of the trade network of a tribe, kept as a union-find structure over the tiles of the board.
+ * Two tiles are connected if there's a path between them over tiles of the network (cities and ports of the
+ * tribe, and roads in non-enemy tiles) or through links between ports that are close enough over water.
+ *
+ * The structure is updated incrementally when tiles are added to the network or new water becomes navigable,
+ * checking only the tiles modified since the previous update (see BoardChanges). When anything is removed (a road
+ * is destroyed, a city is lost, a tile becomes enemy territory...), it's rebuilt from scratch.
+ */
+public class TradeConnectivity
+{
+    //Side of the board.
+    private final int size;
+
+    //Tile of the capital, which is always part of the network (the network is explored from it).
+    private int capitalIdx;
+
+    //For each tile (indexed by x*size+y): if it belongs to the network and if it can be navigated.
+    private boolean[] inNetwork;
+    private boolean[] navigable;
+
+    //Union-find forest: parent of each tile, or -(size of the set) for the roots of the sets.
+    private int[] parent;
+
+    //Tiles with ports of this tribe that belong to the network.
+    private int[] ports;
+    private int numPorts;
+
+    //Indicates if the structure has been built at least once.
+    private boolean built;
+
+    //Position of the log of changes of the board (see BoardChanges) when this structure was last updated, and the
+    // cities of the tribe then. If the cities change, all tiles are checked again.
+    private long updatedAt;
+    private int[] cities;
+    private int numCities;
+
+    //Work buffers of update() (not copied): tiles added to the network and if new tiles became navigable.
+    private int[] added;
+    private int addedTiles;
+    private boolean navigableAdded;
+
+    //Indicates if this structure is shared with a copy of the trade network, and must be cloned before modifying it.
+    private boolean shared;
+
+    //Work buffers for the searches over water between ports (not copied).
+    private int[] visitStamp, depth, queue;
+    private int stamp;
+
+    TradeConnectivity(int size)
+    {
+        this.size = size;
+        this.capitalIdx = -1;
+        this.inNetwork = new boolean[size * size];
+        this.navigable = new boolean[size * size];
+        this.parent = new int[size * size];
+        this.ports = new int[4];
+        this.cities = new int[4];
+        Arrays.fill(parent, -1);
+    }
+
+    /**
+     * Checks if two positions are connected through the trade network.
+     * @param x0 x coordinate of the first position.
+     * @param y0 y coordinate of the first position.
+     * @param x1 x coordinate of the second position.
+     * @param y1 y coordinate of the second position.
+     * @return true if there's a path between them in the network.
+     */
+    public boolean isConnected(int x0, int y0, int x1, int y1)
+    {
+        int a = x0 * size + y0, b = x1 * size + y1;
+        if(a == b)
+            return inNetwork[a];
+        return inNetwork[a] && inNetwork[b] && root(a) == root(b);
+    }
+
+    /**
+     * Returns the set of tiles of the network a position belongs to. All positions connected through the network
+     * belong to the same set, so connectivity of many positions to one (i.e. the capital) can be checked by finding
+     * its set once and comparing it with the set of each of the others.
+     * @param x x coordinate of the position.
+     * @param y y coordinate of the position.
+     * @return identifier of the set, -1 if the position is not in the network.
+     */
+    public int getComponent(int x, int y)
+    {
+        int idx = x * size + y;
+        return inNetwork[idx] ? root(idx) : -1;
+    }
+
+    /**
+     * Brings this structure up to date with the board. Only the tiles modified since the last update (see
+     * BoardChanges) are checked, unless the changes can't be located or the cities of the tribe have changed.
+     * Additions to the network are merged into the existing sets; any removal causes a full rebuild.
+     * @param board board of the game.
+     * @param tribe tribe this network belongs to. Must control its capital.
+     * @param networkTiles tiles of the board that belong to the trade network of any tribe.
+     * @param capitalX x coordinate of the capital of the tribe.
+     * @param capitalY y coordinate of the capital of the tribe.
+     */
+    void update(Board board, Tribe tribe, BitGrid networkTiles, int capitalX, int capitalY)
+    {
+        int n = size * size;
+        int capital = capitalX * size + capitalY;
+        BoardChanges changes = board.getChanges();
+
+        long from = updatedAt;
+        boolean rebuild = !built || capital != capitalIdx;
+        boolean checkAll = rebuild || !changes.isLoggedSince(from) || !sameCities(tribe.getCitiesID());
+        capitalIdx = capital;
+        updatedAt = changes.getLogEnd();
+        if (checkAll)
+            copyCities(tribe.getCitiesID());
+
+        int prevNumPorts = numPorts;
+        navigableAdded = false;
+        addedTiles = 0;
+        if (checkAll) {
+            for (int i = 0; i < size; ++i)
+                for (int j = 0; j < size; ++j)
+                    rebuild |= updateTile(board, tribe, networkTiles, i, j);
+        } else {
+            for (long pos = from; pos < updatedAt; ++pos)
+                rebuild |= updateTile(board, tribe, networkTiles, changes.getLoggedX(pos), changes.getLoggedY(pos));
+        }
+
+        if (rebuild) {
+            Arrays.fill(parent, -1);
+            for (int idx = 0; idx < n; ++idx)
+                if (inNetwork[idx])
+                    unionWithNeighbours(idx);
+            linkPorts();
+            built = true;
+        } else {
+            for (int t = 0; t < addedTiles; ++t)
+                unionWithNeighbours(added[t]);
+
+            //New water or new ports may create new links between ports.
+            if (navigableAdded || numPorts != prevNumPorts)
+                linkPorts();
+        }
+    }
+
+    /**
+     * Brings a tile up to date with the board: if it belongs to the network, if it's navigable and if it's a
+     * port of the network. Tiles added to the network are kept in 'added' and new navigable tiles noted in
+     * 'navigableAdded'.
+     * @return true if anything has been removed from the network (and it must be rebuilt).
+     */
+    private boolean updateTile(Board board, Tribe tribe, BitGrid networkTiles, int x, int y)
+    {
+        int idx = x * size + y;
+        int cityId = board.getCityIdAt(x, y);
+        boolean myCity = cityId != -1 && tribe.controlsCity(cityId);
+        boolean notEnemy = myCity || cityId == -1;
+
+        //Cities and ports must be within my city boundaries. Roads, within my boundaries or in a neutral tile.
+        Types.TERRAIN ter = board.getTerrainAt(x, y);
+        Types.BUILDING build = board.getBuildingAt(x, y);
+        boolean newInNetwork = false, port = false;
+        if (myCity && (ter == CITY || build == Types.BUILDING.PORT)) {
+            newInNetwork = networkTiles.get(x, y);
+            port = build == Types.BUILDING.PORT && newInNetwork;
+        } else if (notEnemy && board.isRoad(x, y)) {
+            newInNetwork = networkTiles.get(x, y);
+        }
+        if (idx == capitalIdx)
+            newInNetwork = true;
+
+        //Navigable tiles: water, visible and not enemy.
+        boolean newNavigable = (ter == SHALLOW_WATER || ter == DEEP_WATER) && tribe.isVisible(x, y) && notEnemy;
+
+        boolean removed = (inNetwork[idx] && !newInNetwork) || (navigable[idx] && !newNavigable);
+        if (newInNetwork && !inNetwork[idx]) {
+            if (added == null || addedTiles == added.length)
+                added = (added == null) ? new int[16] : Arrays.copyOf(added, addedTiles * 2);
+            added[addedTiles++] = idx;
+        }
+        if (newNavigable && !navigable[idx])
+            navigableAdded = true;
+        inNetwork[idx] = newInNetwork;
+        navigable[idx] = newNavigable;
+
+        //A port that's no longer there is a removal, a new one must be linked to the others.
+        int p = indexOfPort(idx);
+        if (port && p == -1) {
+            if (numPorts == ports.length)
+                ports = Arrays.copyOf(ports, numPorts * 2);
+            ports[numPorts++] = idx;
+        } else if (!port && p != -1) {
+            ports[p] = ports[--numPorts];
+            removed = true;
+        }
+        return removed;
+    }
+
+    /**
+     * Checks if the cities of the tribe are the ones seen in the last update that checked all tiles.
+     */
+    private boolean sameCities(IntList tribeCities)
+    {
+        if (tribeCities.size() != numCities)
+            return false;
+        for (int i = 0; i < numCities; ++i)
+            if (cities[i] != tribeCities.get(i))
+                return false;
+        return true;
+    }
+
+    private void copyCities(IntList tribeCities)
+    {
+        numCities = tribeCities.size();
+        if (cities.length < numCities)
+            cities = new int[Math.max(numCities, cities.length * 2)];
+        for (int i = 0; i < numCities; ++i)
+            cities[i] = tribeCities.get(i);
+    }
+
+    /**
+     * Joins a tile of the network with its adjacent tiles (including diagonals) that are in the network too.
+     */
+    private void unionWithNeighbours(int idx)
+    {
+        int x = idx / size, y = idx % size;
+        for (int i = Math.max(0, x - 1); i <= Math.min(size - 1, x + 1); i++) {
+            for (int j = Math.max(0, y - 1); j <= Math.min(size - 1, y + 1); j++) {
+                int nb = i * size + j;
+                if (nb != idx && inNetwork[nb])
+                    union(idx, nb);
+            }
+        }
+    }
+
+    /**
+     * Joins all pairs of ports separated by at most TribesConfig.PORT_TRADE_DISTANCE navigable tiles
+     * (counting the destination port). Runs a breadth first search over water from each port.
+     */
+    private void linkPorts()
+    {
+        if (numPorts < 2)
+            return;
+
+        int n = size * size;
+        if (visitStamp == null) {
+            visitStamp = new int[n];
+            depth = new int[n];
+            queue = new int[n];
+        }
+
+        for (int p = 0; p < numPorts - 1; ++p) {
+            int from = ports[p];
+            stamp++;
+            int head = 0, tail = 0;
+            queue[tail++] = from;
+            visitStamp[from] = stamp;
+            depth[from] = 0;
+
+            while (head < tail) {
+                int node = queue[head++];
+                int d = depth[node] + 1;
+                if (d > TribesConfig.PORT_TRADE_DISTANCE)
+                    continue;
+
+                int x = node / size, y = node % size;
+                for (int i = Math.max(0, x - 1); i <= Math.min(size - 1, x + 1); i++) {
+                    for (int j = Math.max(0, y - 1); j <= Math.min(size - 1, y + 1); j++) {
+                        int nb = i * size + j;
+                        if (navigable[nb] && visitStamp[nb] != stamp) {
+                            visitStamp[nb] = stamp;
+                            depth[nb] = d;
+                            queue[tail++] = nb;
+                        }
+                    }
+                }
+            }
+
+            //Ports before this one have already been linked with this one, if they could.
+            for (int q = p + 1; q < numPorts; ++q)
+                if (visitStamp[ports[q]] == stamp)
+                    union(from, ports[q]);
+        }
+    }
+
+    private int indexOfPort(int idx)
+    {
+        for (int p = 0; p < numPorts; ++p)
+            if (ports[p] == idx)
+                return p;
+        return -1;
+    }
+
+    /**
+     * Root of the set of a tile, compressing the path to it (halving).
+     */
+    private int find(int idx)
+    {
+        while (parent[idx] >= 0) {
+            int p = parent[idx];
+            if (parent[p] >= 0)
+                parent[idx] = parent[p];
+            idx = p;
+        }
+        return idx;
+    }
+
+    /**
+     * Root of the set of a tile, without modifying the structure (so it can be called on shared structures).
+     */
+    private int root(int idx)
+    {
+        while (parent[idx] >= 0)
+            idx = parent[idx];
+        return idx;
+    }
+
+    /**
+     * Joins the sets of two tiles, hanging the smaller one from the larger one.
+     */
+    private void union(int a, int b)
+    {
+        int ra = find(a), rb = find(b);
+        if (ra == rb)
+            return;
+        if (parent[ra] > parent[rb]) {
+            int tmp = ra; ra = rb; rb = tmp;
+        }
+        parent[ra] += parent[rb];
+        parent[rb] = ra;
+    }
+
+    /**
+     * Marks this structure as shared with a copy of the trade network.
+     */
+    void share()
+    {
+        shared = true;
+    }
+
+    boolean isShared()
+    {
+        return shared;
+    }
+
+    /**
+     * Creates a copy of this structure that can be modified independently.
+     * @return the copy.
+     */
+    TradeConnectivity copy()
+    {
+        return new TradeConnectivity(this);
+    }
+
+    private TradeConnectivity(TradeConnectivity other)
+    {
+        this.size = other.size;
+        this.capitalIdx = other.capitalIdx;
+        this.inNetwork = other.inNetwork.clone();
+        this.navigable = other.navigable.clone();
+        this.parent = other.parent.clone();
+        this.ports = other.ports.clone();
+        this.numPorts = other.numPorts;
+        this.built = other.built;
+        this.updatedAt = other.updatedAt;
+        this.cities = other.cities.clone();
+        this.numCities = other.numCities;
+    }
+}
@@ -1,28 +1,24 @@
 package core.game;
 
-import core.TribesConfig;
-import core.Types;
 import core.actors.City;
 import core.actors.Tribe;
-import utils.Vector2d;
-import utils.graph.NeighbourHelper;
-import utils.graph.PathNode;
-import utils.graph.Pathfinder;
+import utils.BitGrid;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-
-import static core.Types.TERRAIN.*;
+import java.util.Arrays;
 
 class TradeNetwork
 {
 
-    // Array that indicates presence of roads, cities, ports or naval links
-    private boolean[][] networkTiles;
+    // Array that indicates presence of roads, cities, ports or naval links. It's shared with copies of this network
+    // until one of them modifies it (see BitGrid.share()).
+    private BitGrid networkTiles;
 
     //Size of this trade network.
     private int size;
 
+    //Connectivity of the network of each tribe (indexed by tribe id), updated incrementally.
+    private TradeConnectivity[] connectivity;
+
     /**
      * Creates a trade network for a size by size board
      * @param size side of the board
@@ -30,15 +26,15 @@ class TradeNetwork
     TradeNetwork(int size)
     {
         this.size = size;
-        this.networkTiles = new boolean[size][size];
+        this.networkTiles = new BitGrid(size);
     }
 
     /**
      * Creates a size network for trade given a connectivity grid
      * @param networkTiles connectivity grid that determines the trade network
      */
-    TradeNetwork(boolean[][] networkTiles){
-        this.size = networkTiles.length;
+    TradeNetwork(BitGrid networkTiles){
+        this.size = networkTiles.getSize();
         this.networkTiles = networkTiles;
     }
 
@@ -51,7 +47,8 @@ class TradeNetwork
      */
     void setTradeNetwork(Board board, int x, int y, boolean trade)
     {
-        networkTiles[x][y] = trade;
+        setTradeNetworkValue(x, y, trade);
+        board.getChanges().tileChanged(x, y);
         computeTradeNetwork(board);
     }
 
@@ -68,8 +65,8 @@ class TradeNetwork
     }
 
     /**
-     * Computes the trade network for one tribe. It builds to complementary graphs: connected tiles (via roads)
-     * and connected cities (via ports and water tiles). It updates the populations of the cities according to
+     * Computes the trade network for one tribe: tiles connected via roads, cities and ports, and ports connected
+     * via water tiles (see TradeConnectivity). It updates the populations of the cities according to
      * changes in the network.
      * @param board board of the game.
      * @param tribe tribe which network has to be computed.
@@ -81,209 +78,73 @@ class TradeNetwork
             return;
 
         if (tribe.controlsCapital()) {
-            boolean[][] connectedTiles = new boolean[networkTiles.length][networkTiles[0].length];
-            boolean[][] navigable = new boolean[networkTiles.length][networkTiles[0].length];
-
-            ArrayList<Vector2d> ports = new ArrayList<>();
-
-            //First, set up the graph. Including all tiles that correspond to active trade points (roads, cities, ports)
-            for (int i = 0; i < networkTiles.length; ++i) {
-                for (int j = 0; j < networkTiles[0].length; ++j) {
-                    //Only for this tribe
-                    int cityId = board.getCityIdAt(i,j);
-                    boolean myCity = tribe.controlsCity(cityId);
-                    boolean notEnemy = myCity || cityId == -1;
-
-                    //cities and ports, must be within my city boundaries.
-                    Types.TERRAIN ter = board.getTerrainAt(i,j);
-                    Types.BUILDING build = board.getBuildingAt(i,j);
-                    if(myCity && (ter == CITY || build == Types.BUILDING.PORT))
-                    {
-                        connectedTiles[i][j] = networkTiles[i][j];
-                        if(build == Types.BUILDING.PORT)
-                            ports.add(new Vector2d(i, j));
-
-                        //Roads, must be within my city boundaries OR in a neutral tile.
-                    }else if (notEnemy && board.isRoad(i,j))
-                    {
-                        connectedTiles[i][j] = networkTiles[i][j];
-                    }
-
-                    //And navigable tiles: WATER, VISIBLE AND NOT ENEMY
-                    if ((ter == SHALLOW_WATER || ter == DEEP_WATER)
-                            && tribe.isVisible(i, j) && notEnemy) {
-                        navigable[i][j] = true;
-                    }
-                }
-            }
-
-            TradeNetworkStep tns = new TradeNetworkStep(connectedTiles);
-
-            //Now, we need to add jump links. In this case, two ports are connected if
-            // separated by [0,TribesConfig.PORT_TRADE_DISTANCE] WATER, VISIBLE, NON-ENEMY tiles
-            int nPorts = ports.size();
-            for (int i = 0; i < nPorts - 1; ++i) {
-                for (int j = i; j < nPorts; ++j) {
-                    if (i != j) {
-                        Vector2d portFrom = ports.get(i);
-                        Vector2d portTo = ports.get(j);
-
-                        Vector2d originPortPos = new Vector2d(portFrom.x, portFrom.y);
-                        Pathfinder tp = new Pathfinder(originPortPos, new TradeWaterStep(navigable));
-                        ArrayList<PathNode> path = tp.findPathTo(new Vector2d(portTo.x, portTo.y));
-
-                        if (path != null) //+1 because path includes destination
-                        {
-                            //We add this as a link between ports.
-                            tns.addJumpLink(portFrom, portTo, true);
-                        }
-
-                    }
-                }
-            }
-
+            TradeConnectivity conn = getConnectivity(tribe.getTribeId());
             City capital = (City) board.getActor(tribe.getCapitalID());
-            tribe.updateNetwork(new Pathfinder(capital.getPosition(), tns), board, tribe.getTribeId() == board.getActiveTribeID());
+            conn.update(board, tribe, networkTiles, capital.getPosition().x, capital.getPosition().y);
+            tribe.updateNetwork(conn, board, tribe.getTribeId() == board.getActiveTribeID());
         }else {
             tribe.updateNetwork(null, board, tribe.getTribeId() == board.getActiveTribeID());
         }
     }
 
-
-    void setTradeNetworkValue(int x, int y, boolean trade) {  this.networkTiles[x][y] = trade;  }
-    boolean getTradeNetworkValue(int x, int y) { return networkTiles[x][y]; }
+    /**
+     * Returns the connectivity structure of a tribe, ready to be modified (cloned first if it's shared with a copy).
+     * @param tribeId id of the tribe.
+     * @return the connectivity of the network of the tribe.
+     */
+    private TradeConnectivity getConnectivity(int tribeId)
+    {
+        if(connectivity == null)
+            connectivity = new TradeConnectivity[tribeId + 1];
+        else if(tribeId >= connectivity.length)
+            connectivity = Arrays.copyOf(connectivity, tribeId + 1);
+
+        TradeConnectivity conn = connectivity[tribeId];
+        if(conn == null)
+            conn = new TradeConnectivity(size);
+        else if(conn.isShared())
+            conn = conn.copy();
+        connectivity[tribeId] = conn;
+        return conn;
+    }
 
 
     /**
-     * Private class that is used by Pathfinding to determine water node connectivity in a graph, considering
-     * also distance between friendly ports.
+     * Creates a copy of this trade network. Both networks share the connectivity grid and the connectivity of
+     * each tribe until one of them modifies it.
+     * @return a copy of this network.
      */
-    private class TradeWaterStep implements NeighbourHelper
+    TradeNetwork copy()
     {
-        //Indicates which positions in the grid can be navigated (depends on terrain type,
-        // technology and visibility).
-        private boolean [][]navigable;
-
-        TradeWaterStep(boolean [][]navigable)
+        TradeNetwork copy = new TradeNetwork(networkTiles);
+        networkTiles.share();
+        if(connectivity != null)
         {
-            this.navigable = navigable;
-        }
-
-        /**
-         * Returns the neighbours of a given node in this data structure.
-         * @param from position from which we need neighbours
-         * @param costFrom is the total move cost computed up to "from"
-         * @return  all the adjacent neighbours to tile in position "from"
-         */
-        @Override
-        public ArrayList<PathNode> getNeighbours(Vector2d from, double costFrom) {
-
-            ArrayList<PathNode> neighbours = new ArrayList<>();
-            double stepCost = 1.0;
-
-            for(Vector2d tile : from.neighborhood(1, 0, size)) {
-                int x = tile.x;
-                int y = tile.y;
-                if(navigable[x][y] && costFrom+stepCost <= TribesConfig.PORT_TRADE_DISTANCE)
-                {
-                    neighbours.add(new PathNode(new Vector2d(x, y), stepCost));
-                }
-            }
-
-            return neighbours;
-        }
-
-        @Override
-        public void addJumpLink(Vector2d from, Vector2d to, boolean reverse) {
-            //No jump links
+            copy.connectivity = connectivity.clone();
+            for(TradeConnectivity conn : connectivity)
+                if(conn != null)
+                    conn.share();
         }
+        return copy;
     }
 
     /**
-     * Private class that is used by Pathfinding to determine city connectivity in a graph.
-     * Considers connection between ports for the connectivity between cities
+     * Creates a copy of the connectivity grid of this network, without the connectivity of the tribes (which
+     * is computed again when needed).
+     * @return a new network with the same tiles.
      */
-    private class TradeNetworkStep implements NeighbourHelper
+    TradeNetwork copyTiles()
     {
-        //Grid that determines which position belong to the trade network. Adjacent points are connected
-        private boolean [][]connected;
-
-        //List of network links between non-adjacent tiles.
-        private HashMap<Vector2d, ArrayList<Vector2d>> jumpLinks;
-
-        /**
-         * Creates a trade network step helper
-         * @param connected list of connected tiles.
-         */
-        TradeNetworkStep (boolean [][]connected)
-        {
-            this.connected = connected;
-            this.jumpLinks = new HashMap<>();
-        }
-
-        /**
-         * Returns the neighbours of a given node in this data structure. Considers the jump links between
-         * non-adjacent node.
-         * @param from position from which we need neighbours
-         * @param costFrom is the total move cost computed up to "from"
-         * @return  all the adjacent neighbours to tile in position "from"
-         */
-        @Override
-        public ArrayList<PathNode> getNeighbours(Vector2d from, double costFrom) {
-
-            ArrayList<PathNode> neighbours = new ArrayList<>();
-            double stepCost = 1.0;
-
-            for(Vector2d tile : from.neighborhood(1, 0, size)) {
-                int x = tile.x;
-                int y = tile.y;
-                if(connected[x][y])
-                {
-                    neighbours.add(new PathNode(new Vector2d(x, y), stepCost));
-                }
-            }
-
-            //Now, add the jump link neighbours
-            if(jumpLinks.containsKey(from))
-            {
-                ArrayList<Vector2d> connected = jumpLinks.get(from);
-                for(Vector2d to: connected)
-                {
-                    neighbours.add(new PathNode(to, stepCost));
-                }
-            }
-
-
-            return neighbours;
-        }
-
-
-        /**
-         * Adds a jump link between two positions
-         * @param from one end of the link
-         * @param to the other end of the link
-         * @param reverse true if another link from 'to' to 'from' must also be created
-         */
-        @Override
-        public void addJumpLink(Vector2d from, Vector2d to, boolean reverse) {
-            addAtoB(from, to);
-            if(reverse) addAtoB(to, from);
-        }
-
-        /**
-         * Adds a jump link from 'from' to 'to' to the list of jump links.
-         * @param from one end of the link
-         * @param to the other end of the link
-         */
-        private void addAtoB(Vector2d from, Vector2d to)
-        {
-            if(!jumpLinks.containsKey(from))
-                jumpLinks.put(from, new ArrayList<>());
-
-            ArrayList<Vector2d> connected = jumpLinks.get(from);
-            connected.add(to);
-        }
+        return new TradeNetwork(new BitGrid(networkTiles));
     }
 
+    void setTradeNetworkValue(int x, int y, boolean trade) {
+        if(networkTiles.isShared())
+            networkTiles = new BitGrid(networkTiles);
+        this.networkTiles.set(x, y, trade);
+    }
+    boolean getTradeNetworkValue(int x, int y) { return networkTiles.get(x, y); }
 
+    //Hash of the tiles of the network (see BitGrid.getHash()).
+    long getHash() { return networkTiles.getHash(); }
 }
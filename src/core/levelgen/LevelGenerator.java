@@ -6,6 +6,7 @@ import static core.Types.TRIBE.*;
 //import static core.Types.RESOURCE.*;
 import core.Types;
 import org.json.JSONObject;
+import utils.IntList;
 import utils.file.IO;
 
 import java.io.FileWriter;
@@ -26,14 +27,20 @@ public class LevelGenerator {
     private int relief;
     private double initialLand;
     private double landCoefficient;
-    private String[] level;
+
+    //Terrain and resource (' ' if none; the tribe key for capitals) of each tile, as map chars.
+    private char[] terrains;
+    private char[] resources;
     private Types.TRIBE[] tribes;
     private double BORDER_EXPANSION = 1/3.0;
     private long seed;
     private Random rnd;
 
-    //JSON that contains all the probability values for all the tribes.
-    private JSONObject data;
+    //Probability values for all the tribes (see readProbabilities()), read once and shared by all generators.
+    private static HashMap<String, double[]> probabilities;
+
+    //Resource char of the tiles with no resource.
+    private static final char NO_RESOURCE = ' ';
 
     private boolean LEVELGEN_VERBOSE = false;
 
@@ -47,13 +54,34 @@ public class LevelGenerator {
 
         //Initialize with default values.
         init(11, 3, 4, 0.5, new Types.TRIBE[]{XIN_XI, OUMAJI});
+        readProbabilities();
+    }
 
-        //Read the JSON that contains all the probability values for all the tribes.
+    /**
+     * Reads the JSON that contains all the probability values for all the tribes, the first time a generator
+     * is created. For each terrain or resource, it keeps its base probability followed by the one of each tribe
+     * (indexed by TRIBE ordinal).
+     */
+    private static synchronized void readProbabilities() {
+        if(probabilities != null)
+            return;
+
+        HashMap<String, double[]> probs = new HashMap<>();
         try {
-            this.data =  new IO().readJSON("terrainProbs.json");
+            JSONObject data = new IO().readJSON("terrainProbs.json");
+            Types.TRIBE[] tribes = Types.TRIBE.values();
+            for(String name : data.keySet()) {
+                JSONObject entry = data.getJSONObject(name);
+                double[] values = new double[tribes.length + 1];
+                values[0] = entry.getDouble("BASE");
+                for(Types.TRIBE tribe : tribes)
+                    values[tribe.ordinal() + 1] = entry.getDouble(tribe.toString());
+                probs.put(name, values);
+            }
         } catch(Exception e) {
             e.printStackTrace();
         }
+        probabilities = probs;
     }
 
     /**
@@ -64,12 +92,14 @@ public class LevelGenerator {
         this.smoothing = smoothing;
         this.relief = relief;
         this.initialLand = initialLand;
-        this.level = new String[mapSize*mapSize];
+        this.terrains = new char[mapSize*mapSize];
+        this.resources = new char[mapSize*mapSize];
         this.tribes = tribes;
         this.landCoefficient = (0.5 + relief) / 9;
 
         //Initialize the level with deep water.
-        for(int i = 0; i < mapSize*mapSize; i++){ level[i] = "d: "; };
+        Arrays.fill(terrains, DEEP_WATER.getMapChar());
+        Arrays.fill(resources, NO_RESOURCE);
     }
 
     /**
@@ -86,37 +116,37 @@ public class LevelGenerator {
             int index = randomInt(0, mapSize*mapSize);
             if(getTerrain(index) == DEEP_WATER.getMapChar()) {
                 i++;
-                writeTile(index, ""+PLAIN.getMapChar(), null);
+                terrains[index] = PLAIN.getMapChar();
             }
         }
 
         //Turning random water/ground grid into something smooth.
         if (LEVELGEN_VERBOSE) System.out.println("Turning random water/ground grid into something smooth.");
-        ArrayList<Integer> toBeGround = new ArrayList<>();
+        //Tiles become ground if they've been selected in this or any previous pass.
+        boolean[] toBeGround = new boolean[mapSize * mapSize];
 
         for (i = 0; i < smoothing; i++) {
             for (int cell = 0; cell < mapSize * mapSize; cell++) {
 
+                //Tiles of disk(cell, 1)
                 int water_count = 0;
                 int tile_count = 0;
-                for (int n : disk(cell, 1)) {
-                    if (getTerrain(n) == DEEP_WATER.getMapChar()) {
-                        water_count++;
+                int row = cell / mapSize, column = cell % mapSize;
+                for (int r = Math.max(0, row - 1); r <= Math.min(mapSize - 1, row + 1); r++) {
+                    for (int c = Math.max(0, column - 1); c <= Math.min(mapSize - 1, column + 1); c++) {
+                        if (terrains[r * mapSize + c] == DEEP_WATER.getMapChar()) {
+                            water_count++;
+                        }
+                        tile_count++;
                     }
-                    tile_count++;
                 }
 
                 if (water_count / (double) tile_count <= landCoefficient)
-                    toBeGround.add(cell);
+                    toBeGround[cell] = true;
             }
 
             for (int cell = 0; cell < mapSize * mapSize; cell++) {
-                if(toBeGround.contains(cell))
-                {
-                    writeTile(cell, ""+PLAIN.getMapChar(), null);
-                }else {
-                    writeTile(cell, "" + DEEP_WATER.getMapChar(), null);
-                }
+                terrains[cell] = toBeGround[cell] ? PLAIN.getMapChar() : DEEP_WATER.getMapChar();
             }
         }
 
@@ -171,40 +201,48 @@ public class LevelGenerator {
             }
         }
         for (i = 0; i < capitalCells.size(); i++) {
-            writeTile((capitalCells.get(i) / mapSize) * mapSize + (capitalCells.get(i) % mapSize), ""+CITY.getMapChar(), String.valueOf(tribes[i].getKey()));
+            terrains[capitalCells.get(i)] = CITY.getMapChar();
+            resources[capitalCells.get(i)] = Character.forDigit(tribes[i].getKey(), 10);
         }
 
         // Terrain distribution
         if (LEVELGEN_VERBOSE) System.out.println("Terrain distribution");
-        ArrayList<Integer> doneTiles = new ArrayList<>();
-        ArrayList<ArrayList<Integer>> activeTiles = new ArrayList<>(); // done tiles that generate terrain around them
+        boolean[] doneTiles = new boolean[mapSize*mapSize];
+        int numDoneTiles = 0;
+        ArrayList<IntList> activeTiles = new ArrayList<>(); // done tiles that generate terrain around them
         Types.TRIBE[] tileOwner = new Types.TRIBE[mapSize*mapSize];
 
         for (i = 0; i < capitalCells.size(); i++) {
-            doneTiles.add(i, capitalCells.get(i));
-            ArrayList<Integer> cap = new ArrayList<>();
+            doneTiles[capitalCells.get(i)] = true;
+            numDoneTiles++;
+            IntList cap = new IntList();
             cap.add(capitalCells.get(i));
             activeTiles.add(i, cap);
         }
         // We will start from capital tiles and evenly expand until the whole map is covered
-        while (doneTiles.size() != mapSize*mapSize) {
+        IntList neighbours = new IntList(8);
+        IntList validNeighbours = new IntList(8);
+        while (numDoneTiles != mapSize*mapSize) {
             for (i = 0; i < tribes.length; i++) {
                 if (activeTiles.get(i).size() != 0) {
                     int randNumber = randomInt(0, activeTiles.get(i).size());
                     int randCell = activeTiles.get(i).get(randNumber);
 
-                    ArrayList<Integer> neighbours = circle(randCell, 1);
+                    neighbours.clear();
+                    circle(randCell, 1, neighbours);
 
-                    ArrayList<Integer> validNeighbours = new ArrayList<>();
-                    for(int n : neighbours){
-                        if(!doneTiles.contains(n) && getTerrain(n) != DEEP_WATER.getMapChar()){
+                    validNeighbours.clear();
+                    for(int k = 0; k < neighbours.size(); k++){
+                        int n = neighbours.get(k);
+                        if(!doneTiles[n] && terrains[n] != DEEP_WATER.getMapChar()){
                             validNeighbours.add(n);
                         }
                     }
                     // If there are no land tiles around, accept water tiles
                     if (validNeighbours.size() == 0) {
-                        for(int n : neighbours){
-                            if(!doneTiles.contains(n)){
+                        for(int k = 0; k < neighbours.size(); k++){
+                            int n = neighbours.get(k);
+                            if(!doneTiles[n]){
                                 validNeighbours.add(n);
                             }
                         }
@@ -214,9 +252,10 @@ public class LevelGenerator {
                         int new_rand_cell = validNeighbours.get(new_rand_number);
                         tileOwner[new_rand_cell] = tribes[i];
                         activeTiles.get(i).add(new_rand_cell);
-                        doneTiles.add(new_rand_cell);
+                        doneTiles[new_rand_cell] = true;
+                        numDoneTiles++;
                     } else {
-                        activeTiles.get(i).remove(randNumber); // deactivate tiles surrounded with done tiles
+                        activeTiles.get(i).removeAt(randNumber); // deactivate tiles surrounded with done tiles
                     }
                 }
             }
@@ -225,22 +264,17 @@ public class LevelGenerator {
         // Generate forest, mountains.
         if (LEVELGEN_VERBOSE) System.out.println("Generate forest, mountains");
         for (int cell = 0; cell < mapSize*mapSize; cell++) {
-            if (getTerrain(cell) == PLAIN.getMapChar()) {
+            if (terrains[cell] == PLAIN.getMapChar()) {
                 double rand = rnd.nextDouble(); // 0 (---forest---)--nothing--(-mountain-) 1
                 if (rand < getBaseProb("FOREST") * getTribeProb("FOREST", tileOwner[cell])) {
-                    writeTile(cell,""+FOREST.getMapChar(), null);
+                    terrains[cell] = FOREST.getMapChar();
                 } else if (rand > 1 - getBaseProb("MOUNTAIN") * getTribeProb("MOUNTAIN", tileOwner[cell])) {
-                    writeTile(cell,""+MOUNTAIN.getMapChar(), null);
+                    terrains[cell] = MOUNTAIN.getMapChar();
                 }
             }
         }
 
-        ArrayList<Integer> villageMap = new ArrayList<Integer>(mapSize*mapSize);
-
-        // Initialize with zeros.
-        for(i = 0; i < mapSize*mapSize; i++) {
-            villageMap.add(0);
-        }
+        int[] villageMap = new int[mapSize*mapSize];
 
         // -1 - water far away
         // 0 - far away
@@ -250,23 +284,26 @@ public class LevelGenerator {
         for (int cell = 0; cell < mapSize*mapSize; cell++) {
             int row = cell / mapSize;
             int column = cell % mapSize;
-            if (getTerrain(cell) == DEEP_WATER.getMapChar() || getTerrain(cell) == MOUNTAIN.getMapChar()) {
-                villageMap.set(cell, -1);
+            if (terrains[cell] == DEEP_WATER.getMapChar() || terrains[cell] == MOUNTAIN.getMapChar()) {
+                villageMap[cell] = -1;
             } else if (row == 0 || row == mapSize - 1 || column == 0 || column == mapSize - 1) {
-                villageMap.set(cell, -1); // villages don't spawn next to the map border
+                villageMap[cell] = -1; // villages don't spawn next to the map border
             } else {
-                villageMap.set(cell, 0);
+                villageMap[cell] = 0;
             }
         }
 
         // Replace some ocean with shallow water
         if (LEVELGEN_VERBOSE) System.out.println("Replace some ocean with shallow water");
         for (int cell = 0; cell < mapSize*mapSize; cell++) {
-            if (getTerrain(cell) == DEEP_WATER.getMapChar()) {
-                for (int neighbour : crossNeighbors(cell)) {
-                    char terrainN = getTerrain(neighbour);
+            if (terrains[cell] == DEEP_WATER.getMapChar()) {
+                neighbours.clear();
+                crossNeighbors(cell, neighbours);
+                for (int k = 0; k < neighbours.size(); k++) {
+                    int neighbour = neighbours.get(k);
+                    char terrainN = terrains[neighbour];
                     if(terrainN == PLAIN.getMapChar() || terrainN == FOREST.getMapChar() || terrainN == MOUNTAIN.getMapChar()){
-                        writeTile(neighbour, ""+SHALLOW_WATER.getMapChar(), null);
+                        terrains[neighbour] = SHALLOW_WATER.getMapChar();
                         break;
                     }
                 }
@@ -274,64 +311,52 @@ public class LevelGenerator {
         }
 
         // Mark tiles next to capitals according to the notation
-        int villageCount = 0;
         for (int capital : capitalCells){
-            villageMap.set(capital, 3);
-            for (int cell : circle(capital, 1)){
-                villageMap.set(cell, Math.max(villageMap.get(cell), 2));
-            }
-            for (int cell : circle(capital, 2)){
-                villageMap.set(cell, Math.max(villageMap.get(cell), 1));
-            }
+            markVillage(villageMap, capital, neighbours);
         }
 
         // Generate villages & mark tiles next to them
         // We will place villages until there are none of "far away" (villageMap == 0) tiles.
-        while(villageMap.contains(0)) {
-            int new_village = villageMap.indexOf(0);
-            villageMap.set(new_village, 3);
-            for (int cell : circle(new_village, 1)) {
-                villageMap.set(cell, Math.max(villageMap.get(cell), 2));
-            }
-            for (int cell : circle(new_village, 2)) {
-                villageMap.set(cell, Math.max(villageMap.get(cell), 1));
-            }
+        // Marks never decrease, so the first "far away" tile can't be before the previous one.
+        int new_village = 0;
+        while(new_village < mapSize*mapSize) {
+            if (villageMap[new_village] == 0)
+                markVillage(villageMap, new_village, neighbours);
+            else
+                new_village++;
         }
 
         // Generate resources
         if (LEVELGEN_VERBOSE) System.out.println("Generate resources");
         for (int cell = 0; cell < mapSize*mapSize; cell++) {
-            if(getTerrain(cell) == PLAIN.getMapChar()) {
+            if(terrains[cell] == PLAIN.getMapChar()) {
                 double fruit = getBaseProb("FRUIT") * getTribeProb("FRUIT", tileOwner[cell]);
                 double crop = getBaseProb("CROPS") * getTribeProb("CROPS", tileOwner[cell]);
-                if (getTerrain(cell) != CITY.getMapChar()) {
-                    if (villageMap.get(cell) == 3) {
-                        writeTile(cell, ""+VILLAGE.getMapChar(), null);
-                    } else if (proc(villageMap, cell, fruit * (1 - crop / 2))) {
-                        writeTile(cell, null, ""+FRUIT.getMapChar());
-                    } else if (proc(villageMap, cell, crop * (1 - fruit / 2))) {
-                        writeTile(cell, null, ""+CROPS.getMapChar());
-                    }
+                if (villageMap[cell] == 3) {
+                    terrains[cell] = VILLAGE.getMapChar();
+                } else if (proc(villageMap, cell, fruit * (1 - crop / 2))) {
+                    resources[cell] = FRUIT.getMapChar();
+                } else if (proc(villageMap, cell, crop * (1 - fruit / 2))) {
+                    resources[cell] = CROPS.getMapChar();
                 }
-            } else if(getTerrain(cell) == FOREST.getMapChar()) {
-                if (getTerrain(cell) != CITY.getMapChar()) {
-                    if (villageMap.get(cell) == 3) {
-                        writeTile(cell, ""+VILLAGE.getMapChar(), " ");
-                    } else if (proc(villageMap, cell, getBaseProb("ANIMAL") * getTribeProb("ANIMAL", tileOwner[cell]))) {
-                        writeTile(cell, null, ""+ANIMAL.getMapChar());
-                    }
+            } else if(terrains[cell] == FOREST.getMapChar()) {
+                if (villageMap[cell] == 3) {
+                    terrains[cell] = VILLAGE.getMapChar();
+                    resources[cell] = NO_RESOURCE;
+                } else if (proc(villageMap, cell, getBaseProb("ANIMAL") * getTribeProb("ANIMAL", tileOwner[cell]))) {
+                    resources[cell] = ANIMAL.getMapChar();
                 }
-            } else if(getTerrain(cell) == SHALLOW_WATER.getMapChar()) {
+            } else if(terrains[cell] == SHALLOW_WATER.getMapChar()) {
                 if (proc(villageMap, cell, getBaseProb("FISH") * getTribeProb("FISH", tileOwner[cell]))) {
-                    writeTile(cell, null, ""+FISH.getMapChar());
+                    resources[cell] = FISH.getMapChar();
                 }
-            } else if(getTerrain(cell) == DEEP_WATER.getMapChar()) {
+            } else if(terrains[cell] == DEEP_WATER.getMapChar()) {
                 if (proc(villageMap, cell, getBaseProb("WHALES") * getTribeProb("WHALES", tileOwner[cell]))) {
-                    writeTile(cell, null, ""+WHALES.getMapChar());
+                    resources[cell] = WHALES.getMapChar();
                 }
-            } else if(getTerrain(cell) == MOUNTAIN.getMapChar()) {
+            } else if(terrains[cell] == MOUNTAIN.getMapChar()) {
                 if (proc(villageMap, cell, getBaseProb("ORE") * getTribeProb("ORE", tileOwner[cell]))) {
-                    writeTile(cell, null, ""+ORE.getMapChar());
+                    resources[cell] = ORE.getMapChar();
                 }
             }
         }
@@ -345,29 +370,39 @@ public class LevelGenerator {
         int water_ruins_count = 0;
 
 
+        // We are reusing villageMap even though it is irrelevant in this context but it has useful info for ruin placement.
+        // Candidates only change when a ruin is placed.
+        IntList ruinCandidates = new IntList(mapSize*mapSize);
+        boolean candidatesChanged = true;
         while (ruins_count < ruins_number) {
 
-            // We are reusing villageMap even though it is irrelevant in this context but it has useful info for ruin placement.
-            ArrayList<Integer> ruinCandidates = new ArrayList<>();
-            for(i=0; i < villageMap.size(); i++) {
-                int cell = villageMap.get(i);
-                if(cell == 0 || cell == 1 || cell == -1) {
-                    ruinCandidates.add(i);
+            if (candidatesChanged) {
+                ruinCandidates.clear();
+                for(i=0; i < villageMap.length; i++) {
+                    int cell = villageMap[i];
+                    if(cell == 0 || cell == 1 || cell == -1) {
+                        ruinCandidates.add(i);
+                    }
                 }
+                candidatesChanged = false;
             }
 
             int ruin = ruinCandidates.get(randomInt(0,ruinCandidates.size()));
-            if (getTerrain(ruin) != SHALLOW_WATER.getMapChar() && (water_ruins_count < water_ruins_number || getTerrain(ruin) != DEEP_WATER.getMapChar())) {
-                writeTile(ruin, null, ""+RUINS.getMapChar());
-                if (getTerrain(ruin) == DEEP_WATER.getMapChar()) {
+            if (terrains[ruin] != SHALLOW_WATER.getMapChar() && (water_ruins_count < water_ruins_number || terrains[ruin] != DEEP_WATER.getMapChar())) {
+                resources[ruin] = RUINS.getMapChar();
+                if (terrains[ruin] == DEEP_WATER.getMapChar()) {
                     water_ruins_count++;
                 }
 
                 //This avoids having contiguous ruins and favours dispersion.
-                for (int neighbour : circle(villageMap.get(ruin), 1)) {
-                    villageMap.set(neighbour, Math.max(villageMap.get(neighbour), 2));
+                neighbours.clear();
+                circle(villageMap[ruin], 1, neighbours);
+                for (int k = 0; k < neighbours.size(); k++) {
+                    int neighbour = neighbours.get(k);
+                    villageMap[neighbour] = Math.max(villageMap[neighbour], 2);
                 }
 
+                candidatesChanged = true;
                 ruins_count++;
             }
         }
@@ -375,7 +410,7 @@ public class LevelGenerator {
         // Re-adjust starting tiles around capitals
         if (LEVELGEN_VERBOSE) System.out.println("Re-adjust starting tiles around capitals");
         for(int capital : capitalCells) {
-            int owner = Integer.parseInt(getResource(capital));
+            int owner = Character.digit(resources[capital], 10);
 
             if(owner == (char)IMPERIUS.getKey()) {
                 postGenerate(FRUIT.getMapChar(), PLAIN.getMapChar(), 2, capital);
@@ -394,8 +429,7 @@ public class LevelGenerator {
     public int checkResources(char resource, int capital) {
         int resources = 0;
         for (int neighbour : circle(capital, 1)) {
-            String resourceStr = getResource(neighbour);
-            if(resourceStr.length() > 0 && resourceStr.charAt(0) == resource){
+            if(this.resources[neighbour] == resource){
                 resources++;
             }
         }
@@ -414,20 +448,42 @@ public class LevelGenerator {
         while (resources < quantity) {
             int pos = randomInt(0, 8);
             ArrayList<Integer> territory = circle(capital, 1);
-            writeTile(territory.get(pos), ""+terrain, ""+resource);
+            terrains[territory.get(pos)] = terrain;
+            this.resources[territory.get(pos)] = resource;
             for (int neighbour : crossNeighbors(territory.get(pos))) {
-                if (getTerrain(neighbour) == DEEP_WATER.getMapChar()) {
-                    writeTile(neighbour, ""+SHALLOW_WATER.getMapChar(), null);
+                if (terrains[neighbour] == DEEP_WATER.getMapChar()) {
+                    terrains[neighbour] = SHALLOW_WATER.getMapChar();
                 }
             }
             resources = checkResources(resource, capital);
         }
     }
+
+    /**
+     * Marks a village (or capital) in the village map, and the tiles around it.
+     * @param villageMap the village map.
+     * @param village the index of the village.
+     * @param buffer list used to collect the tiles around the village.
+     */
+    private void markVillage(int[] villageMap, int village, IntList buffer) {
+        villageMap[village] = 3;
+        buffer.clear();
+        circle(village, 1, buffer);
+        for (int k = 0; k < buffer.size(); k++) {
+            villageMap[buffer.get(k)] = Math.max(villageMap[buffer.get(k)], 2);
+        }
+        buffer.clear();
+        circle(village, 2, buffer);
+        for (int k = 0; k < buffer.size(); k++) {
+            villageMap[buffer.get(k)] = Math.max(villageMap[buffer.get(k)], 1);
+        }
+    }
+
     /**
      * Utility function used in the generator.
      */
-    public boolean proc(ArrayList<Integer> villageMap, int cell, double probability) {
-        return (villageMap.get(cell) == 2 && rnd.nextDouble() < probability) || (villageMap.get(cell) == 1 && rnd.nextDouble() < probability * BORDER_EXPANSION);
+    public boolean proc(int[] villageMap, int cell, double probability) {
+        return (villageMap[cell] == 2 && rnd.nextDouble() < probability) || (villageMap[cell] == 1 && rnd.nextDouble() < probability * BORDER_EXPANSION);
     }
 
     /**
@@ -440,7 +496,7 @@ public class LevelGenerator {
         if(tribe == null) {
             return 1.0;
         } else {
-            return data.getJSONObject(name.toString()).getDouble(tribe.toString());
+            return probabilities.get(name)[tribe.ordinal() + 1];
         }
     }
 
@@ -450,23 +506,7 @@ public class LevelGenerator {
      * @return the base probability.
      */
     public double getBaseProb(String name) {
-        return data.getJSONObject(name.toString()).getDouble("BASE");
-    }
-
-    /**
-     * Writes a level tile at a specified position (consult the TERRAIN and RESOURCE enums).
-     * @param index the index of the tile that needs to be written.
-     * @param terrain the desired type of terrain.
-     * @param resource the desired type of resource.
-     */
-    public void writeTile(int index, String terrain, String resource) {
-        if(terrain == null) {
-            level[index] = "" + getTerrain(index) + ':' + resource;
-        }else if(resource == null) {
-            level[index] = "" + terrain + ':' + getResource(index);
-        }else {
-            level[index] = "" + terrain + ':' + resource;
-        }
+        return probabilities.get(name)[0];
     }
 
     /**
@@ -475,31 +515,26 @@ public class LevelGenerator {
      * @return the character that represents the specific terrain (consult TERRAIN enum).
      */
     public char getTerrain(int index) {
-        return level[index].split(":")[0].charAt(0);
+        return terrains[index];
     }
 
-
-//    public char getResource(int index) {
-//        return level[index].split(":")[1].charAt(0);
-////        try {
-////            return level[index].split(":")[1].charAt(0);
-////        } catch(Exception e) {
-////            return '';
-////        }
-//    }
     /**
      * Returns a tile's resource at a specified position.
      * @param index the desired position.
-     * @return the character that represents the specific resource (consult RESOURCE enum).
+     * @return the character that represents the specific resource (consult RESOURCE enum), the key of the tribe
+     * for capitals, or ' ' if there's no resource.
      */
-    public String getResource(int index)
-    {
-        String[] pieces = level[index].split(":");
-        if(pieces.length > 1)
-            if(pieces[1].charAt(0) == ' ')
-                return "";
-            else return pieces[1];
-        else return "";
+    public char getResource(int index) {
+        return resources[index];
+    }
+
+    public int getMapSize() {
+        return mapSize;
+    }
+
+    // Tile in the format of the level files: <terrain_char>:[<resource_char>]
+    private String tileString(int index) {
+        return "" + terrains[index] + ':' + (resources[index] == NO_RESOURCE ? "" : "" + resources[index]);
     }
 
     /**
@@ -519,7 +554,22 @@ public class LevelGenerator {
      * @return an ArrayList of indices.
      */
     public ArrayList<Integer> circle(int center, int radius) {
-        ArrayList<Integer> circle = new ArrayList<>();
+        IntList circle = new IntList();
+        circle(center, radius, circle);
+        ArrayList<Integer> list = new ArrayList<>(circle.size());
+        for (int k = 0; k < circle.size(); k++) {
+            list.add(circle.get(k));
+        }
+        return list;
+    }
+
+    /**
+     * Adds the indices of the map that lie on a circle to a list.
+     * @param center center of the circle.
+     * @param radius radius of the circle.
+     * @param circle list the indices are added to.
+     */
+    private void circle(int center, int radius, IntList circle) {
         int row = center / mapSize;
         int column = center % mapSize;
         int i = row - radius;
@@ -554,7 +604,6 @@ public class LevelGenerator {
                 }
             }
         }
-        return circle;
     }
 
     /**
@@ -578,7 +627,21 @@ public class LevelGenerator {
      * @return an ArrayList of indices.
      */
     public ArrayList<Integer> crossNeighbors(int center) {
-        ArrayList<Integer> plus_sign = new ArrayList<>();
+        IntList plus_sign = new IntList(4);
+        crossNeighbors(center, plus_sign);
+        ArrayList<Integer> list = new ArrayList<>(plus_sign.size());
+        for (int k = 0; k < plus_sign.size(); k++) {
+            list.add(plus_sign.get(k));
+        }
+        return list;
+    }
+
+    /**
+     * Adds the indices of the map that lie on the cross pattern to a list.
+     * @param center center of the cross.
+     * @param plus_sign list the indices are added to.
+     */
+    private void crossNeighbors(int center, IntList plus_sign) {
         int row = center / mapSize;
         int column = center % mapSize;
         if (column > 0) {
@@ -593,7 +656,6 @@ public class LevelGenerator {
         if (row < mapSize - 1) {
             plus_sign.add(center + mapSize);
         }
-        return plus_sign;
     }
 
     // we use pythagorean distances
@@ -612,17 +674,17 @@ public class LevelGenerator {
     public void toCSV(String filename) {
         try {
             FileWriter writer = new FileWriter(filename);
-            writer.append(level[0]);
+            writer.append(tileString(0));
             writer.append(',');
             for(int i = 1; i < mapSize*mapSize; i++) {
                 if(i % mapSize == 0) {
                     writer.append('\n');
-                    writer.append(level[i]);
+                    writer.append(tileString(i));
                     writer.append(',');
                 } else if(i % mapSize == mapSize - 1) {
-                    writer.append(level[i]);
+                    writer.append(tileString(i));
                 }else {
-                    writer.append(level[i]);
+                    writer.append(tileString(i));
                     writer.append(',');
                 }
             }
@@ -638,17 +700,17 @@ public class LevelGenerator {
      */
     public void print() {
         StringBuffer writer = new StringBuffer();
-        writer.append(level[0]);
+        writer.append(tileString(0));
         writer.append(',');
         for (int i = 1; i < mapSize * mapSize; i++) {
             if (i % mapSize == 0) {
                 writer.append('\n');
-                writer.append(level[i]);
+                writer.append(tileString(i));
                 writer.append(',');
             } else if (i % mapSize == mapSize - 1) {
-                writer.append(level[i]);
+                writer.append(tileString(i));
             } else {
-                writer.append(level[i]);
+                writer.append(tileString(i));
                 writer.append(',');
             }
         }
@@ -664,16 +726,16 @@ public class LevelGenerator {
         int lineCounter = 0;
 
         StringBuffer line = new StringBuffer();
-        line.append(level[0]);
+        line.append(tileString(0));
         line.append(',');
         for (int i = 1; i < mapSize * mapSize; i++) {
             if (i % mapSize == mapSize - 1) {
-                line.append(level[i]);
+                line.append(tileString(i));
                 allLines[lineCounter] = line.toString();
                 lineCounter++;
                 line = new StringBuffer();
             } else {
-                line.append(level[i]);
+                line.append(tileString(i));
                 line.append(',');
             }
         }
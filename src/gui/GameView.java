@@ -972,7 +972,7 @@ public class GameView extends JComponent {
 
                     boolean finishAnimation = true;
                     if (animatedAction.getActionType() == ATTACK && target.getFirst() != null) {
-                        boolean retaliates = new AttackCommand().isRetaliation((Attack) animatedAction, gameState);
+                        boolean retaliates = ((AttackCommand) Types.ACTION.ATTACK.getCommand()).isRetaliation((Attack) animatedAction, gameState);
                         if(retaliates) {
                             // Retaliating! Reset variables to target's attack
                             Vector2d startPosition = target.getSecond().copy();
@@ -9,10 +9,15 @@ import players.mc.MonteCarloAgent;
 import utils.ElapsedCpuTimer;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Random;
 
 public abstract class Agent {
 
+    //Types of actions excluded when picking random actions (see GameState.getRandomAction()).
+    protected static final EnumSet<Types.ACTION> NO_END_TURN = EnumSet.of(Types.ACTION.END_TURN);
+    protected static final EnumSet<Types.ACTION> NO_DESTROY_DISBAND = EnumSet.of(Types.ACTION.DESTROY, Types.ACTION.DISBAND);
+
     protected ArrayList<Integer> allPlayerIDs;
     protected int playerID;
     protected long seed;
@@ -0,0 +1,62 @@
+package players;
+
+import core.actors.Tribe;
+import core.actors.units.Unit;
+import core.game.Board;
+import core.game.GameState;
+import utils.Vector2d;
+
+import java.util.ArrayList;
+
+/**
+ * Enemy units visible to a tribe, found with a single scan of the board so the evaluation of each action
+ * doesn't scan it again. It keeps the enemies in the order they are found (by x, then y) and, for each tile,
+ * the first of them that has the tile in its attack range.
+ */
+class EnemyMap
+{
+    private final int size;
+
+    //Visible enemy units, in board order.
+    private final ArrayList<Unit> enemies;
+
+    //First enemy (in board order) with each tile (x*size+y) in range, null if none.
+    private final Unit[] threats;
+
+    EnemyMap(GameState gs, Tribe tribe)
+    {
+        Board b = gs.getBoard();
+        size = b.getSize();
+        enemies = new ArrayList<>();
+        threats = new Unit[size * size];
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (tribe.isVisible(x, y)) {
+                    Unit enemy = b.getUnitAt(x, y);
+                    if (enemy != null && enemy.getTribeId() != tribe.getTribeId())
+                        enemies.add(enemy);
+                }
+            }
+        }
+
+        for (Unit enemy : enemies) {
+            Vector2d pos = enemy.getPosition();
+            for (int x = Math.max(0, pos.x - enemy.RANGE); x <= Math.min(size - 1, pos.x + enemy.RANGE); x++) {
+                for (int y = Math.max(0, pos.y - enemy.RANGE); y <= Math.min(size - 1, pos.y + enemy.RANGE); y++) {
+                    if (threats[x * size + y] == null)
+                        threats[x * size + y] = enemy;
+                }
+            }
+        }
+    }
+
+    ArrayList<Unit> getEnemies() { return enemies; }
+
+    /**
+     * Returns the first visible enemy unit (in board order) that has a position in its attack range.
+     * @param pos position to check.
+     * @return the enemy unit, or null if the position is not in range of any.
+     */
+    Unit getThreat(Vector2d pos) { return threats[pos.x * size + pos.y]; }
+}
@@ -16,6 +16,7 @@ import core.actors.units.Unit;
 import core.game.Board;
 import core.game.GameState;
 import utils.ElapsedCpuTimer;
+import utils.IntList;
 import utils.Vector2d;
 
 import java.util.ArrayList;
@@ -59,8 +60,11 @@ public class SimpleAgent extends Agent {
 
         HashMap<Integer, ArrayList<Action>> desiredActions = new HashMap<>();
 
+        //Enemy units are found once for all actions.
+        EnemyMap enemies = new EnemyMap(gs, gs.getActiveTribe());
+
         for (Action a : allActions ) {
-            int actionScore = evalAction(gs, a);
+            int actionScore = evalAction(gs, a, enemies);
 
             ArrayList<Action> listActions;
             if(!desiredActions.containsKey(actionScore))
@@ -104,20 +108,20 @@ public class SimpleAgent extends Agent {
      * Each action is evaluated individually and given a score representing a priority from 0-5
      * 0 is the lowest priority and 5 is the highest priority
      */
-    int evalAction(GameState gs, Action a) {
+    int evalAction(GameState gs, Action a, EnemyMap enemies) {
 
         int score = 0;
         Tribe thisTribe = gs.getActiveTribe();
 
         //UNIT ACTIONS:
         if (a.getActionType() ==  MOVE) {
-            score = evalMove(a, gs, thisTribe);
+            score = evalMove(a, gs, thisTribe, enemies);
         }else if (a.getActionType() ==  ATTACK) {
             score = evalAttack(a, gs);
         }else if (a.getActionType() ==  UPGRADE_SHIP || a.getActionType() == UPGRADE_BOAT) {
             score = evalUpgrade(a, gs, thisTribe);
         }else if (a.getActionType() ==  RECOVER) {
-            score = evalRecover(a, gs, thisTribe);
+            score = evalRecover(a, gs, enemies);
         }else if (a.getActionType() ==  CAPTURE || a.getActionType() ==  EXAMINE) {
             score = 5; //Capturing provides only benefits
         }else if (a.getActionType() ==  HEAL_OTHERS) {
@@ -188,7 +192,7 @@ public class SimpleAgent extends Agent {
     //Evaluate an action for building a road
     private int evalRoad(Action a, GameState gs, Tribe thisTribe){
         Vector2d pos = ((BuildRoad) a).getPosition();
-        ArrayList<Integer> citiesID = thisTribe.getCitiesID();
+        IntList citiesID = thisTribe.getCitiesID();
         for(Vector2d neigh : pos.neighborhood(1, 0, gs.getBoard().getSize())) {
             int x = neigh.x;
             int y = neigh.y;
@@ -220,10 +224,9 @@ public class SimpleAgent extends Agent {
         int enemiesInCity = 0;
         Types.UNIT u = ((Spawn) a).getUnitType();
         int cityID = ((Spawn) a).getCityId();
-        boolean[][] obsGrid = thisTribe.getObsGrid();
 
         for(Vector2d pos: gs.getBoard().getCityTiles(cityID)) {
-            if (obsGrid[pos.x][pos.y]) {
+            if (thisTribe.isVisible(pos.x, pos.y)) {
                 Unit unit = gs.getBoard().getUnitAt(pos.x, pos.y);
                 if (unit != null && unit.getTribeId() != thisTribe.getTribeId()) {
                     enemiesInCity++;
@@ -397,28 +400,15 @@ public class SimpleAgent extends Agent {
     }
 
     //Evaluate a recover action
-    private int evalRecover(Action a, GameState gs, Tribe thisTribe) {
-        boolean[][] obsGrid = thisTribe.getObsGrid();
+    private int evalRecover(Action a, GameState gs, EnemyMap enemies) {
         Unit thisUnit = (Unit) gs.getActor(((Recover) a).getUnitId());
-        boolean inRange = false;
-        Board b = gs.getBoard();
-        //Check all tiles to see if we are in range of enemy
-        for (int x = 0; x < obsGrid.length; x++) {
-            for (int y = 0; y < obsGrid.length; y++) {
-                if (obsGrid[x][y]) {
-                    Unit enemy = b.getUnitAt(x, y);
-                    if (enemy != null && enemy.getTribeId() != thisTribe.getTribeId()) {
-                        // Check if we are in the range of an enemy
-                        inRange = checkInRange(enemy, thisUnit);
-                        if (inRange) {
-                            if (enemy.getCurrentHP() < thisUnit.getCurrentHP()) {
-                                return 3; // Prioritise healing
-                            } else
-                                return 1; // Incentive to let unit die as it would be a waste recovering
-                        }
-                    }
-                }
-            }
+        //Check if we are in range of an enemy
+        Unit enemy = enemies.getThreat(thisUnit.getPosition());
+        if (enemy != null) {
+            if (enemy.getCurrentHP() < thisUnit.getCurrentHP()) {
+                return 3; // Prioritise healing
+            } else
+                return 1; // Incentive to let unit die as it would be a waste recovering
         }
         return 4; // Prioritise healing if not in range of anything
     }
@@ -471,6 +461,11 @@ public class SimpleAgent extends Agent {
 
     //Evaluate the move action
     public int evalMove(Action a, GameState gs, Tribe thisTribe) {
+        return evalMove(a, gs, thisTribe, new EnemyMap(gs, thisTribe));
+    }
+
+    //Evaluate the move action, with the enemies visible to the tribe already found
+    private int evalMove(Action a, GameState gs, Tribe thisTribe, EnemyMap enemies) {
         Vector2d dest = ((Move) a).getDestination();
         Unit thisUnit = (Unit) gs.getActor(((Move) a).getUnitId());
         Vector2d currentPos = thisUnit.getPosition();
@@ -487,24 +482,16 @@ public class SimpleAgent extends Agent {
 
 
         // int score = 0;
-        boolean[][] obsGrid = thisTribe.getObsGrid();
-        for (int x = 0; x < obsGrid.length; x++) {
-            for (int y = 0; y < obsGrid.length; y++) {
-                if (obsGrid[x][y]) {
-                    Unit enemy = b.getUnitAt(x, y);
-                    if (enemy != null && enemy.getTribeId() != thisTribe.getTribeId()) {
-                        // Check if we are in the range of an enemy
-                        inRange = checkInRange(enemy, thisUnit);
-                        if (enemy.DEF < thisUnit.ATK && thisUnit.getCurrentHP() >= enemy.getCurrentHP()) { //Incentive to attack weaker enemy
-                            if (Vector2d.chebychevDistance(dest, enemy.getPosition()) < Vector2d.chebychevDistance(currentPos, enemy.getPosition())) {
-                                return 3;
-                            }
-                        } else { //Higher Incentive to move away from enemy if the enemy is stronger, especially if we are in range
-                            if (Vector2d.chebychevDistance(dest, enemy.getPosition()) > Vector2d.chebychevDistance(currentPos, enemy.getPosition()) && inRange) {
-                                return 4;
-                            }
-                        }
-                    }
+        for (Unit enemy : enemies.getEnemies()) {
+            // Check if we are in the range of an enemy
+            inRange = checkInRange(enemy, thisUnit);
+            if (enemy.DEF < thisUnit.ATK && thisUnit.getCurrentHP() >= enemy.getCurrentHP()) { //Incentive to attack weaker enemy
+                if (Vector2d.chebychevDistance(dest, enemy.getPosition()) < Vector2d.chebychevDistance(currentPos, enemy.getPosition())) {
+                    return 3;
+                }
+            } else { //Higher Incentive to move away from enemy if the enemy is stronger, especially if we are in range
+                if (Vector2d.chebychevDistance(dest, enemy.getPosition()) > Vector2d.chebychevDistance(currentPos, enemy.getPosition()) && inRange) {
+                    return 4;
                 }
             }
         }
@@ -513,7 +500,7 @@ public class SimpleAgent extends Agent {
         {
             int x = neigh.x;
             int y = neigh.y;
-            if(obsGrid[x][y]){
+            if(thisTribe.isVisible(x, y)){
                 City c = b.getCityInBorders(x, y);
                 Types.TERRAIN t = b.getTerrainAt(x, y);
                 if (c != null && c.getTribeId() != thisTribe.getTribeId()) {
@@ -531,7 +518,7 @@ public class SimpleAgent extends Agent {
 
         //Incentive to explore: next to fog
         for(Vector2d neigh : dest.neighborhood(1, 0, gs.getBoard().getSize())) {
-            if(obsGrid[neigh.x][neigh.y]){
+            if(thisTribe.isVisible(neigh.x, neigh.y)){
                 return 3;
             }
         }
@@ -25,6 +25,12 @@ public class AlgParams
     public int FORCE_TURN_END = 5;
     public boolean PRIORITIZE_ROOT = false;
 
+    // Transpositions: states reached through different sequences of actions share their statistics (MCTS) or
+    // their evaluation (RHEA), using a table of TT_SIZE entries indexed by the hash of the states. Off by default,
+    // as it changes how the agents search.
+    public boolean USE_TRANSPOSITIONS = false;
+    public int TT_SIZE = 4096;
+
 
     public void setParameterValue(String param, Object value) { }
     public Object getParameterValue(String param) { return null; }
@@ -1,6 +1,5 @@
 package players.heuristics;
 
-import core.actors.City;
 import core.game.GameState;
 import utils.stats.StatSummary;
 
@@ -16,6 +15,9 @@ public class TribesDiffHeuristic implements StateHeuristic {
     private int playerID;
     ArrayList<Integer> allIds;
 
+    //Metrics of the last old state evaluated (the root state of the search).
+    private TribesMetrics oldMetrics;
+
     public TribesDiffHeuristic(int playerID, ArrayList<Integer> allIds)
     {
         this.allIds = allIds;
@@ -24,71 +26,57 @@ public class TribesDiffHeuristic implements StateHeuristic {
 
     @Override
     public double evaluateState(GameState gsOld, GameState gsNew) {
-        double[] scores = new double[allIds.size()];
+        oldMetrics = TribesMetrics.of(oldMetrics, gsOld, allIds.size(), playerID);
+
         double myScore = 0.0;
         StatSummary othersScore = new StatSummary();
-        for(int i = 0; i < scores.length; ++i)
+        for(int i = 0; i < allIds.size(); ++i)
         {
-            scores[i] = score(gsOld, gsNew, i);
+            double score = score(oldMetrics, gsNew, i);
             if(i == playerID)
-                myScore = scores[i];
+                myScore = score;
             else
-                othersScore.add(scores[i]);
+                othersScore.add(score);
         }
 
         double scoreDiff = myScore - othersScore.mean();
-        double scoreOwn = scoreOwn(gsOld, gsNew);
+        double scoreOwn = scoreOwn(oldMetrics, gsNew);
         return scoreDiff + scoreOwn;
     }
 
 
-    private double scoreOwn(GameState gsOld, GameState gsNew)
+    private double scoreOwn(TribesMetrics old, GameState gsNew)
     {
         double difference = 0;
         int connections = gsNew.getTribe(playerID).getConnectedCities().size();
-        boolean [][] visibility = gsNew.getVisibilityMap();
-        int visCountNew = 0;
-        for (boolean[] booleans : visibility)
-            for (boolean aBoolean : booleans) visCountNew += aBoolean ? 1 : 0;
-
-        visibility = gsOld.getVisibilityMap();
-        int visCountOld = 0;
-        for (boolean[] booleans : visibility)
-            for (boolean aBoolean : booleans) visCountOld += aBoolean ? 1 : 0;
-
+        int visCountNew = gsNew.getNumVisibleTiles();
 
-        difference += (connections - gsOld.getTribe(playerID).getConnectedCities().size());
-        difference += (visCountNew - visCountOld);
+        difference += (connections - old.connections);
+        difference += (visCountNew - old.visibleTiles);
         return difference;
     }
 
-    private double score(GameState gsOld, GameState gsNew, int playerId)
+    private double score(TribesMetrics old, GameState gsNew, int playerId)
     {
         //Metrics of the game that we want to maximise.
         int production = gsNew.getTribeProduction(playerId);
         int technologies = gsNew.getTribeTechTree(playerId).getNumResearched();
         int score = gsNew.getScore(playerId);
-        int cities = gsNew.getCities(playerId).size();
-        int sumCityLevelsNew = 0;
-        for(City c : gsNew.getCities(playerId))
-            sumCityLevelsNew += c.getLevel();
-        int units = gsNew.getUnits(playerId).size();
+        int cities = gsNew.getTribe(playerId).getNumCities();
+        int sumCityLevelsNew = gsNew.getSumCityLevels(playerId);
+        int units = gsNew.getNumUnits(playerId);
         int kills = gsNew.getNKills(playerId);
 
         //compare with old metrics and calculate entropy.
         double difference = 0;
 
-        int sumCityLevelsOld = 0;
-        for(City c : gsOld.getCities(playerId))
-            sumCityLevelsOld += c.getLevel();
-
-        difference += 5 * (production - gsOld.getTribeProduction(playerId));
-        difference += 4 * (technologies - gsOld.getTribeTechTree(playerId).getNumResearched());
-        difference += 0.1 * (score - gsOld.getScore(playerId));
-        difference += 4 * (cities - gsOld.getCities(playerId).size());
-        difference += 2 * (units - gsOld.getUnits(playerId).size());
-        difference += 3 * (kills - gsOld.getNKills(playerId));
-        difference += 2 * (sumCityLevelsNew - sumCityLevelsOld);
+        difference += 5 * (production - old.production[playerId]);
+        difference += 4 * (technologies - old.technologies[playerId]);
+        difference += 0.1 * (score - old.score[playerId]);
+        difference += 4 * (cities - old.cities[playerId]);
+        difference += 2 * (units - old.units[playerId]);
+        difference += 3 * (kills - old.kills[playerId]);
+        difference += 2 * (sumCityLevelsNew - old.sumCityLevels[playerId]);
 
         return difference;
     }
@@ -15,6 +15,9 @@ public class TribesEntropyHeuristic implements StateHeuristic {
     private int playerID;
     ArrayList<Integer> allIds;
 
+    //Metrics of the last old state evaluated (the root state of the search).
+    private TribesMetrics oldMetrics;
+
     public TribesEntropyHeuristic(int playerID, ArrayList<Integer> allIds)
     {
         this.allIds = allIds;
@@ -24,61 +27,54 @@ public class TribesEntropyHeuristic implements StateHeuristic {
     @Override
     public double evaluateState(GameState gsOld, GameState gsNew)
     {
-        double[] scores = new double[allIds.size()];
+        oldMetrics = TribesMetrics.of(oldMetrics, gsOld, allIds.size(), playerID);
+
         double myScore = 0.0;
         StatSummary othersScore = new StatSummary();
-        for(int i = 0; i < scores.length; ++i)
+        for(int i = 0; i < allIds.size(); ++i)
         {
-            scores[i] = score(gsOld, gsNew, i);
+            double score = score(oldMetrics, gsNew, i);
             if(i == playerID)
-                myScore = scores[i];
+                myScore = score;
             else
-                othersScore.add(scores[i]);
+                othersScore.add(score);
         }
 
         double scoreDiff = myScore - othersScore.mean();
-        double scoreOwn = scoreOwn(gsOld, gsNew);
+        double scoreOwn = scoreOwn(oldMetrics, gsNew);
         return scoreDiff + scoreOwn;
     }
 
-    private double scoreOwn(GameState gsOld, GameState gsNew)
+    private double scoreOwn(TribesMetrics old, GameState gsNew)
     {
         int connections = gsNew.getTribe(playerID).getConnectedCities().size();
-        boolean [][] visibility = gsNew.getVisibilityMap();
-        int visCountNew = 0;
-        for (boolean[] booleans : visibility)
-            for (boolean aBoolean : booleans) visCountNew += aBoolean ? 1 : 0;
-
-        visibility = gsOld.getVisibilityMap();
-        int visCountOld = 0;
-        for (boolean[] booleans : visibility)
-            for (boolean aBoolean : booleans) visCountOld += aBoolean ? 1 : 0;
+        int visCountNew = gsNew.getNumVisibleTiles();
 
         double entropy = 0;
-        entropy += connections > gsOld.getTribe(playerID).getConnectedCities().size() ? 1 : 0;
-        entropy += visCountNew > visCountOld ? 1 : 0;
+        entropy += connections > old.connections ? 1 : 0;
+        entropy += visCountNew > old.visibleTiles ? 1 : 0;
         return entropy;
     }
 
 
-    private double score(GameState gsOld, GameState gsNew, int playerId) {
+    private double score(TribesMetrics old, GameState gsNew, int playerId) {
         //Metrics of the game that we want to maximise.
         int production = gsNew.getTribeProduction(playerId);
         int technologies = gsNew.getTribeTechTree(playerId).getNumResearched();
         int score = gsNew.getScore(playerId);
-        int cities = gsNew.getCities(playerId).size();
-        int units = gsNew.getUnits(playerId).size();
+        int cities = gsNew.getTribe(playerId).getNumCities();
+        int units = gsNew.getNumUnits(playerId);
         int kills = gsNew.getNKills(playerId);
 
         //compare with old metrics and calculate entropy.
         double entropy = 0;
 
-        entropy += production > gsOld.getTribeProduction(playerId) ? 1 : 0;
-        entropy += technologies > gsOld.getTribeTechTree(playerId).getNumResearched() ? 1 : 0;
-        entropy += score > gsOld.getScore(playerId) ? 1 : 0;
-        entropy += cities > gsOld.getCities(playerId).size() ? 1 : 0;
-        entropy += units > gsOld.getUnits(playerId).size() ? 1 : 0;
-        entropy += kills > gsOld.getNKills(playerId) ? 1 : 0;
+        entropy += production > old.production[playerId] ? 1 : 0;
+        entropy += technologies > old.technologies[playerId] ? 1 : 0;
+        entropy += score > old.score[playerId] ? 1 : 0;
+        entropy += cities > old.cities[playerId] ? 1 : 0;
+        entropy += units > old.units[playerId] ? 1 : 0;
+        entropy += kills > old.kills[playerId] ? 1 : 0;
 
         return entropy;
     }
@@ -0,0 +1,65 @@
+package players.heuristics;
+
+import core.game.GameState;
+
+/**
+ * Metrics of all tribes of a game state that the heuristics compare between an old and a new state. The old
+ * state is the root of the search of an agent, which doesn't change during a call to act(), so its metrics are
+ * taken once (see of()) and only the metrics of the new states are read in each evaluation.
+ */
+class TribesMetrics
+{
+    final int[] production;
+    final int[] technologies;
+    final int[] score;
+    final int[] cities;
+    final int[] sumCityLevels;
+    final int[] units;
+    final int[] kills;
+
+    //Cities connected to the capital of the player that evaluates, and tiles visible for the active tribe.
+    final int connections;
+    final int visibleTiles;
+
+    //State these metrics were taken from.
+    private final GameState gs;
+
+    private TribesMetrics(GameState gs, int numTribes, int playerID)
+    {
+        this.gs = gs;
+        production = new int[numTribes];
+        technologies = new int[numTribes];
+        score = new int[numTribes];
+        cities = new int[numTribes];
+        sumCityLevels = new int[numTribes];
+        units = new int[numTribes];
+        kills = new int[numTribes];
+        for(int i = 0; i < numTribes; ++i)
+        {
+            production[i] = gs.getTribeProduction(i);
+            technologies[i] = gs.getTribeTechTree(i).getNumResearched();
+            score[i] = gs.getScore(i);
+            cities[i] = gs.getTribe(i).getNumCities();
+            sumCityLevels[i] = gs.getSumCityLevels(i);
+            units[i] = gs.getNumUnits(i);
+            kills[i] = gs.getNKills(i);
+        }
+        connections = gs.getTribe(playerID).getConnectedCities().size();
+        visibleTiles = gs.getNumVisibleTiles();
+    }
+
+    /**
+     * Returns the metrics of a state, reusing the ones given if they were taken from the same state.
+     * @param last metrics taken last time (may be null).
+     * @param gs state to take the metrics from. It must not be modified after its metrics have been taken.
+     * @param numTribes number of tribes in the game.
+     * @param playerID id of the player that evaluates the states.
+     * @return the metrics of gs.
+     */
+    static TribesMetrics of(TribesMetrics last, GameState gs, int numTribes, int playerID)
+    {
+        if(last != null && last.gs == gs)
+            return last;
+        return new TribesMetrics(gs, numTribes, playerID);
+    }
+}
@@ -1,8 +1,6 @@
 package players.heuristics;
 
 import core.TechnologyTree;
-import core.actors.City;
-import core.actors.units.Unit;
 import core.game.GameState;
 import core.*;
 import utils.stats.StatSummary;
@@ -45,22 +43,18 @@ public class TribesSimpleHeuristic implements StateHeuristic{
 
     private double viscPerc(GameState gameState)
     {
-        boolean [][] visibility = gameState.getVisibilityMap();
-        int visCount = 0;
-        for (boolean[] booleans : visibility)
-            for (boolean aBoolean : booleans) visCount += aBoolean ? 1 : 0;
-
-        return (double)visCount / (visibility.length*visibility[0].length);
+        int size = gameState.getBoard().getSize();
+        return (double)gameState.getNumVisibleTiles() / (size*size);
     }
 
     private double score(GameState gameState, int playerId)
     {
-        int numAvailableActions = gameState.getAllAvailableActions().size();
+        int numAvailableActions = gameState.getNumAvailableActions();
         int availableProduction = gameState.getTribeProduction(playerId);
         TechnologyTree tt = gameState.getTribeTechTree(playerId);
         int score = gameState.getScore(playerId);
-        ArrayList<City> cities = gameState.getCities(playerId);
-        ArrayList<Unit> units = gameState.getUnits(playerId);
+        int cities = gameState.getTribe(playerId).getNumCities();
+        int units = gameState.getNumUnits(playerId);
 
         int boost = 0;
         if(gameState.isGameOver())
@@ -70,6 +64,6 @@ public class TribesSimpleHeuristic implements StateHeuristic{
                 boost = LOSE_BOOST;
 
 
-        return boost + numAvailableActions + availableProduction*100 + tt.getNumResearched()*10 + score + cities.size()*500 + units.size()*10;
+        return boost + numAvailableActions + availableProduction*100 + tt.getNumResearched()*10 + score + cities*500 + units*10;
     }
 }
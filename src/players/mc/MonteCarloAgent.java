@@ -162,11 +162,10 @@ public class MonteCarloAgent extends Agent {
             if(!end)
             {
                 //If we can continue, pick another action to run at random
-                ArrayList<Action> allActions = gsCopy.getAllAvailableActions();
-                int numActions = allActions.size();
+                int numActions = gsCopy.getNumAvailableActions();
                 if(numActions == 1) {
                     //If there's only 1 action available, it should be an EndTurn
-                    act = allActions.get(0);
+                    act = gsCopy.getAvailableAction(0);
                     if(act.getActionType() == Types.ACTION.END_TURN)
                         turnEndCountDown = params.FORCE_TURN_END + 1;
                     else
@@ -175,11 +174,7 @@ public class MonteCarloAgent extends Agent {
                 }else
                 {
                     //If there are many actions, we select the next action for the rollout at random, avoiding EndTurn.
-                    do {
-                        int actIdx = m_rnd.nextInt(numActions);
-                        act = allActions.get(actIdx);
-
-                    }  while(act.getActionType() == Types.ACTION.END_TURN);
+                    act = gsCopy.getRandomAction(m_rnd, NO_END_TURN);
                 }
             }
         }
@@ -14,6 +14,12 @@ public class MCTSParams extends AlgParams {
     public int ROLLOUT_LENGTH = 10;//10;
     public boolean ROLOUTS_ENABLED = true;
 
+    // Multi-threaded search: number of threads, and how they search.
+    public final int ROOT_PARALLEL = 0; // Each thread searches its own tree, visits at the roots are merged.
+    public final int TREE_PARALLEL = 1; // All threads search the same tree.
+    public int NUM_THREADS = 1;
+    public int parallel_type = ROOT_PARALLEL;
+
     public void setParameterValue(String param, Object value) {
         switch(param) {
             case "K": K = (double) value; break;
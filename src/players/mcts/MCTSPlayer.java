@@ -9,6 +9,10 @@ import utils.ElapsedCpuTimer;
 
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static core.Constants.TURN_TIME_MILLIS;
 
@@ -17,6 +21,10 @@ public class MCTSPlayer extends Agent {
     private Random m_rnd;
     private MCTSParams params;
 
+    //Threads that help this one in multi-threaded searches (see MCTSParams.NUM_THREADS). Created when first needed,
+    // and shut down at the end of the game (see result()).
+    private ExecutorService executor;
+
     public MCTSPlayer(long seed)
     {
         super(seed);
@@ -43,12 +51,87 @@ public class MCTSPlayer extends Agent {
         SingleTreeNode m_root = new SingleTreeNode(params, m_rnd, rootActions.size(), rootActions, this.playerID);
         m_root.setRootGameState(m_root, gs, allPlayerIDs);
 
-        m_root.mctsSearch(ect);
+        if(params.NUM_THREADS > 1)
+            parallelSearch(m_root, gs, rootActions, ect);
+        else
+            m_root.mctsSearch(ect);
 
         return rootActions.get(m_root.mostVisitedAction());
 
     }
 
+    /**
+     * Searches from m_root with params.NUM_THREADS threads (this one included) sharing the budget of the search.
+     * With tree parallelisation, all threads search the tree of m_root. With root parallelisation, each thread
+     * searches its own tree, and the stats of the children of all roots are added to those of m_root.
+     */
+    private void parallelSearch(SingleTreeNode m_root, GameState gs, ArrayList<Action> rootActions, ElapsedCpuTimer ect)
+    {
+        int nThreads = params.NUM_THREADS;
+        boolean treeParallel = params.parallel_type == params.TREE_PARALLEL;
+        SearchBudget budget = new SearchBudget(ect.remainingTimeMillis());
+
+        //Everything is set up before the threads start (see GameState.copy()).
+        // Each thread evaluates states with its own copy of the root state, except the one searching from gs itself.
+        SingleTreeNode[] roots = new SingleTreeNode[nThreads];
+        SearchContext[] contexts = new SearchContext[nThreads];
+        for(int i = 0; i < nThreads; ++i)
+        {
+            Random rnd = new Random(m_rnd.nextLong());
+            GameState rootState = (treeParallel || i > 0) ? gs.copy() : gs;
+            if(treeParallel || i == 0)
+                roots[i] = m_root;
+            else {
+                roots[i] = new SingleTreeNode(params, rnd, rootActions.size(), rootActions, this.playerID);
+                roots[i].setRootGameState(roots[i], rootState, allPlayerIDs);
+            }
+            contexts[i] = new SearchContext(rnd, rootState, params.getHeuristic(playerID, allPlayerIDs), budget);
+        }
+
+        if(executor == null)
+        {
+            executor = Executors.newFixedThreadPool(nThreads - 1, r -> {
+                Thread t = new Thread(r, "MCTS search");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        ArrayList<Future<?>> searches = new ArrayList<>();
+        for(int i = 1; i < nThreads; ++i)
+        {
+            SingleTreeNode root = roots[i];
+            SearchContext ctx = contexts[i];
+            searches.add(executor.submit(() -> root.mctsSearch(ctx)));
+        }
+        roots[0].mctsSearch(contexts[0]);
+
+        try {
+            for(Future<?> search : searches)
+                search.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Error in a MCTS search thread", e);
+        }
+
+        if(!treeParallel)
+        {
+            for(int i = 1; i < nThreads; ++i)
+                m_root.addRootStats(roots[i]);
+        }
+    }
+
+    /**
+     * Shuts down the threads of this agent, if it has any, at the end of the game. They are created again if the
+     * agent plays another game.
+     */
+    @Override
+    public void result(GameState gs, double reward) {
+        if(executor != null)
+        {
+            executor.shutdown();
+            executor = null;
+        }
+    }
 
     @Override
     public Agent copy() {
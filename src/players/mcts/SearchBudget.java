@@ -0,0 +1,52 @@
+package players.mcts;
+
+import utils.ElapsedCpuTimer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Budget of a search (see AlgParams.stop_type). It's shared by all threads (and trees) searching for the same
+ * decision, so the budget is respected by the search as a whole.
+ */
+class SearchBudget
+{
+    private final AtomicInteger fmCalls = new AtomicInteger();
+    private final AtomicInteger iterations = new AtomicInteger();
+
+    //Time limits. CPU time of the calling thread if the search runs in one thread, wall clock otherwise.
+    private final ElapsedCpuTimer timer;
+    private final long deadline;
+
+    /**
+     * Budget for a search that runs in the thread that owns 'timer'.
+     */
+    SearchBudget(ElapsedCpuTimer timer)
+    {
+        this.timer = timer;
+        this.deadline = 0;
+    }
+
+    /**
+     * Budget for a search that runs in several threads, with 'timeMillis' milliseconds (wall clock) from now.
+     */
+    SearchBudget(long timeMillis)
+    {
+        this.timer = null;
+        this.deadline = System.nanoTime() + timeMillis * 1000000;
+    }
+
+    void fmCall() { fmCalls.incrementAndGet(); }
+    int getFmCalls() { return fmCalls.get(); }
+
+    /**
+     * Records the end of an iteration, and returns the number of iterations done so far.
+     */
+    int iterationDone() { return iterations.incrementAndGet(); }
+
+    long remainingTimeMillis()
+    {
+        if(timer != null)
+            return timer.remainingTimeMillis();
+        return (deadline - System.nanoTime()) / 1000000;
+    }
+}
@@ -0,0 +1,32 @@
+package players.mcts;
+
+import core.game.GameState;
+import players.heuristics.StateHeuristic;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Objects used by one thread while searching: random generator, root state and heuristic to evaluate states,
+ * and the budget of the search. With tree parallelisation several threads visit the same nodes, so these are
+ * not stored in the nodes.
+ */
+class SearchContext
+{
+    final Random rnd;
+    final GameState rootState;
+    final StateHeuristic heuristic;
+    final SearchBudget budget;
+
+    //Nodes visited in the current iteration, from the root. Nodes can have several parents (see SingleTreeNode.expand()),
+    // so the values are backed up along this path.
+    final ArrayList<SingleTreeNode> path = new ArrayList<>();
+
+    SearchContext(Random rnd, GameState rootState, StateHeuristic heuristic, SearchBudget budget)
+    {
+        this.rnd = rnd;
+        this.rootState = rootState;
+        this.heuristic = heuristic;
+        this.budget = budget;
+    }
+}
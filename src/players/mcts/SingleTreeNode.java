@@ -8,12 +8,18 @@ import players.heuristics.StateHeuristic;
 import players.heuristics.TribesEntropyHeuristic;
 import players.heuristics.TribesSimpleHeuristic;
 import utils.ElapsedCpuTimer;
+import utils.TranspositionTable;
 import utils.Vector2d;
 
 import java.util.ArrayList;
 import java.util.Random;
 import static core.Types.ACTION.*;
 
+/**
+ * Node of the MCTS tree. Trees can be searched by several threads at the same time (tree parallelisation): each
+ * node guards its state and children with its own lock, and threads going down the tree add a virtual loss to the
+ * nodes they visit so other threads are steered towards different branches.
+ */
 class SingleTreeNode
 {
     private MCTSParams params;
@@ -21,20 +27,27 @@ class SingleTreeNode
     private SingleTreeNode root;
     private SingleTreeNode parent;
     private SingleTreeNode[] children;
-    private double totValue;
-    private int nVisits;
+    private boolean[] expanded; //Children that are (or are being) expanded.
+    private volatile double totValue;
+    private volatile int nVisits;
     private Random m_rnd;
     private int m_depth;
     private double[] bounds = new double[]{Double.MAX_VALUE, -Double.MAX_VALUE};
-    private int fmCallsCount;
     private int playerID;
 
+    //Visits in progress, each one counts as a visit with the worst value (for the parent) until it's backed up.
+    private volatile int virtualVisits;
+    private double virtualLossValue;
+
     private ArrayList<Action> actions;
     private GameState state;
 
     private GameState rootState;
     private StateHeuristic rootStateHeuristic;
 
+    //Nodes of the tree by the hash of their state (only in the root, null if transpositions are not used).
+    private TranspositionTable<SingleTreeNode> table;
+
     //From MCTSPlayer
     SingleTreeNode(MCTSParams p, Random rnd, int num_actions, ArrayList<Action> actions, int playerID) {
         this(p, null, rnd, num_actions, actions, null, playerID, null, null);
@@ -43,18 +56,19 @@ class SingleTreeNode
     private SingleTreeNode(MCTSParams p, SingleTreeNode parent, Random rnd, int num_actions,
                            ArrayList<Action> actions, StateHeuristic sh, int playerID, SingleTreeNode root, GameState state) {
         this.params = p;
-        this.fmCallsCount = 0;
         this.parent = parent;
         this.m_rnd = rnd;
         this.actions = actions;
         this.root = root;
         children = new SingleTreeNode[num_actions];
+        expanded = new boolean[num_actions];
         totValue = 0.0;
         this.playerID = playerID;
         this.state = state;
         if(parent != null) {
             m_depth = parent.m_depth + 1;
             this.rootStateHeuristic = sh;
+            this.virtualLossValue = parent.state.getActiveTribeID() == playerID ? 0.0 : 1.0;
         }
         else {
             m_depth = 0;
@@ -68,10 +82,21 @@ class SingleTreeNode
         this.root = root;
         this.rootState = gs;
         this.rootStateHeuristic = params.getHeuristic(playerID, allIDs);
+        if(params.USE_TRANSPOSITIONS)
+            this.table = new TranspositionTable<>(params.TT_SIZE);
     }
 
 
     void mctsSearch(ElapsedCpuTimer elapsedTimer) {
+        mctsSearch(new SearchContext(m_rnd, rootState, rootStateHeuristic, new SearchBudget(elapsedTimer)));
+    }
+
+    /**
+     * Searches from this node until the budget of the context runs out. Several threads may search the same tree
+     * at the same time, each one with its own context (and a shared budget).
+     * @param ctx objects to use by the calling thread.
+     */
+    void mctsSearch(SearchContext ctx) {
 
         double avgTimeTaken;
         double acumTimeTaken = 0;
@@ -84,38 +109,49 @@ class SingleTreeNode
         while(!stop){
 //            System.out.println("------- " + root.actions.size() + " -------");
             ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
-            SingleTreeNode selected = treePolicy();
-            double delta = selected.rollOut();
-            backUp(selected, delta);
+            SingleTreeNode selected = treePolicy(ctx);
+            double delta = selected.rollOut(ctx);
+            backUp(ctx.path, delta);
             numIters++;
+            int totalIters = ctx.budget.iterationDone();
 
             //Stopping condition
             if(params.stop_type == params.STOP_TIME) {
                 acumTimeTaken += (elapsedTimerIteration.elapsedMillis()) ;
                 avgTimeTaken  = acumTimeTaken/numIters;
-                remaining = elapsedTimer.remainingTimeMillis();
+                remaining = ctx.budget.remainingTimeMillis();
                 stop = remaining <= 2 * avgTimeTaken || remaining <= remainingLimit;
             }else if(params.stop_type == params.STOP_ITERATIONS) {
-                stop = numIters >= params.num_iterations;
+                stop = totalIters >= params.num_iterations;
             }else if(params.stop_type == params.STOP_FMCALLS)
             {
-                stop = fmCallsCount > params.num_fmcalls;
+                stop = ctx.budget.getFmCalls() > params.num_fmcalls;
             }
         }
     }
 
-    private SingleTreeNode treePolicy() {
+    private SingleTreeNode treePolicy(SearchContext ctx) {
 
         SingleTreeNode cur = this;
+        ctx.path.clear();
+        ctx.path.add(cur);
 
         while (!cur.state.isGameOver() /*&& state.getAllAvailableActions().size() > 1 */ && cur.m_depth < params.ROLLOUT_LENGTH)
         {
             if (cur.notFullyExpanded()) {
-                return cur.expand();
-
-            } else {
-                cur = cur.uct();
+                SingleTreeNode expandedNode = cur.expand(ctx);
+                if(expandedNode != null) {
+                    ctx.path.add(expandedNode);
+                    return expandedNode;
+                }
+                //Other threads expanded the remaining children in the meantime.
             }
+
+            SingleTreeNode selected = cur.uct(ctx);
+            if(selected == null)
+                return cur; //Children are still being expanded by other threads, evaluate this node instead.
+            cur = selected;
+            ctx.path.add(cur);
         }
 
         return cur;
@@ -127,7 +163,8 @@ class SingleTreeNode
         if(!willForceEnd)
             return -1; //Not the time, or not available.
 
-        ArrayList<Action> availableActions = state.getAllAvailableActions();
+        //Tribe actions come first in the list of all available actions.
+        ArrayList<Action> availableActions = state.getTribeActions();
         int actionIdx = 0;
         while(actionIdx < availableActions.size())
         {
@@ -143,76 +180,129 @@ class SingleTreeNode
         return -1;
     }
 
-    private SingleTreeNode expand() {
+    /**
+     * Expands a new child of this node. Returns null if all children have been expanded (by other threads) since
+     * this node was found not fully expanded. If the state of the child is already in the tree, reached through
+     * a different sequence of actions, the node of that state becomes the child of this one, sharing its statistics.
+     */
+    private SingleTreeNode expand(SearchContext ctx) {
 
-        int bestAction = tryForceEnd(state, new EndTurn(state.getActiveTribeID()), this.m_depth);
-        if(bestAction == -1)
+        int bestAction;
+        GameState nextState;
+        synchronized (this)
         {
-            //No turn end, expand
-            double bestValue = -1;
-
-            for (int i = 0; i < children.length; i++) {
-                double x = m_rnd.nextDouble();
-                if (x > bestValue && children[i] == null) {
-                    bestAction = i;
-                    bestValue = x;
+            bestAction = tryForceEnd(state, new EndTurn(state.getActiveTribeID()), this.m_depth);
+            if(bestAction == -1)
+            {
+                //No turn end, expand
+                double bestValue = -1;
+
+                for (int i = 0; i < children.length; i++) {
+                    double x = ctx.rnd.nextDouble();
+                    if (x > bestValue && !expanded[i]) {
+                        bestAction = i;
+                        bestValue = x;
+                    }
                 }
+
+                if(bestAction == -1)
+                    return null;
             }
+            expanded[bestAction] = true;
+
+            //Copied holding the lock (see GameState.copy()).
+            nextState = state.copy();
         }
 
         //Roll the state, create a new node and assign it.
-        GameState nextState = state.copy();
-        ArrayList<Action> availableActions = m_depth == 0 && params.PRIORITIZE_ROOT ? actions : nextState.getAllAvailableActions();
-        ArrayList<Action> nextActions = advance(nextState, availableActions.get(bestAction), true);
-        SingleTreeNode tn = new SingleTreeNode(params, this, this.m_rnd, nextActions.size(),
+        Action action = m_depth == 0 && params.PRIORITIZE_ROOT ? actions.get(bestAction) : nextState.getAvailableAction(bestAction);
+        advance(nextState, action, true, ctx);
+        SingleTreeNode tn = new SingleTreeNode(params, this, this.m_rnd, nextState.getNumAvailableActions(),
                 null, rootStateHeuristic, this.playerID, this.m_depth == 0 ? this : this.root, nextState);
-        children[bestAction] = tn;
+        if(root.table != null)
+        {
+            SingleTreeNode existing = root.table.putIfAbsent(transpositionKey(nextState), tn);
+            if(existing != null)
+                tn = existing;
+        }
+        tn.addVirtualLoss();
+        synchronized (this)
+        {
+            children[bestAction] = tn;
+        }
         return tn;
     }
 
 
 
-    private ArrayList<Action> advance(GameState gs, Action act, boolean computeActions)
+    /**
+     * Key of a child of this node in the transposition table. Besides the state, nodes depend on their depth (turns
+     * are forced to end, and rollouts are shorter, deeper in the tree) and on who moves in their parent (which
+     * determines their virtual loss), so these are part of the key.
+     * @param childState state of the child.
+     * @return the key.
+     */
+    private long transpositionKey(GameState childState)
+    {
+        long depthKey = ((long) (m_depth + 1) << 8 | state.getActiveTribeID()) * 0x9E3779B97F4A7C15L;
+        return childState.getHash() ^ depthKey;
+    }
+
+    private void advance(GameState gs, Action act, boolean computeActions, SearchContext ctx)
     {
         gs.advance(act, computeActions);
-        root.fmCallsCount++;
-        return gs.getAllAvailableActions();
+        ctx.budget.fmCall();
     }
 
 
-    private SingleTreeNode uct() {
+    /**
+     * Selects a child of this node with UCT. Returns null if none of the children can be selected yet (because
+     * other threads are still expanding them).
+     */
+    private synchronized SingleTreeNode uct(SearchContext ctx) {
 
         SingleTreeNode selected;
         boolean IamMoving = (state.getActiveTribeID() == this.playerID);
         int bestAction = tryForceEnd(state, new EndTurn(state.getActiveTribeID()), this.m_depth);
         if(bestAction == -1)
         {
-            //No end turn, use uct.
+            //No end turn, use uct. Visits in progress in other threads count as losses.
             double[] vals = new double[this.children.length];
+            int parentVisits = this.nVisits + this.virtualVisits;
             for(int i = 0; i < this.children.length; ++i)
             {
                 SingleTreeNode child = children[i];
-
-                double hvVal = child.totValue;
-                double childValue =  hvVal / (child.nVisits + params.epsilon);
+                if(child == null)
+                    continue;
+
+                int childVisits = child.nVisits;
+                int childVirtualVisits = child.virtualVisits;
+                double hvVal = child.totValue + childVirtualVisits * child.virtualLossValue;
+                childVisits += childVirtualVisits;
+                double childValue =  hvVal / (childVisits + params.epsilon);
                 childValue = normalise(childValue, bounds[0], bounds[1]);
 
                 double uctValue = childValue +
-                        params.K * Math.sqrt(Math.log(this.nVisits + 1) / (child.nVisits + params.epsilon));
+                        params.K * Math.sqrt(Math.log(parentVisits + 1) / (childVisits + params.epsilon));
 
-                uctValue = noise(uctValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
+                uctValue = noise(uctValue, params.epsilon, ctx.rnd.nextDouble());     //break ties randomly
                 vals[i] = uctValue;
             }
 
             int which = -1;
             double bestValue = IamMoving ? -Double.MAX_VALUE : Double.MAX_VALUE;
             for(int i = 0; i < vals.length; ++i) {
+                if (children[i] == null)
+                    continue;
                 if ((IamMoving && vals[i] > bestValue) || (!IamMoving && vals[i] < bestValue)){
                     which = i;
                     bestValue = vals[i];
                 }
             }
 
+            if (which == -1 && !hasChildren())
+                return null;
+
             if (which == -1)
             {
                 //if(this.children.length == 0)
@@ -224,7 +314,7 @@ class SingleTreeNode
                     System.out.printf(" %f2", vals[i]);
                 System.out.println("; selected: " + which);
 
-                which = m_rnd.nextInt(children.length);
+                which = ctx.rnd.nextInt(children.length);
             }
 
             selected = children[which];
@@ -244,27 +334,34 @@ class SingleTreeNode
         // runs over the same tree node would have different outcomes (i.e Examine ruins).
         //advance(state, actions.get(selected.childIdx), true);
 
-        root.fmCallsCount++;
+        ctx.budget.fmCall();
 
+        if(selected != null)
+            selected.addVirtualLoss();
         return selected;
     }
 
-    private double rollOut()
+    private double rollOut(SearchContext ctx)
     {
         if(params.ROLOUTS_ENABLED) {
-            GameState rolloutState = state.copy();
+            GameState rolloutState;
+            synchronized (this) {
+                rolloutState = state.copy();
+            }
             int thisDepth = this.m_depth;
             while (!finishRollout(rolloutState, thisDepth)) {
                 EndTurn endTurn = new EndTurn(rolloutState.getActiveTribeID());
                 int bestAction = tryForceEnd(rolloutState, endTurn, thisDepth);
-                Action next = (bestAction != -1) ? endTurn : rolloutState.getAllAvailableActions().get(m_rnd.nextInt(rolloutState.getAllAvailableActions().size()));
-                advance(rolloutState, next, true);
+                Action next = (bestAction != -1) ? endTurn : rolloutState.getRandomAction(ctx.rnd);
+                advance(rolloutState, next, true, ctx);
                 thisDepth++;
             }
-            return normalise(this.rootStateHeuristic.evaluateState(root.rootState, rolloutState), 0, 1);
+            return normalise(ctx.heuristic.evaluateState(ctx.rootState, rolloutState), 0, 1);
         }
 
-        return normalise(this.rootStateHeuristic.evaluateState(root.rootState, this.state), 0, 1);
+        synchronized (this) {
+            return normalise(ctx.heuristic.evaluateState(ctx.rootState, this.state), 0, 1);
+        }
     }
 
     private boolean finishRollout(GameState rollerState, int depth)
@@ -277,20 +374,49 @@ class SingleTreeNode
     }
 
 
-    private void backUp(SingleTreeNode node, double result)
+    private void backUp(ArrayList<SingleTreeNode> path, double result)
     {
-        SingleTreeNode n = node;
-        while(n != null)
+        for(int i = path.size() - 1; i >= 0; i--)
         {
-            n.nVisits++;
-            n.totValue += result;
-            if (result < n.bounds[0]) {
-                n.bounds[0] = result;
+            SingleTreeNode n = path.get(i);
+            synchronized (n) {
+                n.nVisits++;
+                n.totValue += result;
+                if (result < n.bounds[0]) {
+                    n.bounds[0] = result;
+                }
+                if (result > n.bounds[1]) {
+                    n.bounds[1] = result;
+                }
+                if (i > 0)
+                    n.virtualVisits--; //This visit is not in progress anymore.
             }
-            if (result > n.bounds[1]) {
-                n.bounds[1] = result;
+        }
+    }
+
+    private synchronized void addVirtualLoss()
+    {
+        virtualVisits++;
+    }
+
+    /**
+     * Adds the visits and values of the children of the root of another tree, searched from the same state
+     * (root parallelisation), to the children of this root.
+     * @param other root of the other tree.
+     */
+    void addRootStats(SingleTreeNode other)
+    {
+        for (int i = 0; i < children.length; i++) {
+            SingleTreeNode otherChild = other.children[i];
+            if (otherChild == null)
+                continue;
+
+            if (children[i] == null)
+                children[i] = otherChild;
+            else {
+                children[i].nVisits += otherChild.nVisits;
+                children[i].totValue += otherChild.totValue;
             }
-            n = n.parent;
         }
     }
 
@@ -360,9 +486,19 @@ class SingleTreeNode
     }
 
 
-    private boolean notFullyExpanded() {
+    private synchronized boolean notFullyExpanded() {
+        for (boolean e : expanded) {
+            if (!e) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean hasChildren() {
         for (SingleTreeNode tn : children) {
-            if (tn == null) {
+            if (tn != null) {
                 return true;
             }
         }
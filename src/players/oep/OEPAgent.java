@@ -180,11 +180,11 @@ public class OEPAgent extends Agent {
     private void mutation(GameState gs, ArrayList<Action> actions){
 
         int mutationIndex = m_rnd.nextInt(actions.size());
-        for (int i=0; i<mutationIndex-1; i++){
-            gs.advance(actions.get(i), false);
-        }
-        if (mutationIndex != 0){
-            gs.advance(actions.get(mutationIndex-1), true);
+
+        //Execute the actions before the mutation, skipping those that are not feasible.
+        int executed = 0;
+        while (executed < mutationIndex){
+            executed += gs.advanceAll(actions.subList(executed, mutationIndex), true) + 1;
         }
         Action selectedAction;
         ArrayList<Action> allAvailableActions = gs.getAllAvailableActions();
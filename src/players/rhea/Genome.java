@@ -1,6 +1,7 @@
 package players.rhea;
 
 import core.actions.Action;
+import core.game.GameState;
 
 import java.util.ArrayList;
 
@@ -9,6 +10,13 @@ public class Genome implements Comparable<Genome>{
     private ArrayList<Action> actions;
     private double value = 0;
 
+    //Checkpoints: states reached after executing the first interval, 2*interval... actions of this genome from
+    // root, so they can be executed again from there (see RHEAAgent.mutate()).
+    private GameState root;
+    private ArrayList<GameState> checkpoints = new ArrayList<>();
+    private int interval;
+    private int maxCheckpoints;
+
     public Genome(ArrayList<Action> actions) {
         this.actions = actions;
     }
@@ -33,6 +41,73 @@ public class Genome implements Comparable<Genome>{
             newList.add(actions.get(i));
         }
         actions = newList;
+
+        //The actions don't start from the same state anymore.
+        root = null;
+        checkpoints.clear();
+    }
+
+    /**
+     * Starts taking checkpoints of this genome, discarding the previous ones.
+     * @param root state the actions of this genome are executed from.
+     * @param interval number of actions between checkpoints, 0 to take none.
+     * @param maxCheckpoints maximum number of checkpoints kept.
+     */
+    void startCheckpoints(GameState root, int interval, int maxCheckpoints)
+    {
+        this.root = root;
+        this.interval = interval;
+        this.maxCheckpoints = maxCheckpoints;
+        checkpoints.clear();
+    }
+
+    /**
+     * Takes a checkpoint, if it's due, of the state reached after executing the first actions of this genome.
+     * @param numActions number of actions executed.
+     * @param state state reached. A copy is kept, so it can be modified afterwards.
+     */
+    void addCheckpoint(int numActions, GameState state)
+    {
+        if(root != null && interval > 0 && checkpoints.size() < maxCheckpoints
+                && numActions == (checkpoints.size() + 1) * interval)
+            checkpoints.add(state.copy());
+    }
+
+    /**
+     * Takes the checkpoints of another genome, both sharing their first actions.
+     * @param other genome to take the checkpoints from.
+     * @param numActions number of actions both genomes share.
+     */
+    void copyCheckpoints(Genome other, int numActions)
+    {
+        startCheckpoints(other.root, other.interval, other.maxCheckpoints);
+        for(int i = 0; i < other.checkpoints.size() && (i + 1) * interval <= numActions; i++)
+            checkpoints.add(other.checkpoints.get(i));
+    }
+
+    boolean hasCheckpoints(GameState root)
+    {
+        return this.root == root && !checkpoints.isEmpty();
+    }
+
+    /**
+     * Returns the number of actions executed to reach the last checkpoint before an action.
+     * @param actionIdx index of the action.
+     * @return number of actions executed, 0 if there are no checkpoints before the action.
+     */
+    int lastCheckpoint(int actionIdx)
+    {
+        return Math.min(actionIdx / interval, checkpoints.size()) * interval;
+    }
+
+    /**
+     * Returns the checkpoint taken after executing some actions, see lastCheckpoint().
+     * @param numActions number of actions executed.
+     * @return the state reached. It must be copied before modifying it.
+     */
+    GameState getCheckpoint(int numActions)
+    {
+        return checkpoints.get(numActions / interval - 1);
     }
 
     @Override
@@ -12,10 +12,17 @@ import core.game.GameState;
 import players.Agent;
 import players.heuristics.StateHeuristic;
 import utils.ElapsedCpuTimer;
+import utils.TranspositionTable;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RHEAAgent extends Agent {
 
@@ -24,11 +31,19 @@ public class RHEAAgent extends Agent {
     private RHEAParams params;
 
     private ArrayList<Genome> pop;
-    private int fmcalls;
+    private AtomicInteger fmcalls = new AtomicInteger();
     private int currentTurn;
     private boolean newTurn = true;
     private int actionInTurn = 0;
 
+    //Values of the states reached by the individuals, by the hash of the state and of the state they start from.
+    private TranspositionTable<Double> evaluations;
+    private long rootKey;
+
+    //Threads that create and evaluate new individuals (see RHEAParams.NUM_THREADS). Created when first needed,
+    // and shut down at the end of the game (see result()).
+    private ForkJoinPool pool;
+
 
     public RHEAAgent(long seed, RHEAParams params) {
         super(seed);
@@ -41,7 +56,13 @@ public class RHEAAgent extends Agent {
     public Action act(GameState gs, ElapsedCpuTimer ect) {
 
         this.heuristic = params.getHeuristic(playerID, allPlayerIDs);
-        this.fmcalls = 0;
+        this.fmcalls.set(0);
+        if(params.USE_TRANSPOSITIONS)
+        {
+            if(evaluations == null)
+                evaluations = new TranspositionTable<>(params.TT_SIZE);
+            rootKey = gs.getHash() * 0x9E3779B97F4A7C15L;
+        }
 
         if (currentTurn != gs.getTick()){
             currentTurn = gs.getTick();
@@ -73,7 +94,7 @@ public class RHEAAgent extends Agent {
             pop = nextGeneration(gs);
 
             if(params.stop_type == params.STOP_FMCALLS)
-                end = this.fmcalls >= params.num_fmcalls;
+                end = this.fmcalls.get() >= params.num_fmcalls;
 
         }
         Collections.sort(pop);
@@ -99,7 +120,7 @@ public class RHEAAgent extends Agent {
         }
 
         Genome g = new Genome(actions);
-        double score = heuristic.evaluateState(gs, gsCopy);
+        double score = evaluate(gs, gsCopy);
         g.setValue(score);
         return g;
     }
@@ -130,20 +151,11 @@ public class RHEAAgent extends Agent {
         //shift buffer
         GameState clone = gs.copy();
         individual.shift();
+        individual.startCheckpoints(gs, params.CHECKPOINT_INTERVAL, params.MAX_CHECKPOINTS);
 
         //advance the new game state
-        boolean feasible = true;
-        int j = 0;
-        while(feasible && j < individual.getActions().size())
-        {
-            Action act = individual.getActions().get(j);
-            feasible = checkActionFeasibility(act, clone);
-            if(feasible)
-            {
-                advance(clone, act, true);
-                j++;
-            }
-        }
+        int j = replay(clone, individual, individual.getActions(), 0, individual.getActions().size());
+        boolean feasible = j == individual.getActions().size();
 
         //add new random actions at the end, from where we stopped
         int i = j;
@@ -153,20 +165,29 @@ public class RHEAAgent extends Agent {
             individual.getActions().add(newAction);
             advance(clone, newAction, true);
             i++;
+
+            //If some action wasn't feasible, the ones after it are not the ones executed.
+            if(feasible)
+                individual.addCheckpoint(i, clone);
         }
 
         //Eval individual
-        double score = heuristic.evaluateState(gs, clone);
+        double score = evaluate(gs, clone);
         individual.setValue(score);
     }
 
     private Action getRandomAction(GameState gs)
+    {
+        return getRandomAction(gs, m_rnd);
+    }
+
+    private Action getRandomAction(GameState gs, Random rnd)
     {
         if(gs.isGameOver())
             return null;
 
-        ArrayList<Action> allAvailableActions = this.allGoodActions(gs, m_rnd);  //gs.getAllAvailableActions();
-        return allAvailableActions.get(m_rnd.nextInt(allAvailableActions.size()));
+        //Same actions as allGoodActions(), without building the list.
+        return gs.getRandomAction(rnd, NO_DESTROY_DISBAND);
     }
 
     private ArrayList<Genome> nextGeneration(GameState gs){
@@ -177,11 +198,17 @@ public class RHEAAgent extends Agent {
             newPop.add(pop.get(0));
         }
 
+        if(params.NUM_THREADS > 1 && params.POP_SIZE > 1)
+        {
+            newPop.addAll(newIndividualsParallel(gs, params.POP_SIZE - newPop.size()));
+            return newPop;
+        }
+
         while (newPop.size() < params.POP_SIZE){
             Genome g;
             if(params.POP_SIZE > 1)
             {
-                g = newIndividual(gs);
+                g = newIndividual(gs, gs.copy(), m_rnd);
             }else{
                 Genome gMut = mutate(pop.get(0), gs);
                 g = (gMut.getValue() >= pop.get(0).getValue()) ? gMut : pop.get(0);
@@ -192,7 +219,39 @@ public class RHEAAgent extends Agent {
         return newPop;
     }
 
-    private int[] selection(){
+    /**
+     * Creates and evaluates new individuals with params.NUM_THREADS threads. Each individual is created with its
+     * own random generator, seeded in order from the one of this agent, so the new individuals are the same
+     * independently of how the threads are scheduled.
+     * @param gs state the individuals start from.
+     * @param n number of individuals to create.
+     * @return the new individuals, in order.
+     */
+    private ArrayList<Genome> newIndividualsParallel(GameState gs, int n)
+    {
+        if(pool == null)
+            pool = new ForkJoinPool(params.NUM_THREADS);
+
+        //Copies are all made by this thread (see GameState.copy()).
+        ArrayList<Callable<Genome>> tasks = new ArrayList<>();
+        for(int i = 0; i < n; i++)
+        {
+            Random rnd = new Random(m_rnd.nextLong());
+            GameState crossState = gs.copy();
+            tasks.add(() -> newIndividual(gs, crossState, rnd));
+        }
+
+        ArrayList<Genome> individuals = new ArrayList<>();
+        try {
+            for(Future<Genome> individual : pool.invokeAll(tasks))
+                individuals.add(individual.get());
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Error creating RHEA individuals", e);
+        }
+        return individuals;
+    }
+
+    private int[] selection(Random rnd){
 
         //parent 1
         int p1idx = -1;
@@ -200,15 +259,15 @@ public class RHEAAgent extends Agent {
         ArrayList<Integer> tournament = new ArrayList<>();
         while (tournament.size() < params.TOURNAMENT_SIZE)
         {
-            int ind = m_rnd.nextInt(params.POP_SIZE);
+            int ind = rnd.nextInt(params.POP_SIZE);
             while(tournament.contains(ind))
             {
-                ind = m_rnd.nextInt(params.POP_SIZE);
+                ind = rnd.nextInt(params.POP_SIZE);
             }
             tournament.add(ind);
 
             //get the score of the individual, with small noise for tie breaks, to keep the best
-            double indValue = noise(pop.get(ind).getValue(), params.epsilon, this.m_rnd.nextDouble());
+            double indValue = noise(pop.get(ind).getValue(), params.epsilon, rnd.nextDouble());
             if(indValue > bestScore)
             {
                 p1idx = ind;
@@ -222,14 +281,14 @@ public class RHEAAgent extends Agent {
         bestScore = -Double.MAX_VALUE;
         while (tournament.size() < params.TOURNAMENT_SIZE)
         {
-            int ind = m_rnd.nextInt(params.POP_SIZE);
+            int ind = rnd.nextInt(params.POP_SIZE);
             while(tournament.contains(ind) && ind != p1idx)
             {
-                ind = m_rnd.nextInt(params.POP_SIZE);
+                ind = rnd.nextInt(params.POP_SIZE);
             }
             tournament.add(ind);
 
-            double indValue = noise(pop.get(ind).getValue(), params.epsilon, this.m_rnd.nextDouble());
+            double indValue = noise(pop.get(ind).getValue(), params.epsilon, rnd.nextDouble());
             if(indValue > bestScore)
             {
                 p2idx = ind;
@@ -240,14 +299,13 @@ public class RHEAAgent extends Agent {
         return new int[]{p1idx, p2idx};
     }
 
-    private Genome newIndividual(GameState state){
+    private Genome newIndividual(GameState state, GameState crossState, Random rnd){
 
         //The two parents to cross:
-        int[] parentsIdx = selection();
+        int[] parentsIdx = selection(rnd);
         ArrayList<Action> newIndividual = new ArrayList<>();
 
-        //Uniform crossover
-        GameState crossState = state.copy();
+        //Uniform crossover, from a copy of state
         int actIdx = 0;
 
         while(!crossState.isGameOver() && actIdx < params.INDIVIDUAL_LENGTH)
@@ -256,16 +314,16 @@ public class RHEAAgent extends Agent {
             boolean feasibleAction;
 
             //Let's see first if we are to mutate this gene.
-            boolean mutate = m_rnd.nextDouble() < params.MUTATION_RATE;
+            boolean mutate = rnd.nextDouble() < params.MUTATION_RATE;
             if(mutate)
             {
-                candidate = getRandomAction(crossState);
+                candidate = getRandomAction(crossState, rnd);
                 feasibleAction = true;
                 //System.out.println("mutated");
             }else
             {
                 //No mutation, crossover
-                boolean firstParent = m_rnd.nextDouble()<0.5;
+                boolean firstParent = rnd.nextDouble()<0.5;
                 Genome from = firstParent ? pop.get(parentsIdx[0]) : pop.get(parentsIdx[1]);
                 if(actIdx < from.getActions().size()) {
                     candidate = from.getActions().get(actIdx);
@@ -301,7 +359,7 @@ public class RHEAAgent extends Agent {
         int curSize = newIndividual.size();
         while(!crossState.isGameOver() && curSize < params.INDIVIDUAL_LENGTH)
         {
-            Action a = getRandomAction(crossState);
+            Action a = getRandomAction(crossState, rnd);
             advance(crossState, a, true);
             newIndividual.add(a);
 
@@ -309,7 +367,7 @@ public class RHEAAgent extends Agent {
         }
 
         Genome newInd = new Genome(newIndividual);
-        double score = heuristic.evaluateState(state, crossState);
+        double score = evaluate(state, crossState);
         newInd.setValue(score);
         return newInd;
     }
@@ -317,15 +375,50 @@ public class RHEAAgent extends Agent {
     private Genome mutate(Genome gen, GameState state){
 
         ArrayList<Action> newIndividual = new ArrayList<>();
-        GameState crossState = state.copy();
+        Genome newInd = new Genome(newIndividual);
+        newInd.startCheckpoints(state, params.CHECKPOINT_INTERVAL, params.MAX_CHECKPOINTS);
         int actIdx = 0;
 
+        //If gen has checkpoints, decide first which is the first gene to mutate. The genes before it are kept,
+        // so they don't need to be executed again up to the last checkpoint before it.
+        int firstMutation = -1;
+        if(gen.hasCheckpoints(state))
+        {
+            firstMutation = 0;
+            while(firstMutation < gen.getActions().size() && m_rnd.nextDouble() >= params.MUTATION_RATE)
+                firstMutation++;
+            actIdx = gen.lastCheckpoint(firstMutation);
+        }
+
+        GameState crossState;
+        if(actIdx > 0)
+        {
+            crossState = gen.getCheckpoint(actIdx).copy();
+            newIndividual.addAll(gen.getActions().subList(0, actIdx));
+            newInd.copyCheckpoints(gen, actIdx);
+        }else
+        {
+            crossState = state.copy();
+        }
+
+        //Genes before the first mutation are kept while they're feasible.
+        if(firstMutation > actIdx)
+        {
+            int executed = replay(crossState, newInd, gen.getActions(), actIdx, firstMutation);
+            newIndividual.addAll(gen.getActions().subList(actIdx, actIdx + executed));
+            actIdx += executed;
+        }
+
         while(!crossState.isGameOver() && actIdx < gen.getActions().size())
         {
             Action candidate;
 
-            //Let's see first if we are to mutate this gene.
-            boolean mutate = m_rnd.nextDouble() < params.MUTATION_RATE;
+            //Let's see first if we are to mutate this gene (unless it's already decided).
+            boolean mutate;
+            if(actIdx > firstMutation)
+                mutate = m_rnd.nextDouble() < params.MUTATION_RATE;
+            else
+                mutate = actIdx == firstMutation;
             if(mutate)
             {
                 candidate = getRandomAction(crossState);
@@ -344,15 +437,44 @@ public class RHEAAgent extends Agent {
             advance(crossState, candidate, true);
             newIndividual.add(candidate);
             actIdx++;
+            newInd.addCheckpoint(actIdx, crossState);
         }
 
-        Genome newInd = new Genome(newIndividual);
-        double score = heuristic.evaluateState(state, crossState);
+        double score = evaluate(state, crossState);
         newInd.setValue(score);
 
         return newInd;
     }
 
+    /**
+     * Executes actions of a genome while they're feasible, taking the checkpoints of the genome on the way. The
+     * actions available are only computed at the checkpoints and after the last action executed.
+     * @param gs state to execute the actions in.
+     * @param genome genome that takes the checkpoints.
+     * @param actions actions of the genome.
+     * @param from index of the first action to execute, the number of actions executed to reach gs.
+     * @param to index after the last action to execute.
+     * @return number of actions executed.
+     */
+    private int replay(GameState gs, Genome genome, List<Action> actions, int from, int to)
+    {
+        int idx = from;
+        boolean feasible = true;
+        while(feasible && idx < to)
+        {
+            int end = to;
+            if(params.CHECKPOINT_INTERVAL > 0)
+                end = Math.min(to, (idx / params.CHECKPOINT_INTERVAL + 1) * params.CHECKPOINT_INTERVAL);
+
+            int executed = gs.advanceAll(actions.subList(idx, end), true);
+            fmcalls.addAndGet(executed);
+            idx += executed;
+            feasible = idx == end;
+            genome.addCheckpoint(idx, gs);
+        }
+        return idx - from;
+    }
+
     private boolean checkActionFeasibility(Action a, GameState gs)
     {
         if(gs.isGameOver())
@@ -382,10 +504,32 @@ public class RHEAAgent extends Agent {
         return feasible;
     }
 
+    /**
+     * Evaluates the state reached by an individual. Individuals that reach the same state through different
+     * sequences of actions (i.e. the same moves in a different order) share its value.
+     * @param root state the individual starts from, the one received in act().
+     * @param state state reached after executing the actions of the individual.
+     * @return value of the state.
+     */
+    private double evaluate(GameState root, GameState state)
+    {
+        if(evaluations == null)
+            return heuristic.evaluateState(root, state);
+
+        long key = rootKey ^ state.getHash();
+        Double value = evaluations.get(key);
+        if(value == null)
+        {
+            value = heuristic.evaluateState(root, state);
+            evaluations.put(key, value);
+        }
+        return value;
+    }
+
     private void advance(GameState gs, Action act, boolean computeActions)
     {
         gs.advance(act, computeActions);
-        fmcalls++;
+        fmcalls.incrementAndGet();
     }
 
     private double noise(double input, double epsilon, double random)
@@ -393,6 +537,19 @@ public class RHEAAgent extends Agent {
         return (input + epsilon) * (1.0 + epsilon * (random - 0.5));
     }
 
+    /**
+     * Shuts down the threads of this agent, if it has any, at the end of the game. They are created again if the
+     * agent plays another game.
+     */
+    @Override
+    public void result(GameState gs, double reward) {
+        if(pool != null)
+        {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
     @Override
     public Agent copy() {
         return null;
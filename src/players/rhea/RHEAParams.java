@@ -11,6 +11,14 @@ public class RHEAParams extends AlgParams {
     public int MUTATE_BEST = 9;
     public boolean ELITISM = true;
 
+    // Checkpoints of the states reached by the best individuals, every CHECKPOINT_INTERVAL actions (0 for none)
+    // and at most MAX_CHECKPOINTS per individual. Mutations resume from the last checkpoint before the first mutated gene.
+    public int CHECKPOINT_INTERVAL = 5;
+    public int MAX_CHECKPOINTS = 4;
+
+    // Number of threads that create and evaluate the individuals of each new generation.
+    public int NUM_THREADS = 1;
+
     public void print() {
         System.out.println("RHEA Params:");
         System.out.println("\tPop Size: " + POP_SIZE);
@@ -19,6 +27,8 @@ public class RHEAParams extends AlgParams {
         System.out.println("\tTournament Size: " + TOURNAMENT_SIZE);
         System.out.println("\tMutate best: " + MUTATE_BEST);
         System.out.println("\tElitism: " + ELITISM);
+        System.out.println("\tCheckpoint interval: " + CHECKPOINT_INTERVAL);
+        System.out.println("\tThreads: " + NUM_THREADS);
     }
 
 }
\ No newline at end of file
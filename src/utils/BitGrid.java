@@ -0,0 +1,160 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Square grid of booleans packed in a long[] bitset, position (x,y) being bit x*size+y. Copying a grid is a
+ * single array clone and counting the true positions a few Long.bitCount() calls.
+ * The grid also keeps a Zobrist-style hash of its true positions (see getHash()) up to date as they change.
+ * Grids can be shared between copies of their owners: a copy marks the grid as shared (see share()), and owners
+ * replace it with a copy of their own before modifying it.
+ */
+public class BitGrid
+{
+    private final int size;
+    private long[] bits;
+
+    //XOR of the keys of the true positions. Not valid after fill() until it's requested again.
+    private long hash;
+    private boolean hashValid = true;
+
+    //Indicates if this grid is shared between several owners (not copied by the copy constructor).
+    private boolean shared;
+
+    /**
+     * Creates a grid with all positions set to false.
+     * @param size side of the grid.
+     */
+    public BitGrid(int size)
+    {
+        this.size = size;
+        this.bits = new long[(size * size + 63) >>> 6];
+    }
+
+    /**
+     * Creates a copy of another grid.
+     * @param other grid to copy.
+     */
+    public BitGrid(BitGrid other)
+    {
+        this.size = other.size;
+        this.bits = other.bits.clone();
+        this.hash = other.hash;
+        this.hashValid = other.hashValid;
+    }
+
+    /**
+     * Creates a grid with the values of a boolean matrix.
+     * @param grid square matrix to copy.
+     */
+    public BitGrid(boolean[][] grid)
+    {
+        this(grid.length);
+        for(int x = 0; x < size; x++)
+            for(int y = 0; y < size; y++)
+                if(grid[x][y])
+                    set(x, y, true);
+    }
+
+    public int getSize()
+    {
+        return size;
+    }
+
+    public boolean get(int x, int y)
+    {
+        int idx = x * size + y;
+        return (bits[idx >>> 6] & (1L << idx)) != 0;
+    }
+
+    public void set(int x, int y, boolean value)
+    {
+        int idx = x * size + y;
+        long word = bits[idx >>> 6];
+        long mask = 1L << idx;
+        if(((word & mask) != 0) == value)
+            return;
+        bits[idx >>> 6] = word ^ mask;
+        if(hashValid)
+            hash ^= key(idx);
+    }
+
+    /**
+     * Sets all positions of the grid to the same value.
+     * @param value value to set.
+     */
+    public void fill(boolean value)
+    {
+        Arrays.fill(bits, value ? -1L : 0L);
+        int extra = bits.length * 64 - size * size;
+        if(value && extra > 0)
+            bits[bits.length - 1] >>>= extra;
+        hash = 0;
+        hashValid = !value;
+    }
+
+    /**
+     * Returns a Zobrist-style hash of the grid: the XOR of a pseudo-random key for each true position. Grids of
+     * the same size with the same values have the same hash, independently of the order they were set in.
+     * @return the hash of the grid.
+     */
+    public long getHash()
+    {
+        if(!hashValid)
+        {
+            hash = 0;
+            for(int idx = 0; idx < size * size; idx++)
+                if((bits[idx >>> 6] & (1L << idx)) != 0)
+                    hash ^= key(idx);
+            hashValid = true;
+        }
+        return hash;
+    }
+
+    /**
+     * Marks this grid as shared with a copy of its owner, which must not modify it any more.
+     */
+    public void share()
+    {
+        shared = true;
+    }
+
+    public boolean isShared()
+    {
+        return shared;
+    }
+
+    //Key of a position: finalizer of SplitMix64 applied to its index.
+    private static long key(int idx)
+    {
+        long z = (idx + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the number of positions set to true.
+     * @return the number of true positions.
+     */
+    public int count()
+    {
+        int count = 0;
+        for(long word : bits)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * Returns the values of this grid in a new boolean matrix.
+     * @return a size x size matrix.
+     */
+    public boolean[][] toArray()
+    {
+        boolean[][] grid = new boolean[size][size];
+        for(int x = 0; x < size; x++)
+            for(int y = 0; y < size; y++)
+                grid[x][y] = get(x, y);
+        return grid;
+    }
+}
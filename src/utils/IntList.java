@@ -0,0 +1,134 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints. Used for the lists of actor ids (cities of a tribe, units of a city...),
+ * which are read in every step of the forward model and copied with every game state, so they avoid
+ * boxing the ids and can be copied with a single array copy.
+ */
+public class IntList
+{
+    private int[] values;
+    private int size;
+
+    public IntList()
+    {
+        this(4);
+    }
+
+    public IntList(int capacity)
+    {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Creates a copy of another list.
+     * @param other list to copy.
+     */
+    public IntList(IntList other)
+    {
+        values = Arrays.copyOf(other.values, Math.max(1, other.size));
+        size = other.size;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value at a position of this list.
+     * @param index position of the value, from 0 to size()-1.
+     * @return the value.
+     */
+    public int get(int index)
+    {
+        if(index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return values[index];
+    }
+
+    public void add(int value)
+    {
+        if(size == values.length)
+            values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    public void addAll(IntList other)
+    {
+        for(int i = 0; i < other.size; i++)
+            add(other.values[i]);
+    }
+
+    /**
+     * Returns the position of the first occurrence of a value in this list.
+     * @param value value to look for.
+     * @return its position, -1 if it's not in the list.
+     */
+    public int indexOf(int value)
+    {
+        for(int i = 0; i < size; i++)
+            if(values[i] == value)
+                return i;
+        return -1;
+    }
+
+    public boolean contains(int value)
+    {
+        return indexOf(value) != -1;
+    }
+
+    /**
+     * Removes the value at a position of this list, shifting the following ones.
+     * @param index position of the value to remove.
+     * @return the value removed.
+     */
+    public int removeAt(int index)
+    {
+        int value = get(index);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Removes the first occurrence of a value from this list.
+     * @param value value to remove.
+     * @return true if the value was in the list.
+     */
+    public boolean removeValue(int value)
+    {
+        int index = indexOf(value);
+        if(index == -1)
+            return false;
+        removeAt(index);
+        return true;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Returns the values of this list in a new array.
+     * @return array with size() values.
+     */
+    public int[] toArray()
+    {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    }
+}
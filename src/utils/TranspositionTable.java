@@ -0,0 +1,133 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size table from 64 bit state hashes (see core.game.GameState.getHash()) to values, used by the agents to
+ * find states they have already seen through a different sequence of actions. Keys are stored in buckets of a few
+ * entries; when a bucket is full, the entry that was used least recently is evicted to make room for the new one.
+ * Methods are synchronized, so a table can be shared by several search threads.
+ * @param <V> type of the values stored.
+ */
+public class TranspositionTable<V>
+{
+    private static final int BUCKET_SIZE = 4;
+
+    private final long[] keys;
+    private final Object[] values;
+    private final int[] lastUsed;
+    private final int mask;
+    private int clock;
+    private int size;
+
+    /**
+     * Creates an empty table.
+     * @param capacity maximum number of entries of the table, rounded up to a power of two.
+     */
+    public TranspositionTable(int capacity)
+    {
+        int n = BUCKET_SIZE;
+        while(n < capacity)
+            n <<= 1;
+        keys = new long[n];
+        values = new Object[n];
+        lastUsed = new int[n];
+        mask = (n - 1) & ~(BUCKET_SIZE - 1);
+    }
+
+    /**
+     * Returns the value stored for a key.
+     * @param key hash of the state.
+     * @return the value, or null if the key is not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(long key)
+    {
+        int slot = find(key);
+        if(slot == -1)
+            return null;
+        lastUsed[slot] = ++clock;
+        return (V) values[slot];
+    }
+
+    /**
+     * Stores a value for a key, replacing the previous one if the key was already in the table.
+     * @param key hash of the state.
+     * @param value value to store, not null.
+     */
+    public synchronized void put(long key, V value)
+    {
+        int slot = find(key);
+        if(slot == -1)
+            slot = freeSlot(key);
+        keys[slot] = key;
+        values[slot] = value;
+        lastUsed[slot] = ++clock;
+    }
+
+    /**
+     * Stores a value for a key, unless the key is already in the table.
+     * @param key hash of the state.
+     * @param value value to store, not null.
+     * @return the value already stored for the key, or null if the given value has been stored.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V putIfAbsent(long key, V value)
+    {
+        int slot = find(key);
+        if(slot == -1)
+        {
+            slot = freeSlot(key);
+            keys[slot] = key;
+            values[slot] = value;
+            lastUsed[slot] = ++clock;
+            return null;
+        }
+        lastUsed[slot] = ++clock;
+        return (V) values[slot];
+    }
+
+    public synchronized void clear()
+    {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    private int bucket(long key)
+    {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    // Position of a key in the table, -1 if it's not there.
+    private int find(long key)
+    {
+        int start = bucket(key);
+        for(int i = start; i < start + BUCKET_SIZE; i++)
+            if(values[i] != null && keys[i] == key)
+                return i;
+        return -1;
+    }
+
+    // Position for a new key: an empty slot of its bucket, or the least recently used one.
+    private int freeSlot(long key)
+    {
+        int start = bucket(key);
+        int oldest = start;
+        for(int i = start; i < start + BUCKET_SIZE; i++)
+        {
+            if(values[i] == null)
+            {
+                size++;
+                return i;
+            }
+            if(lastUsed[i] - lastUsed[oldest] < 0)
+                oldest = i;
+        }
+        return oldest;
+    }
+}
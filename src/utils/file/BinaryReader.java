@@ -0,0 +1,116 @@
+package utils.file;
+
+import utils.BitGrid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads data written by a BinaryWriter. Files are memory-mapped, so they are not copied into the heap.
+ */
+public class BinaryReader
+{
+    private final ByteBuffer buffer;
+
+    public BinaryReader(ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates a reader for a file, mapping it in memory.
+     * @param path path to the file.
+     * @return the reader, positioned at the start of the file.
+     * @throws IOException if the file can't be read.
+     */
+    public static BinaryReader map(Path path) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            return new BinaryReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int readByte()
+    {
+        return buffer.get() & 0xFF;
+    }
+
+    public boolean readBoolean()
+    {
+        return buffer.get() != 0;
+    }
+
+    public int readInt()
+    {
+        return buffer.getInt();
+    }
+
+    public long readLong()
+    {
+        return buffer.getLong();
+    }
+
+    public int readVarInt()
+    {
+        int value = 0, shift = 0;
+        int b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+
+    public int readSignedVarInt()
+    {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a grid of booleans written with BinaryWriter.writeBits(), filling the grid given.
+     */
+    public void readBits(BitGrid grid)
+    {
+        int size = grid.getSize();
+        int current = 0, numBits = 8;
+        for(int x = 0; x < size; x++)
+        {
+            for(int y = 0; y < size; y++)
+            {
+                if(numBits == 8)
+                {
+                    current = readByte();
+                    numBits = 0;
+                }
+                grid.set(x, y, (current & (1 << numBits)) != 0);
+                numBits++;
+            }
+        }
+    }
+
+    public int position()
+    {
+        return buffer.position();
+    }
+
+    public void position(int position)
+    {
+        buffer.position(position);
+    }
+
+    public int limit()
+    {
+        return buffer.limit();
+    }
+
+    public boolean hasRemaining()
+    {
+        return buffer.hasRemaining();
+    }
+}
@@ -0,0 +1,160 @@
+package utils.file;
+
+import utils.BitGrid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes compact binary data to a buffer that grows as needed: integers are written as variable length
+ * quantities (7 bits per byte) and boolean grids are packed 8 cells per byte. The buffer is written to a file
+ * in a single pass through a file channel.
+ */
+public class BinaryWriter
+{
+    private ByteBuffer buffer;
+
+    public BinaryWriter(int initialCapacity)
+    {
+        buffer = ByteBuffer.allocate(Math.max(16, initialCapacity));
+    }
+
+    private void ensure(int bytes)
+    {
+        if(buffer.remaining() < bytes)
+        {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+    }
+
+    public void writeByte(int value)
+    {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    public void writeBoolean(boolean value)
+    {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeInt(int value)
+    {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    public void writeLong(long value)
+    {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes a non-negative integer, using one byte for values under 128, two under 16384, etc.
+     */
+    public void writeVarInt(int value)
+    {
+        ensure(5);
+        while((value & ~0x7F) != 0)
+        {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes an integer that may be negative (zig-zag encoded, so small negative values are short too).
+     */
+    public void writeSignedVarInt(int value)
+    {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes a grid of booleans, 8 cells per byte, row by row. Dimensions are not written.
+     */
+    public void writeBits(BitGrid grid)
+    {
+        int size = grid.getSize();
+        int current = 0, numBits = 0;
+        for(int x = 0; x < size; x++)
+        {
+            for(int y = 0; y < size; y++)
+            {
+                if(grid.get(x, y))
+                    current |= 1 << numBits;
+                if(++numBits == 8)
+                {
+                    writeByte(current);
+                    current = 0;
+                    numBits = 0;
+                }
+            }
+        }
+        if(numBits > 0)
+            writeByte(current);
+    }
+
+    /**
+     * Writes all data written to another writer.
+     */
+    public void write(BinaryWriter other)
+    {
+        ByteBuffer data = other.buffer.duplicate();
+        data.flip();
+        ensure(data.remaining());
+        buffer.put(data);
+    }
+
+    /**
+     * Discards all data written so far, so the writer can be reused.
+     */
+    public void clear()
+    {
+        buffer.clear();
+    }
+
+    /**
+     * Number of bytes written so far.
+     */
+    public int size()
+    {
+        return buffer.position();
+    }
+
+    /**
+     * Writes all data to a file, replacing its contents.
+     * @param path path to the file.
+     * @throws IOException if the file can't be written.
+     */
+    public void writeTo(Path path) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            writeTo(channel);
+        }
+    }
+
+    /**
+     * Writes all data to a channel (e.g. a file open for appending), which is not closed.
+     * @param channel channel to write to.
+     * @throws IOException if the data can't be written.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException
+    {
+        ByteBuffer data = buffer.duplicate();
+        data.flip();
+        while(data.hasRemaining())
+            channel.write(data);
+    }
+}
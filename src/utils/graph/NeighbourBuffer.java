@@ -0,0 +1,49 @@
+package utils.graph;
+
+import java.util.Arrays;
+
+/**
+ * Reusable list of neighbours (position and step cost) filled by a NeighbourHelper during a search.
+ * It avoids allocating PathNode and Vector2d objects for every tile expanded by the Pathfinder.
+ */
+public class NeighbourBuffer
+{
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+    private double[] stepCosts = new double[16];
+    private int size;
+
+    /**
+     * Removes all neighbours from this buffer.
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Adds a neighbour to this buffer.
+     * @param x x coordinate of the neighbour
+     * @param y y coordinate of the neighbour
+     * @param stepCost cost of moving to this neighbour from the node being expanded.
+     */
+    public void add(int x, int y, double stepCost)
+    {
+        if(size == xs.length)
+        {
+            int capacity = size * 2;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            stepCosts = Arrays.copyOf(stepCosts, capacity);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        stepCosts[size] = stepCost;
+        size++;
+    }
+
+    public int size() {return size;}
+    public int getX(int i) {return xs[i];}
+    public int getY(int i) {return ys[i];}
+    public double getStepCost(int i) {return stepCosts[i];}
+}
@@ -14,6 +14,28 @@ public interface NeighbourHelper
      */
     ArrayList<PathNode> getNeighbours(Vector2d from, double costFrom);
 
+    /**
+     * Adds the nodes adjacent to (x,y) to a buffer. This is the method used by Pathfinder during the searches.
+     * By default, it relies on getNeighbours(Vector2d, double), but implementations should override it to
+     * avoid creating objects for each expanded node.
+     * @param x x coordinate of the position to find adjacent nodes of.
+     * @param y y coordinate of the position to find adjacent nodes of.
+     * @param costFrom Accummulated cost up to (x,y)
+     * @param neighbours buffer where the adjacent nodes are added to. Its content is cleared by the caller.
+     */
+    default void getNeighbours(int x, int y, double costFrom, NeighbourBuffer neighbours)
+    {
+        for(PathNode node : getNeighbours(new Vector2d(x, y), costFrom))
+            neighbours.add(node.getX(), node.getY(), node.getTotalCost());
+    }
+
+    /**
+     * Returns the size of the side of the (square) grid this helper provides neighbours in. Positions
+     * are in the range [0, size).
+     * @return the size of the grid.
+     */
+    int getGridSize();
+
     /**
      * Adds a jump link from 'from' to 'to'
      * @param from start of the jump link
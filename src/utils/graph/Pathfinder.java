@@ -1,19 +1,22 @@
 package utils.graph;
 
+import utils.IntList;
 import utils.Vector2d;
 
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.PriorityQueue;
 
 /**
  * Created by dperez on 13/01/16.
+ * Searches run on a SearchWorkspace: nodes are indexed by x*size+y (size given by the NeighbourHelper) and
+ * PathNode objects are only created for the results.
  */
 public class Pathfinder
 {
     public PathNode root;
     private NeighbourHelper provider;
 
+    //Nodes returned by the last search, plus the root.
     public HashSet<PathNode> nodes;
 
     public Pathfinder(Vector2d rootPos, NeighbourHelper provider)
@@ -23,24 +26,71 @@ public class Pathfinder
     }
 
 
-    private ArrayList<PathNode> calculatePath(PathNode node)
+    private ArrayList<PathNode> calculatePath(SearchWorkspace ws, int goal, int size)
     {
         ArrayList<PathNode> path = new ArrayList<>();
-        while(node != null)
+        int rootIdx = root.getX() * size + root.getY();
+        int node = goal;
+        while(node != rootIdx) //to avoid adding the start node.
         {
-            if(node.getParent() != null) //to avoid adding the start node.
-            {
-                path.add(0,node);
-            }
-            node = node.getParent();
+            path.add(new PathNode(node / size, node % size, ws.cost[node]));
+            node = ws.parent[node];
         }
+
+        //Nodes are collected from the goal. Reverse and link them.
+        int n = path.size();
+        for(int i = 0; i < n / 2; ++i)
+        {
+            PathNode tmp = path.get(i);
+            path.set(i, path.get(n - 1 - i));
+            path.set(n - 1 - i, tmp);
+        }
+        for(int i = 0; i < n; ++i)
+            path.get(i).setParent(i == 0 ? root : path.get(i - 1));
+
         return path;
     }
 
     //Dijkstraa to all possible destinations. Returns nodes of all destinations.
     public ArrayList<PathNode> findPaths()
     {
-        return _dijkstra();
+        NeighbourBuffer destinations = new NeighbourBuffer();
+        findDestinations(destinations);
+
+        ArrayList<PathNode> destinationsFromStart = new ArrayList<>(destinations.size());
+        for(int i = 0; i < destinations.size(); ++i)
+        {
+            PathNode destination = new PathNode(destinations.getX(i), destinations.getY(i), destinations.getStepCost(i));
+            destination.setVisited(true);
+            destinationsFromStart.add(destination);
+        }
+
+        nodes = new HashSet<>(destinationsFromStart);
+        nodes.add(root);
+        return destinationsFromStart;
+    }
+
+    /**
+     * Dijkstra to all possible destinations, without creating PathNode objects for them (see findPaths()).
+     * @param destinations buffer to fill with the position and total cost from the root of each destination,
+     *                     in the order they are reached. Its previous contents are removed.
+     */
+    public void findDestinations(NeighbourBuffer destinations)
+    {
+        destinations.clear();
+        _dijkstra(destinations, null);
+    }
+
+    /**
+     * Dijkstra to all possible destinations, keeping the cost and previous tile of each one.
+     * @return the destinations reachable from the root.
+     */
+    public Reachability findReachability()
+    {
+        NeighbourBuffer destinations = new NeighbourBuffer();
+        IntList parents = new IntList();
+        _dijkstra(destinations, parents);
+        return new Reachability(provider.getGridSize(), destinations, parents);
     }
 
     //A* to destination
@@ -50,173 +100,110 @@ public class Pathfinder
     }
 
 
-    private ArrayList<PathNode> _dijkstra()
+    private void _dijkstra(NeighbourBuffer destinations, IntList parents)
     {
-        nodes = new HashSet<>();
+        int size = provider.getGridSize();
+        SearchWorkspace ws = SearchWorkspace.acquire(size * size);
+        NeighbourBuffer neighbours = ws.neighbours;
 
         root.setVisited(true);
         root.setTotalCost(0.0);
 
-        ArrayList<PathNode> destinationsFromStart = new ArrayList<>();
-        PathNode node;
-
-        PriorityQueue<PathNode> openList = new PriorityQueue<>();
-        HashSet<PathNode> visited = new HashSet<>();
-        visited.add(root);
-        openList.add(root);
-        nodes.add(root);
+        int rootIdx = root.getX() * size + root.getY();
+        ws.reach(rootIdx, 0.0, 0.0, -1);
 
-        while (openList.size() != 0)
+        while (!ws.isOpenEmpty())
         {
-            node = openList.poll();
-            //nodes.add(node);
-//            System.out.println("Remaining in list: " + openList.size());
-
-            if (!destinationsFromStart.contains(node) && (node != root))
-            {
-                destinationsFromStart.add(node);
-            }
-
-            ArrayList<PathNode> neighbours = provider.getNeighbours(node.getPosition(), node.getTotalCost());
-            for (PathNode nb : neighbours) {
-                double nbCost = nb.getTotalCost();
-
-                boolean inCache = false;
-
-                PathNode neighbour = null;
-                if (nodes != null) {
-                    for (PathNode n2 : nodes) {
-                        if (nb.equals(n2)) {
-                            neighbour = n2;
-                            inCache = true;
-                            break;
-                        }
-                    }
-                }
-                if (neighbour == null) {
-                    neighbour = nb;  // Node was not found in cache
-                }
-
-                if (!visited.contains(neighbour)) {
-                    neighbour.setVisited(true);
-                    visited.add(neighbour);
-                    neighbour.setTotalCost(nbCost + node.getTotalCost());
-                    openList.add(neighbour);
-                    nodes.add(neighbour);
-                } else if (nbCost + node.getTotalCost() < neighbour.getTotalCost()) {
-                    neighbour.setTotalCost(nbCost + node.getTotalCost());
+            int node = ws.poll();
+            ws.close(node);
+            int x = node / size, y = node % size;
+            double nodeCost = ws.cost[node];
+
+            neighbours.clear();
+            provider.getNeighbours(x, y, nodeCost, neighbours);
+            for (int i = 0; i < neighbours.size(); ++i) {
+                int nb = neighbours.getX(i) * size + neighbours.getY(i);
+                double nbCost = nodeCost + neighbours.getStepCost(i);
+
+                //A cheaper path to a node already reached only updates its cost: it's not moved in the open list, or
+                // expanded again if it was closed. This is what this search always did, and keeps the destinations
+                // (and the moves of the units) in the same order.
+                if (!ws.isReached(nb)) {
+                    ws.reach(nb, nbCost, nbCost, node);
+                } else if (nbCost < ws.cost[nb]) {
+                    ws.set(nb, nbCost, nbCost, node);
                 }
             }
         }
 
-        return destinationsFromStart;
+        //Destinations in the order they were closed, with the cost they have at the end of the search.
+        for (int i = 0; i < ws.getNumClosed(); ++i)
+        {
+            int node = ws.getClosed(i);
+            if (node != rootIdx)
+            {
+                destinations.add(node / size, node % size, ws.cost[node]);
+                if (parents != null)
+                    parents.add(ws.parent[node]);
+            }
+        }
+        ws.release();
     }
 
     private ArrayList<PathNode> _findPath(PathNode goal)
     {
-        // TODO this method repeats calculations that are already done in _dijsktra above, could be made a lot more
-        // efficient to avoid re-calculating neighbours
-
-        nodes = new HashSet<>();
-        PathNode node = null;
-        PriorityQueue<PathNode> openList = new PriorityQueue<>();
-        PriorityQueue<PathNode> closedList = new PriorityQueue<>();
+        int size = provider.getGridSize();
+        SearchWorkspace ws = SearchWorkspace.acquire(size * size);
+        NeighbourBuffer neighbours = ws.neighbours;
+        int goalIdx = goal.getX() * size + goal.getY();
+        ArrayList<PathNode> path = null;
 
         root.setTotalCost(0.0);
-        double dist = Vector2d.chebychevDistance(root.getPosition(), goal.getPosition());
+        double dist = chebychevDistance(root.getX(), root.getY(), goal);
         root.setEstimatedCost(dist);
-        openList.add(root);
-        nodes.add(root);
+        ws.reach(root.getX() * size + root.getY(), 0.0, dist, -1);
 
-        while(openList.size() != 0)
+        while(!ws.isOpenEmpty())
         {
-            node = openList.poll();
-            //nodes.add(node);
-            closedList.add(node);
-
-            if(node.getX() == goal.getX() && node.getY() == goal.getY())
-                return calculatePath(node);
-
-            ArrayList<PathNode> neighbours = provider.getNeighbours(node.getPosition(), node.getTotalCost());
-
-            for (PathNode nb : neighbours) {
-                // This neighbour is a new object, it will not have any of the costs set up
-                // use the cached nodes HashSet to find the correct object with the information available,
-                // only missing estimated distance
-                double nbCost = nb.getTotalCost();
-                boolean inCache = false;
-
-                PathNode neighbour = null;
-                if (nodes != null) {
-                    for (PathNode n2 : nodes) {
-                        if (nb.equals(n2)) {
-                            neighbour = n2;
-                            inCache = true;
-                            break;
-                        }
-                    }
-                }
-                if (neighbour == null) {
-                    neighbour = nb;  // Node was not found in cache
-                }
-
-                if (!openList.contains(neighbour) && !closedList.contains(neighbour)) {
-                    neighbour.setTotalCost(nbCost + node.getTotalCost());
-                    dist = Vector2d.chebychevDistance(neighbour.getPosition(), goal.getPosition());
-                    neighbour.setEstimatedCost(dist);
-                    neighbour.setParent(node);
-
-                    openList.add(neighbour);
-                    nodes.add(neighbour);
+            int node = ws.poll();
+            ws.close(node);
 
-                } else if (nbCost + node.getTotalCost() < neighbour.getTotalCost()) {
-                    neighbour.setTotalCost(nbCost + node.getTotalCost());
-                    neighbour.setParent(node);
-
-                    openList.remove(neighbour);
-                    closedList.remove(neighbour);
+            if(node == goalIdx)
+            {
+                path = calculatePath(ws, node, size);
+                break;
+            }
 
-                    openList.add(neighbour);
+            double nodeCost = ws.cost[node];
+            neighbours.clear();
+            provider.getNeighbours(node / size, node % size, nodeCost, neighbours);
+
+            for (int i = 0; i < neighbours.size(); ++i) {
+                int nbX = neighbours.getX(i), nbY = neighbours.getY(i);
+                int nb = nbX * size + nbY;
+                double nbCost = nodeCost + neighbours.getStepCost(i);
+
+                if (!ws.isReached(nb)) {
+                    ws.reach(nb, nbCost, nbCost + chebychevDistance(nbX, nbY, goal), node);
+                } else if (nbCost < ws.cost[nb]) {
+                    //Cheaper path to a node already reached: add it again to the open list (opening it again if it
+                    // was closed). The priority is the one it had, with the new cost.
+                    ws.reopen(nb, nbCost, nbCost + chebychevDistance(nbX, nbY, goal), node);
                 }
             }
-
         }
+        ws.release();
 
-        if(node == null || node.getX() != goal.getX() || node.getY() != goal.getY()) //not the goal
-            return null;
-
-        return calculatePath(node);
-
+        nodes = new HashSet<>();
+        nodes.add(root);
+        if(path != null)
+            nodes.addAll(path);
+        return path;
     }
 
+    private static double chebychevDistance(int x, int y, PathNode goal)
+    {
+        return Math.max(Math.abs(x - goal.getX()), Math.abs(y - goal.getY()));
+    }
 
-
-
-//    public void printPath(int pathId, ArrayList<Node> nodes)
-//    {
-//        if(nodes == null)
-//        {
-//            System.out.println("No Path");
-//            return;
-//        }
-//
-//        int[][] endsIds =  new int[2][2];
-//
-//        int org =  pathId / 10000;
-//        int dest = pathId % 10000;
-//
-//        endsIds[0] = new int[]{org/100 , org%100};
-//        endsIds[1] = new int[]{dest/100 , dest%100};
-//
-//        String ends = "(" + endsIds[0][0] + "," + endsIds[0][1] + ") -> ("
-//                + endsIds[1][0] + "," + endsIds[1][1] + ")";
-//
-//
-//        System.out.print("Path " + ends + "; ("+ nodes.size() + "): ");
-//        for(Node n : nodes)
-//        {
-//            System.out.print(n.getX() + ":" + n.getY() + ", ");
-//        }
-//        System.out.println();
-//    }
 }
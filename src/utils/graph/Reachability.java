@@ -0,0 +1,66 @@
+package utils.graph;
+
+import utils.BitGrid;
+import utils.IntList;
+
+/**
+ * Tiles that can be reached from a position, as found by a Dijkstra search from it (see
+ * Pathfinder.findReachability()): total cost of reaching each one and the previous tile in its path.
+ * Reachabilities are never modified once created, so they can be shared by several game states.
+ */
+public class Reachability
+{
+    private final int size;
+
+    //Destinations, in the order they were reached.
+    private final int[] xs, ys;
+    private final double[] costs;
+
+    //Previous tile in the path to each destination, as x*size+y.
+    private final int[] parents;
+
+    //Destinations, for constant time look up.
+    private final BitGrid reachable;
+
+    /**
+     * Creates the reachability of a search.
+     * @param size size of the grid searched.
+     * @param destinations position and total cost of each destination.
+     * @param parents previous tile of each destination, as x*size+y.
+     */
+    Reachability(int size, NeighbourBuffer destinations, IntList parents)
+    {
+        int n = destinations.size();
+        this.size = size;
+        xs = new int[n];
+        ys = new int[n];
+        costs = new double[n];
+        this.parents = parents.toArray();
+        reachable = new BitGrid(size);
+        for(int i = 0; i < n; ++i)
+        {
+            xs[i] = destinations.getX(i);
+            ys[i] = destinations.getY(i);
+            costs[i] = destinations.getStepCost(i);
+            reachable.set(xs[i], ys[i], true);
+        }
+    }
+
+    /**
+     * Checks if a tile can be reached. The origin of the search is not a destination.
+     * @param x x coordinate of the tile.
+     * @param y y coordinate of the tile.
+     * @return true if (x,y) can be reached.
+     */
+    public boolean canReach(int x, int y)
+    {
+        return x >= 0 && y >= 0 && x < size && y < size && reachable.get(x, y);
+    }
+
+    public int getNumDestinations() {return xs.length;}
+    public int getX(int i) {return xs[i];}
+    public int getY(int i) {return ys[i];}
+    public double getCost(int i) {return costs[i];}
+    public int getParentX(int i) {return parents[i] / size;}
+    public int getParentY(int i) {return parents[i] % size;}
+}
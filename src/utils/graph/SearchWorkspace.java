@@ -0,0 +1,224 @@
+package utils.graph;
+
+import java.util.Arrays;
+
+/**
+ * Storage for the searches run by Pathfinder. Nodes are indexed by x*size+y into primitive arrays, and the open
+ * list is an indexed binary heap. Arrays are reset lazily (a node's data is only valid if it was reached in the
+ * current search), so consecutive searches reuse the same workspace without clearing or allocating.
+ * Each thread has its own workspace.
+ *
+ * The heap works exactly as the java.util.PriorityQueue the searches used before (same sift operations, same
+ * removal of an arbitrary node), so nodes with equal priority are polled in the same order and searches return
+ * their results in the same order as they did. Agents pick moves by their index, so this order matters.
+ */
+final class SearchWorkspace
+{
+    private static final ThreadLocal<SearchWorkspace> WORKSPACES = ThreadLocal.withInitial(SearchWorkspace::new);
+
+    //Total cost from the root, priority in the open list (cost + heuristic) and parent of each node.
+    double[] cost = new double[0];
+    private double[] priority = new double[0];
+    int[] parent = new int[0];
+
+    //Search in which each node was reached and closed.
+    private int[] reachedIn = new int[0];
+    private int[] closedIn = new int[0];
+
+    //Nodes in the order they were closed in the current search.
+    private int[] closedOrder = new int[0];
+    private int numClosed;
+
+    //Open list: heap of node indices, and position of each node in the heap (-1 if it's not in it).
+    private int[] heap = new int[0];
+    private int[] heapPos = new int[0];
+    private int heapSize;
+
+    //Identifier of the current search.
+    private int search;
+
+    //Neighbours of the node being expanded.
+    final NeighbourBuffer neighbours = new NeighbourBuffer();
+
+    //Indicates if a search is using this workspace.
+    private boolean inUse;
+
+    /**
+     * Returns a workspace for a new search on this thread. The workspace must be released with release().
+     * @param numNodes number of nodes of the graph to search.
+     * @return a workspace ready to use.
+     */
+    static SearchWorkspace acquire(int numNodes)
+    {
+        SearchWorkspace ws = WORKSPACES.get();
+        if(ws.inUse)
+            ws = new SearchWorkspace(); //A search started from within another search. Rare, but must work.
+        ws.inUse = true;
+        ws.reset(numNodes);
+        return ws;
+    }
+
+    void release()
+    {
+        inUse = false;
+    }
+
+    private void reset(int numNodes)
+    {
+        if(cost.length < numNodes)
+        {
+            cost = new double[numNodes];
+            priority = new double[numNodes];
+            parent = new int[numNodes];
+            reachedIn = new int[numNodes];
+            closedIn = new int[numNodes];
+            heap = new int[numNodes];
+            heapPos = new int[numNodes];
+            closedOrder = new int[numNodes];
+            search = 0;
+        }
+
+        search++;
+        if(search == Integer.MAX_VALUE)
+        {
+            Arrays.fill(reachedIn, 0);
+            Arrays.fill(closedIn, 0);
+            search = 1;
+        }
+        heapSize = 0;
+        numClosed = 0;
+    }
+
+    boolean isReached(int node) { return reachedIn[node] == search; }
+    boolean isClosed(int node) { return closedIn[node] == search; }
+    boolean isOpenEmpty() { return heapSize == 0; }
+    int getNumClosed() { return numClosed; }
+    int getClosed(int i) { return closedOrder[i]; }
+
+    /**
+     * Closes a node, recording the order in which nodes are closed. Nodes closed again after being reopened
+     * are recorded again.
+     */
+    void close(int node)
+    {
+        closedIn[node] = search;
+        if(numClosed == closedOrder.length)
+            closedOrder = Arrays.copyOf(closedOrder, numClosed * 2 + 1);
+        closedOrder[numClosed++] = node;
+    }
+
+    /**
+     * Reaches a node for the first time in this search, and adds it to the open list.
+     */
+    void reach(int node, double nodeCost, double nodePriority, int nodeParent)
+    {
+        reachedIn[node] = search;
+        set(node, nodeCost, nodePriority, nodeParent);
+        add(node);
+    }
+
+    /**
+     * Sets the cost, priority and parent of a node that was already reached, without moving it in the open list
+     * (as modifying a node in a PriorityQueue did). If the node is open, the heap may not be ordered any more.
+     */
+    void set(int node, double nodeCost, double nodePriority, int nodeParent)
+    {
+        cost[node] = nodeCost;
+        parent[node] = nodeParent;
+        priority[node] = nodePriority;
+    }
+
+    /**
+     * Updates a node that was already reached with a cheaper cost: removes it from the open list (if it's there) and
+     * adds it again, opening it again if it was closed.
+     */
+    void reopen(int node, double nodeCost, double nodePriority, int nodeParent)
+    {
+        if(!isClosed(node))
+            removeAt(heapPos[node]);
+        closedIn[node] = 0;
+        set(node, nodeCost, nodePriority, nodeParent);
+        add(node);
+    }
+
+    private void add(int node)
+    {
+        heap[heapSize] = node;
+        heapPos[node] = heapSize;
+        heapSize++;
+        siftUp(heapPos[node]);
+    }
+
+    /**
+     * Removes the node in a position of the heap, replacing it with the last one (PriorityQueue.removeAt()).
+     */
+    private void removeAt(int pos)
+    {
+        int removed = heap[pos];
+        heapSize--;
+        if(heapSize != pos)
+        {
+            int moved = heap[heapSize];
+            heap[pos] = moved;
+            heapPos[moved] = pos;
+            siftDown(pos);
+            if(heap[pos] == moved)
+                siftUp(pos);
+        }
+        heapPos[removed] = -1;
+    }
+
+    /**
+     * Removes and returns the node with the lowest priority in the open list.
+     */
+    int poll()
+    {
+        int first = heap[0];
+        heapSize--;
+        if(heapSize > 0)
+        {
+            heap[0] = heap[heapSize];
+            heapPos[heap[0]] = 0;
+            siftDown(0);
+        }
+        heapPos[first] = -1;
+        return first;
+    }
+
+    private void siftUp(int pos)
+    {
+        int node = heap[pos];
+        while(pos > 0)
+        {
+            int parentPos = (pos - 1) >>> 1;
+            int parentNode = heap[parentPos];
+            if(priority[parentNode] <= priority[node])
+                break;
+            heap[pos] = parentNode;
+            heapPos[parentNode] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = node;
+        heapPos[node] = pos;
+    }
+
+    private void siftDown(int pos)
+    {
+        int node = heap[pos];
+        int half = heapSize >>> 1;
+        while(pos < half)
+        {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if(right < heapSize && priority[heap[right]] < priority[heap[child]])
+                child = right;
+            if(priority[node] <= priority[heap[child]])
+                break;
+            heap[pos] = heap[child];
+            heapPos[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = node;
+        heapPos[node] = pos;
+    }
+}